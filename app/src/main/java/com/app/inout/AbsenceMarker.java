@@ -0,0 +1,112 @@
+package com.inout.app.models;
+
+import com.google.firebase.firestore.IgnoreExtraProperties;
+import com.google.firebase.firestore.PropertyName;
+
+/**
+ * A materialized absence: an approved employee with no attendance record on a day they were
+ * scheduled to work. Written nightly by AbsenceMarkerWorker under 'absences', with the document
+ * ID employeeId_date so reruns overwrite instead of duplicating.
+ * Absence counts become equality queries, e.g. employeeId + month.
+ */
+@IgnoreExtraProperties
+public class AbsenceMarker {
+
+    public static final String COLLECTION = "absences";
+
+    private String employeeId;
+    private String uid;
+    private String date;        // yyyy-MM-dd
+    private String month;       // yyyy-MM, for monthly summaries
+    private String locationId;  // Assigned site on that day
+    private String assignedShift;
+    private long createdAt;
+
+    public AbsenceMarker() {
+        // Default constructor required for Firestore
+    }
+
+    public AbsenceMarker(User user, String date, String assignedShift, long createdAt) {
+        this.employeeId = user.getEmployeeId();
+        this.uid = user.getUid();
+        this.date = date;
+        this.month = date.substring(0, 7);
+        this.locationId = user.getAssignedLocationId();
+        this.assignedShift = assignedShift;
+        this.createdAt = createdAt;
+    }
+
+    public static String documentId(String employeeId, String date) {
+        return employeeId + "_" + date;
+    }
+
+    @PropertyName("employeeId")
+    public String getEmployeeId() {
+        return employeeId;
+    }
+
+    @PropertyName("employeeId")
+    public void setEmployeeId(String employeeId) {
+        this.employeeId = employeeId;
+    }
+
+    @PropertyName("uid")
+    public String getUid() {
+        return uid;
+    }
+
+    @PropertyName("uid")
+    public void setUid(String uid) {
+        this.uid = uid;
+    }
+
+    @PropertyName("date")
+    public String getDate() {
+        return date;
+    }
+
+    @PropertyName("date")
+    public void setDate(String date) {
+        this.date = date;
+    }
+
+    @PropertyName("month")
+    public String getMonth() {
+        return month;
+    }
+
+    @PropertyName("month")
+    public void setMonth(String month) {
+        this.month = month;
+    }
+
+    @PropertyName("locationId")
+    public String getLocationId() {
+        return locationId;
+    }
+
+    @PropertyName("locationId")
+    public void setLocationId(String locationId) {
+        this.locationId = locationId;
+    }
+
+    @PropertyName("assignedShift")
+    public String getAssignedShift() {
+        return assignedShift;
+    }
+
+    @PropertyName("assignedShift")
+    public void setAssignedShift(String assignedShift) {
+        this.assignedShift = assignedShift;
+    }
+
+    @PropertyName("createdAt")
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    @PropertyName("createdAt")
+    public void setCreatedAt(long createdAt) {
+        this.createdAt = createdAt;
+    }
+}
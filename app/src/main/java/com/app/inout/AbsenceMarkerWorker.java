@@ -0,0 +1,244 @@
+package com.inout.app.utils;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.WriteBatch;
+import com.inout.app.models.AbsenceMarker;
+import com.inout.app.models.CompanyConfig;
+import com.inout.app.models.Holiday;
+import com.inout.app.models.Roster;
+import com.inout.app.models.ShiftTemplate;
+import com.inout.app.models.User;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Nightly job (admin devices only) that writes an {@link AbsenceMarker} for every approved
+ * employee with no attendance record on a day they were scheduled to work: a regular day in
+ * the company calendar and a working day in their roster.
+ *
+ * Each run reconciles the trailing week, not just the day that has ended, so a device that was
+ * off for a few nights catches up and markers that went stale after their night are corrected:
+ * an employee who has since got a record (e.g. a back-dated record or a late kiosk sync) or whose
+ * day became a day off (e.g. a newly added holiday) loses the marker, as does anyone no longer
+ * approved. Days before an employee's approval date are never marked. Runs are idempotent:
+ * markers have fixed IDs, and a day already in line with its records costs two reads and no writes.
+ */
+public class AbsenceMarkerWorker extends Worker {
+
+    private static final String TAG = "AbsenceMarkerWorker";
+    private static final String UNIQUE_WORK_NAME = "absence_materialization";
+
+    // Runs after midnight, once the day being materialized is over
+    private static final LocalTime RUN_AT = LocalTime.of(1, 30);
+    private static final int RECONCILE_DAYS = 7;
+    private static final long FIREBASE_WAIT_MS = 10000;
+    private static final int MAX_BATCH_WRITES = 450; // Firestore allows 500 per batch
+
+    public AbsenceMarkerWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Schedules the nightly run if it is not already scheduled.
+     */
+    public static void schedule(Context context) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime next = now.toLocalDate().atTime(RUN_AT);
+        if (!next.isAfter(now)) next = next.plusDays(1);
+
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .build();
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(AbsenceMarkerWorker.class, 1, TimeUnit.DAYS)
+                .setInitialDelay(Duration.between(now, next).toMinutes(), TimeUnit.MINUTES)
+                .setConstraints(constraints)
+                .build();
+        WorkManager.getInstance(context)
+                .enqueueUniquePeriodicWork(UNIQUE_WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    public static void cancel(Context context) {
+        WorkManager.getInstance(context).cancelUniqueWork(UNIQUE_WORK_NAME);
+    }
+
+    /**
+     * Everyone absent on a date ("yyyy-MM-dd").
+     */
+    private static Query dateQuery(FirebaseFirestore db, String date) {
+        return db.collection(AbsenceMarker.COLLECTION).whereEqualTo("date", date);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        Context context = getApplicationContext();
+        StartupOrchestrator.getInstance().await(StartupOrchestrator.STAGE_FIREBASE, FIREBASE_WAIT_MS);
+        if (FirebaseApp.getApps(context).isEmpty()
+                || FirebaseAuth.getInstance().getCurrentUser() == null
+                || !"admin".equals(EncryptionHelper.getInstance(context).getUserRole())) {
+            return Result.success();
+        }
+
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        LocalDate from = yesterday.minusDays(RECONCILE_DAYS - 1);
+
+        try {
+            FirebaseFirestore db = FirebaseFirestore.getInstance();
+            Inputs inputs = loadInputs(db);
+            for (LocalDate date = from; !date.isAfter(yesterday); date = date.plusDays(1)) {
+                int written = materialize(db, inputs, date);
+                Log.d(TAG, date + ": " + written + " absence markers written or removed");
+            }
+            return Result.success();
+        } catch (Exception e) {
+            Log.e(TAG, "Absence materialization failed", e);
+            return Result.retry();
+        }
+    }
+
+    /**
+     * Employees plus the compiled roster and calendar, read once per run.
+     */
+    private static final class Inputs {
+        final List<User> employees;
+        final ShiftSchedule schedule;
+        final CompanyCalendar calendar;
+
+        Inputs(List<User> employees, ShiftSchedule schedule, CompanyCalendar calendar) {
+            this.employees = employees;
+            this.schedule = schedule;
+            this.calendar = calendar;
+        }
+    }
+
+    private Inputs loadInputs(FirebaseFirestore db) throws Exception {
+        List<User> employees = Tasks.await(db.collection("users")
+                .whereEqualTo("role", "employee")
+                .whereEqualTo("approved", true)
+                .get()).toObjects(User.class);
+
+        List<ShiftTemplate> templates = new ArrayList<>();
+        for (DocumentSnapshot doc : Tasks.await(db.collection(ShiftCatalog.TEMPLATES_COLLECTION).get())) {
+            ShiftTemplate template = doc.toObject(ShiftTemplate.class);
+            if (template != null) {
+                template.setId(doc.getId());
+                templates.add(template);
+            }
+        }
+        List<Roster> rosters = new ArrayList<>();
+        for (DocumentSnapshot doc : Tasks.await(db.collection(ShiftCatalog.ROSTERS_COLLECTION).get())) {
+            Roster roster = doc.toObject(Roster.class);
+            if (roster != null) {
+                roster.setId(doc.getId());
+                rosters.add(roster);
+            }
+        }
+        List<CompanyConfig> sites = new ArrayList<>();
+        for (DocumentSnapshot doc : Tasks.await(db.collection(CalendarCatalog.LOCATIONS_COLLECTION).get())) {
+            CompanyConfig site = doc.toObject(CompanyConfig.class);
+            if (site != null) {
+                site.setId(doc.getId());
+                sites.add(site);
+            }
+        }
+        List<Holiday> holidays = Tasks.await(db.collection(CalendarCatalog.HOLIDAYS_COLLECTION).get())
+                .toObjects(Holiday.class);
+
+        ShiftSchedule schedule = new ShiftSchedule(templates, rosters);
+        for (String problem : schedule.getProblems()) Log.w(TAG, problem);
+        return new Inputs(employees, schedule, new CompanyCalendar(sites, holidays));
+    }
+
+    /**
+     * Brings the markers for one day in line with its attendance records.
+     * @return Markers written plus stale markers deleted.
+     */
+    private int materialize(FirebaseFirestore db, Inputs inputs, LocalDate date) throws Exception {
+        String dateId = date.toString();
+        Set<String> present = new HashSet<>();
+        for (DocumentSnapshot doc : Tasks.await(db.collection("attendance").whereEqualTo("date", dateId).get())) {
+            String employeeId = doc.getString("employeeId");
+            if (employeeId != null) present.add(employeeId);
+        }
+        Set<String> marked = new HashSet<>();
+        for (DocumentSnapshot doc : Tasks.await(dateQuery(db, dateId).get())) {
+            marked.add(doc.getId());
+        }
+
+        int year = date.getYear();
+        int month = date.getMonthValue();
+        int day = date.getDayOfMonth();
+        long now = TimeUtils.getCurrentTimestamp();
+
+        WriteBatch batch = db.batch();
+        int inBatch = 0;
+        int changes = 0;
+        for (User user : inputs.employees) {
+            if (user.getEmployeeId() == null) continue;
+            String markerId = AbsenceMarker.documentId(user.getEmployeeId(), dateId);
+            // Removed from the set, whatever remains belongs to employees no longer approved
+            boolean hasMarker = marked.remove(markerId);
+            ShiftSchedule.Month roster = inputs.schedule.monthFor(user, year, month);
+            // Nobody is absent before they were approved (approvedAt 0: approved before it was recorded)
+            boolean employed = user.getApprovedAt() == 0
+                    || !date.isBefore(Instant.ofEpochMilli(user.getApprovedAt()).atZone(ZoneId.systemDefault()).toLocalDate());
+            boolean scheduled = employed && roster.isWorkingDay(day)
+                    && inputs.calendar.monthFor(user.getAssignedLocationId(), year, month).dayType(day) == CompanyCalendar.REGULAR;
+            boolean absent = scheduled && !present.contains(user.getEmployeeId());
+
+            if (absent && !hasMarker) {
+                ShiftSchedule.Shift shift = roster.shiftOn(day);
+                batch.set(db.collection(AbsenceMarker.COLLECTION).document(markerId),
+                        new AbsenceMarker(user, dateId, shift != null ? shift.label : null, now));
+            } else if (!absent && hasMarker) {
+                batch.delete(db.collection(AbsenceMarker.COLLECTION).document(markerId));
+            } else {
+                continue;
+            }
+            changes++;
+            if (++inBatch == MAX_BATCH_WRITES) {
+                Tasks.await(batch.commit());
+                batch = db.batch();
+                inBatch = 0;
+            }
+        }
+        for (String orphanId : marked) {
+            batch.delete(db.collection(AbsenceMarker.COLLECTION).document(orphanId));
+            changes++;
+            if (++inBatch == MAX_BATCH_WRITES) {
+                Tasks.await(batch.commit());
+                batch = db.batch();
+                inBatch = 0;
+            }
+        }
+        if (inBatch > 0) Tasks.await(batch.commit());
+        return changes;
+    }
+}
@@ -0,0 +1,232 @@
+package com.inout.app;
+
+import android.graphics.Color;
+import android.os.Bundle;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.AdapterView;
+import android.widget.ArrayAdapter;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.fragment.app.Fragment;
+
+import com.inout.app.databinding.FragmentAdminAnalyticsBinding;
+import com.inout.app.models.CompanyConfig;
+import com.inout.app.utils.AnalyticsTracker;
+import com.inout.app.utils.AttendanceAnalytics;
+import com.inout.app.utils.CalendarCatalog;
+
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Admin analytics: attendance rate, average check-in, late starts and overtime over rolling
+ * 7/30/90-day windows, weekly trend charts and a per-site breakdown.
+ * Reports are computed off the main thread by AnalyticsTracker; this screen only renders them.
+ */
+public class AdminAnalyticsFragment extends Fragment {
+
+    private static final DateTimeFormatter WEEK_LABEL = DateTimeFormatter.ofPattern("d MMM", Locale.US);
+    private static final DateTimeFormatter AS_OF = DateTimeFormatter.ofPattern("EEE, d MMM yyyy", Locale.US);
+
+    private FragmentAdminAnalyticsBinding binding;
+    private AttendanceAnalytics.Report report;
+    // Spinner position -> site ID; position 0 is every site
+    private final List<String> spinnerSiteIds = new ArrayList<>();
+    private ArrayAdapter<String> spinnerAdapter;
+    private int windowIndex = 1;    // Index into AttendanceAnalytics.WINDOW_DAYS (30 days)
+
+    private final AnalyticsTracker.ReportListener reportListener = new AnalyticsTracker.ReportListener() {
+        @Override
+        public void onReport(AttendanceAnalytics.Report report) {
+            showReport(report);
+        }
+
+        @Override
+        public void onFailed() {
+            showLoadError();
+        }
+    };
+    private final Runnable sitesListener = this::refreshSiteSpinner;
+
+    @Override
+    public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
+        binding = FragmentAdminAnalyticsBinding.inflate(inflater, container, false);
+        return binding.getRoot();
+    }
+
+    @Override
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+
+        setupSpinner();
+        setupWindowToggle();
+        binding.chartLateness.setBarColor(Color.parseColor("#EF6C00"));
+
+        binding.progressBar.setVisibility(View.VISIBLE);
+        // Site names for the spinner and the breakdown
+        CalendarCatalog.getInstance().addListener(sitesListener);
+        refreshSiteSpinner();
+        AnalyticsTracker.getInstance().addListener(reportListener);
+    }
+
+    @Override
+    public void onResume() {
+        super.onResume();
+        // Rolls the windows forward if left open past midnight, or retries a failed load
+        if (report == null) binding.progressBar.setVisibility(View.VISIBLE);
+        AnalyticsTracker.getInstance().refresh();
+    }
+
+    private void setupSpinner() {
+        spinnerAdapter = new ArrayAdapter<>(requireContext(), android.R.layout.simple_spinner_item, new ArrayList<>());
+        spinnerAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        binding.spinnerSite.setAdapter(spinnerAdapter);
+        binding.spinnerSite.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
+                render();
+            }
+
+            @Override
+            public void onNothingSelected(AdapterView<?> parent) {}
+        });
+    }
+
+    private void setupWindowToggle() {
+        binding.toggleWindow.addOnButtonCheckedListener((group, checkedId, isChecked) -> {
+            if (!isChecked) return;
+            if (checkedId == R.id.btn_window_7) windowIndex = 0;
+            else if (checkedId == R.id.btn_window_30) windowIndex = 1;
+            else windowIndex = 2;
+            render();
+        });
+    }
+
+    /**
+     * Refills the site spinner from the company's sites, keeping the current selection.
+     */
+    private void refreshSiteSpinner() {
+        if (binding == null) return;
+        String selected = selectedSiteId();
+        spinnerSiteIds.clear();
+        spinnerSiteIds.add(AttendanceAnalytics.ALL_SITES);
+        List<String> names = new ArrayList<>();
+        names.add("All sites");
+        for (CompanyConfig site : CalendarCatalog.getInstance().getSites()) {
+            spinnerSiteIds.add(site.getId());
+            names.add(site.getName());
+        }
+        spinnerAdapter.clear();
+        spinnerAdapter.addAll(names);
+        spinnerAdapter.notifyDataSetChanged();
+        int position = spinnerSiteIds.indexOf(selected);
+        binding.spinnerSite.setSelection(Math.max(0, position));
+        render();
+    }
+
+    private String selectedSiteId() {
+        int position = binding.spinnerSite.getSelectedItemPosition();
+        return position > 0 && position < spinnerSiteIds.size()
+                ? spinnerSiteIds.get(position) : AttendanceAnalytics.ALL_SITES;
+    }
+
+    private void showReport(AttendanceAnalytics.Report report) {
+        if (binding == null) return;
+        this.report = report;
+        binding.progressBar.setVisibility(View.GONE);
+        render();
+    }
+
+    private void showLoadError() {
+        if (binding == null) return;
+        binding.progressBar.setVisibility(View.GONE);
+        if (report == null) binding.tvAsOf.setText("Could not load attendance data. Reopen this tab to retry.");
+        Toast.makeText(getContext(), "Error loading analytics", Toast.LENGTH_SHORT).show();
+    }
+
+    private void render() {
+        if (binding == null || report == null) return;
+        binding.tvAsOf.setText("Rolling trends as of " + AS_OF.format(report.asOf));
+
+        AttendanceAnalytics.SiteReport site = report.sites.get(selectedSiteId());
+        if (site == null) {
+            // A site with no records in the last 13 weeks
+            binding.tvAttendanceRate.setText("--");
+            binding.tvLatenessRate.setText("--");
+            binding.tvAvgCheckIn.setText("--");
+            binding.tvOvertime.setText("--");
+            binding.tvWindowCounts.setText("No attendance recorded at this site yet.");
+            binding.chartAttendance.setData(new float[0], new String[0]);
+            binding.chartLateness.setData(new float[0], new String[0]);
+        } else {
+            AttendanceAnalytics.Window window = site.windows[windowIndex];
+            binding.tvAttendanceRate.setText(percent(window.getAttendanceRate()));
+            binding.tvLatenessRate.setText(percent(window.getLatenessRate()));
+            binding.tvAvgCheckIn.setText(window.getAverageCheckIn());
+            binding.tvOvertime.setText(window.overtimeMinutes > 0 ? window.getOvertime() : "--");
+            binding.tvWindowCounts.setText(String.format(Locale.US, "Last %d days: %,d present · %,d absent · %,d late",
+                    window.days, window.attended, window.absent, window.late));
+
+            int weeks = site.weeks.length;
+            float[] attendance = new float[weeks];
+            float[] lateness = new float[weeks];
+            String[] labels = new String[weeks];
+            for (int i = 0; i < weeks; i++) {
+                attendance[i] = site.weeks[i].getAttendanceRate();
+                lateness[i] = site.weeks[i].getLatenessRate();
+                labels[i] = WEEK_LABEL.format(site.weeks[i].start);
+            }
+            binding.chartAttendance.setData(attendance, labels);
+            binding.chartLateness.setData(lateness, labels);
+        }
+        renderSiteRows();
+    }
+
+    /**
+     * One line per site for the selected window, in the spinner's order.
+     */
+    private void renderSiteRows() {
+        binding.layoutSiteRows.removeAllViews();
+        for (int i = 1; i < spinnerSiteIds.size(); i++) {
+            AttendanceAnalytics.SiteReport site = report.sites.get(spinnerSiteIds.get(i));
+            TextView row = new TextView(requireContext());
+            row.setPadding(0, 8, 0, 8);
+            row.setTextColor(Color.DKGRAY);
+            row.setTextSize(13);
+            String name = spinnerAdapter.getItem(i);
+            if (site == null) {
+                row.setText(name + ": no records");
+            } else {
+                AttendanceAnalytics.Window window = site.windows[windowIndex];
+                row.setText(name + ": " + percent(window.getAttendanceRate()) + " attendance · "
+                        + percent(window.getLatenessRate()) + " late · avg in " + window.getAverageCheckIn());
+            }
+            binding.layoutSiteRows.addView(row);
+        }
+        if (binding.layoutSiteRows.getChildCount() == 0) {
+            TextView empty = new TextView(requireContext());
+            empty.setText("No sites configured.");
+            empty.setTextColor(Color.GRAY);
+            binding.layoutSiteRows.addView(empty);
+        }
+    }
+
+    private static String percent(float rate) {
+        return rate < 0 ? "--" : String.format(Locale.US, "%.0f%%", rate * 100);
+    }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        AnalyticsTracker.getInstance().removeListener(reportListener);
+        CalendarCatalog.getInstance().removeListener(sitesListener);
+        binding = null;
+    }
+}
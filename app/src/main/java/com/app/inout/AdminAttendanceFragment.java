@@ -1,6 +1,8 @@
 package com.inout.app;
 
 import android.os.Bundle;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -13,26 +15,34 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 
-import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
 import com.inout.app.databinding.FragmentAdminAttendanceBinding;
 import com.inout.app.models.User;
+import com.inout.app.utils.CalendarCatalog;
+import com.inout.app.utils.EmployeeSearchIndex;
+import com.inout.app.utils.ShiftCatalog;
 
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Admin view for Attendance.
- * 1. Select employee from Spinner.
+ * 1. Select employee from Spinner (UPDATED: narrowed by a type-ahead search box).
  * 2. Opens the Professional Attendance Profile Pop-up (CV-style).
  */
 public class AdminAttendanceFragment extends Fragment {
 
     private static final String TAG = "AdminAttendanceFrag";
+    private static final String SPINNER_HINT = "Select an Employee";
     private FragmentAdminAttendanceBinding binding;
     private FirebaseFirestore db;
-    
-    private List<User> employees;
+    private ListenerRegistration employeesListener;
+
+    // NEW: Search index over approved employees; the spinner shows its results
+    private final EmployeeSearchIndex searchIndex = new EmployeeSearchIndex();
+    private List<User> visibleEmployees = new ArrayList<>();
+    private ArrayAdapter<String> spinnerAdapter;
 
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
@@ -45,63 +55,93 @@ public class AdminAttendanceFragment extends Fragment {
         super.onViewCreated(view, savedInstanceState);
 
         db = FirebaseFirestore.getInstance();
-        employees = new ArrayList<>();
 
+        setupSpinner();
+        setupSearch();
         // Load the list of employees into the spinner first
         loadEmployeeList();
+        // Rosters and the company calendar, so profile reports open with off days already classified
+        ShiftCatalog.getInstance().start();
+        CalendarCatalog.getInstance().start();
     }
 
     /**
-     * Fetches all approved employees to populate the selection spinner.
-     * This logic is identical to your original code.
+     * Listens to all approved employees and feeds the changes into the search index.
+     * UPDATED: A live listener, so only changed employees are re-indexed.
      */
     private void loadEmployeeList() {
         binding.progressBar.setVisibility(View.VISIBLE);
-        db.collection("users")
+        // The new listener's first snapshot re-adds everyone; drop entries from the previous view
+        searchIndex.clear();
+        employeesListener = db.collection("users")
                 .whereEqualTo("role", "employee")
                 .whereEqualTo("approved", true)
-                .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
+                .addSnapshotListener((value, error) -> {
+                    if (binding == null) return;
                     binding.progressBar.setVisibility(View.GONE);
-                    employees.clear();
-                    List<String> employeeNames = new ArrayList<>();
-                    employeeNames.add("Select an Employee");
-
-                    for (DocumentSnapshot doc : queryDocumentSnapshots) {
-                        User user = doc.toObject(User.class);
-                        if (user != null) {
-                            user.setUid(doc.getId()); // Ensure UID is preserved
-                            employees.add(user);
-                            // Format: Name (EmployeeID)
-                            employeeNames.add(user.getName() + " (" + user.getEmployeeId() + ")");
-                        }
+                    if (error != null) {
+                        Log.e(TAG, "Employee listener failed", error);
+                        Toast.makeText(getContext(), "Error loading employees", Toast.LENGTH_SHORT).show();
+                        return;
+                    }
+                    if (value != null) {
+                        searchIndex.apply(value);
+                        refreshSpinner();
                     }
-
-                    setupSpinner(employeeNames);
-                })
-                .addOnFailureListener(e -> {
-                    binding.progressBar.setVisibility(View.GONE);
-                    Toast.makeText(getContext(), "Error loading employees", Toast.LENGTH_SHORT).show();
                 });
     }
 
+    private void setupSearch() {
+        binding.etSearchEmployee.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {}
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                refreshSpinner();
+            }
+        });
+    }
+
+    /**
+     * Refills the spinner with the employees matching the current search text.
+     */
+    private void refreshSpinner() {
+        String query = binding.etSearchEmployee.getText() != null
+                ? binding.etSearchEmployee.getText().toString().trim() : "";
+        visibleEmployees = query.isEmpty() ? searchIndex.all() : searchIndex.search(query);
+
+        List<String> employeeNames = new ArrayList<>(visibleEmployees.size() + 1);
+        employeeNames.add(query.isEmpty() ? SPINNER_HINT : SPINNER_HINT + " (" + visibleEmployees.size() + " found)");
+        for (User user : visibleEmployees) {
+            // Format: Name (EmployeeID)
+            employeeNames.add(user.getName() + " (" + user.getEmployeeId() + ")");
+        }
+        spinnerAdapter.clear();
+        spinnerAdapter.addAll(employeeNames);
+        binding.spinnerEmployees.setSelection(0);
+    }
+
     /**
      * Sets up the dropdown menu.
      * When a name is selected, it triggers the Pop-Up Window.
      */
-    private void setupSpinner(List<String> names) {
-        ArrayAdapter<String> spinnerAdapter = new ArrayAdapter<>(requireContext(), 
-                android.R.layout.simple_spinner_item, names);
+    private void setupSpinner() {
+        spinnerAdapter = new ArrayAdapter<>(requireContext(), 
+                android.R.layout.simple_spinner_item, new ArrayList<>());
         spinnerAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
         binding.spinnerEmployees.setAdapter(spinnerAdapter);
 
         binding.spinnerEmployees.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
             @Override
             public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
-                if (position > 0) {
+                if (position > 0 && position <= visibleEmployees.size()) {
                     // Position 0 is the hint "Select an Employee"
                     // Get the User object for the selected person
-                    User selectedUser = employees.get(position - 1);
+                    User selectedUser = visibleEmployees.get(position - 1);
                     
                     // NEW LOGIC: Launch the pop-up profile window
                     openAttendanceProfileDialog(selectedUser);
@@ -129,6 +169,7 @@ public class AdminAttendanceFragment extends Fragment {
 
     @Override
     public void onDestroyView() {
+        if (employeesListener != null) employeesListener.remove();
         super.onDestroyView();
         binding = null;
     }
@@ -1,9 +1,14 @@
 package com.inout.app;
 
+import android.app.AlertDialog;
 import android.content.Intent;
 import android.os.Bundle;
+import android.text.InputType;
 import android.view.Menu;
 import android.view.MenuItem; 
+import android.widget.EditText;
+import android.widget.LinearLayout;
+import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
@@ -16,8 +21,17 @@ import com.google.android.gms.auth.api.signin.GoogleSignIn;
 import com.google.android.gms.auth.api.signin.GoogleSignInClient;
 import com.google.android.gms.auth.api.signin.GoogleSignInOptions;
 import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
 import com.inout.app.databinding.ActivityAdminDashboardBinding;
+import com.inout.app.models.CompanyConfig;
+import com.inout.app.utils.AbsenceMarkerWorker;
+import com.inout.app.utils.AnalyticsTracker;
 import com.inout.app.utils.EncryptionHelper;
+import com.inout.app.utils.MissedCheckoutWorker;
+
+import java.util.ArrayList;
+import java.util.List;
 
 public class AdminDashboardActivity extends AppCompatActivity {
 
@@ -27,6 +41,7 @@ public class AdminDashboardActivity extends AppCompatActivity {
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        if (InOutApplication.restartIfStarting(this)) return;
         binding = ActivityAdminDashboardBinding.inflate(getLayoutInflater());
         setContentView(binding.getRoot());
 
@@ -45,6 +60,7 @@ public class AdminDashboardActivity extends AppCompatActivity {
             AppBarConfiguration appBarConfiguration = new AppBarConfiguration.Builder(
                     R.id.nav_admin_employees, 
                     R.id.nav_admin_attendance, 
+                    R.id.nav_admin_analytics,
                     R.id.nav_admin_locations, 
                     R.id.nav_admin_qr)
                     .build();
@@ -52,6 +68,18 @@ public class AdminDashboardActivity extends AppCompatActivity {
             NavigationUI.setupActionBarWithNavController(this, navController, appBarConfiguration);
             NavigationUI.setupWithNavController(binding.navView, navController);
         }
+
+        // NEW: Closes records left open by a missed check-out (kept if already scheduled)
+        MissedCheckoutWorker.schedule(this);
+        // NEW: Nightly absence markers, so absences can be queried and counted server-side
+        AbsenceMarkerWorker.schedule(this);
+    }
+
+    @Override
+    protected void onDestroy() {
+        // NEW: Analytics listeners outlive the tab but not the dashboard (kept across rotation)
+        if (isFinishing()) AnalyticsTracker.getInstance().stop();
+        super.onDestroy();
     }
 
     // Create the top options menu
@@ -70,6 +98,15 @@ public class AdminDashboardActivity extends AppCompatActivity {
         } else if (item.getItemId() == R.id.action_switch_company) {
             switchCompany();
             return true;
+        } else if (item.getItemId() == R.id.action_kiosk_display) {
+            showKioskLocationPicker(false);
+            return true;
+        } else if (item.getItemId() == R.id.action_shared_kiosk) {
+            showKioskLocationPicker(true);
+            return true;
+        } else if (item.getItemId() == R.id.action_checkout_buffer) {
+            showCheckoutBufferDialog();
+            return true;
         } else if (item.getItemId() == R.id.action_contact_dev) {
             // NEW: Launch the Contact Developer popup
             showContactDevDialog();
@@ -78,6 +115,53 @@ public class AdminDashboardActivity extends AppCompatActivity {
         return super.onOptionsItemSelected(item);
     }
 
+    /**
+     * NEW: Lets the admin pick which office this device will act as a kiosk for.
+     * @param sharedTerminal True for the shared check-in terminal, false for the rotating QR display.
+     */
+    private void showKioskLocationPicker(boolean sharedTerminal) {
+        FirebaseFirestore.getInstance().collection("locations").get()
+                .addOnSuccessListener(snapshot -> {
+                    List<CompanyConfig> locations = new ArrayList<>();
+                    for (DocumentSnapshot doc : snapshot.getDocuments()) {
+                        CompanyConfig loc = doc.toObject(CompanyConfig.class);
+                        if (loc != null) {
+                            loc.setId(doc.getId());
+                            locations.add(loc);
+                        }
+                    }
+                    if (locations.isEmpty()) {
+                        Toast.makeText(this, "Add an office location first.", Toast.LENGTH_SHORT).show();
+                        return;
+                    }
+
+                    String[] names = new String[locations.size()];
+                    for (int i = 0; i < names.length; i++) names[i] = locations.get(i).getName();
+
+                    new AlertDialog.Builder(this)
+                            .setTitle(sharedTerminal ? "Check-In Terminal For" : "Kiosk Display For")
+                            .setItems(names, (dialog, which) -> {
+                                CompanyConfig loc = locations.get(which);
+                                Intent intent;
+                                if (sharedTerminal) {
+                                    intent = new Intent(this, SharedKioskActivity.class);
+                                    intent.putExtra(SharedKioskActivity.EXTRA_LOCATION_ID, loc.getId());
+                                    intent.putExtra(SharedKioskActivity.EXTRA_LOCATION_NAME, loc.getName());
+                                    intent.putExtra(SharedKioskActivity.EXTRA_LOCATION_LAT, loc.getLatitude());
+                                    intent.putExtra(SharedKioskActivity.EXTRA_LOCATION_LNG, loc.getLongitude());
+                                } else {
+                                    intent = new Intent(this, KioskDisplayActivity.class);
+                                    intent.putExtra(KioskDisplayActivity.EXTRA_LOCATION_ID, loc.getId());
+                                    intent.putExtra(KioskDisplayActivity.EXTRA_LOCATION_NAME, loc.getName());
+                                }
+                                startActivity(intent);
+                            })
+                            .setNegativeButton("Cancel", null)
+                            .show();
+                })
+                .addOnFailureListener(e -> Toast.makeText(this, "Could not load locations.", Toast.LENGTH_SHORT).show());
+    }
+
     /**
      * NEW: Initializes and displays the feedback form for the developer.
      */
@@ -86,6 +170,37 @@ public class AdminDashboardActivity extends AppCompatActivity {
         dialog.show(getSupportFragmentManager(), "ContactDevDialog");
     }
 
+    /**
+     * NEW: How long after a shift's end an open record is automatically checked out.
+     */
+    private void showCheckoutBufferDialog() {
+        LinearLayout layout = new LinearLayout(this);
+        layout.setOrientation(LinearLayout.VERTICAL);
+        layout.setPadding(60, 20, 60, 10);
+
+        final EditText inputMinutes = new EditText(this);
+        inputMinutes.setHint("Minutes after shift end");
+        inputMinutes.setInputType(InputType.TYPE_CLASS_NUMBER);
+        inputMinutes.setText(String.valueOf(MissedCheckoutWorker.getBufferMinutes(this)));
+        layout.addView(inputMinutes);
+
+        new AlertDialog.Builder(this)
+                .setTitle("Auto Check-Out Buffer")
+                .setMessage("Employees who forget to check out are checked out at their shift end once this many minutes have passed.")
+                .setView(layout)
+                .setPositiveButton("Save", (dialog, which) -> {
+                    try {
+                        int minutes = Integer.parseInt(inputMinutes.getText().toString().trim());
+                        MissedCheckoutWorker.setBufferMinutes(this, minutes);
+                        Toast.makeText(this, "Auto check-out buffer saved", Toast.LENGTH_SHORT).show();
+                    } catch (NumberFormatException e) {
+                        Toast.makeText(this, "Enter a number of minutes", Toast.LENGTH_SHORT).show();
+                    }
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
     /**
      * Full Logout Logic.
      * 1. Signs out of Firebase.
@@ -94,6 +209,10 @@ public class AdminDashboardActivity extends AppCompatActivity {
      * 4. Returns to the absolute landing page (Splash/Role Selection).
      */
     private void logout() {
+        // Background jobs only run for a signed-in admin
+        MissedCheckoutWorker.cancel(this);
+        AbsenceMarkerWorker.cancel(this);
+
         // 1. Sign out from Firebase
         mAuth.signOut();
         
@@ -2,8 +2,15 @@ package com.inout.app;
 
 import android.app.AlertDialog;
 import android.app.TimePickerDialog;
+import android.content.Intent;
+import android.graphics.Bitmap;
+import android.net.Uri;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
 import android.text.InputType;
+import android.text.TextWatcher;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -11,6 +18,7 @@ import android.view.ViewGroup;
 import android.widget.ArrayAdapter;
 import android.widget.CheckBox;
 import android.widget.EditText;
+import android.widget.ImageView;
 import android.widget.LinearLayout;
 import android.widget.Spinner;
 import android.widget.TextView;
@@ -18,39 +26,80 @@ import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.core.content.FileProvider;
 import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
 
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.integration.recyclerview.RecyclerViewPreloader;
+import com.bumptech.glide.util.FixedPreloadSizeProvider;
+
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.EventListener;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.ListenerRegistration;
 import com.google.firebase.firestore.QuerySnapshot;
 import com.google.firebase.firestore.WriteBatch;
 import com.inout.app.databinding.FragmentAdminEmployeesBinding;
 import com.inout.app.models.AttendanceRecord;
 import com.inout.app.models.User;
 import com.inout.app.models.CompanyConfig;
+import com.inout.app.models.LeaveRequest;
+import com.inout.app.models.Roster;
+import com.inout.app.models.ShiftTemplate;
+import com.inout.app.utils.CalendarCatalog;
+import com.inout.app.utils.EmployeeSearchIndex;
+import com.inout.app.utils.KioskTokenHelper;
+import com.inout.app.utils.LeaveRequestManager;
+import com.inout.app.utils.ProfilePhotos;
+import com.inout.app.utils.QrRenderCache;
+import com.inout.app.utils.ShiftCatalog;
+import com.inout.app.utils.ShiftSchedule;
 import com.inout.app.utils.TimeUtils;
 
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Updated Fragment to handle Multi-Selection, Bulk Deletion, 
  * Individual/Bulk Location Assignment, Traveling Mode, and Shift Timing.
  * UPDATED: Handles Emergency Leave and Medical Leave (Paid/Unpaid) approvals.
+ * NEW: Shift templates and rotating rosters, assignable per employee or in bulk.
+ * NEW: Pending leave request queue with batch approve/reject.
  */
 public class AdminEmployeesFragment extends Fragment implements EmployeeListAdapter.OnEmployeeActionListener {
 
     private static final String TAG = "AdminEmployeesFrag";
+    // Rows of photos requested ahead of the last visible row
+    private static final int PRELOAD_AHEAD_ITEMS = 10;
+    private static final int BADGE_QR_SIZE = 600;
     private FragmentAdminEmployeesBinding binding;
     private FirebaseFirestore db;
     private EmployeeListAdapter adapter;
     private List<User> employeeList;
     private List<CompanyConfig> locationList; 
+    // Keystore signing for kiosk badges stays off the main thread
+    private final ExecutorService badgeExecutor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // NEW: Type-ahead search, updated incrementally from the users snapshot
+    private final EmployeeSearchIndex searchIndex = new EmployeeSearchIndex();
+    private String searchQuery = "";
+    // NEW: Pending leave requests only (the queue listener never sees decided requests)
+    private List<LeaveRequest> pendingLeaves = new ArrayList<>();
+    private ListenerRegistration leaveRequestsRegistration;
 
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
@@ -67,14 +116,54 @@ public class AdminEmployeesFragment extends Fragment implements EmployeeListAdap
         locationList = new ArrayList<>();
         
         setupRecyclerView();
+        setupSearch();
         listenForEmployees();
         fetchLocations(); 
+        // Templates and rosters for the approve dialogs and the shift manager
+        ShiftCatalog.getInstance().start();
+        // Holidays and weekly off days for the attendance profile reports
+        CalendarCatalog.getInstance().start();
+        binding.btnManageShifts.setOnClickListener(v -> showShiftManager());
+        listenForLeaveRequests();
+        binding.btnLeaveRequests.setOnClickListener(v -> showLeaveRequestQueue());
     }
 
     private void setupRecyclerView() {
         binding.recyclerViewEmployees.setLayoutManager(new LinearLayoutManager(getContext()));
-        adapter = new EmployeeListAdapter(getContext(), employeeList, this);
+        RequestManager glide = Glide.with(this);
+        adapter = new EmployeeListAdapter(getContext(), glide, employeeList, this);
         binding.recyclerViewEmployees.setAdapter(adapter);
+
+        // Fetch thumbnails a screenful ahead of the scroll position
+        int thumbSizePx = ProfilePhotos.dpToPx(requireContext(), ProfilePhotos.LIST_THUMB_DP);
+        binding.recyclerViewEmployees.addOnScrollListener(new RecyclerViewPreloader<>(
+                glide, adapter, new FixedPreloadSizeProvider<>(thumbSizePx, thumbSizePx), PRELOAD_AHEAD_ITEMS));
+    }
+
+    private void setupSearch() {
+        binding.etSearchEmployees.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {}
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                searchQuery = s.toString().trim();
+                showEmployees();
+            }
+        });
+    }
+
+    /**
+     * Shows every employee, or only the search matches while a query is typed.
+     */
+    private void showEmployees() {
+        List<User> visible = searchQuery.isEmpty() ? employeeList : searchIndex.search(searchQuery);
+        adapter.setEmployees(visible);
+        binding.tvEmptyView.setText(searchQuery.isEmpty() ? "No employees found" : "No matching employees");
+        binding.tvEmptyView.setVisibility(visible.isEmpty() ? View.VISIBLE : View.GONE);
     }
 
     private void fetchLocations() {
@@ -118,8 +207,8 @@ public class AdminEmployeesFragment extends Fragment implements EmployeeListAdap
                                     employeeList.add(user);
                                 }
                             }
-                            adapter.notifyDataSetChanged();
-                            binding.tvEmptyView.setVisibility(employeeList.isEmpty() ? View.VISIBLE : View.GONE);
+                            searchIndex.apply(value);
+                            showEmployees();
                         }
                     }
                 });
@@ -131,6 +220,16 @@ public class AdminEmployeesFragment extends Fragment implements EmployeeListAdap
      */
     @Override
     public void onApproveClicked(User user) {
+        // Leave filed through the request queue is decided there
+        List<LeaveRequest> userLeaves = new ArrayList<>();
+        for (LeaveRequest request : pendingLeaves) {
+            if (user.getUid().equals(request.getUid())) userLeaves.add(request);
+        }
+        if (!userLeaves.isEmpty()) {
+            showLeaveDecisionDialog(userLeaves);
+            return;
+        }
+
         if ("pending".equals(user.getEmergencyLeaveStatus())) {
             showEmergencyLeaveApprovalDialog(user);
         } else if ("pending".equals(user.getMedicalLeaveStatus())) {
@@ -241,6 +340,14 @@ public class AdminEmployeesFragment extends Fragment implements EmployeeListAdap
         cbTraveling.setChecked(user.isTraveling()); 
         layout.addView(cbTraveling);
 
+        final CheckBox cbTrail = new CheckBox(requireContext());
+        cbTrail.setText("Record GPS Trail while Traveling");
+        cbTrail.setChecked(user.isTrailEnabled());
+        layout.addView(cbTrail);
+
+        final Spinner rosterSpinner = buildRosterSpinner(user.getRosterId());
+        layout.addView(rosterSpinner);
+
         TextView tvLabel = new TextView(requireContext());
         tvLabel.setText("Assigned Shift Hours:");
         tvLabel.setPadding(0, 20, 0, 10);
@@ -274,13 +381,20 @@ public class AdminEmployeesFragment extends Fragment implements EmployeeListAdap
             if (!empId.isEmpty() && selectedIndex >= 0) {
                 String locId = locationList.get(selectedIndex).getId();
                 
+                Map<String, Object> updates = new HashMap<>();
+                updates.put("approved", true);
+                updates.put("employeeId", empId);
+                updates.put("assignedLocationId", locId);
+                updates.put("isTraveling", cbTraveling.isChecked());
+                updates.put("trailEnabled", cbTraveling.isChecked() && cbTrail.isChecked());
+                updates.put("shiftStartTime", tvStart.getText().toString());
+                updates.put("shiftEndTime", tvEnd.getText().toString());
+                updates.put("rosterId", rosterIdAt(rosterSpinner));
+                // First approval only: absence markers start from this day
+                if (!user.isApproved()) updates.put("approvedAt", TimeUtils.getCurrentTimestamp());
+
                 db.collection("users").document(user.getUid())
-                        .update("approved", true, 
-                                "employeeId", empId, 
-                                "assignedLocationId", locId,
-                                "isTraveling", cbTraveling.isChecked(),
-                                "shiftStartTime", tvStart.getText().toString(),
-                                "shiftEndTime", tvEnd.getText().toString())
+                        .update(updates)
                         .addOnSuccessListener(aVoid -> Toast.makeText(getContext(), "User Updated Successfully!", Toast.LENGTH_SHORT).show());
             } else {
                 Toast.makeText(getContext(), "ID and Location required!", Toast.LENGTH_SHORT).show();
@@ -290,6 +404,251 @@ public class AdminEmployeesFragment extends Fragment implements EmployeeListAdap
         builder.show();
     }
 
+    /**
+     * NEW: "Fixed hours" plus every rotating roster. The roster list is kept on the spinner so a
+     * catalog update while the dialog is open cannot shift the selection.
+     */
+    private Spinner buildRosterSpinner(String currentRosterId) {
+        List<Roster> rosters = ShiftCatalog.getInstance().getRosters();
+        List<String> names = new ArrayList<>();
+        names.add("Fixed shift hours (below)");
+        int selection = 0;
+        for (int i = 0; i < rosters.size(); i++) {
+            names.add("Roster: " + rosters.get(i).getName());
+            if (rosters.get(i).getId().equals(currentRosterId)) selection = i + 1;
+        }
+
+        Spinner spinner = new Spinner(requireContext());
+        spinner.setPadding(0, 20, 0, 0);
+        ArrayAdapter<String> spinAdapter = new ArrayAdapter<>(requireContext(), android.R.layout.simple_spinner_item, names);
+        spinAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        spinner.setAdapter(spinAdapter);
+        spinner.setSelection(selection);
+        spinner.setTag(rosters);
+        return spinner;
+    }
+
+    @SuppressWarnings("unchecked")
+    private String rosterIdAt(Spinner spinner) {
+        List<Roster> rosters = (List<Roster>) spinner.getTag();
+        int position = spinner.getSelectedItemPosition();
+        return position > 0 && position <= rosters.size() ? rosters.get(position - 1).getId() : null;
+    }
+
+    /**
+     * NEW: Lists shift templates and rosters; tap an entry to delete it, or create a new one.
+     */
+    private void showShiftManager() {
+        ShiftCatalog catalog = ShiftCatalog.getInstance();
+        List<ShiftTemplate> templates = catalog.getTemplates();
+        List<Roster> rosters = catalog.getRosters();
+
+        List<String> items = new ArrayList<>();
+        items.add("+ New Shift Template");
+        items.add("+ New Rotating Roster");
+        for (ShiftTemplate t : templates) {
+            String split = t.getSplitStartTime() != null ? ", " + t.getSplitStartTime() + " - " + t.getSplitEndTime() : "";
+            items.add("Shift: " + t.getName() + " (" + t.getStartTime() + " - " + t.getEndTime() + split + ")");
+        }
+        for (Roster r : rosters) {
+            items.add("Roster: " + r.getName() + " (" + r.getPattern().size() + "-day cycle)");
+        }
+
+        new AlertDialog.Builder(requireContext())
+                .setTitle("Shifts & Rosters")
+                .setItems(items.toArray(new String[0]), (dialog, which) -> {
+                    if (which == 0) {
+                        if (templates.size() >= ShiftSchedule.MAX_SHIFTS) {
+                            Toast.makeText(getContext(), "Limit of " + ShiftSchedule.MAX_SHIFTS + " shift templates reached.",
+                                    Toast.LENGTH_LONG).show();
+                            return;
+                        }
+                        showNewShiftTemplateDialog();
+                    } else if (which == 1) {
+                        showNewRosterDialog(templates);
+                    } else if (which < 2 + templates.size()) {
+                        confirmShiftTemplateDelete(templates.get(which - 2), rosters);
+                    } else {
+                        Roster r = rosters.get(which - 2 - templates.size());
+                        confirmShiftCatalogDelete(ShiftCatalog.ROSTERS_COLLECTION, r.getId(), r.getName(),
+                                "Employees on it fall back to their fixed shift hours.");
+                    }
+                })
+                .setNegativeButton("Close", null)
+                .show();
+    }
+
+    private void showNewShiftTemplateDialog() {
+        LinearLayout layout = new LinearLayout(requireContext());
+        layout.setOrientation(LinearLayout.VERTICAL);
+        layout.setPadding(60, 20, 60, 10);
+
+        final EditText inputName = new EditText(requireContext());
+        inputName.setHint("Shift name (e.g. Morning)");
+        layout.addView(inputName);
+
+        final TextView tvStart = new TextView(requireContext());
+        final TextView tvEnd = new TextView(requireContext());
+        layout.addView(buildTimeRow(tvStart, "09:00 AM", tvEnd, "06:00 PM"));
+
+        final CheckBox cbSplit = new CheckBox(requireContext());
+        cbSplit.setText("Split shift (second segment)");
+        layout.addView(cbSplit);
+
+        final TextView tvSplitStart = new TextView(requireContext());
+        final TextView tvSplitEnd = new TextView(requireContext());
+        final LinearLayout splitRow = buildTimeRow(tvSplitStart, "05:00 PM", tvSplitEnd, "09:00 PM");
+        splitRow.setVisibility(View.GONE);
+        layout.addView(splitRow);
+        cbSplit.setOnCheckedChangeListener((button, checked) -> splitRow.setVisibility(checked ? View.VISIBLE : View.GONE));
+
+        new AlertDialog.Builder(requireContext())
+                .setTitle("New Shift Template")
+                .setView(layout)
+                .setPositiveButton("Save", (dialog, which) -> {
+                    String name = inputName.getText().toString().trim();
+                    if (name.isEmpty()) {
+                        Toast.makeText(getContext(), "Shift name required!", Toast.LENGTH_SHORT).show();
+                        return;
+                    }
+                    ShiftTemplate template = new ShiftTemplate(name, tvStart.getText().toString(), tvEnd.getText().toString());
+                    if (cbSplit.isChecked()) {
+                        template.setSplitStartTime(tvSplitStart.getText().toString());
+                        template.setSplitEndTime(tvSplitEnd.getText().toString());
+                    }
+                    db.collection(ShiftCatalog.TEMPLATES_COLLECTION).add(template)
+                            .addOnSuccessListener(ref -> Toast.makeText(getContext(), "Shift saved.", Toast.LENGTH_SHORT).show())
+                            .addOnFailureListener(e -> Toast.makeText(getContext(), "Save failed: " + e.getMessage(), Toast.LENGTH_SHORT).show());
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    /**
+     * Pattern is typed as shift names, one per day, e.g. "Morning, Morning, Night, Night, OFF, OFF".
+     * Day 1 is the Monday of this week, so a 7-day pattern reads as Monday..Sunday.
+     */
+    private void showNewRosterDialog(List<ShiftTemplate> templates) {
+        if (templates.isEmpty()) {
+            Toast.makeText(getContext(), "Add a Shift Template first!", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        LinearLayout layout = new LinearLayout(requireContext());
+        layout.setOrientation(LinearLayout.VERTICAL);
+        layout.setPadding(60, 20, 60, 10);
+
+        final EditText inputName = new EditText(requireContext());
+        inputName.setHint("Roster name (e.g. 2-2-2 Rotation)");
+        layout.addView(inputName);
+
+        final EditText inputPattern = new EditText(requireContext());
+        inputPattern.setHint("Morning, Morning, Night, Night, OFF, OFF");
+        layout.addView(inputPattern);
+
+        StringBuilder available = new StringBuilder("Day 1 = Monday of this week. Shifts: ");
+        for (int i = 0; i < templates.size(); i++) {
+            if (i > 0) available.append(", ");
+            available.append(templates.get(i).getName());
+        }
+        available.append(", OFF");
+        TextView tvHelp = new TextView(requireContext());
+        tvHelp.setText(available);
+        tvHelp.setPadding(0, 10, 0, 0);
+        layout.addView(tvHelp);
+
+        new AlertDialog.Builder(requireContext())
+                .setTitle("New Rotating Roster")
+                .setView(layout)
+                .setPositiveButton("Save", (dialog, which) -> {
+                    String name = inputName.getText().toString().trim();
+                    List<String> pattern = new ArrayList<>();
+                    for (String token : inputPattern.getText().toString().split(",")) {
+                        String day = token.trim();
+                        if (day.isEmpty()) continue;
+                        String templateId = null;
+                        if (day.equalsIgnoreCase(Roster.OFF)) {
+                            templateId = Roster.OFF;
+                        } else {
+                            for (ShiftTemplate t : templates) {
+                                if (day.equalsIgnoreCase(t.getName())) templateId = t.getId();
+                            }
+                        }
+                        if (templateId == null) {
+                            Toast.makeText(getContext(), "Unknown shift: " + day, Toast.LENGTH_LONG).show();
+                            return;
+                        }
+                        pattern.add(templateId);
+                    }
+                    if (name.isEmpty() || pattern.isEmpty()) {
+                        Toast.makeText(getContext(), "Name and pattern required!", Toast.LENGTH_SHORT).show();
+                        return;
+                    }
+
+                    Roster roster = new Roster();
+                    roster.setName(name);
+                    roster.setPattern(pattern);
+                    roster.setAnchorDate(LocalDate.now().with(DayOfWeek.MONDAY).toString());
+                    db.collection(ShiftCatalog.ROSTERS_COLLECTION).add(roster)
+                            .addOnSuccessListener(ref -> Toast.makeText(getContext(), "Roster saved.", Toast.LENGTH_SHORT).show())
+                            .addOnFailureListener(e -> Toast.makeText(getContext(), "Save failed: " + e.getMessage(), Toast.LENGTH_SHORT).show());
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    /**
+     * A roster day pointing at a deleted template becomes an off day, so templates still in a
+     * roster cannot be deleted until those rosters are.
+     */
+    private void confirmShiftTemplateDelete(ShiftTemplate template, List<Roster> rosters) {
+        StringBuilder usedBy = new StringBuilder();
+        for (Roster r : rosters) {
+            if (r.getPattern() == null || !r.getPattern().contains(template.getId())) continue;
+            if (usedBy.length() > 0) usedBy.append(", ");
+            usedBy.append(r.getName());
+        }
+        if (usedBy.length() > 0) {
+            new AlertDialog.Builder(requireContext())
+                    .setTitle("Cannot delete " + template.getName())
+                    .setMessage("It is used by: " + usedBy + ". Delete those rosters first.")
+                    .setPositiveButton("OK", null)
+                    .show();
+            return;
+        }
+        confirmShiftCatalogDelete(ShiftCatalog.TEMPLATES_COLLECTION, template.getId(), template.getName(),
+                "No roster uses this shift.");
+    }
+
+    private void confirmShiftCatalogDelete(String collection, String id, String name, String message) {
+        new AlertDialog.Builder(requireContext())
+                .setTitle("Delete " + name + "?")
+                .setMessage(message)
+                .setPositiveButton("Delete", (dialog, which) -> db.collection(collection).document(id).delete())
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    private LinearLayout buildTimeRow(TextView tvStart, String start, TextView tvEnd, String end) {
+        LinearLayout timeLayout = new LinearLayout(requireContext());
+        timeLayout.setOrientation(LinearLayout.HORIZONTAL);
+        timeLayout.setPadding(0, 20, 0, 10);
+
+        tvStart.setText(start);
+        tvStart.setTextSize(16);
+        tvStart.setPadding(0, 0, 40, 0);
+        tvStart.setOnClickListener(v -> showTimePicker(tvStart));
+
+        tvEnd.setText(end);
+        tvEnd.setTextSize(16);
+        tvEnd.setOnClickListener(v -> showTimePicker(tvEnd));
+
+        timeLayout.addView(tvStart);
+        timeLayout.addView(new TextView(requireContext()) {{ setText(" - "); }});
+        timeLayout.addView(tvEnd);
+        return timeLayout;
+    }
+
     private void showTimePicker(TextView targetView) {
         Calendar cal = Calendar.getInstance();
         new TimePickerDialog(requireContext(), (view, hourOfDay, minute) -> {
@@ -314,7 +673,7 @@ public class AdminEmployeesFragment extends Fragment implements EmployeeListAdap
 
     @Override
     public void onBulkActionRequested(List<User> selectedUsers) {
-        String[] options = {"Remove Selected Employees", "Assign Location & Shift"};
+        String[] options = {"Remove Selected Employees", "Assign Location & Shift", "Issue Kiosk Badges"};
         
         AlertDialog.Builder builder = new AlertDialog.Builder(requireContext());
         builder.setTitle("Bulk Actions (" + selectedUsers.size() + " selected)");
@@ -323,6 +682,8 @@ public class AdminEmployeesFragment extends Fragment implements EmployeeListAdap
                 showBulkDeleteConfirmation(selectedUsers);
             } else if (which == 1) {
                 showBulkLocationAssignment(selectedUsers);
+            } else if (which == 2) {
+                showBadgeIssueConfirmation(selectedUsers);
             }
         });
         builder.show();
@@ -375,6 +736,9 @@ public class AdminEmployeesFragment extends Fragment implements EmployeeListAdap
         cbTraveling.setText("Enable Traveling / Remote Start");
         layout.addView(cbTraveling);
 
+        final Spinner rosterSpinner = buildRosterSpinner(null);
+        layout.addView(rosterSpinner);
+
         TextView tvLabel = new TextView(requireContext());
         tvLabel.setText("Assigned Shift Hours:");
         tvLabel.setPadding(0, 20, 0, 10);
@@ -405,22 +769,27 @@ public class AdminEmployeesFragment extends Fragment implements EmployeeListAdap
             if (selectedIndex >= 0) {
                 String locId = locationList.get(selectedIndex).getId();
                 performBulkAssignment(selectedUsers, locId, cbTraveling.isChecked(), 
-                                      tvStart.getText().toString(), tvEnd.getText().toString());
+                                      tvStart.getText().toString(), tvEnd.getText().toString(),
+                                      rosterIdAt(rosterSpinner));
             }
         });
         builder.setNegativeButton("Cancel", null);
         builder.show();
     }
 
-    private void performBulkAssignment(List<User> selectedUsers, String locId, boolean isTraveling, String start, String end) {
+    private void performBulkAssignment(List<User> selectedUsers, String locId, boolean isTraveling, String start, String end, String rosterId) {
         WriteBatch batch = db.batch();
+        long now = TimeUtils.getCurrentTimestamp();
         for (User user : selectedUsers) {
-            batch.update(db.collection("users").document(user.getUid()), 
-                    "assignedLocationId", locId,
-                    "approved", true,
-                    "isTraveling", isTraveling,
-                    "shiftStartTime", start,
-                    "shiftEndTime", end);
+            Map<String, Object> updates = new HashMap<>();
+            updates.put("assignedLocationId", locId);
+            updates.put("approved", true);
+            updates.put("isTraveling", isTraveling);
+            updates.put("shiftStartTime", start);
+            updates.put("shiftEndTime", end);
+            updates.put("rosterId", rosterId);
+            if (!user.isApproved()) updates.put("approvedAt", now);
+            batch.update(db.collection("users").document(user.getUid()), updates);
         }
         
         batch.commit().addOnSuccessListener(aVoid -> {
@@ -431,9 +800,233 @@ public class AdminEmployeesFragment extends Fragment implements EmployeeListAdap
         });
     }
 
+    private void showBadgeIssueConfirmation(List<User> selectedUsers) {
+        if (locationList.isEmpty()) {
+            Toast.makeText(getContext(), "Add an Office Location first!", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        new AlertDialog.Builder(requireContext())
+                .setTitle("Issue Kiosk Badges")
+                .setMessage("Issue new signed badges to " + selectedUsers.size() + " employees? "
+                        + "Their previous badges stop working at every kiosk.")
+                .setPositiveButton("Issue", (dialog, which) -> issueKioskBadges(selectedUsers))
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    /**
+     * NEW: Signs one badge per employee with this device's badge key (Android Keystore), publishes
+     * the public key to every location and records the issue time on each user, which revokes
+     * any older badge. Badges are only shown once the writes succeed.
+     */
+    private void issueKioskBadges(List<User> selectedUsers) {
+        List<User> employees = new ArrayList<>();
+        for (User user : selectedUsers) {
+            if (user.getEmployeeId() != null && !user.getEmployeeId().isEmpty()) employees.add(user);
+        }
+        if (employees.isEmpty()) {
+            Toast.makeText(getContext(), "Selected employees have no Employee ID yet.", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        List<CompanyConfig> locations = new ArrayList<>(locationList);
+        long issuedAt = System.currentTimeMillis();
+
+        badgeExecutor.execute(() -> {
+            try {
+                KeyStore.PrivateKeyEntry entry = KioskTokenHelper.getOrCreateBadgeKey();
+                String keyId = KioskTokenHelper.keyIdOf(entry.getCertificate().getPublicKey());
+                String publicKey = KioskTokenHelper.encodePublicKey(entry.getCertificate().getPublicKey());
+                List<String> badges = new ArrayList<>();
+                for (User user : employees) {
+                    badges.add(KioskTokenHelper.issueBadge(user.getEmployeeId(), issuedAt, entry.getPrivateKey(), keyId));
+                }
+                mainHandler.post(() -> publishBadges(employees, locations, keyId, publicKey, issuedAt, badges));
+            } catch (Exception e) {
+                Log.e(TAG, "Badge signing failed", e);
+                mainHandler.post(() -> Toast.makeText(getContext(), "This device cannot sign badges.", Toast.LENGTH_LONG).show());
+            }
+        });
+    }
+
+    private void publishBadges(List<User> employees, List<CompanyConfig> locations, String keyId, String publicKey,
+                               long issuedAt, List<String> badges) {
+        WriteBatch batch = db.batch();
+        for (CompanyConfig location : locations) {
+            batch.update(db.collection("locations").document(location.getId()), "badgeKeys." + keyId, publicKey);
+        }
+        for (User user : employees) {
+            batch.update(db.collection("users").document(user.getUid()), "badgeIssuedAt", issuedAt);
+        }
+        batch.commit().addOnSuccessListener(aVoid -> {
+            if (binding == null) return;
+            adapter.clearSelection();
+            showBadge(employees, badges, 0);
+        }).addOnFailureListener(e -> {
+            Toast.makeText(getContext(), "Badge issue failed: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+        });
+    }
+
+    /**
+     * Shows the badge at the given index, with Share and Next to page through the batch.
+     */
+    private void showBadge(List<User> employees, List<String> badges, int index) {
+        if (getContext() == null || index >= badges.size()) return;
+        User user = employees.get(index);
+        String badge = badges.get(index);
+
+        LinearLayout layout = new LinearLayout(requireContext());
+        layout.setOrientation(LinearLayout.VERTICAL);
+        layout.setPadding(60, 20, 60, 10);
+        ImageView ivBadge = new ImageView(requireContext());
+        ivBadge.setAdjustViewBounds(true);
+        layout.addView(ivBadge);
+
+        File[] rendered = new File[1];
+        AlertDialog.Builder builder = new AlertDialog.Builder(requireContext())
+                .setTitle(user.getName() + " (" + user.getEmployeeId() + ")  " + (index + 1) + "/" + badges.size())
+                .setView(layout)
+                .setNeutralButton("Share", (dialog, which) -> {
+                    shareBadge(rendered[0], user);
+                    showBadge(employees, badges, index);
+                })
+                .setNegativeButton("Close", null);
+        if (index + 1 < badges.size()) {
+            builder.setPositiveButton("Next", (dialog, which) -> showBadge(employees, badges, index + 1));
+        }
+        builder.show();
+
+        QrRenderCache.getInstance(requireContext()).render(QrRenderCache.keyOf(badge.getBytes(StandardCharsets.UTF_8)),
+                BADGE_QR_SIZE, () -> badge, new QrRenderCache.Callback() {
+                    @Override
+                    public void onRendered(Bitmap bitmap, File png) {
+                        rendered[0] = png;
+                        ivBadge.setImageBitmap(bitmap);
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        Toast.makeText(getContext(), "Failed to render badge", Toast.LENGTH_SHORT).show();
+                    }
+                });
+    }
+
+    private void shareBadge(File png, User user) {
+        if (png == null || !png.exists() || getContext() == null) return;
+        Uri contentUri = FileProvider.getUriForFile(requireContext(), "com.inout.app.fileprovider", png);
+        Intent shareIntent = new Intent(Intent.ACTION_SEND);
+        shareIntent.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
+        shareIntent.setDataAndType(contentUri, requireContext().getContentResolver().getType(contentUri));
+        shareIntent.putExtra(Intent.EXTRA_STREAM, contentUri);
+        shareIntent.putExtra(Intent.EXTRA_SUBJECT, "Kiosk badge for " + user.getName());
+        startActivity(Intent.createChooser(shareIntent, "Share badge via:"));
+    }
+
+    private void listenForLeaveRequests() {
+        leaveRequestsRegistration = LeaveRequestManager.getInstance().listenPending(pending -> {
+            pendingLeaves = pending;
+            if (binding != null) {
+                binding.btnLeaveRequests.setText("Leave Requests (" + pending.size() + ")");
+            }
+        });
+    }
+
+    /**
+     * Pending leave requests as a multi-select list; the selection is approved or rejected in batches.
+     */
+    private void showLeaveRequestQueue() {
+        if (pendingLeaves.isEmpty()) {
+            Toast.makeText(getContext(), "No pending leave requests", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        List<LeaveRequest> queue = new ArrayList<>(pendingLeaves);
+        String[] labels = new String[queue.size()];
+        boolean[] checked = new boolean[queue.size()];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = leaveLabel(queue.get(i));
+        }
+
+        new AlertDialog.Builder(requireContext())
+                .setTitle("Pending Leave Requests")
+                .setMultiChoiceItems(labels, checked, (dialog, which, isChecked) -> checked[which] = isChecked)
+                .setPositiveButton("Approve", (dialog, which) -> {
+                    List<LeaveRequest> selected = selectedLeaves(queue, checked);
+                    if (!selected.isEmpty()) showLeaveDecisionDialog(selected);
+                })
+                .setNeutralButton("Reject", (dialog, which) -> {
+                    List<LeaveRequest> selected = selectedLeaves(queue, checked);
+                    if (!selected.isEmpty()) decideLeaves(selected, false, null);
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    private List<LeaveRequest> selectedLeaves(List<LeaveRequest> queue, boolean[] checked) {
+        List<LeaveRequest> selected = new ArrayList<>();
+        for (int i = 0; i < checked.length; i++) {
+            if (checked[i]) selected.add(queue.get(i));
+        }
+        if (selected.isEmpty()) {
+            Toast.makeText(getContext(), "No requests selected", Toast.LENGTH_SHORT).show();
+        }
+        return selected;
+    }
+
+    /**
+     * Approves the requests; medical leave needs a Paid/Unpaid decision first.
+     */
+    private void showLeaveDecisionDialog(List<LeaveRequest> requests) {
+        boolean anyMedical = false;
+        for (LeaveRequest request : requests) {
+            if (request.isMedical()) anyMedical = true;
+        }
+
+        AlertDialog.Builder builder = new AlertDialog.Builder(requireContext());
+        if (!anyMedical) {
+            builder.setTitle("Emergency Leave Approval")
+                    .setMessage(requests.size() == 1
+                            ? "Approve emergency leave request for " + requests.get(0).getEmployeeName() + "?"
+                            : "Approve " + requests.size() + " emergency leave requests?")
+                    .setPositiveButton("Approve Leave", (dialog, which) -> decideLeaves(requests, true, null))
+                    .setNeutralButton("Reject", (dialog, which) -> decideLeaves(requests, false, null));
+        } else {
+            builder.setTitle("Medical Leave Decision")
+                    .setMessage(requests.size() == 1
+                            ? "Grant medical leave for " + requests.get(0).getEmployeeName() + "? Choose leave type:"
+                            : "Approve " + requests.size() + " leave requests? Choose the medical leave type:")
+                    .setPositiveButton("Paid Leave", (dialog, which) -> decideLeaves(requests, true, "paid"))
+                    .setNeutralButton("Unpaid Leave", (dialog, which) -> decideLeaves(requests, true, "unpaid"));
+        }
+        builder.setNegativeButton("Cancel", null);
+        builder.show();
+    }
+
+    private void decideLeaves(List<LeaveRequest> requests, boolean approve, String medicalLeaveType) {
+        binding.progressBar.setVisibility(View.VISIBLE);
+        LeaveRequestManager.getInstance().decide(requests, approve, medicalLeaveType, (decided, failed) -> {
+            if (binding == null) return;
+            binding.progressBar.setVisibility(View.GONE);
+            String action = approve ? "approved" : "rejected";
+            if (failed == 0) {
+                Toast.makeText(getContext(), decided + " leave request(s) " + action + ".", Toast.LENGTH_SHORT).show();
+            } else {
+                Toast.makeText(getContext(), decided + " " + action + ", " + failed + " failed. Please retry.", Toast.LENGTH_LONG).show();
+            }
+        });
+    }
+
+    private String leaveLabel(LeaveRequest request) {
+        String name = request.getEmployeeName() + " (" + request.getEmployeeId() + ")";
+        if (request.isMedical()) {
+            return "Medical: " + name + " - " + request.getDate();
+        }
+        return "Emergency: " + name + " - " + request.getDate()
+                + (request.getLeaveTime() != null ? " at " + request.getLeaveTime() : "");
+    }
+
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        if (leaveRequestsRegistration != null) leaveRequestsRegistration.remove();
         binding = null;
     }
 }
\ No newline at end of file
@@ -1,15 +1,18 @@
 package com.inout.app;
 
 import android.app.AlertDialog;
-import android.location.Address;
-import android.location.Geocoder;
+import android.app.DatePickerDialog;
 import android.location.Location;
 import android.os.Bundle;
 import android.text.TextUtils;
-import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.ArrayAdapter;
+import android.widget.EditText;
+import android.widget.LinearLayout;
+import android.widget.Spinner;
+import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
@@ -25,20 +28,27 @@ import com.google.firebase.firestore.QuerySnapshot;
 import com.google.firebase.firestore.WriteBatch;
 import com.inout.app.databinding.FragmentAdminLocationsBinding;
 import com.inout.app.models.CompanyConfig;
+import com.inout.app.models.Holiday;
+import com.inout.app.utils.CalendarCatalog;
+import com.inout.app.utils.GeocodingService;
 import com.inout.app.utils.LocationHelper;
+import com.inout.app.utils.TileCacheManager;
 
-import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 
 /**
  * Updated Fragment for Office Locations.
  * Features: Remote Search, GPS Capture, Map Selection, and Interactive Selection/Deletion.
+ * NEW: Company calendar - weekly off days per site and the holiday list used by monthly reports.
  */
 public class AdminLocationsFragment extends Fragment implements LocationAdapter.OnLocationActionListener {
 
     private static final String TAG = "AdminLocationsFrag";
+    private static final String[] WEEKDAY_NAMES = {"Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday"};
     private FragmentAdminLocationsBinding binding;
     private FirebaseFirestore db;
     private LocationHelper locationHelper;
@@ -66,6 +76,7 @@ public class AdminLocationsFragment extends Fragment implements LocationAdapter.
         setupRecyclerView();
         setupClickListeners();
         listenForLocations();
+        CalendarCatalog.getInstance().start();
     }
 
     private void setupRecyclerView() {
@@ -93,6 +104,27 @@ public class AdminLocationsFragment extends Fragment implements LocationAdapter.
 
         // Save logic
         binding.btnSaveLocation.setOnClickListener(v -> saveLocationToFirestore());
+
+        // Company calendar (weekly off days and holidays)
+        binding.btnCompanyCalendar.setOnClickListener(v -> showCompanyCalendar());
+
+        // Offline map cache status
+        binding.btnOfflineMaps.setOnClickListener(v -> showOfflineMapsDialog());
+    }
+
+    /**
+     * Shows how well the offline tile archive is serving the map picker. Areas cannot be
+     * downloaded ahead of time (see TileCacheManager), so this is the only place to check it.
+     */
+    private void showOfflineMapsDialog() {
+        TileCacheManager tileCache = TileCacheManager.getInstance(requireContext());
+        new AlertDialog.Builder(requireContext())
+                .setTitle("Offline Maps")
+                .setMessage("Map areas are kept offline as they are viewed in the map picker; the map source ("
+                        + tileCache.getSourceName() + ") does not allow downloading areas in advance.\n\n"
+                        + tileCache.getStatsSummary())
+                .setPositiveButton("OK", null)
+                .show();
     }
 
     /**
@@ -122,11 +154,10 @@ public class AdminLocationsFragment extends Fragment implements LocationAdapter.
 
     private void searchLocationByAddress(String addressString) {
         binding.progressBar.setVisibility(View.VISIBLE);
-        Geocoder geocoder = new Geocoder(requireContext(), Locale.getDefault());
-        try {
-            List<Address> addresses = geocoder.getFromLocationName(addressString, 1);
-            if (addresses != null && !addresses.isEmpty()) {
-                Address result = addresses.get(0);
+        GeocodingService.getInstance(requireContext()).search(addressString, result -> {
+            if (binding == null) return;
+            binding.progressBar.setVisibility(View.GONE);
+            if (result != null) {
                 capturedLat = result.getLatitude();
                 capturedLng = result.getLongitude();
 
@@ -134,19 +165,14 @@ public class AdminLocationsFragment extends Fragment implements LocationAdapter.
                 binding.etLocationName.setText(foundName);
                 
                 binding.tvCapturedCoords.setText(String.format("Found: %s\nLat: %.6f | Lng: %.6f", 
-                        result.getAddressLine(0), capturedLat, capturedLng));
+                        result.getAddressLine(), capturedLat, capturedLng));
                 binding.tvCapturedCoords.setVisibility(View.VISIBLE);
                 
                 Toast.makeText(getContext(), "Location Found", Toast.LENGTH_SHORT).show();
             } else {
-                Toast.makeText(getContext(), "Address not found.", Toast.LENGTH_LONG).show();
+                Toast.makeText(getContext(), "Address not found. Check connection.", Toast.LENGTH_LONG).show();
             }
-        } catch (IOException e) {
-            Log.e(TAG, "Geocoder error", e);
-            Toast.makeText(getContext(), "Search error. Check connection.", Toast.LENGTH_SHORT).show();
-        } finally {
-            binding.progressBar.setVisibility(View.GONE);
-        }
+        });
     }
 
     private void captureCurrentLocation() {
@@ -180,23 +206,17 @@ public class AdminLocationsFragment extends Fragment implements LocationAdapter.
     }
 
     private void updateLocationNameFromGps(Location loc) {
-        Geocoder geocoder = new Geocoder(requireContext(), Locale.getDefault());
-        try {
-            List<Address> addresses = geocoder.getFromLocation(loc.getLatitude(), loc.getLongitude(), 1);
-            if (addresses != null && !addresses.isEmpty()) {
-                Address addr = addresses.get(0);
-                StringBuilder sb = new StringBuilder();
-                if (addr.getFeatureName() != null && !addr.getFeatureName().contains("+")) {
-                    sb.append(addr.getFeatureName()).append(", ");
-                }
-                if (addr.getLocality() != null) sb.append(addr.getLocality()).append(" ");
-                if (addr.getPostalCode() != null) sb.append("- ").append(addr.getPostalCode());
-                
-                binding.etLocationName.setText(sb.toString().trim());
+        GeocodingService.getInstance(requireContext()).reverse(loc.getLatitude(), loc.getLongitude(), addr -> {
+            if (binding == null || addr == null) return;
+            StringBuilder sb = new StringBuilder();
+            if (addr.getFeatureName() != null && !addr.getFeatureName().contains("+")) {
+                sb.append(addr.getFeatureName()).append(", ");
             }
-        } catch (IOException e) {
-            Log.e(TAG, "Reverse Geocode failed", e);
-        }
+            if (addr.getLocality() != null) sb.append(addr.getLocality()).append(" ");
+            if (addr.getPostalCode() != null) sb.append("- ").append(addr.getPostalCode());
+            
+            binding.etLocationName.setText(sb.toString().trim());
+        });
     }
 
     private void saveLocationToFirestore() {
@@ -243,7 +263,7 @@ public class AdminLocationsFragment extends Fragment implements LocationAdapter.
                                 savedLocations.add(config);
                             }
                         }
-                        adapter.notifyDataSetChanged();
+                        adapter.setLocations(savedLocations);
                     }
                 });
     }
@@ -278,6 +298,142 @@ public class AdminLocationsFragment extends Fragment implements LocationAdapter.
         });
     }
 
+    private void showCompanyCalendar() {
+        List<Holiday> holidays = new ArrayList<>(CalendarCatalog.getInstance().getHolidays());
+        Collections.sort(holidays, (a, b) -> String.valueOf(a.getDate()).compareTo(String.valueOf(b.getDate())));
+
+        List<String> items = new ArrayList<>();
+        items.add("+ Weekly Off Days");
+        items.add("+ New Holiday");
+        for (Holiday h : holidays) {
+            items.add("Holiday: " + h.getDate() + "  " + h.getName() + " (" + siteName(h.getLocationId()) + ")");
+        }
+
+        new AlertDialog.Builder(requireContext())
+                .setTitle("Company Calendar")
+                .setItems(items.toArray(new String[0]), (dialog, which) -> {
+                    if (which == 0) {
+                        showWeeklyOffSitePicker();
+                    } else if (which == 1) {
+                        showNewHolidayDialog();
+                    } else {
+                        confirmHolidayDelete(holidays.get(which - 2));
+                    }
+                })
+                .setNegativeButton("Close", null)
+                .show();
+    }
+
+    private void showWeeklyOffSitePicker() {
+        if (savedLocations.isEmpty()) {
+            Toast.makeText(getContext(), "Save an office location first", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        String[] names = new String[savedLocations.size()];
+        for (int i = 0; i < names.length; i++) names[i] = savedLocations.get(i).getName();
+
+        new AlertDialog.Builder(requireContext())
+                .setTitle("Select Site")
+                .setItems(names, (dialog, which) -> showWeeklyOffDaysDialog(savedLocations.get(which)))
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    private void showWeeklyOffDaysDialog(CompanyConfig site) {
+        // ISO days: index 0 = Monday (1) .. 6 = Sunday (7)
+        boolean[] checked = new boolean[7];
+        if (site.getWeeklyOffDays() != null) {
+            for (Integer day : site.getWeeklyOffDays()) {
+                if (day != null && day >= 1 && day <= 7) checked[day - 1] = true;
+            }
+        }
+
+        new AlertDialog.Builder(requireContext())
+                .setTitle("Weekly Off Days: " + site.getName())
+                .setMultiChoiceItems(WEEKDAY_NAMES, checked, (dialog, which, isChecked) -> checked[which] = isChecked)
+                .setPositiveButton("Save", (dialog, which) -> {
+                    List<Integer> offDays = new ArrayList<>();
+                    for (int i = 0; i < checked.length; i++) {
+                        if (checked[i]) offDays.add(i + 1);
+                    }
+                    db.collection("locations").document(site.getId())
+                            .update("weeklyOffDays", offDays)
+                            .addOnSuccessListener(aVoid -> Toast.makeText(getContext(), "Weekly off days saved", Toast.LENGTH_SHORT).show())
+                            .addOnFailureListener(e -> Toast.makeText(getContext(), "Error: " + e.getMessage(), Toast.LENGTH_SHORT).show());
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    private void showNewHolidayDialog() {
+        LinearLayout layout = new LinearLayout(requireContext());
+        layout.setOrientation(LinearLayout.VERTICAL);
+        layout.setPadding(60, 20, 60, 10);
+
+        final EditText inputName = new EditText(requireContext());
+        inputName.setHint("Holiday name (e.g. New Year's Day)");
+        layout.addView(inputName);
+
+        Calendar today = Calendar.getInstance();
+        final TextView tvDate = new TextView(requireContext());
+        tvDate.setText(String.format(Locale.US, "%04d-%02d-%02d",
+                today.get(Calendar.YEAR), today.get(Calendar.MONTH) + 1, today.get(Calendar.DAY_OF_MONTH)));
+        tvDate.setTextSize(16);
+        tvDate.setPadding(0, 20, 0, 10);
+        tvDate.setOnClickListener(v -> {
+            String[] parts = tvDate.getText().toString().split("-");
+            new DatePickerDialog(requireContext(), (view, year, month, dayOfMonth) ->
+                    tvDate.setText(String.format(Locale.US, "%04d-%02d-%02d", year, month + 1, dayOfMonth)),
+                    Integer.parseInt(parts[0]), Integer.parseInt(parts[1]) - 1, Integer.parseInt(parts[2])).show();
+        });
+        layout.addView(tvDate);
+
+        // "All sites" first, then each saved location
+        List<String> siteNames = new ArrayList<>();
+        siteNames.add("All sites");
+        for (CompanyConfig loc : savedLocations) siteNames.add(loc.getName());
+        final Spinner siteSpinner = new Spinner(requireContext());
+        siteSpinner.setAdapter(new ArrayAdapter<>(requireContext(), android.R.layout.simple_spinner_dropdown_item, siteNames));
+        layout.addView(siteSpinner);
+
+        new AlertDialog.Builder(requireContext())
+                .setTitle("New Holiday")
+                .setView(layout)
+                .setPositiveButton("Save", (dialog, which) -> {
+                    String name = inputName.getText().toString().trim();
+                    if (TextUtils.isEmpty(name)) {
+                        Toast.makeText(getContext(), "Holiday name required", Toast.LENGTH_SHORT).show();
+                        return;
+                    }
+                    int sitePosition = siteSpinner.getSelectedItemPosition();
+                    String locationId = sitePosition > 0 ? savedLocations.get(sitePosition - 1).getId() : null;
+                    db.collection(CalendarCatalog.HOLIDAYS_COLLECTION)
+                            .add(new Holiday(tvDate.getText().toString(), name, locationId))
+                            .addOnSuccessListener(doc -> Toast.makeText(getContext(), "Holiday saved", Toast.LENGTH_SHORT).show())
+                            .addOnFailureListener(e -> Toast.makeText(getContext(), "Error: " + e.getMessage(), Toast.LENGTH_SHORT).show());
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    private void confirmHolidayDelete(Holiday holiday) {
+        new AlertDialog.Builder(requireContext())
+                .setTitle("Delete " + holiday.getName() + "?")
+                .setMessage(holiday.getDate() + " will count as a working day again.")
+                .setPositiveButton("Delete", (dialog, which) ->
+                        db.collection(CalendarCatalog.HOLIDAYS_COLLECTION).document(holiday.getId()).delete())
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    private String siteName(String locationId) {
+        if (locationId == null) return "All sites";
+        for (CompanyConfig loc : savedLocations) {
+            if (locationId.equals(loc.getId())) return loc.getName();
+        }
+        return "Unknown site";
+    }
+
     @Override
     public void onDestroyView() {
         super.onDestroyView();
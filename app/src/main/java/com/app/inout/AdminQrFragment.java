@@ -15,21 +15,13 @@ import androidx.annotation.Nullable;
 import androidx.core.content.FileProvider;
 import androidx.fragment.app.Fragment;
 
-import com.google.zxing.BarcodeFormat;
-import com.google.zxing.MultiFormatWriter;
-import com.google.zxing.WriterException;
-import com.google.zxing.common.BitMatrix;
-import com.journeyapps.barcodescanner.BarcodeEncoder;
-
 import com.inout.app.databinding.FragmentAdminQrBinding;
+import com.inout.app.utils.Base45;
 import com.inout.app.utils.EncryptionHelper;
-
-import org.json.JSONException;
-import org.json.JSONObject;
+import com.inout.app.utils.EnrollmentPayload;
+import com.inout.app.utils.QrRenderCache;
 
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
 
 /**
  * Fragment responsible for generating and sharing the Company QR Code.
@@ -37,8 +29,10 @@ import java.io.IOException;
 public class AdminQrFragment extends Fragment {
 
     private static final String TAG = "AdminQrFragment";
+    private static final int QR_SIZE = 512;
     private FragmentAdminQrBinding binding;
     private Bitmap generatedQrBitmap; 
+    private File generatedQrFile;
 
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
@@ -75,29 +69,48 @@ public class AdminQrFragment extends Fragment {
         }
 
         try {
-            JSONObject payload = new JSONObject();
-            payload.put("firebaseConfig", configJson);
-            payload.put("companyName", companyName);
-            payload.put("projectId", projectId);
-            payload.put("timestamp", System.currentTimeMillis());
-
-            String encryptedPayload = encryptionHelper.encryptQrPayload(payload.toString());
-
-            if (encryptedPayload != null) {
-                generatedQrBitmap = encodeAsBitmap(encryptedPayload);
-
-                if (generatedQrBitmap != null) {
-                    binding.ivQrCode.setImageBitmap(generatedQrBitmap);
-                    binding.ivQrCode.setVisibility(View.VISIBLE);
-                    binding.tvPlaceholder.setVisibility(View.GONE);
-
-                    // FIXED: Using CamelCase 'btnShareQr'
-                    binding.btnShareQr.setVisibility(View.VISIBLE); 
-
-                    binding.tvInstruction.setText("Company: " + companyName);
-                    Toast.makeText(getContext(), "QR Generated Successfully", Toast.LENGTH_SHORT).show();
-                }
-            }
+            // UPDATED: Compact binary payload (only the fields the employee app needs)
+            // instead of the whole google-services.json, so the QR is far less dense.
+            EnrollmentPayload payload = EnrollmentPayload.fromFirebaseJson(configJson, companyName);
+            byte[] plain = payload.encode();
+
+            // UPDATED: Encryption, QR encoding and PNG export run on a background thread and are
+            // cached per payload hash, so regenerating or sharing an unchanged config is instant.
+            binding.btnGenerateQr.setEnabled(false);
+            QrRenderCache.getInstance(requireContext()).render(QrRenderCache.keyOf(plain), QR_SIZE,
+                    () -> {
+                        byte[] encrypted = encryptionHelper.encryptQrBytes(plain);
+                        if (encrypted == null) throw new IllegalStateException("QR encryption failed");
+                        String qrContent = EnrollmentPayload.QR_PREFIX + Base45.encode(encrypted);
+                        Log.d(TAG, "Enrollment QR payload: " + qrContent.length() + " chars (was " + configJson.length() + "+ chars)");
+                        return qrContent;
+                    },
+                    new QrRenderCache.Callback() {
+                        @Override
+                        public void onRendered(Bitmap bitmap, File png) {
+                            if (binding == null) return;
+                            binding.btnGenerateQr.setEnabled(true);
+                            generatedQrBitmap = bitmap;
+                            generatedQrFile = png;
+
+                            binding.ivQrCode.setImageBitmap(generatedQrBitmap);
+                            binding.ivQrCode.setVisibility(View.VISIBLE);
+                            binding.tvPlaceholder.setVisibility(View.GONE);
+
+                            // FIXED: Using CamelCase 'btnShareQr'
+                            binding.btnShareQr.setVisibility(View.VISIBLE);
+
+                            binding.tvInstruction.setText("Company: " + companyName);
+                            Toast.makeText(getContext(), "QR Generated Successfully", Toast.LENGTH_SHORT).show();
+                        }
+
+                        @Override
+                        public void onError(Exception e) {
+                            if (binding == null) return;
+                            binding.btnGenerateQr.setEnabled(true);
+                            Toast.makeText(getContext(), "Failed to generate QR", Toast.LENGTH_SHORT).show();
+                        }
+                    });
         } catch (Exception e) {
             Log.e(TAG, "QR Generation failed", e);
             Toast.makeText(getContext(), "Failed to generate QR", Toast.LENGTH_SHORT).show();
@@ -105,45 +118,28 @@ public class AdminQrFragment extends Fragment {
     }
 
     private void shareQrImage() {
-        try {
-            // 1. Create a temporary file in the app's cache
-            File cachePath = new File(requireContext().getCacheDir(), "images");
-            cachePath.mkdirs(); 
-            File newFile = new File(cachePath, "company_qr.png");
-            FileOutputStream stream = new FileOutputStream(newFile);
-
-            // 2. Write the bitmap to the file
-            generatedQrBitmap.compress(Bitmap.CompressFormat.PNG, 100, stream);
-            stream.close();
-
-            // 3. Get URI using the authority defined in AndroidManifest.xml
-            Uri contentUri = FileProvider.getUriForFile(requireContext(), "com.inout.app.fileprovider", newFile);
-
-            if (contentUri != null) {
-                // 4. Launch the Android Share Sheet
-                Intent shareIntent = new Intent();
-                shareIntent.setAction(Intent.ACTION_SEND);
-                shareIntent.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION); 
-                shareIntent.setDataAndType(contentUri, requireContext().getContentResolver().getType(contentUri));
-                shareIntent.putExtra(Intent.EXTRA_STREAM, contentUri);
-                shareIntent.putExtra(Intent.EXTRA_SUBJECT, "Company Registration QR");
-                shareIntent.putExtra(Intent.EXTRA_TEXT, "Scan this QR code to join " + 
-                        EncryptionHelper.getInstance(getContext()).getCompanyName());
-
-                startActivity(Intent.createChooser(shareIntent, "Share QR via:"));
-            }
-        } catch (IOException e) {
-            Log.e(TAG, "Sharing failed", e);
+        // UPDATED: The PNG was already written in the background when the QR was rendered
+        if (generatedQrFile == null || !generatedQrFile.exists()) {
             Toast.makeText(getContext(), "Could not share image", Toast.LENGTH_SHORT).show();
+            return;
         }
-    }
 
-    private Bitmap encodeAsBitmap(String content) throws WriterException {
-        MultiFormatWriter multiFormatWriter = new MultiFormatWriter();
-        // QR Code Size 512x512
-        BitMatrix bitMatrix = multiFormatWriter.encode(content, BarcodeFormat.QR_CODE, 512, 512);
-        BarcodeEncoder barcodeEncoder = new BarcodeEncoder();
-        return barcodeEncoder.createBitmap(bitMatrix);
+        // Get URI using the authority defined in AndroidManifest.xml
+        Uri contentUri = FileProvider.getUriForFile(requireContext(), "com.inout.app.fileprovider", generatedQrFile);
+
+        if (contentUri != null) {
+            // Launch the Android Share Sheet
+            Intent shareIntent = new Intent();
+            shareIntent.setAction(Intent.ACTION_SEND);
+            shareIntent.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION); 
+            shareIntent.setDataAndType(contentUri, requireContext().getContentResolver().getType(contentUri));
+            shareIntent.putExtra(Intent.EXTRA_STREAM, contentUri);
+            shareIntent.putExtra(Intent.EXTRA_SUBJECT, "Company Registration QR");
+            shareIntent.putExtra(Intent.EXTRA_TEXT, "Scan this QR code to join " + 
+                    EncryptionHelper.getInstance(getContext()).getCompanyName());
+
+            startActivity(Intent.createChooser(shareIntent, "Share QR via:"));
+        }
     }
 
     @Override
@@ -0,0 +1,191 @@
+package com.inout.app.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.inout.app.models.AbsenceMarker;
+import com.inout.app.models.AttendanceRecord;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Feeds {@link AttendanceAnalytics} from live listeners on the last 13 weeks of attendance
+ * records and absence markers. Snapshots are delivered on a single background thread and only
+ * their document changes are applied, so an edited record costs one update instead of a rescan.
+ * Reports are built on that thread and posted to listeners on the main thread.
+ *
+ * Listening starts with the first listener and then outlives the Analytics screen: leaving and
+ * reopening the tab reuses the live aggregates instead of re-reading 13 weeks of documents.
+ * AdminDashboardActivity calls {@link #stop()} when it finishes (logout, company switch, exit).
+ *
+ * The initial read per dashboard session is intentional: 13 weeks of records and markers, about
+ * 180k documents for 2,000 employees. The aggregates are not persisted because check-ins, leave
+ * decisions and auto check-outs keep editing those days while no admin device is listening, and
+ * only a server-side writer could keep stored totals correct; this app has none.
+ */
+public class AnalyticsTracker {
+
+    private static final String TAG = "AnalyticsTracker";
+
+    public interface ReportListener {
+        void onReport(AttendanceAnalytics.Report report);
+
+        /**
+         * A Firestore listener failed and the tracker stopped; {@link #refresh()} or the next
+         * {@link #addListener} retries.
+         */
+        default void onFailed() {}
+    }
+
+    private static AnalyticsTracker instance;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final List<ReportListener> listeners = new CopyOnWriteArrayList<>();
+    private ListenerRegistration attendanceRegistration;
+    private ListenerRegistration absencesRegistration;
+    private volatile AttendanceAnalytics.Report latest;
+
+    // Background thread only
+    private AttendanceAnalytics analytics;
+    private boolean attendanceLoaded;
+    private boolean absencesLoaded;
+
+    private AnalyticsTracker() {
+    }
+
+    public static synchronized AnalyticsTracker getInstance() {
+        if (instance == null) {
+            instance = new AnalyticsTracker();
+        }
+        return instance;
+    }
+
+    /**
+     * Registers a listener (main thread) and delivers the latest report right away, if any.
+     */
+    public void addListener(ReportListener listener) {
+        listeners.add(listener);
+        AttendanceAnalytics.Report report = latest;
+        if (report != null) listener.onReport(report);
+        start();
+    }
+
+    /**
+     * Keeps listening, so the next screen session starts from the current aggregates.
+     */
+    public void removeListener(ReportListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Rebuilds the report as of today, e.g. when the screen returns after midnight.
+     */
+    public void refresh() {
+        if (attendanceRegistration == null) {
+            // Stopped after a listener failure: retry for the screen that is still open
+            if (!listeners.isEmpty()) start();
+            return;
+        }
+        executor.execute(this::publish);
+    }
+
+    private void start() {
+        if (attendanceRegistration != null) return;
+        // A fresh engine per session: documents deleted while stopped never arrive as REMOVED
+        executor.execute(() -> {
+            analytics = new AttendanceAnalytics(AttendanceRules.getDefault());
+            attendanceLoaded = false;
+            absencesLoaded = false;
+        });
+        String from = LocalDate.now().minusDays(AttendanceAnalytics.RETENTION_DAYS - 1).toString();
+        FirebaseFirestore db = FirebaseFirestore.getInstance();
+
+        attendanceRegistration = db.collection("attendance")
+                .whereGreaterThanOrEqualTo("date", from)
+                .addSnapshotListener(executor, (value, error) -> {
+                    if (error != null) {
+                        Log.e(TAG, "Attendance listener failed", error);
+                        mainHandler.post(this::onListenerFailed);
+                        return;
+                    }
+                    if (value == null) return;
+                    applyAttendance(value);
+                    attendanceLoaded = true;
+                    publish();
+                });
+        absencesRegistration = db.collection(AbsenceMarker.COLLECTION)
+                .whereGreaterThanOrEqualTo("date", from)
+                .addSnapshotListener(executor, (value, error) -> {
+                    if (error != null) {
+                        Log.e(TAG, "Absence listener failed", error);
+                        mainHandler.post(this::onListenerFailed);
+                        return;
+                    }
+                    if (value == null) return;
+                    applyAbsences(value);
+                    absencesLoaded = true;
+                    publish();
+                });
+    }
+
+    /**
+     * Removes the Firestore listeners and drops the aggregates; the next listener starts afresh.
+     */
+    public void stop() {
+        if (attendanceRegistration != null) attendanceRegistration.remove();
+        if (absencesRegistration != null) absencesRegistration.remove();
+        attendanceRegistration = null;
+        absencesRegistration = null;
+        latest = null;
+        executor.execute(() -> analytics = null);
+    }
+
+    // A failed listener is dead; drop both so the next start() re-subscribes
+    private void onListenerFailed() {
+        if (attendanceRegistration == null) return;     // The other listener already failed
+        stop();
+        for (ReportListener listener : listeners) listener.onFailed();
+    }
+
+    private void applyAttendance(QuerySnapshot value) {
+        for (DocumentChange change : value.getDocumentChanges()) {
+            String id = change.getDocument().getId();
+            if (change.getType() == DocumentChange.Type.REMOVED) {
+                analytics.applyRecord(id, null);
+            } else {
+                analytics.applyRecord(id, change.getDocument().toObject(AttendanceRecord.class));
+            }
+        }
+    }
+
+    private void applyAbsences(QuerySnapshot value) {
+        for (DocumentChange change : value.getDocumentChanges()) {
+            String id = change.getDocument().getId();
+            if (change.getType() == DocumentChange.Type.REMOVED) {
+                analytics.applyAbsence(id, null);
+            } else {
+                analytics.applyAbsence(id, change.getDocument().toObject(AbsenceMarker.class));
+            }
+        }
+    }
+
+    // Waits for both collections, or absences alone would read as 0% attendance and vice versa
+    private void publish() {
+        if (analytics == null || !attendanceLoaded || !absencesLoaded) return;
+        AttendanceAnalytics.Report report = analytics.report(LocalDate.now());
+        latest = report;
+        mainHandler.post(() -> {
+            for (ReportListener listener : listeners) listener.onReport(report);
+        });
+    }
+}
@@ -1,31 +1,82 @@
 package com.inout.app.adapters;
 
-import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.ImageView;
-import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.inout.app.R;
 import com.inout.app.models.AttendanceRecord;
-import com.inout.app.utils.TimeUtils;
+import com.inout.app.utils.AttendanceRules;
 
-import java.util.List;
+import java.util.Objects;
 
 /**
  * Professional Adapter for the 14-column CSV attendance table.
  * UPDATED: Handles logic for Paid Medical Leave (Full Shift Credit) and Resume/Late Start hours.
+ * UPDATED: Status, hours and remarks are evaluated by AttendanceRules (same as the CSV export).
+ * UPDATED: ListAdapter with stable IDs. Submitted lists are diffed on a background thread,
+ * so a snapshot that changes one record only rebinds that row.
+ * UPDATED: Holidays and days off get their own status icon instead of "Absent".
  */
-public class AttendanceAdapter extends RecyclerView.Adapter<AttendanceAdapter.AttendanceViewHolder> {
+public class AttendanceAdapter extends ListAdapter<AttendanceRecord, AttendanceAdapter.AttendanceViewHolder> {
 
-    private final List<AttendanceRecord> attendanceList;
+    /**
+     * Every table shows a single employee, so a row is identified by its date (placeholder
+     * rows for absent days have no recordId). Contents are equal when every rendered
+     * column would come out the same.
+     */
+    private static final DiffUtil.ItemCallback<AttendanceRecord> DIFF_CALLBACK = new DiffUtil.ItemCallback<AttendanceRecord>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull AttendanceRecord oldItem, @NonNull AttendanceRecord newItem) {
+            return Objects.equals(oldItem.getDate(), newItem.getDate());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull AttendanceRecord oldItem, @NonNull AttendanceRecord newItem) {
+            return Objects.equals(oldItem.getDayOfWeek(), newItem.getDayOfWeek())
+                    && Objects.equals(oldItem.getCheckInTime(), newItem.getCheckInTime())
+                    && Objects.equals(oldItem.getCheckOutTime(), newItem.getCheckOutTime())
+                    && Objects.equals(oldItem.getMovementLog(), newItem.getMovementLog())
+                    && Objects.equals(oldItem.getStartLocationName(), newItem.getStartLocationName())
+                    && Objects.equals(oldItem.getLocationName(), newItem.getLocationName())
+                    && Objects.equals(oldItem.getAssignedShift(), newItem.getAssignedShift())
+                    && Objects.equals(oldItem.getTotalHours(), newItem.getTotalHours())
+                    && Objects.equals(oldItem.getOvertimeHours(), newItem.getOvertimeHours())
+                    && Objects.equals(oldItem.getEmergencyLeaveTime(), newItem.getEmergencyLeaveTime())
+                    && Objects.equals(oldItem.getMedicalLeaveType(), newItem.getMedicalLeaveType())
+                    && Objects.equals(oldItem.getRemarks(), newItem.getRemarks())
+                    && oldItem.isResumeRequested() == newItem.isResumeRequested()
+                    && oldItem.getDayType() == newItem.getDayType()
+                    && Math.round(oldItem.getDistanceMeters()) == Math.round(newItem.getDistanceMeters())
+                    && oldItem.isFingerprintVerified() == newItem.isFingerprintVerified()
+                    && oldItem.isGpsVerified() == newItem.isGpsVerified();
+        }
+    };
+
+    public AttendanceAdapter() {
+        super(DIFF_CALLBACK);
+        setHasStableIds(true);
+    }
 
-    public AttendanceAdapter(List<AttendanceRecord> attendanceList) {
-        this.attendanceList = attendanceList;
+    /**
+     * Stable ID: the record date (yyyy-MM-dd) as the number yyyyMMdd.
+     */
+    @Override
+    public long getItemId(int position) {
+        String date = getItem(position).getDate();
+        long id = 0;
+        if (date != null) {
+            for (int i = 0; i < date.length(); i++) {
+                char c = date.charAt(i);
+                if (c >= '0' && c <= '9') id = id * 10 + (c - '0');
+            }
+        }
+        return id != 0 ? id : RecyclerView.NO_ID;
     }
 
     @NonNull
@@ -37,128 +88,89 @@ public class AttendanceAdapter extends RecyclerView.Adapter<AttendanceAdapter.At
 
     @Override
     public void onBindViewHolder(@NonNull AttendanceViewHolder holder, int position) {
-        AttendanceRecord record = attendanceList.get(position);
-
-        // Reset Alpha for recycled views
-        holder.tvDate.setAlpha(1.0f);
-        holder.tvDay.setAlpha(1.0f);
+        AttendanceRecord record = getItem(position);
+        AttendanceRowView row = holder.row;
 
         // 1. Date & Day
-        holder.tvDate.setText(record.getDate());
-        holder.tvDay.setText(record.getDayOfWeek() != null ? record.getDayOfWeek() : "--");
+        row.setText(AttendanceRowView.COL_DATE, record.getDate());
+        row.setText(AttendanceRowView.COL_DAY, record.getDayOfWeek() != null ? record.getDayOfWeek() : "--");
 
         // 2. Check-In
-        holder.tvIn.setText(record.getCheckInTime() != null ? record.getCheckInTime() : "--:--");
+        row.setText(AttendanceRowView.COL_IN, record.getCheckInTime() != null ? record.getCheckInTime() : "--:--");
 
         // 3. Transit Route
-        holder.tvTransit.setText(record.getTransitSummary());
+        row.setText(AttendanceRowView.COL_TRANSIT, record.getTransitSummary());
 
         // 4. Check-Out
-        holder.tvOut.setText(record.getCheckOutTime() != null ? record.getCheckOutTime() : "--:--");
+        row.setText(AttendanceRowView.COL_OUT, record.getCheckOutTime() != null ? record.getCheckOutTime() : "--:--");
 
         // 5. Assigned Shift
-        holder.tvShift.setText(record.getAssignedShift() != null ? record.getAssignedShift() : "--");
+        row.setText(AttendanceRowView.COL_SHIFT, record.getAssignedShift() != null ? record.getAssignedShift() : "--");
 
-        // 6. Total Hours Logic (Enhanced for Resume/Medical)
-        String hoursDisplay = record.getTotalHours() != null ? record.getTotalHours() : "0h 00m";
+        // Status, credited hours and remarks come from the shared attendance rules
+        AttendanceRules.Result result = AttendanceRules.getDefault().evaluate(record);
 
-        // Scenario A: Emergency Leave (Not Resumed)
-        if (record.getEmergencyLeaveTime() != null && record.getCheckOutTime() == null) {
-            hoursDisplay = TimeUtils.calculateDuration(record.getCheckInTime(), record.getEmergencyLeaveTime());
-        }
-        // Scenario B: Paid Medical Leave + Resumed Work (Full Shift Credit)
-        else if ("paid".equals(record.getMedicalLeaveType()) && record.getCheckOutTime() != null) {
-            hoursDisplay = calculateShiftDuration(record.getAssignedShift());
-        }
-        
-        holder.tvTotalHours.setText(hoursDisplay);
+        // 6. Total Hours (emergency leave, paid medical leave credit)
+        row.setText(AttendanceRowView.COL_HOURS, result.hours);
 
         // 7. Overtime
-        holder.tvOvertime.setText(record.getOvertimeHours() != null ? record.getOvertimeHours() : "--");
+        row.setText(AttendanceRowView.COL_OVERTIME, record.getOvertimeHours() != null ? record.getOvertimeHours() : "--");
 
         // 8. Location Name
-        holder.tvLocation.setText(record.getLocationName() != null ? record.getLocationName() : "N/A");
+        row.setText(AttendanceRowView.COL_LOCATION, record.getLocationName() != null ? record.getLocationName() : "N/A");
 
         // 9. Distance
         if (record.getCheckInTime() != null) {
-            holder.tvDistance.setText(Math.round(record.getDistanceMeters()) + "m");
+            row.setText(AttendanceRowView.COL_DISTANCE, Math.round(record.getDistanceMeters()) + "m");
         } else {
-            holder.tvDistance.setText("--");
+            row.setText(AttendanceRowView.COL_DISTANCE, "--");
         }
 
         // 10. Fingerprint Verification
         if (record.getCheckInTime() != null) {
-            holder.ivFingerprint.setImageResource(record.isFingerprintVerified() ? 
+            row.setIcon(AttendanceRowView.COL_FINGERPRINT, record.isFingerprintVerified() ? 
                     R.drawable.ic_status_present : R.drawable.ic_status_absent);
         } else {
-            holder.ivFingerprint.setImageResource(R.drawable.ic_status_absent);
+            row.setIcon(AttendanceRowView.COL_FINGERPRINT, R.drawable.ic_status_absent);
         }
 
         // 11. GPS Verification
         if (record.getCheckInTime() != null) {
-            holder.ivGps.setImageResource(record.isGpsVerified() ? 
+            row.setIcon(AttendanceRowView.COL_GPS, record.isGpsVerified() ? 
                     R.drawable.ic_status_present : R.drawable.ic_status_absent);
         } else {
-            holder.ivGps.setImageResource(R.drawable.ic_status_absent);
+            row.setIcon(AttendanceRowView.COL_GPS, R.drawable.ic_status_absent);
         }
 
-        // 12. Overall Status
-        String status = record.getStatus();
-        if (status.equals("Present")) {
-            holder.ivStatus.setImageResource(R.drawable.ic_status_present);
-        } else if (status.equals("Partial")) {
-            holder.ivStatus.setImageResource(R.drawable.ic_status_partial);
+        // 12. Overall Status (absent days, holidays and days off are dimmed)
+        boolean absent = false;
+        if (result.status == AttendanceRules.Status.PRESENT) {
+            row.setIcon(AttendanceRowView.COL_STATUS, R.drawable.ic_status_present);
+        } else if (result.status == AttendanceRules.Status.PARTIAL) {
+            row.setIcon(AttendanceRowView.COL_STATUS, R.drawable.ic_status_partial);
+        } else if (result.status == AttendanceRules.Status.HOLIDAY || result.status == AttendanceRules.Status.WEEKEND) {
+            row.setIcon(AttendanceRowView.COL_STATUS, R.drawable.ic_status_off);
+            absent = true;
         } else {
-            holder.ivStatus.setImageResource(R.drawable.ic_status_absent);
-            holder.tvDate.setAlpha(0.5f);
-            holder.tvDay.setAlpha(0.5f);
+            row.setIcon(AttendanceRowView.COL_STATUS, R.drawable.ic_status_absent);
+            absent = true;
         }
+        row.setDimmed(AttendanceRowView.COL_DATE, absent);
+        row.setDimmed(AttendanceRowView.COL_DAY, absent);
 
         // 13. Remarks
-        holder.tvRemarks.setText(record.getRemarks() != null ? record.getRemarks() : "");
-    }
+        row.setText(AttendanceRowView.COL_REMARKS, result.remarks);
 
-    /**
-     * Helper to calculate the full duration of an assigned shift string for UI credit.
-     */
-    private String calculateShiftDuration(String shiftStr) {
-        if (shiftStr == null || !shiftStr.contains("-")) return "0h 00m";
-        try {
-            String[] parts = shiftStr.split("-");
-            if (parts.length == 2) {
-                return TimeUtils.calculateDuration(parts[0].trim(), parts[1].trim());
-            }
-        } catch (Exception e) {
-            Log.e("AttendanceAdapter", "Shift parse error", e);
-        }
-        return "0h 00m";
-    }
-
-    @Override
-    public int getItemCount() {
-        return attendanceList.size();
+        row.setContentDescription(record.getDate() + ", " + result.status.label);
+        row.commit();
     }
 
     static class AttendanceViewHolder extends RecyclerView.ViewHolder {
-        TextView tvDate, tvDay, tvIn, tvTransit, tvOut, tvShift, tvTotalHours, tvOvertime, tvLocation, tvDistance, tvRemarks;
-        ImageView ivFingerprint, ivGps, ivStatus;
+        final AttendanceRowView row;
 
         public AttendanceViewHolder(@NonNull View itemView) {
             super(itemView);
-            tvDate = itemView.findViewById(R.id.tv_col_date);
-            tvDay = itemView.findViewById(R.id.tv_col_day);
-            tvIn = itemView.findViewById(R.id.tv_col_in);
-            tvTransit = itemView.findViewById(R.id.tv_col_transit);
-            tvOut = itemView.findViewById(R.id.tv_col_out);
-            tvShift = itemView.findViewById(R.id.tv_col_shift);
-            tvTotalHours = itemView.findViewById(R.id.tv_col_hours);
-            tvOvertime = itemView.findViewById(R.id.tv_col_overtime);
-            tvLocation = itemView.findViewById(R.id.tv_col_location);
-            tvDistance = itemView.findViewById(R.id.tv_col_distance);
-            ivFingerprint = itemView.findViewById(R.id.iv_col_fingerprint);
-            ivGps = itemView.findViewById(R.id.iv_col_gps);
-            ivStatus = itemView.findViewById(R.id.iv_col_status);
-            tvRemarks = itemView.findViewById(R.id.tv_col_remarks);
+            row = (AttendanceRowView) itemView;
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,337 @@
+package com.inout.app.utils;
+
+import com.inout.app.models.AbsenceMarker;
+import com.inout.app.models.AttendanceRecord;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rolling attendance analytics per site: attendance rate, average check-in time, lateness rate
+ * and overtime over the last 7/30/90 days, plus weekly trends.
+ *
+ * Every record and absence marker is reduced once to a packed contribution (day, site, attended,
+ * absent, late, check-in minute, overtime) that is added to per-day counters. A modified record
+ * subtracts its previous contribution and adds the new one, so updates cost O(1) and history is
+ * never rescanned. Per-day counters live in a ring of {@link #RETENTION_DAYS} days per site; a
+ * window is a sum over at most 90 slots.
+ *
+ * Runs in plain JVM unit tests (AttendanceAnalyticsTest checks it against a brute-force recount).
+ * Thread-safe; AnalyticsTracker drives it from a background thread.
+ */
+public final class AttendanceAnalytics {
+
+    public static final int[] WINDOW_DAYS = {7, 30, 90};
+    public static final int TREND_WEEKS = 13;
+    // 13 whole weeks, which also covers the longest window
+    public static final int RETENTION_DAYS = TREND_WEEKS * 7;
+    public static final String ALL_SITES = "*";
+
+    // Per-day counters
+    private static final int ATTENDED = 0;
+    private static final int ABSENT = 1;
+    private static final int LATE = 2;
+    private static final int CHECK_IN_MINUTES = 3;  // Sum over attended days
+    private static final int OVERTIME_MINUTES = 4;
+    private static final int COUNTERS = 5;
+
+    // Contribution layout: flags, check-in minute, overtime, site index, epoch day
+    private static final long FLAG_ATTENDED = 1;
+    private static final long FLAG_ABSENT = 1 << 1;
+    private static final long FLAG_LATE = 1 << 2;
+    private static final int CHECK_IN_SHIFT = 3;
+    private static final int OVERTIME_SHIFT = 14;
+    private static final int SITE_SHIFT = 25;
+    private static final int DAY_SHIFT = 41;
+    private static final long MINUTES_MASK = (1 << 11) - 1;   // 0..2047
+    private static final long SITE_MASK = (1 << 16) - 1;
+
+    // Absence marker IDs share the employeeId_date form with attendance records
+    private static final String ABSENCE_KEY_PREFIX = "absent/";
+
+    /**
+     * Totals over a range of days.
+     */
+    public static final class Window {
+        public final int days;
+        public final int attended;
+        public final int absent;
+        public final int late;
+        public final long checkInMinutes;
+        public final long overtimeMinutes;
+        public final LocalDate start;
+
+        Window(int days, LocalDate start, long[] sums) {
+            this.days = days;
+            this.start = start;
+            this.attended = (int) sums[ATTENDED];
+            this.absent = (int) sums[ABSENT];
+            this.late = (int) sums[LATE];
+            this.checkInMinutes = sums[CHECK_IN_MINUTES];
+            this.overtimeMinutes = sums[OVERTIME_MINUTES];
+        }
+
+        /** @return Attended / (attended + absent), 0..1, or -1 without data. */
+        public float getAttendanceRate() {
+            int expected = attended + absent;
+            return expected == 0 ? -1f : (float) attended / expected;
+        }
+
+        /** @return Late starts / attended days, 0..1, or -1 without data. */
+        public float getLatenessRate() {
+            return attended == 0 ? -1f : (float) late / attended;
+        }
+
+        /** @return Average check-in as minutes after midnight, or -1 without data. */
+        public int getAverageCheckInMinutes() {
+            return attended == 0 ? -1 : (int) (checkInMinutes / attended);
+        }
+
+        /** @return e.g. "09:07 AM", or "--". */
+        public String getAverageCheckIn() {
+            int minutes = getAverageCheckInMinutes();
+            if (minutes < 0) return "--";
+            int hour24 = minutes / 60;
+            int hour12 = hour24 % 12 == 0 ? 12 : hour24 % 12;
+            return (hour12 < 10 ? "0" : "") + hour12 + ":" + (minutes % 60 < 10 ? "0" : "") + minutes % 60
+                    + (hour24 < 12 ? " AM" : " PM");
+        }
+
+        public String getOvertime() {
+            return AttendanceRules.formatMinutes(overtimeMinutes);
+        }
+    }
+
+    /**
+     * Everything the dashboard shows for one site, as of one day.
+     */
+    public static final class SiteReport {
+        public final String siteId;
+        public final Window[] windows;      // Parallel to WINDOW_DAYS
+        public final Window[] weeks;        // Oldest first, the last one ends on the report day
+
+        SiteReport(String siteId, Window[] windows, Window[] weeks) {
+            this.siteId = siteId;
+            this.windows = windows;
+            this.weeks = weeks;
+        }
+    }
+
+    /**
+     * An immutable snapshot for the UI.
+     */
+    public static final class Report {
+        public final LocalDate asOf;
+        public final Map<String, SiteReport> sites;     // ALL_SITES first
+
+        Report(LocalDate asOf, Map<String, SiteReport> sites) {
+            this.asOf = asOf;
+            this.sites = Collections.unmodifiableMap(sites);
+        }
+    }
+
+    private static final class Series {
+        final long[] slotDay = new long[RETENTION_DAYS];
+        final int[] counters = new int[RETENTION_DAYS * COUNTERS];
+
+        Series() {
+            Arrays.fill(slotDay, Long.MIN_VALUE);
+        }
+
+        void apply(long epochDay, long contribution, int sign) {
+            int slot = (int) Math.floorMod(epochDay, (long) RETENTION_DAYS);
+            if (slotDay[slot] != epochDay) {
+                // Removing from a day that has already rotated out, or adding to one older than the slot's day
+                if (sign < 0 || epochDay < slotDay[slot]) return;
+                slotDay[slot] = epochDay;
+                Arrays.fill(counters, slot * COUNTERS, slot * COUNTERS + COUNTERS, 0);
+            }
+            int base = slot * COUNTERS;
+            if ((contribution & FLAG_ATTENDED) != 0) {
+                counters[base + ATTENDED] += sign;
+                counters[base + CHECK_IN_MINUTES] += sign * (int) ((contribution >>> CHECK_IN_SHIFT) & MINUTES_MASK);
+            }
+            if ((contribution & FLAG_ABSENT) != 0) counters[base + ABSENT] += sign;
+            if ((contribution & FLAG_LATE) != 0) counters[base + LATE] += sign;
+            counters[base + OVERTIME_MINUTES] += sign * (int) ((contribution >>> OVERTIME_SHIFT) & MINUTES_MASK);
+        }
+
+        void sum(long fromDay, long toDay, long[] sums) {
+            for (long day = fromDay; day <= toDay; day++) {
+                int slot = (int) Math.floorMod(day, (long) RETENTION_DAYS);
+                if (slotDay[slot] != day) continue;
+                int base = slot * COUNTERS;
+                for (int c = 0; c < COUNTERS; c++) sums[c] += counters[base + c];
+            }
+        }
+    }
+
+    private final AttendanceRules rules;
+    private final Map<String, Long> contributions = new HashMap<>();
+    // Keys per day, in the same ring layout as Series
+    private final List<List<String>> keysBySlot = new ArrayList<>(RETENTION_DAYS);
+    private final long[] keysDay = new long[RETENTION_DAYS];
+    private final Map<String, Integer> siteIndexById = new HashMap<>();
+    // Index 0 is every site combined
+    private final List<Series> series = new ArrayList<>();
+    private final List<String> siteIds = new ArrayList<>();
+    private long newestDay = Long.MIN_VALUE;
+
+    public AttendanceAnalytics(AttendanceRules rules) {
+        this.rules = rules;
+        series.add(new Series());
+        siteIds.add(ALL_SITES);
+        for (int i = 0; i < RETENTION_DAYS; i++) keysBySlot.add(new ArrayList<>());
+        Arrays.fill(keysDay, Long.MIN_VALUE);
+    }
+
+    /**
+     * Adds, replaces or (record == null) removes an attendance record's contribution.
+     */
+    public synchronized void applyRecord(String recordId, AttendanceRecord record) {
+        replace(recordId, record != null ? contributionOf(record) : 0);
+    }
+
+    /**
+     * Adds, replaces or (marker == null) removes an absence marker's contribution.
+     */
+    public synchronized void applyAbsence(String markerId, AbsenceMarker marker) {
+        long contribution = 0;
+        if (marker != null) {
+            long day = epochDay(marker.getDate());
+            if (day != Long.MIN_VALUE) contribution = pack(day, siteIndex(marker.getLocationId()), FLAG_ABSENT, 0, 0);
+        }
+        replace(ABSENCE_KEY_PREFIX + markerId, contribution);
+    }
+
+    private void replace(String key, long contribution) {
+        long day = contribution >>> DAY_SHIFT;
+        // Too old for any window: don't keep it at all
+        if (contribution != 0 && newestDay != Long.MIN_VALUE && day <= newestDay - RETENTION_DAYS) contribution = 0;
+
+        Long previous = contribution != 0 ? contributions.put(key, contribution) : contributions.remove(key);
+        if (previous != null) apply(previous, -1);
+        if (contribution == 0) return;
+        apply(contribution, 1);
+        if (previous == null || (previous >>> DAY_SHIFT) != day) track(key, day);
+        newestDay = Math.max(newestDay, day);
+    }
+
+    /**
+     * Files a key under its day. When a ring slot moves on to a newer day, the keys still
+     * contributing to the day it held are forgotten, so memory stays bounded by the retention.
+     */
+    private void track(String key, long day) {
+        int slot = (int) Math.floorMod(day, (long) RETENTION_DAYS);
+        List<String> keys = keysBySlot.get(slot);
+        if (keysDay[slot] != day) {
+            long expired = keysDay[slot];
+            for (String k : keys) {
+                Long contribution = contributions.get(k);
+                if (contribution != null && (contribution >>> DAY_SHIFT) == expired) contributions.remove(k);
+            }
+            keys.clear();
+            keysDay[slot] = day;
+        }
+        keys.add(key);
+    }
+
+    private void apply(long contribution, int sign) {
+        long day = contribution >>> DAY_SHIFT;
+        int site = (int) ((contribution >>> SITE_SHIFT) & SITE_MASK);
+        series.get(0).apply(day, contribution, sign);
+        if (site != 0) series.get(site).apply(day, contribution, sign);
+    }
+
+    private long contributionOf(AttendanceRecord record) {
+        long day = epochDay(record.getDate());
+        if (day == Long.MIN_VALUE) return 0;
+        AttendanceRules.Result result = rules.evaluate(record);
+        if (!result.has(AttendanceRules.CHECKED_IN)) return 0;     // Leave without a check-in
+        int checkIn = Math.max(0, AttendanceRules.parseTime(record.getCheckInTime()));
+        int overtime = Math.max(0, AttendanceRules.parseDuration(record.getOvertimeHours()));
+        long flags = FLAG_ATTENDED | (result.has(AttendanceRules.LATE_START) ? FLAG_LATE : 0);
+        return pack(day, siteIndex(record.getLastVerifiedLocationId()), flags, checkIn, overtime);
+    }
+
+    private static long pack(long epochDay, int site, long flags, int checkInMinutes, int overtimeMinutes) {
+        return (epochDay << DAY_SHIFT)
+                | ((long) site << SITE_SHIFT)
+                | (Math.min(overtimeMinutes, MINUTES_MASK) << OVERTIME_SHIFT)
+                | (Math.min(checkInMinutes, MINUTES_MASK) << CHECK_IN_SHIFT)
+                | flags;
+    }
+
+    private int siteIndex(String siteId) {
+        if (siteId == null || siteId.isEmpty()) return 0;
+        Integer index = siteIndexById.get(siteId);
+        if (index == null) {
+            if (series.size() > SITE_MASK) return 0;
+            index = series.size();
+            siteIndexById.put(siteId, index);
+            series.add(new Series());
+            siteIds.add(siteId);
+        }
+        return index;
+    }
+
+    private static long epochDay(String date) {
+        // "yyyy-MM-dd" without going through a parser
+        if (date == null || date.length() < 10 || date.charAt(4) != '-' || date.charAt(7) != '-') return Long.MIN_VALUE;
+        try {
+            return LocalDate.of(Integer.parseInt(date.substring(0, 4)), Integer.parseInt(date.substring(5, 7)),
+                    AttendanceRules.dayOfMonth(date)).toEpochDay();
+        } catch (RuntimeException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * @param siteId A site ID or ALL_SITES.
+     * @param end    Last day of the window (inclusive).
+     */
+    public synchronized Window window(String siteId, int days, LocalDate end) {
+        return window(seriesFor(siteId), days, end.toEpochDay());
+    }
+
+    private Window window(Series s, int days, long endDay) {
+        long[] sums = new long[COUNTERS];
+        if (s != null) s.sum(endDay - days + 1, endDay, sums);
+        return new Window(days, LocalDate.ofEpochDay(endDay - days + 1), sums);
+    }
+
+    private Series seriesFor(String siteId) {
+        if (ALL_SITES.equals(siteId)) return series.get(0);
+        Integer index = siteIndexById.get(siteId);
+        return index != null ? series.get(index) : null;
+    }
+
+    /**
+     * Builds every site's windows and weekly trend as of a day.
+     */
+    public synchronized Report report(LocalDate asOf) {
+        long endDay = asOf.toEpochDay();
+        Map<String, SiteReport> sites = new LinkedHashMap<>();
+        for (int i = 0; i < series.size(); i++) {
+            Series s = series.get(i);
+            Window[] windows = new Window[WINDOW_DAYS.length];
+            for (int w = 0; w < WINDOW_DAYS.length; w++) windows[w] = window(s, WINDOW_DAYS[w], endDay);
+            Window[] weeks = new Window[TREND_WEEKS];
+            for (int w = 0; w < TREND_WEEKS; w++) {
+                weeks[w] = window(s, 7, endDay - 7L * (TREND_WEEKS - 1 - w));
+            }
+            sites.put(siteIds.get(i), new SiteReport(siteIds.get(i), windows, weeks));
+        }
+        return new Report(asOf, sites);
+    }
+
+    public synchronized int size() {
+        return contributions.size();
+    }
+}
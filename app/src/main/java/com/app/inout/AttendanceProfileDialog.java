@@ -24,11 +24,18 @@ import com.inout.app.adapters.AttendanceAdapter;
 import com.inout.app.databinding.DialogAttendanceProfileBinding;
 import com.inout.app.models.AttendanceRecord;
 import com.inout.app.models.User;
+import com.inout.app.utils.AttendanceRules;
+import com.inout.app.utils.CalendarCatalog;
+import com.inout.app.utils.CompanyCalendar;
 import com.inout.app.utils.EncryptionHelper;
+import com.inout.app.utils.ProfilePhotos;
+import com.inout.app.utils.ShiftCatalog;
+import com.inout.app.utils.ShiftSchedule;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
@@ -42,6 +49,8 @@ import java.util.Map;
 public class AttendanceProfileDialog extends DialogFragment {
 
     private static final String TAG = "AttendanceDialog";
+    // Matches iv_profile_photo in dialog_attendance_profile
+    private static final int PROFILE_PHOTO_DP = 90;
     private DialogAttendanceProfileBinding binding;
     private User employee;
     private FirebaseFirestore db;
@@ -108,17 +117,16 @@ public class AttendanceProfileDialog extends DialogFragment {
         binding.tvHeaderMonth.setText(currentMonthYear);
 
         if (employee.getPhotoUrl() != null && !employee.getPhotoUrl().isEmpty()) {
-            Glide.with(this)
-                    .load(employee.getPhotoUrl())
-                    .circleCrop()
-                    .placeholder(R.drawable.inout)
+            // Requested at the 90dp display size instead of the full-size account photo
+            ProfilePhotos.request(Glide.with(this), employee.getPhotoUrl(),
+                    ProfilePhotos.dpToPx(requireContext(), PROFILE_PHOTO_DP))
                     .into(binding.ivProfilePhoto);
         }
     }
 
     private void setupTable() {
         binding.rvAttendanceTable.setLayoutManager(new LinearLayoutManager(getContext()));
-        adapter = new AttendanceAdapter(fullMonthList);
+        adapter = new AttendanceAdapter();
         binding.rvAttendanceTable.setAdapter(adapter);
     }
 
@@ -147,32 +155,27 @@ public class AttendanceProfileDialog extends DialogFragment {
     }
 
     private void generateFullMonthReport(Map<String, AttendanceRecord> logs) {
-        fullMonthList.clear();
-        Calendar cal = Calendar.getInstance();
-        cal.set(Calendar.DAY_OF_MONTH, 1);
-        int maxDay = cal.getActualMaximum(Calendar.DAY_OF_MONTH);
-
-        SimpleDateFormat dateIdFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
-        SimpleDateFormat dayNameFormat = new SimpleDateFormat("EEEE", Locale.US);
-
-        for (int i = 1; i <= maxDay; i++) {
-            String dateId = dateIdFormat.format(cal.getTime());
-            String dayName = dayNameFormat.format(cal.getTime());
-
-            if (logs.containsKey(dateId)) {
-                AttendanceRecord record = logs.get(dateId);
-                record.setDayOfWeek(dayName);
-                fullMonthList.add(record);
-            } else {
-                AttendanceRecord absent = new AttendanceRecord();
-                absent.setDate(dateId);
-                absent.setDayOfWeek(dayName);
-                fullMonthList.add(absent);
-            }
-            cal.add(Calendar.DAY_OF_MONTH, 1);
-        }
-
+        // The employee's roster expanded for this month: expected shift and off days per date
+        Calendar now = Calendar.getInstance();
+        ShiftSchedule.Month schedule = ShiftCatalog.getInstance().getSchedule()
+                .monthFor(employee, now.get(Calendar.YEAR), now.get(Calendar.MONTH) + 1);
+        // Weekly off days and holidays at the employee's site
+        CompanyCalendar.Month calendarMonth = CalendarCatalog.getInstance().getCalendar()
+                .monthFor(employee.getAssignedLocationId(), now.get(Calendar.YEAR), now.get(Calendar.MONTH) + 1);
+
+        // A fresh list per load: the adapter diffs it against the previous one in the background
+        List<AttendanceRecord> monthList = AttendanceReportManager.generateFullMonthList(logs, schedule, calendarMonth);
+
+        fullMonthList = monthList;
         binding.progressBar.setVisibility(View.GONE);
-        adapter.notifyDataSetChanged();
+        adapter.submitList(monthList);
+
+        // Month-to-date totals (days still ahead are not absences), judged by the same rules as the rows
+        int elapsedDays = Math.min(monthList.size(), now.get(Calendar.DAY_OF_MONTH));
+        AttendanceRules.Summary summary = AttendanceRules.getDefault().summarize(monthList.subList(0, elapsedDays), schedule);
+        binding.tvHeaderMonth.setText(String.format(Locale.US, "%s  •  %d present, %d partial, %d absent, %d off  •  %s",
+                new SimpleDateFormat("MMMM yyyy", Locale.US).format(new Date()),
+                summary.present, summary.partial, summary.absent, summary.holidays + summary.weekends,
+                summary.getWorkedHours()));
     }
 }
\ No newline at end of file
@@ -1,7 +1,10 @@
 package com.inout.app.models;
 
+import com.google.firebase.firestore.Exclude;
 import com.google.firebase.firestore.IgnoreExtraProperties;
 import com.google.firebase.firestore.PropertyName;
+import com.inout.app.utils.AttendanceRules;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -52,9 +55,16 @@ public class AttendanceRecord {
     // Security flags
     private boolean fingerprintVerified;
     private boolean gpsVerified; 
+    private boolean kioskVerified; // NEW: Presence proven by scanning an on-site kiosk code
+    private boolean kioskDeviceAuth; // NEW: Shared-kiosk biometric prompt passed (device-level, not identity proof)
+    private boolean autoCheckedOut; // NEW: Closed by MissedCheckoutWorker after a missed check-out
     
     private long timestamp; 
 
+    // NEW: Calendar classification of the date (CompanyCalendar.REGULAR/WEEKEND/HOLIDAY).
+    // Filled in when a month report is built; never stored.
+    private int dayType;
+
     /**
      * Default constructor required for Firestore.
      */
@@ -79,25 +89,10 @@ public class AttendanceRecord {
 
     /**
      * Helper to determine status for the UI logic.
-     * UPDATED: Handles Medical Leave and Resume status priorities.
+     * UPDATED: Decided by AttendanceRules, shared with the table and CSV export.
      */
     public String getStatus() {
-        // If Medical Leave was granted and they haven't finished a resumed shift
-        if (!"none".equals(medicalLeaveType) && checkOutTime == null) {
-            return "Absent";
-        }
-        // Existing Emergency Leave logic
-        if (emergencyLeaveTime != null && checkOutTime == null) {
-            return "Absent";
-        }
-        // Standard Presence logic
-        if (checkInTime != null && checkOutTime != null && fingerprintVerified && gpsVerified) {
-            return "Present";
-        } else if (checkInTime != null) {
-            return "Partial";
-        } else {
-            return "Absent";
-        }
+        return AttendanceRules.getDefault().evaluate(this).status.label;
     }
 
     /**
@@ -231,9 +226,26 @@ public class AttendanceRecord {
     public boolean isGpsVerified() { return gpsVerified; }
     public void setGpsVerified(boolean gpsVerified) { this.gpsVerified = gpsVerified; }
 
+    @PropertyName("kioskVerified")
+    public boolean isKioskVerified() { return kioskVerified; }
+    public void setKioskVerified(boolean kioskVerified) { this.kioskVerified = kioskVerified; }
+
+    @PropertyName("kioskDeviceAuth")
+    public boolean isKioskDeviceAuth() { return kioskDeviceAuth; }
+    public void setKioskDeviceAuth(boolean kioskDeviceAuth) { this.kioskDeviceAuth = kioskDeviceAuth; }
+
+    @PropertyName("autoCheckedOut")
+    public boolean isAutoCheckedOut() { return autoCheckedOut; }
+    public void setAutoCheckedOut(boolean autoCheckedOut) { this.autoCheckedOut = autoCheckedOut; }
+
     @PropertyName("timestamp")
     public long getTimestamp() { return timestamp; }
     public void setTimestamp(long timestamp) { this.timestamp = timestamp; }
 
     public void setLocationVerified(boolean verified) { this.gpsVerified = verified; }
+
+    @Exclude
+    public int getDayType() { return dayType; }
+    @Exclude
+    public void setDayType(int dayType) { this.dayType = dayType; }
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package com.inout.app;
 
 import com.inout.app.models.AttendanceRecord;
+import com.inout.app.utils.CompanyCalendar;
+import com.inout.app.utils.ShiftSchedule;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -13,6 +15,9 @@ import java.util.Map;
  * Utility class to generate a full monthly report.
  * It merges real Firestore data with generated "Absent" dates.
  * FIXED: Ensures the Day of Week is calculated for every record.
+ * UPDATED: Missing days carry the employee's expected shift, or are marked as rostered days off.
+ * UPDATED: Every day is classified from the company calendar, so holidays and weekly off days
+ * are reported as such instead of "Absent".
  */
 public class AttendanceReportManager {
 
@@ -21,9 +26,13 @@ public class AttendanceReportManager {
      * 
      * @param logs A Map where the Key is the Date String (yyyy-MM-dd) 
      *             and the Value is the real AttendanceRecord from Firestore.
+     * @param schedule The employee's expected shifts for the current month, or null if unknown.
+     * @param calendarMonth The company calendar for the employee's site this month, or null if unknown.
      * @return A full list of AttendanceRecords for the entire month.
      */
-    public static List<AttendanceRecord> generateFullMonthList(Map<String, AttendanceRecord> logs) {
+    public static List<AttendanceRecord> generateFullMonthList(Map<String, AttendanceRecord> logs,
+                                                               ShiftSchedule.Month schedule,
+                                                               CompanyCalendar.Month calendarMonth) {
         List<AttendanceRecord> fullList = new ArrayList<>();
         
         // 1. Get the current calendar instance
@@ -44,6 +53,11 @@ public class AttendanceReportManager {
         for (int i = 1; i <= totalDaysInMonth; i++) {
             String dateId = dateIdFormat.format(calendar.getTime());
             String dayName = dayNameFormat.format(calendar.getTime());
+            // Weekly off days and holidays are bit tests on the precomputed month
+            int dayType = calendarMonth != null ? calendarMonth.dayType(i) : CompanyCalendar.REGULAR;
+            if (dayType == CompanyCalendar.REGULAR && schedule != null && !schedule.isWorkingDay(i)) {
+                dayType = CompanyCalendar.WEEKEND;
+            }
 
             if (logs.containsKey(dateId)) {
                 // DATA EXISTS: Get the real record from Firestore
@@ -52,6 +66,7 @@ public class AttendanceReportManager {
                 if (realRecord != null) {
                     // FIXED: Set the day name calculated from the calendar
                     realRecord.setDayOfWeek(dayName);
+                    realRecord.setDayType(dayType);
                     fullList.add(realRecord);
                 }
             } else {
@@ -61,9 +76,25 @@ public class AttendanceReportManager {
                 
                 // FIXED: Set the day name calculated from the calendar
                 absentRecord.setDayOfWeek(dayName);
+                absentRecord.setDayType(dayType);
+
+                // Expected shift for the day, straight from the precomputed month
+                if (dayType == CompanyCalendar.HOLIDAY) {
+                    String holidayName = calendarMonth.holidayName(i);
+                    absentRecord.setAssignedShift("OFF");
+                    absentRecord.setRemarks(holidayName != null ? holidayName : "Company holiday");
+                } else if (schedule != null) {
+                    if (!schedule.isWorkingDay(i)) {
+                        absentRecord.setAssignedShift("OFF");
+                        absentRecord.setRemarks("Rostered day off");
+                    } else if (schedule.shiftOn(i) != null) {
+                        absentRecord.setAssignedShift(schedule.shiftOn(i).label);
+                    }
+                }
                 
                 // Note: Fields like totalHours, checkInTime, etc., stay null.
-                // The AttendanceAdapter and getStatus() logic will show this as "Absent".
+                // The AttendanceAdapter and getStatus() logic will show this as "Absent",
+                // or as "Holiday"/"Weekend" from its day type.
                 
                 fullList.add(absentRecord);
             }
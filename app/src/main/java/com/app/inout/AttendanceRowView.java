@@ -0,0 +1,230 @@
+package com.inout.app.adapters;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Typeface;
+import android.graphics.drawable.Drawable;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.util.AttributeSet;
+import android.util.LruCache;
+import android.util.SparseArray;
+import android.util.TypedValue;
+import android.view.View;
+
+import androidx.annotation.DrawableRes;
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+
+import com.inout.app.R;
+
+/**
+ * Single-view row for the 14-column attendance table.
+ * Replaces a LinearLayout of 11 TextViews and 3 ImageViews: every cell is drawn in one
+ * onDraw from StaticLayouts that are shared between rows (most cells repeat, e.g. "--:--",
+ * day names, shifts), using column widths computed once per display density.
+ * Column widths and text styles mirror layout_attendance_table_header.
+ */
+public class AttendanceRowView extends View {
+
+    public static final int COL_DATE = 0;
+    public static final int COL_DAY = 1;
+    public static final int COL_IN = 2;
+    public static final int COL_TRANSIT = 3;
+    public static final int COL_OUT = 4;
+    public static final int COL_SHIFT = 5;
+    public static final int COL_HOURS = 6;
+    public static final int COL_OVERTIME = 7;
+    public static final int COL_LOCATION = 8;
+    public static final int COL_DISTANCE = 9;
+    public static final int COL_FINGERPRINT = 10;
+    public static final int COL_GPS = 11;
+    public static final int COL_STATUS = 12;
+    public static final int COL_REMARKS = 13;
+    private static final int COLUMN_COUNT = 14;
+
+    private static final int[] WIDTH_DP = {100, 90, 80, 200, 80, 140, 90, 90, 180, 80, 100, 100, 100, 250};
+    private static final int[] TEXT_SP = {13, 13, 13, 11, 13, 11, 13, 13, 13, 13, 0, 0, 0, 11};
+    private static final boolean[] BOLD = {false, false, false, false, false, false, true, true, false, false, false, false, false, false};
+    private static final boolean[] ALIGN_START = {false, false, false, false, false, false, false, false, true, false, false, false, false, true};
+    // Only transit and remarks are clamped (ellipsized); 0 = unlimited
+    private static final int[] MAX_LINES = {0, 0, 0, 2, 0, 0, 0, 0, 0, 0, 0, 0, 0, 2};
+    private static final int START_PADDING_DP = 8;
+    private static final int ICON_DP = 20;
+    private static final float DIMMED_ALPHA = 0.5f;
+
+    // Shared across rows. StaticLayouts keep a reference to the paint they were built with,
+    // so paints are shared too and never mutated after creation (dimmed cells get their own).
+    private static final LruCache<String, StaticLayout> LAYOUT_CACHE = new LruCache<>(512);
+    private static float cachedDensity;
+    private static int[] columnWidthsPx;
+    private static int[] columnLeftPx;
+    private static TextPaint[] paints;
+    private static TextPaint[] dimmedPaints;
+
+    private final String[] texts = new String[COLUMN_COUNT];
+    private final StaticLayout[] layouts = new StaticLayout[COLUMN_COUNT];
+    private final int[] icons = new int[COLUMN_COUNT];
+    private final boolean[] dimmed = new boolean[COLUMN_COUNT];
+    private final SparseArray<Drawable> drawables = new SparseArray<>();
+    private final int startPaddingPx;
+    private final int iconSizePx;
+    private boolean layoutsDirty = true;
+
+    public AttendanceRowView(Context context) {
+        this(context, null);
+    }
+
+    public AttendanceRowView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        float density = getResources().getDisplayMetrics().density;
+        startPaddingPx = Math.round(START_PADDING_DP * density);
+        iconSizePx = Math.round(ICON_DP * density);
+        ensureColumnStyles(context, density);
+    }
+
+    private static synchronized void ensureColumnStyles(Context context, float density) {
+        if (columnWidthsPx != null && cachedDensity == density) return;
+        int[] colors = {
+                android.R.color.black, android.R.color.black, R.color.status_green,
+                android.R.color.darker_gray, R.color.status_red, android.R.color.darker_gray,
+                android.R.color.black, R.color.status_green, android.R.color.black,
+                android.R.color.black, 0, 0, 0, android.R.color.holo_red_dark};
+
+        columnWidthsPx = new int[COLUMN_COUNT];
+        columnLeftPx = new int[COLUMN_COUNT];
+        paints = new TextPaint[COLUMN_COUNT];
+        dimmedPaints = new TextPaint[COLUMN_COUNT];
+        int left = 0;
+        for (int col = 0; col < COLUMN_COUNT; col++) {
+            columnWidthsPx[col] = Math.round(WIDTH_DP[col] * density);
+            columnLeftPx[col] = left;
+            left += columnWidthsPx[col];
+
+            if (TEXT_SP[col] == 0) continue;
+            TextPaint paint = new TextPaint(TextPaint.ANTI_ALIAS_FLAG);
+            paint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, TEXT_SP[col],
+                    context.getResources().getDisplayMetrics()));
+            paint.setColor(ContextCompat.getColor(context, colors[col]));
+            if (BOLD[col]) paint.setTypeface(Typeface.DEFAULT_BOLD);
+            paints[col] = paint;
+
+            TextPaint dimmedPaint = new TextPaint(paint);
+            dimmedPaint.setAlpha(Math.round(paint.getAlpha() * DIMMED_ALPHA));
+            dimmedPaints[col] = dimmedPaint;
+        }
+        cachedDensity = density;
+        LAYOUT_CACHE.evictAll();
+    }
+
+    public void setText(int column, String text) {
+        if (TextUtils.equals(texts[column], text)) return;
+        texts[column] = text;
+        layoutsDirty = true;
+    }
+
+    public void setIcon(int column, @DrawableRes int resId) {
+        if (icons[column] == resId) return;
+        icons[column] = resId;
+        invalidate();
+    }
+
+    public void setDimmed(int column, boolean dim) {
+        if (dimmed[column] == dim) return;
+        dimmed[column] = dim;
+        layoutsDirty = true;
+    }
+
+    /**
+     * Call after the cells of a bind are set. Relayouts only if the row height changed.
+     */
+    public void commit() {
+        if (!layoutsDirty) return;
+        int oldHeight = contentHeight();
+        buildLayouts();
+        if (contentHeight() != oldHeight || getMeasuredHeight() == 0) {
+            requestLayout();
+        }
+        invalidate();
+    }
+
+    private void buildLayouts() {
+        for (int col = 0; col < COLUMN_COUNT; col++) {
+            if (paints[col] == null) continue;
+            String text = texts[col] != null ? texts[col] : "";
+            String key = col + (dimmed[col] ? "d" : "") + "\u0000" + text;
+            StaticLayout layout = LAYOUT_CACHE.get(key);
+            if (layout == null) {
+                int width = Math.max(0, columnWidthsPx[col] - (ALIGN_START[col] ? startPaddingPx : 0));
+                TextPaint paint = dimmed[col] ? dimmedPaints[col] : paints[col];
+                StaticLayout.Builder builder = StaticLayout.Builder.obtain(text, 0, text.length(), paint, width)
+                        .setAlignment(ALIGN_START[col] ? Layout.Alignment.ALIGN_NORMAL : Layout.Alignment.ALIGN_CENTER)
+                        .setIncludePad(true);
+                if (MAX_LINES[col] > 0) {
+                    builder.setMaxLines(MAX_LINES[col]).setEllipsize(TextUtils.TruncateAt.END);
+                }
+                layout = builder.build();
+                LAYOUT_CACHE.put(key, layout);
+            }
+            layouts[col] = layout;
+        }
+        layoutsDirty = false;
+    }
+
+    private int contentHeight() {
+        int height = iconSizePx;
+        for (StaticLayout layout : layouts) {
+            if (layout != null) height = Math.max(height, layout.getHeight());
+        }
+        return height;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        if (layoutsDirty) buildLayouts();
+        int width = getPaddingLeft() + columnLeftPx[COLUMN_COUNT - 1] + columnWidthsPx[COLUMN_COUNT - 1] + getPaddingRight();
+        int height = getPaddingTop() + contentHeight() + getPaddingBottom();
+        setMeasuredDimension(resolveSize(width, widthMeasureSpec), resolveSize(height, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (layoutsDirty) buildLayouts();
+        int top = getPaddingTop();
+        int rowHeight = getHeight() - top - getPaddingBottom();
+
+        for (int col = 0; col < COLUMN_COUNT; col++) {
+            int left = getPaddingLeft() + columnLeftPx[col];
+            if (paints[col] != null) {
+                StaticLayout layout = layouts[col];
+                if (layout == null) continue;
+                // Cells are vertically centered, like the old gravity="center_vertical" row
+                int x = left + (ALIGN_START[col] ? startPaddingPx : 0);
+                int y = top + (rowHeight - layout.getHeight()) / 2;
+                canvas.save();
+                canvas.translate(x, y);
+                layout.draw(canvas);
+                canvas.restore();
+            } else if (icons[col] != 0) {
+                Drawable icon = drawableFor(icons[col]);
+                if (icon == null) continue;
+                int x = left + (columnWidthsPx[col] - iconSizePx) / 2;
+                int y = top + (rowHeight - iconSizePx) / 2;
+                icon.setBounds(x, y, x + iconSizePx, y + iconSizePx);
+                icon.draw(canvas);
+            }
+        }
+    }
+
+    private Drawable drawableFor(int resId) {
+        Drawable drawable = drawables.get(resId);
+        if (drawable == null) {
+            drawable = ContextCompat.getDrawable(getContext(), resId);
+            drawables.put(resId, drawable);
+        }
+        return drawable;
+    }
+}
@@ -0,0 +1,433 @@
+package com.inout.app.utils;
+
+import com.inout.app.models.AttendanceRecord;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The single source of truth for how a daily record is judged: its status, the hours it is
+ * credited with and the remarks added to it. The table UI, the CSV export and monthly
+ * aggregation all call {@link #evaluate}, so they can no longer disagree.
+ *
+ * A record is first reduced to a bitmask of facts (checked in, on emergency leave, resumed, ...).
+ * The company policy is a set of ordered rule tables over those facts; it is compiled once into
+ * an outcome per possible fact mask, so evaluating a record is a few field reads, one array
+ * lookup and, only when the outcome needs it, some integer time arithmetic.
+ *
+ * No Android framework calls (AttendanceRecord only carries Firestore mapping annotations), so it
+ * runs in plain JVM unit tests; see AttendanceRulesBenchmarkTest.
+ */
+public final class AttendanceRules {
+
+    // Facts about a record
+    public static final int CHECKED_IN = 1;
+    public static final int CHECKED_OUT = 1 << 1;
+    public static final int VERIFIED = 1 << 2;          // Fingerprint and GPS both verified
+    public static final int EMERGENCY_LEAVE = 1 << 3;
+    public static final int MEDICAL_LEAVE = 1 << 4;     // Paid or unpaid
+    public static final int PAID_MEDICAL = 1 << 5;
+    public static final int RESUMED = 1 << 6;
+    public static final int LATE_START = 1 << 7;        // Checked in after shift start + grace period
+    public static final int HOLIDAY = 1 << 8;           // Company holiday (see CompanyCalendar)
+    public static final int WEEKEND = 1 << 9;           // Weekly or rostered day off
+    private static final int FACT_COMBINATIONS = 1 << 10;
+
+    public static final int DEFAULT_GRACE_MINUTES = 15;
+
+    private static final String ZERO_HOURS = "0h 00m";
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    public enum Status {
+        PRESENT("Present"), PARTIAL("Partial"), ABSENT("Absent"), HOLIDAY("Holiday"), WEEKEND("Weekend");
+
+        public final String label;
+
+        Status(String label) {
+            this.label = label;
+        }
+    }
+
+    /** Which hours a record is credited with. */
+    public enum Hours {
+        RECORDED,               // totalHours as stored at check-out
+        UNTIL_EMERGENCY_LEAVE,  // Check-in until the emergency leave was taken
+        FULL_SHIFT              // The whole assigned shift (paid medical leave)
+    }
+
+    /** What is added to the stored remarks. */
+    public enum Remark {
+        AS_RECORDED,
+        LATE_ON_DUTY,           // Resumed after leave: worked X of the assigned shift
+        LATE_START              // Checked in after the grace period
+    }
+
+    private static final class Rule<T> {
+        final int required;
+        final int forbidden;
+        final T outcome;
+
+        Rule(int required, int forbidden, T outcome) {
+            this.required = required;
+            this.forbidden = forbidden;
+            this.outcome = outcome;
+        }
+
+        boolean matches(int facts) {
+            return (facts & required) == required && (facts & forbidden) == 0;
+        }
+    }
+
+    /**
+     * A company attendance policy: the grace period and ordered rule tables for status, hours
+     * and remarks. The first matching row of each table wins; every table ends with a catch-all.
+     */
+    public static final class Policy {
+        final int graceMinutes;
+        final List<Rule<Status>> statusRules = new ArrayList<>();
+        final List<Rule<Hours>> hoursRules = new ArrayList<>();
+        final List<Rule<Remark>> remarkRules = new ArrayList<>();
+
+        public Policy(int graceMinutes) {
+            this.graceMinutes = graceMinutes;
+        }
+
+        public Policy status(int required, int forbidden, Status status) {
+            statusRules.add(new Rule<>(required, forbidden, status));
+            return this;
+        }
+
+        public Policy hours(int required, int forbidden, Hours hours) {
+            hoursRules.add(new Rule<>(required, forbidden, hours));
+            return this;
+        }
+
+        public Policy remark(int required, int forbidden, Remark remark) {
+            remarkRules.add(new Rule<>(required, forbidden, remark));
+            return this;
+        }
+
+        /**
+         * The company rules:
+         * - Open medical or emergency leave (not checked out after resuming) counts as absent.
+         * - A full day with fingerprint and GPS verified is present; any other check-in is partial.
+         * - Emergency leave credits the hours up to the leave; paid medical leave credits the full shift.
+         * - Resuming after unpaid leave, or starting past the grace period, is noted in the remarks.
+         * - A holiday or day off without a check-in is reported as such, not as an absence.
+         */
+        public static Policy standard(int graceMinutes) {
+            return new Policy(graceMinutes)
+                    .status(MEDICAL_LEAVE, CHECKED_OUT, Status.ABSENT)
+                    .status(EMERGENCY_LEAVE, CHECKED_OUT, Status.ABSENT)
+                    .status(CHECKED_IN | CHECKED_OUT | VERIFIED, 0, Status.PRESENT)
+                    .status(CHECKED_IN, 0, Status.PARTIAL)
+                    .status(HOLIDAY, CHECKED_IN, Status.HOLIDAY)
+                    .status(WEEKEND, CHECKED_IN, Status.WEEKEND)
+                    .status(0, 0, Status.ABSENT)
+
+                    .hours(EMERGENCY_LEAVE, CHECKED_OUT, Hours.UNTIL_EMERGENCY_LEAVE)
+                    .hours(PAID_MEDICAL | CHECKED_OUT, 0, Hours.FULL_SHIFT)
+                    .hours(0, 0, Hours.RECORDED)
+
+                    .remark(RESUMED | CHECKED_OUT, PAID_MEDICAL, Remark.LATE_ON_DUTY)
+                    .remark(LATE_START | CHECKED_IN, RESUMED | MEDICAL_LEAVE, Remark.LATE_START)
+                    .remark(0, 0, Remark.AS_RECORDED);
+        }
+    }
+
+    /**
+     * The evaluation of one record.
+     */
+    public static final class Result {
+        public final int facts;
+        public final Status status;
+        public final String hours;          // e.g. "7h 45m"
+        public final int workedMinutes;     // Credited minutes, -1 if unknown
+        public final String remarks;        // Never null
+        public final int lateMinutes;       // Minutes after shift start (0 if on time)
+
+        Result(int facts, Status status, String hours, int workedMinutes, String remarks, int lateMinutes) {
+            this.facts = facts;
+            this.status = status;
+            this.hours = hours;
+            this.workedMinutes = workedMinutes;
+            this.remarks = remarks;
+            this.lateMinutes = lateMinutes;
+        }
+
+        public boolean has(int fact) {
+            return (facts & fact) != 0;
+        }
+    }
+
+    /**
+     * Totals over a list of records, e.g. a month.
+     */
+    public static final class Summary {
+        public int present;
+        public int partial;
+        public int absent;
+        public int holidays;
+        public int weekends;
+        public int lateStarts;
+        public long workedMinutes;
+
+        public String getWorkedHours() {
+            return formatMinutes(workedMinutes);
+        }
+    }
+
+    private static volatile AttendanceRules defaultRules;
+
+    private final int graceMinutes;
+    // Compiled policy: outcome per fact mask
+    private final Status[] statusTable = new Status[FACT_COMBINATIONS];
+    private final Hours[] hoursTable = new Hours[FACT_COMBINATIONS];
+    private final Remark[] remarkTable = new Remark[FACT_COMBINATIONS];
+
+    public AttendanceRules(Policy policy) {
+        this.graceMinutes = policy.graceMinutes;
+        for (int facts = 0; facts < FACT_COMBINATIONS; facts++) {
+            statusTable[facts] = firstMatch(policy.statusRules, facts, Status.ABSENT);
+            hoursTable[facts] = firstMatch(policy.hoursRules, facts, Hours.RECORDED);
+            remarkTable[facts] = firstMatch(policy.remarkRules, facts, Remark.AS_RECORDED);
+        }
+    }
+
+    /**
+     * @return The rules for the standard company policy.
+     */
+    public static AttendanceRules getDefault() {
+        AttendanceRules rules = defaultRules;
+        if (rules == null) {
+            synchronized (AttendanceRules.class) {
+                rules = defaultRules;
+                if (rules == null) {
+                    rules = new AttendanceRules(Policy.standard(DEFAULT_GRACE_MINUTES));
+                    defaultRules = rules;
+                }
+            }
+        }
+        return rules;
+    }
+
+    private static <T> T firstMatch(List<Rule<T>> rules, int facts, T fallback) {
+        for (Rule<T> rule : rules) {
+            if (rule.matches(facts)) return rule.outcome;
+        }
+        return fallback;
+    }
+
+    /**
+     * Evaluates a record against the shift written on it (AttendanceRecord.assignedShift).
+     */
+    public Result evaluate(AttendanceRecord record) {
+        int shiftStart = -1;
+        int shiftMinutes = -1;
+        String shift = record.getAssignedShift();
+        if (shift != null && shift.indexOf('-') > 0) {
+            // "09:00 AM - 06:00 PM", or segments separated by commas for a split shift
+            int segmentStart = 0;
+            while (segmentStart < shift.length()) {
+                int comma = shift.indexOf(',', segmentStart);
+                int segmentEnd = comma >= 0 ? comma : shift.length();
+                int dash = shift.indexOf('-', segmentStart);
+                if (dash < 0 || dash > segmentEnd) break;
+                int start = parseTime(shift.substring(segmentStart, dash));
+                int minutes = duration(start, parseTime(shift.substring(dash + 1, segmentEnd)));
+                if (minutes < 0) break;
+                if (shiftStart < 0) shiftStart = start;
+                shiftMinutes = Math.max(shiftMinutes, 0) + minutes;
+                segmentStart = segmentEnd + 1;
+            }
+        }
+        return evaluate(record, shiftStart, shiftMinutes);
+    }
+
+    /**
+     * Evaluates a record against an expected shift looked up from the roster, without parsing
+     * the record's shift text.
+     * @param expected The employee's shift that day, or null if none was scheduled.
+     */
+    public Result evaluate(AttendanceRecord record, ShiftSchedule.Shift expected) {
+        if (expected == null) return evaluate(record, -1, -1);
+        return evaluate(record, expected.startMinutes, expected.scheduledMinutes);
+    }
+
+    private Result evaluate(AttendanceRecord record, int shiftStart, int shiftMinutes) {
+        String checkIn = record.getCheckInTime();
+        int checkInMinutes = parseTime(checkIn);
+
+        int lateMinutes = 0;
+        if (checkInMinutes >= 0 && shiftStart >= 0) {
+            int diff = checkInMinutes - shiftStart;
+            // Check-ins just after midnight for a late-evening shift
+            if (diff < -MINUTES_PER_DAY / 2) diff += MINUTES_PER_DAY;
+            if (diff > 0) lateMinutes = diff;
+        }
+
+        String medicalType = record.getMedicalLeaveType();
+        int facts = 0;
+        if (checkIn != null) facts |= CHECKED_IN;
+        if (record.getCheckOutTime() != null) facts |= CHECKED_OUT;
+        if (record.isFingerprintVerified() && record.isGpsVerified()) facts |= VERIFIED;
+        if (record.getEmergencyLeaveTime() != null) facts |= EMERGENCY_LEAVE;
+        if (medicalType != null && !"none".equals(medicalType)) facts |= MEDICAL_LEAVE;
+        if ("paid".equals(medicalType)) facts |= PAID_MEDICAL;
+        if (record.isResumeRequested()) facts |= RESUMED;
+        if (lateMinutes > graceMinutes) facts |= LATE_START;
+        if (record.getDayType() == CompanyCalendar.HOLIDAY) facts |= HOLIDAY;
+        else if (record.getDayType() == CompanyCalendar.WEEKEND) facts |= WEEKEND;
+
+        int workedMinutes;
+        switch (hoursTable[facts]) {
+            case UNTIL_EMERGENCY_LEAVE:
+                workedMinutes = duration(checkInMinutes, parseTime(record.getEmergencyLeaveTime()));
+                break;
+            case FULL_SHIFT:
+                workedMinutes = Math.max(0, shiftMinutes);
+                break;
+            default:
+                workedMinutes = parseDuration(record.getTotalHours());
+                break;
+        }
+        String hours;
+        if (hoursTable[facts] == Hours.RECORDED && record.getTotalHours() != null) {
+            hours = record.getTotalHours();
+        } else {
+            hours = workedMinutes >= 0 ? formatMinutes(workedMinutes) : ZERO_HOURS;
+        }
+
+        String remarks = record.getRemarks() != null ? record.getRemarks() : "";
+        switch (remarkTable[facts]) {
+            case LATE_ON_DUTY:
+                remarks = appendLateRemark(remarks, "Late on duty. Worked " + hours
+                        + " of assigned " + formatMinutes(Math.max(0, shiftMinutes)));
+                break;
+            case LATE_START:
+                remarks = appendLateRemark(remarks, "Late start by " + formatMinutes(lateMinutes));
+                break;
+            default:
+                break;
+        }
+
+        return new Result(facts, statusTable[facts], hours, workedMinutes, remarks,
+                (facts & LATE_START) != 0 ? lateMinutes : 0);
+    }
+
+    /**
+     * Evaluates every record once and totals the outcomes.
+     */
+    public Summary summarize(List<AttendanceRecord> records) {
+        return summarize(records, null);
+    }
+
+    /**
+     * Like {@link #summarize(List)}, but judges lateness against the roster's expected shift for
+     * each record's day instead of the shift text on the record.
+     * @param schedule The employee's month, or null to use the records' own shifts.
+     */
+    public Summary summarize(List<AttendanceRecord> records, ShiftSchedule.Month schedule) {
+        Summary summary = new Summary();
+        for (AttendanceRecord record : records) {
+            int day = schedule != null ? dayOfMonth(record.getDate()) : 0;
+            Result result = day >= 1 && day <= schedule.days
+                    ? evaluate(record, schedule.shiftOn(day))
+                    : evaluate(record);
+            switch (result.status) {
+                case PRESENT: summary.present++; break;
+                case PARTIAL: summary.partial++; break;
+                case HOLIDAY: summary.holidays++; break;
+                case WEEKEND: summary.weekends++; break;
+                default: summary.absent++; break;
+            }
+            if (result.has(LATE_START)) summary.lateStarts++;
+            if (result.workedMinutes > 0) summary.workedMinutes += result.workedMinutes;
+        }
+        return summary;
+    }
+
+    // Day of month from "yyyy-MM-dd", 0 if malformed
+    static int dayOfMonth(String date) {
+        if (date == null || date.length() < 10) return 0;
+        char tens = date.charAt(8);
+        char ones = date.charAt(9);
+        if (tens < '0' || tens > '9' || ones < '0' || ones > '9') return 0;
+        return (tens - '0') * 10 + (ones - '0');
+    }
+
+    // Remarks already explaining a late day are not repeated
+    private static String appendLateRemark(String remarks, String detail) {
+        if (remarks.isEmpty()) return detail;
+        if (remarks.contains("Late")) return remarks;
+        return remarks + " | " + detail;
+    }
+
+    /**
+     * @return Minutes from start to end, wrapping past midnight, or -1 if either is unknown.
+     */
+    private static int duration(int start, int end) {
+        if (start < 0 || end < 0) return -1;
+        int minutes = end - start;
+        return minutes < 0 ? minutes + MINUTES_PER_DAY : minutes;
+    }
+
+    /**
+     * Parses "hh:mm AM/PM" (as written by TimeUtils) into minutes after midnight.
+     * @return -1 if the time is missing or malformed.
+     */
+    static int parseTime(String time) {
+        if (time == null) return -1;
+        int len = time.length();
+        int i = 0;
+        while (i < len && time.charAt(i) == ' ') i++;
+
+        int hour = 0;
+        int digits = 0;
+        while (i < len && Character.isDigit(time.charAt(i)) && digits < 2) {
+            hour = hour * 10 + (time.charAt(i++) - '0');
+            digits++;
+        }
+        if (digits == 0 || i >= len || time.charAt(i++) != ':') return -1;
+
+        int minute = 0;
+        digits = 0;
+        while (i < len && Character.isDigit(time.charAt(i)) && digits < 2) {
+            minute = minute * 10 + (time.charAt(i++) - '0');
+            digits++;
+        }
+        if (digits != 2 || hour < 1 || hour > 12 || minute > 59) return -1;
+
+        while (i < len && time.charAt(i) == ' ') i++;
+        if (i + 1 >= len) return -1;
+        char meridiem = Character.toUpperCase(time.charAt(i));
+        if (Character.toUpperCase(time.charAt(i + 1)) != 'M') return -1;
+        if (meridiem != 'A' && meridiem != 'P') return -1;
+
+        int hour24 = hour % 12 + (meridiem == 'P' ? 12 : 0);
+        return hour24 * 60 + minute;
+    }
+
+    /**
+     * Parses the "7h 05m" form written by TimeUtils.calculateDuration.
+     * @return Minutes, or -1 if malformed.
+     */
+    static int parseDuration(String duration) {
+        if (duration == null) return -1;
+        int h = duration.indexOf('h');
+        int m = duration.indexOf('m', h + 1);
+        if (h <= 0 || m < 0) return -1;
+        try {
+            int hours = Integer.parseInt(duration.substring(0, h).trim());
+            int minutes = Integer.parseInt(duration.substring(h + 1, m).trim());
+            return hours * 60 + minutes;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    public static String formatMinutes(long minutes) {
+        long m = minutes % 60;
+        return (minutes / 60) + "h " + (m < 10 ? "0" : "") + m + "m";
+    }
+}
@@ -0,0 +1,71 @@
+package com.inout.app.utils;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Base45 codec (RFC 9285).
+ * Output only uses the QR alphanumeric character set, so ZXing encodes it in
+ * alphanumeric mode (5.5 bits per char) instead of byte mode, which makes the
+ * code noticeably smaller than the same data in Base64.
+ */
+public final class Base45 {
+
+    private static final String ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ $%*+-./:";
+    private static final int[] REVERSE = new int[128];
+
+    static {
+        for (int i = 0; i < REVERSE.length; i++) REVERSE[i] = -1;
+        for (int i = 0; i < ALPHABET.length(); i++) REVERSE[ALPHABET.charAt(i)] = i;
+    }
+
+    private Base45() {
+    }
+
+    public static String encode(byte[] data) {
+        StringBuilder out = new StringBuilder((data.length / 2) * 3 + 2);
+        int i = 0;
+        for (; i + 1 < data.length; i += 2) {
+            int n = ((data[i] & 0xff) << 8) | (data[i + 1] & 0xff);
+            out.append(ALPHABET.charAt(n % 45));
+            n /= 45;
+            out.append(ALPHABET.charAt(n % 45));
+            out.append(ALPHABET.charAt(n / 45));
+        }
+        if (i < data.length) {
+            int n = data[i] & 0xff;
+            out.append(ALPHABET.charAt(n % 45));
+            out.append(ALPHABET.charAt(n / 45));
+        }
+        return out.toString();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the input is not valid Base45.
+     */
+    public static byte[] decode(String text) {
+        int length = text.length();
+        if (length % 3 == 1) throw new IllegalArgumentException("Invalid Base45 length");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream((length / 3) * 2 + 1);
+        int i = 0;
+        for (; i + 2 < length; i += 3) {
+            int n = value(text, i) + value(text, i + 1) * 45 + value(text, i + 2) * 45 * 45;
+            if (n > 0xffff) throw new IllegalArgumentException("Invalid Base45 triplet");
+            out.write(n >> 8);
+            out.write(n & 0xff);
+        }
+        if (i < length) {
+            int n = value(text, i) + value(text, i + 1) * 45;
+            if (n > 0xff) throw new IllegalArgumentException("Invalid Base45 pair");
+            out.write(n);
+        }
+        return out.toByteArray();
+    }
+
+    private static int value(String text, int index) {
+        char c = text.charAt(index);
+        int v = c < 128 ? REVERSE[c] : -1;
+        if (v < 0) throw new IllegalArgumentException("Invalid Base45 character: " + c);
+        return v;
+    }
+}
@@ -0,0 +1,125 @@
+package com.inout.app.utils;
+
+import android.util.Log;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.inout.app.models.CompanyConfig;
+import com.inout.app.models.Holiday;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Keeps site weekly off days and the holiday list in sync with Firestore and republishes them
+ * as a compiled {@link CompanyCalendar} whenever either collection changes. Main thread only.
+ */
+public class CalendarCatalog {
+
+    private static final String TAG = "CalendarCatalog";
+    public static final String LOCATIONS_COLLECTION = "locations";
+    public static final String HOLIDAYS_COLLECTION = "holidays";
+
+    private static CalendarCatalog instance;
+
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private List<CompanyConfig> sites = new ArrayList<>();
+    private List<Holiday> holidays = new ArrayList<>();
+    private volatile CompanyCalendar calendar = CompanyCalendar.EMPTY;
+    private ListenerRegistration sitesRegistration;
+    private ListenerRegistration holidaysRegistration;
+    private boolean sitesLoaded;
+    private boolean holidaysLoaded;
+
+    private CalendarCatalog() {
+    }
+
+    public static synchronized CalendarCatalog getInstance() {
+        if (instance == null) {
+            instance = new CalendarCatalog();
+        }
+        return instance;
+    }
+
+    /**
+     * Starts listening to both collections. Safe to call repeatedly.
+     */
+    public void start() {
+        if (sitesRegistration != null) return;
+        FirebaseFirestore db = FirebaseFirestore.getInstance();
+        sitesRegistration = db.collection(LOCATIONS_COLLECTION).addSnapshotListener((value, error) -> {
+            if (error != null) {
+                Log.e(TAG, "Failed to load sites", error);
+                return;
+            }
+            if (value == null) return;
+            List<CompanyConfig> loaded = new ArrayList<>();
+            for (DocumentSnapshot doc : value) {
+                CompanyConfig site = doc.toObject(CompanyConfig.class);
+                if (site != null) {
+                    site.setId(doc.getId());
+                    loaded.add(site);
+                }
+            }
+            sites = loaded;
+            sitesLoaded = true;
+            publish();
+        });
+        holidaysRegistration = db.collection(HOLIDAYS_COLLECTION).addSnapshotListener((value, error) -> {
+            if (error != null) {
+                Log.e(TAG, "Failed to load holidays", error);
+                return;
+            }
+            if (value == null) return;
+            List<Holiday> loaded = new ArrayList<>();
+            for (DocumentSnapshot doc : value) {
+                Holiday holiday = doc.toObject(Holiday.class);
+                if (holiday != null) {
+                    holiday.setId(doc.getId());
+                    loaded.add(holiday);
+                }
+            }
+            holidays = loaded;
+            holidaysLoaded = true;
+            publish();
+        });
+    }
+
+    // Recompiles once both collections have arrived (half a calendar would report holidays as absences)
+    private void publish() {
+        if (!sitesLoaded || !holidaysLoaded) return;
+        calendar = new CompanyCalendar(sites, holidays);
+        for (Runnable listener : listeners) listener.run();
+    }
+
+    /**
+     * @return The current calendar; EMPTY (every day a working day) until the catalog has loaded.
+     */
+    public CompanyCalendar getCalendar() {
+        start();
+        return calendar;
+    }
+
+    public boolean isLoaded() {
+        return sitesLoaded && holidaysLoaded;
+    }
+
+    public List<CompanyConfig> getSites() {
+        return sites;
+    }
+
+    public List<Holiday> getHolidays() {
+        return holidays;
+    }
+
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+        start();
+    }
+
+    public void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+}
@@ -0,0 +1,177 @@
+package com.inout.app.utils;
+
+import com.inout.app.models.CompanyConfig;
+import com.inout.app.models.Holiday;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Company calendar: weekly off days per site plus the holiday list, compiled into per-month
+ * bitmasks. Classifying a day is a bit test, so building a month report or export needs no
+ * per-day lookups or date arithmetic.
+ * Pure Java; the current instance is kept up to date from Firestore by CalendarCatalog.
+ */
+public final class CompanyCalendar {
+
+    // Day types, stored on AttendanceRecord.dayType for report rows
+    public static final int REGULAR = 0;
+    public static final int WEEKEND = 1;
+    public static final int HOLIDAY = 2;
+
+    private static final int MONTH_CACHE_SIZE = 64;
+
+    public static final CompanyCalendar EMPTY = new CompanyCalendar(null, null);
+
+    /**
+     * One site's calendar for one month.
+     */
+    public static final class Month {
+        public final int year;
+        public final int month;     // 1-12
+        public final int days;
+        private final int weekends;     // Bit (day - 1) set on the site's weekly off days
+        private final int holidays;     // Bit (day - 1) set on holidays
+        private final String[] holidayNames;
+
+        Month(int year, int month, int days, int weekends, int holidays, String[] holidayNames) {
+            this.year = year;
+            this.month = month;
+            this.days = days;
+            this.weekends = weekends;
+            this.holidays = holidays;
+            this.holidayNames = holidayNames;
+        }
+
+        /**
+         * @param day Day of month, 1-based.
+         * @return HOLIDAY, WEEKEND or REGULAR (a holiday on a weekend counts as a holiday).
+         */
+        public int dayType(int day) {
+            int bit = 1 << (day - 1);
+            if ((holidays & bit) != 0) return HOLIDAY;
+            if ((weekends & bit) != 0) return WEEKEND;
+            return REGULAR;
+        }
+
+        public String holidayName(int day) {
+            return holidayNames != null ? holidayNames[day - 1] : null;
+        }
+
+        public int getWeekends() {
+            return weekends;
+        }
+
+        public int getHolidays() {
+            return holidays;
+        }
+
+        /**
+         * @return Days that are neither weekly off days nor holidays.
+         */
+        public int getWorkingDayCount() {
+            return days - Integer.bitCount(weekends | holidays);
+        }
+    }
+
+    private static final class HolidayEntry {
+        final int day;
+        final String name;
+        final String locationId;
+
+        HolidayEntry(int day, String name, String locationId) {
+            this.day = day;
+            this.name = name;
+            this.locationId = locationId;
+        }
+    }
+
+    // Site ID -> ISO weekdays as a 7-bit mask (bit 0 = Monday)
+    private final Map<String, Integer> weeklyOffMasks = new HashMap<>();
+    // yyyy * 100 + month -> holidays in that month
+    private final Map<Integer, List<HolidayEntry>> holidaysByMonth = new HashMap<>();
+    private final Map<String, Month> monthCache = new LinkedHashMap<String, Month>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Month> eldest) {
+            return size() > MONTH_CACHE_SIZE;
+        }
+    };
+
+    public CompanyCalendar(List<CompanyConfig> sites, List<Holiday> holidays) {
+        if (sites != null) {
+            for (CompanyConfig site : sites) {
+                List<Integer> offDays = site.getWeeklyOffDays();
+                if (site.getId() == null || offDays == null) continue;
+                int mask = 0;
+                for (Integer isoDay : offDays) {
+                    if (isoDay != null && isoDay >= 1 && isoDay <= 7) mask |= 1 << (isoDay - 1);
+                }
+                if (mask != 0) weeklyOffMasks.put(site.getId(), mask);
+            }
+        }
+        if (holidays != null) {
+            for (Holiday holiday : holidays) {
+                String date = holiday.getDate();
+                int day = AttendanceRules.dayOfMonth(date);
+                if (day == 0) continue;
+                int key;
+                try {
+                    key = Integer.parseInt(date.substring(0, 4)) * 100 + Integer.parseInt(date.substring(5, 7));
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                List<HolidayEntry> entries = holidaysByMonth.get(key);
+                if (entries == null) {
+                    entries = new ArrayList<>();
+                    holidaysByMonth.put(key, entries);
+                }
+                entries.add(new HolidayEntry(day, holiday.getName(), holiday.getLocationId()));
+            }
+        }
+    }
+
+    /**
+     * @param siteId The employee's assigned location, or null for company-wide holidays only.
+     * @param month  1-12
+     */
+    public synchronized Month monthFor(String siteId, int year, int month) {
+        String key = siteId + "/" + year + "/" + month;
+        Month cached = monthCache.get(key);
+        if (cached != null) return cached;
+
+        LocalDate first = LocalDate.of(year, month, 1);
+        int days = first.lengthOfMonth();
+
+        int weekends = 0;
+        Integer offMask = siteId != null ? weeklyOffMasks.get(siteId) : null;
+        if (offMask != null) {
+            // Walk the weekdays once; bit 0 of offMask is Monday
+            int weekday = first.getDayOfWeek().getValue() - 1;
+            for (int d = 0; d < days; d++) {
+                if ((offMask & (1 << weekday)) != 0) weekends |= 1 << d;
+                weekday = weekday == 6 ? 0 : weekday + 1;
+            }
+        }
+
+        int holidays = 0;
+        String[] names = null;
+        List<HolidayEntry> entries = holidaysByMonth.get(year * 100 + month);
+        if (entries != null) {
+            for (HolidayEntry entry : entries) {
+                if (entry.day > days) continue;
+                if (entry.locationId != null && !entry.locationId.equals(siteId)) continue;
+                holidays |= 1 << (entry.day - 1);
+                if (names == null) names = new String[days];
+                names[entry.day - 1] = entry.name;
+            }
+        }
+
+        Month compiled = new Month(year, month, days, weekends, holidays, names);
+        monthCache.put(key, compiled);
+        return compiled;
+    }
+}
@@ -1,8 +1,12 @@
 package com.inout.app.models;
 
+import com.google.firebase.firestore.Exclude;
 import com.google.firebase.firestore.IgnoreExtraProperties;
 import com.google.firebase.firestore.PropertyName;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * Model class representing an Office Location / Company Configuration.
  * Stored in Firestore under 'locations' collection.
@@ -16,6 +20,9 @@ public class CompanyConfig {
     private double latitude;
     private double longitude;
     private float radius;       // Allowed radius in meters (default 100)
+    private Map<String, String> kioskKeys; // NEW: Kiosk key id -> Base64 public key (see KioskTokenHelper)
+    private Map<String, String> badgeKeys; // NEW: Badge issuer key id -> Base64 public key (admin devices)
+    private List<Integer> weeklyOffDays;   // NEW: ISO days of week the site is closed (1 = Monday .. 7 = Sunday)
 
     public CompanyConfig() {
         // Default constructor required for Firestore
@@ -80,4 +87,42 @@ public class CompanyConfig {
     public void setRadius(float radius) {
         this.radius = radius;
     }
+
+    @PropertyName("kioskKeys")
+    public Map<String, String> getKioskKeys() {
+        return kioskKeys;
+    }
+
+    @PropertyName("kioskKeys")
+    public void setKioskKeys(Map<String, String> kioskKeys) {
+        this.kioskKeys = kioskKeys;
+    }
+
+    @PropertyName("badgeKeys")
+    public Map<String, String> getBadgeKeys() {
+        return badgeKeys;
+    }
+
+    @PropertyName("badgeKeys")
+    public void setBadgeKeys(Map<String, String> badgeKeys) {
+        this.badgeKeys = badgeKeys;
+    }
+
+    @PropertyName("weeklyOffDays")
+    public List<Integer> getWeeklyOffDays() {
+        return weeklyOffDays;
+    }
+
+    @PropertyName("weeklyOffDays")
+    public void setWeeklyOffDays(List<Integer> weeklyOffDays) {
+        this.weeklyOffDays = weeklyOffDays;
+    }
+
+    /**
+     * @return True if at least one kiosk display is registered for this location.
+     */
+    @Exclude
+    public boolean hasKiosk() {
+        return kioskKeys != null && !kioskKeys.isEmpty();
+    }
 }
\ No newline at end of file
@@ -9,7 +9,7 @@ import android.widget.Toast;
 import androidx.core.content.FileProvider;
 
 import com.inout.app.models.AttendanceRecord;
-import com.inout.app.utils.TimeUtils;
+import com.inout.app.utils.AttendanceRules;
 
 import java.io.File;
 import java.io.FileOutputStream;
@@ -19,6 +19,7 @@ import java.util.List;
 /**
  * Utility to generate and share professional attendance reports.
  * UPDATED: Handles 14-column layout with strict logic for Late Starts, Resume, and Paid Medical Leave.
+ * UPDATED: That logic now lives in AttendanceRules, shared with the attendance table.
  */
 public class CsvExportHelper {
 
@@ -34,6 +35,7 @@ public class CsvExportHelper {
         csvData.append("Date,Day,CheckIn,TransitRoute,CheckOut,AssignedShift,TotalHours,Overtime,Location,DistanceMeters,FingerprintVerified,GPSVerified,Status,Remarks\n");
 
         // 2. Loop through all records and format rows
+        AttendanceRules rules = AttendanceRules.getDefault();
         for (AttendanceRecord record : records) {
             String date = record.getDate();
             String day = record.getDayOfWeek();
@@ -48,35 +50,11 @@ public class CsvExportHelper {
             String finger = record.isFingerprintVerified() ? "YES" : "NO";
             String gps = record.isGpsVerified() ? "YES" : "NO";
             
-            // LOGIC CONSTANTS
-            String status = record.getStatus();
-            String hours = (record.getTotalHours() != null) ? record.getTotalHours() : "0h 00m";
-            String remarks = (record.getRemarks() != null) ? record.getRemarks() : "";
-            String shiftDuration = calculateShiftDuration(shiftInfo);
-
-            // SCENARIO 1: Emergency Leave (Not Resumed)
-            if (record.getEmergencyLeaveTime() != null && record.getCheckOutTime() == null) {
-                status = "Absent";
-                hours = TimeUtils.calculateDuration(record.getCheckInTime(), record.getEmergencyLeaveTime());
-            }
-
-            // SCENARIO 2: Resumed Work / Late Start (Check-Out exists)
-            if (record.getCheckOutTime() != null) {
-                
-                // Case: Paid Medical Leave (Give full shift credit)
-                if ("paid".equals(record.getMedicalLeaveType())) {
-                    hours = shiftDuration;
-                } 
-                // Case: Late Start / Resume (Record discrepancy in remarks)
-                else if (record.isResumeRequested()) {
-                    String lateDetail = "Late on duty. Worked " + hours + " of assigned " + shiftDuration;
-                    if (remarks.isEmpty()) {
-                        remarks = lateDetail;
-                    } else if (!remarks.contains("Late")) {
-                        remarks = remarks + " | " + lateDetail;
-                    }
-                }
-            }
+            // Status, credited hours and remarks: the same rules as the on-screen table
+            AttendanceRules.Result result = rules.evaluate(record);
+            String status = result.status.label;
+            String hours = result.hours;
+            String remarks = result.remarks;
 
             // Append row to string (Wrap multi-word strings in quotes to handle commas)
             csvData.append(date).append(",")
@@ -84,7 +62,7 @@ public class CsvExportHelper {
                     .append(inTime).append(",")
                     .append("\"").append(transit).append("\",")
                     .append(outTime).append(",")
-                    .append(shiftInfo).append(",")
+                    .append("\"").append(shiftInfo).append("\",")
                     .append(hours).append(",")
                     .append(overtime).append(",")
                     .append("\"").append(location).append("\",")
@@ -113,22 +91,6 @@ public class CsvExportHelper {
         }
     }
 
-    /**
-     * Helper to calculate the duration of a shift string like "02:25 PM - 02:30 PM"
-     */
-    private static String calculateShiftDuration(String shiftStr) {
-        if (shiftStr == null || !shiftStr.contains("-")) return "0h 00m";
-        try {
-            String[] parts = shiftStr.split("-");
-            if (parts.length == 2) {
-                return TimeUtils.calculateDuration(parts[0].trim(), parts[1].trim());
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "Shift parse error", e);
-        }
-        return "0h 00m";
-    }
-
     private static void shareCsvFile(Context context, File file) {
         Uri path = FileProvider.getUriForFile(context, "com.inout.app.fileprovider", file);
         Intent intent = new Intent(Intent.ACTION_SEND);
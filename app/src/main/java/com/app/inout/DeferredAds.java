@@ -0,0 +1,91 @@
+package com.inout.app.utils;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.Choreographer;
+
+import com.google.android.gms.ads.AdRequest;
+import com.google.android.gms.ads.AdView;
+import com.google.android.gms.ads.MobileAds;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps AdMob off the critical path. The SDK is initialized lazily on a background
+ * thread the first time a banner is wanted, and banners are only requested after the
+ * screen's current frame has been drawn, so ads never delay app start or the
+ * check-in buttons becoming usable.
+ */
+public class DeferredAds {
+
+    private static final String TAG = "DeferredAds";
+
+    private static DeferredAds instance;
+
+    private final Context appContext;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService initExecutor = Executors.newSingleThreadExecutor();
+    private final List<Runnable> pendingLoads = new ArrayList<>();
+    private boolean initStarted;
+    private boolean initialized;
+
+    private DeferredAds(Context context) {
+        this.appContext = context;
+    }
+
+    public static synchronized DeferredAds getInstance(Context context) {
+        if (instance == null) {
+            instance = new DeferredAds(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Requests a banner once the next frame is on screen and the SDK is ready.
+     * Safe to call from onCreate/onViewCreated; a banner whose screen is gone is skipped.
+     */
+    public void loadBanner(AdView adView) {
+        // Frame callbacks run before that frame's draw; posting from it lands just after the draw
+        Choreographer.getInstance().postFrameCallback(frameTimeNanos -> mainHandler.post(() -> whenInitialized(() -> {
+            if (adView.isAttachedToWindow()) {
+                adView.loadAd(new AdRequest.Builder().build());
+            }
+        })));
+    }
+
+    private void whenInitialized(Runnable onMainThread) {
+        synchronized (this) {
+            if (!initialized) {
+                pendingLoads.add(onMainThread);
+                if (!initStarted) {
+                    initStarted = true;
+                    initExecutor.execute(this::initialize);
+                }
+                return;
+            }
+        }
+        onMainThread.run();
+    }
+
+    private void initialize() {
+        final long start = SystemClock.elapsedRealtime();
+        MobileAds.initialize(appContext, status -> {
+            Log.d(TAG, "Mobile Ads initialized in " + (SystemClock.elapsedRealtime() - start) + " ms");
+            List<Runnable> loads;
+            synchronized (this) {
+                initialized = true;
+                loads = new ArrayList<>(pendingLoads);
+                pendingLoads.clear();
+            }
+            for (Runnable load : loads) {
+                mainHandler.post(load);
+            }
+        });
+    }
+}
@@ -1,9 +1,10 @@
 package com.inout.app;
 
-import android.location.Address;
-import android.location.Geocoder;
+import android.app.Activity;
+import android.content.Intent;
 import android.location.Location;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -11,12 +12,15 @@ import android.view.ViewGroup;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 
-import com.google.android.gms.ads.AdRequest;
 import com.google.android.gms.ads.AdView;
 import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.inout.app.databinding.FragmentEmployeeCheckinBinding;
@@ -24,16 +28,21 @@ import com.inout.app.models.AttendanceRecord;
 import com.inout.app.models.CompanyConfig;
 import com.inout.app.models.User;
 import com.inout.app.utils.BiometricHelper;
+import com.inout.app.utils.DeferredAds;
+import com.inout.app.utils.GeocodingService;
+import com.inout.app.utils.GeofenceKernel;
+import com.inout.app.utils.KioskTokenHelper;
 import com.inout.app.utils.LocationHelper;
+import com.inout.app.utils.ShiftCatalog;
+import com.inout.app.utils.ShiftSchedule;
+import com.inout.app.utils.StartupOrchestrator;
 import com.inout.app.utils.TimeUtils;
+import com.inout.app.utils.TrailRecorder;
 
-import java.io.IOException;
-import java.text.SimpleDateFormat;
+import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.Collections;
 import java.util.List;
-import java.util.Locale;
-import java.util.concurrent.TimeUnit;
 
 /**
  * Fragment where employees perform Check-In, Transit, and Check-Out.
@@ -48,16 +57,43 @@ public class EmployeeCheckInFragment extends Fragment {
     private FirebaseAuth mAuth;
     private LocationHelper locationHelper;
     private AdView mAdView;
+    // Banner is requested once the attendance state is on screen, or after this fallback
+    private static final long AD_FALLBACK_DELAY_MS = 5000;
+    private boolean adRequested;
+    // Time-to-interactive: view creation until the buttons reflect today's attendance
+    private long viewCreatedAt;
+    private boolean interactiveReported;
     
     private User currentUser;
     private CompanyConfig assignedLocation;
+    private GeofenceKernel assignedFence;
+    private final float[] fenceDistance = new float[1];
     private AttendanceRecord todayRecord;
+    // NEW: Re-render when shift templates or rosters change
+    private final Runnable onShiftsChanged = () -> {
+        if (binding != null) updateUIBasedOnStatus();
+    };
 
     // Action Constants
     private static final int ACTION_IN = 1;
     private static final int ACTION_TRANSIT = 2;
     private static final int ACTION_OUT = 3;
 
+    private static final String REMOTE_LOCATION_PLACEHOLDER = "Remote Location";
+
+    // NEW: Action awaiting a kiosk QR scan (0 = none)
+    private int pendingKioskAction;
+
+    private final ActivityResultLauncher<Intent> kioskScanLauncher = registerForActivityResult(
+            new ActivityResultContracts.StartActivityForResult(),
+            result -> {
+                int action = pendingKioskAction;
+                pendingKioskAction = 0;
+                if (result.getResultCode() == Activity.RESULT_OK && result.getData() != null && action != 0) {
+                    onKioskTokenScanned(action, result.getData().getStringExtra(EmployeeQrScanActivity.EXTRA_SCAN_RESULT));
+                }
+            });
+
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
         binding = FragmentEmployeeCheckinBinding.inflate(inflater, container, false);
@@ -67,6 +103,10 @@ public class EmployeeCheckInFragment extends Fragment {
     @Override
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
+        viewCreatedAt = SystemClock.elapsedRealtime();
+        // The fragment outlives its view on the back stack; the new view needs its own banner
+        adRequested = false;
+        interactiveReported = false;
 
         db = FirebaseFirestore.getInstance();
         mAuth = FirebaseAuth.getInstance();
@@ -74,16 +114,37 @@ public class EmployeeCheckInFragment extends Fragment {
 
         updateButtonState(false, false, false);
 
+        ShiftCatalog.getInstance().addListener(onShiftsChanged);
         loadUserDataAndStatus();
 
         binding.btnCheckIn.setOnClickListener(v -> initiateAction(ACTION_IN));
         binding.btnTransit.setOnClickListener(v -> initiateAction(ACTION_TRANSIT));
         binding.btnCheckOut.setOnClickListener(v -> initiateAction(ACTION_OUT));
+        binding.btnKioskScan.setOnClickListener(v -> initiateKioskAction());
 
         // NEW: Load AdMob Banner Ad
+        // UPDATED: Deferred until the attendance state has rendered (see onAttendanceStateRendered),
+        // with a fallback for accounts whose state never resolves (e.g. no workplace assigned)
         mAdView = binding.adViewCheckin;
-        AdRequest adRequest = new AdRequest.Builder().build();
-        mAdView.loadAd(adRequest);
+        view.postDelayed(this::loadBannerAd, AD_FALLBACK_DELAY_MS);
+    }
+
+    /**
+     * Called whenever the status text and buttons have been updated from Firestore.
+     * The first call marks the screen as interactive and releases the banner ad.
+     */
+    private void onAttendanceStateRendered() {
+        if (interactiveReported || binding == null) return;
+        interactiveReported = true;
+        Log.d(TAG, "Check-in time-to-interactive: " + (SystemClock.elapsedRealtime() - viewCreatedAt) + " ms");
+        StartupOrchestrator.getInstance().mark("checkin_interactive");
+        loadBannerAd();
+    }
+
+    private void loadBannerAd() {
+        if (adRequested || binding == null || mAdView == null) return;
+        adRequested = true;
+        DeferredAds.getInstance(requireContext()).loadBanner(mAdView);
     }
 
     private void updateButtonState(boolean in, boolean transit, boolean out) {
@@ -94,6 +155,10 @@ public class EmployeeCheckInFragment extends Fragment {
         binding.btnCheckIn.setAlpha(in ? 1.0f : 0.5f);
         binding.btnTransit.setAlpha(transit ? 1.0f : 0.5f);
         binding.btnCheckOut.setAlpha(out ? 1.0f : 0.5f);
+
+        // Kiosk scanning replaces the GPS step for whichever action is currently available
+        boolean kioskAvailable = assignedLocation != null && assignedLocation.hasKiosk() && (in || transit || out);
+        binding.btnKioskScan.setVisibility(kioskAvailable ? View.VISIBLE : View.GONE);
     }
 
     private void loadUserDataAndStatus() {
@@ -118,6 +183,7 @@ public class EmployeeCheckInFragment extends Fragment {
                     } else {
                         binding.tvStatus.setText("Status: No workplace assigned by Admin.");
                         updateButtonState(false, false, false);
+                        onAttendanceStateRendered();
                     }
                     
                     loadTodayAttendance();
@@ -131,6 +197,7 @@ public class EmployeeCheckInFragment extends Fragment {
             if (doc.exists()) {
                 assignedLocation = doc.toObject(CompanyConfig.class);
                 assignedLocation.setId(doc.getId());
+                assignedFence = LocationHelper.buildGeofence(Collections.singletonList(assignedLocation));
                 Log.d(TAG, "Assigned to: " + assignedLocation.getName());
                 updateUIBasedOnStatus();
             } else {
@@ -157,9 +224,21 @@ public class EmployeeCheckInFragment extends Fragment {
 
     private void updateUIBasedOnStatus() {
         if (currentUser == null || assignedLocation == null) return;
+        // Until rosters arrive the schedule only knows fixed shifts, and a punch would record the
+        // wrong assignedShift/overtime for good. onShiftsChanged re-renders once it has loaded.
+        if (!ShiftCatalog.getInstance().isLoaded()) {
+            updateButtonState(false, false, false);
+            binding.tvStatus.setText("Loading shift schedule...");
+            return;
+        }
 
         String locName = assignedLocation.getName();
-        String shiftStart = currentUser.getShiftStartTime();
+        // Today's expected shift from the roster (or the fixed shift), looked up, not parsed
+        LocalDate today = LocalDate.now();
+        ShiftSchedule schedule = ShiftCatalog.getInstance().getSchedule();
+        ShiftSchedule.Shift shift = schedule.shiftOn(currentUser, today);
+        boolean rosteredOff = !schedule.isWorkingDay(currentUser, today);
+        String shiftStart = shift != null ? shift.startTime : null;
 
         if (todayRecord == null || (todayRecord.getCheckInTime() == null && todayRecord.isResumeRequested())) {
             
@@ -169,6 +248,10 @@ public class EmployeeCheckInFragment extends Fragment {
             if (todayRecord != null && todayRecord.isResumeRequested()) {
                 updateButtonState(true, false, false);
                 binding.tvStatus.setText("Resume Mode: Ready to Check-In at " + locName);
+            } else if (rosteredOff) {
+                // Off days stay open for extra duty; the record simply has no assigned shift
+                updateButtonState(true, false, false);
+                binding.tvStatus.setText("Status: Rostered day off. Check-In at " + locName + " for extra duty.");
             } else if (!isTimeReached) {
                 updateButtonState(false, false, false);
                 binding.tvStatus.setText("Shift starts at " + shiftStart + ". Please wait.");
@@ -200,11 +283,13 @@ public class EmployeeCheckInFragment extends Fragment {
             }
             
             updateButtonState(false, allowTransit, true);
+            syncTrailRecorder();
             
         } else {
             updateButtonState(false, false, false);
             binding.tvStatus.setText("Status: Shift Completed (" + todayRecord.getTotalHours() + ")");
         }
+        onAttendanceStateRendered();
     }
 
     private void initiateAction(int actionType) {
@@ -231,6 +316,64 @@ public class EmployeeCheckInFragment extends Fragment {
         });
     }
 
+    /**
+     * NEW: Kiosk check-in. After the fingerprint, the employee scans the rotating QR on
+     * the site's kiosk display, which proves presence without waiting for a GPS fix.
+     */
+    private void initiateKioskAction() {
+        final int actionType;
+        if (binding.btnCheckIn.isEnabled()) actionType = ACTION_IN;
+        else if (binding.btnTransit.isEnabled()) actionType = ACTION_TRANSIT;
+        else if (binding.btnCheckOut.isEnabled()) actionType = ACTION_OUT;
+        else return;
+
+        if (actionType == ACTION_IN && currentUser.isTraveling()) {
+            // Remote starts record where the employee actually is, which needs GPS
+            initiateAction(ACTION_IN);
+            return;
+        }
+
+        BiometricHelper.authenticate(requireActivity(), new BiometricHelper.BiometricCallback() {
+            @Override
+            public void onAuthenticationSuccess() {
+                pendingKioskAction = actionType;
+                Intent intent = new Intent(requireContext(), EmployeeQrScanActivity.class);
+                intent.putExtra(EmployeeQrScanActivity.EXTRA_KIOSK_MODE, true);
+                kioskScanLauncher.launch(intent);
+            }
+
+            @Override
+            public void onAuthenticationError(String errorMsg) {
+                Toast.makeText(getContext(), "Auth Error: " + errorMsg, Toast.LENGTH_SHORT).show();
+            }
+
+            @Override
+            public void onAuthenticationFailed() {
+                Toast.makeText(getContext(), "Fingerprint not recognized.", Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
+    private void onKioskTokenScanned(int actionType, String token) {
+        if (binding == null || assignedLocation == null) return;
+
+        String error = KioskTokenHelper.verify(token, assignedLocation, System.currentTimeMillis());
+        if (error != null) {
+            Toast.makeText(getContext(), error, Toast.LENGTH_LONG).show();
+            return;
+        }
+
+        // The kiosk stands at the site, so its coordinates stand in for the GPS fix
+        Location siteLocation = new Location("kiosk");
+        siteLocation.setLatitude(assignedLocation.getLatitude());
+        siteLocation.setLongitude(assignedLocation.getLongitude());
+
+        binding.progressBar.setVisibility(View.VISIBLE);
+        if (actionType == ACTION_IN) performCheckIn(siteLocation, 0, false, true);
+        else if (actionType == ACTION_TRANSIT) performTransit(siteLocation, 0);
+        else if (actionType == ACTION_OUT) performCheckOut(siteLocation);
+    }
+
     private void verifyLocationAndProceed(int actionType) {
         binding.progressBar.setVisibility(View.VISIBLE);
         
@@ -238,20 +381,17 @@ public class EmployeeCheckInFragment extends Fragment {
             @Override
             public void onLocationResult(Location location) {
                 if (location != null) {
-                    boolean inRange = LocationHelper.isWithinRadius(
-                            location.getLatitude(), location.getLongitude(),
-                            assignedLocation.getLatitude(), assignedLocation.getLongitude(),
-                            assignedLocation.getRadius());
+                    // Single pass: containment check and distance come from the same evaluation
+                    boolean inRange = assignedFence.findContainingSite(
+                            location.getLatitude(), location.getLongitude(), fenceDistance) >= 0;
 
                     if (actionType == ACTION_IN && currentUser.isTraveling()) {
-                        performCheckIn(location, 0, true); 
+                        performCheckIn(location, 0, true, false); 
                     } 
                     else if (inRange) {
-                        float dist = LocationHelper.calculateDistance(
-                                location.getLatitude(), location.getLongitude(),
-                                assignedLocation.getLatitude(), assignedLocation.getLongitude());
+                        float dist = fenceDistance[0];
                         
-                        if (actionType == ACTION_IN) performCheckIn(location, dist, false);
+                        if (actionType == ACTION_IN) performCheckIn(location, dist, false, false);
                         else if (actionType == ACTION_TRANSIT) performTransit(location, dist);
                         else if (actionType == ACTION_OUT) performCheckOut(location);
                     } else {
@@ -272,7 +412,12 @@ public class EmployeeCheckInFragment extends Fragment {
         });
     }
 
-    private void performCheckIn(Location loc, float distance, boolean isRemoteStart) {
+    private void performCheckIn(Location loc, float distance, boolean isRemoteStart, boolean viaKiosk) {
+        if (!ShiftCatalog.getInstance().isLoaded()) {
+            binding.progressBar.setVisibility(View.GONE);
+            Toast.makeText(getContext(), "Shift schedule still loading. Try again.", Toast.LENGTH_SHORT).show();
+            return;
+        }
         String dateId = TimeUtils.getCurrentDateId();
         String recordId = currentUser.getEmployeeId() + "_" + dateId;
 
@@ -290,17 +435,18 @@ public class EmployeeCheckInFragment extends Fragment {
         record.setFingerprintVerified(true);
         record.setLocationVerified(true);
         record.setDistanceMeters(distance);
+        record.setKioskVerified(viaKiosk);
         
-        String shiftInfo = "N/A";
-        if (currentUser.getShiftStartTime() != null && currentUser.getShiftEndTime() != null) {
-            shiftInfo = currentUser.getShiftStartTime() + " - " + currentUser.getShiftEndTime();
-        }
-        record.setAssignedShift(shiftInfo);
+        ShiftSchedule.Shift shift = ShiftCatalog.getInstance().getSchedule().shiftOn(currentUser, LocalDate.now());
+        record.setAssignedShift(shift != null ? shift.label : "N/A");
 
         List<String> moves = new ArrayList<>();
         
+        String addressName = null;
         if (isRemoteStart) {
-            String addressName = getAddressName(loc);
+            // Never wait on a network geocode: use a cached name if we have one, fix it up later otherwise
+            addressName = formatAddress(GeocodingService.getInstance(requireContext()).peekReverse(loc.getLatitude(), loc.getLongitude()));
+            if (addressName == null) addressName = REMOTE_LOCATION_PLACEHOLDER;
             record.setStartLocationName(addressName); 
             record.setLocationName(assignedLocation.getName()); 
             moves.add("Started at " + addressName); 
@@ -316,8 +462,13 @@ public class EmployeeCheckInFragment extends Fragment {
                 .addOnSuccessListener(aVoid -> {
                     binding.progressBar.setVisibility(View.GONE);
                     Toast.makeText(getContext(), "Check-In Success!", Toast.LENGTH_SHORT).show();
+                    syncTrailRecorder();
                 })
                 .addOnFailureListener(e -> binding.progressBar.setVisibility(View.GONE));
+
+        if (REMOTE_LOCATION_PLACEHOLDER.equals(addressName)) {
+            resolveStartAddress(recordId, loc);
+        }
     }
 
     private void performTransit(Location loc, float distance) {
@@ -342,10 +493,19 @@ public class EmployeeCheckInFragment extends Fragment {
 
     private void performCheckOut(Location loc) {
         if (todayRecord == null) return;
+        if (!ShiftCatalog.getInstance().isLoaded()) {
+            binding.progressBar.setVisibility(View.GONE);
+            Toast.makeText(getContext(), "Shift schedule still loading. Try again.", Toast.LENGTH_SHORT).show();
+            return;
+        }
 
         String checkOutTime = TimeUtils.getCurrentTime();
         String totalHrs = TimeUtils.calculateDuration(todayRecord.getCheckInTime(), checkOutTime);
-        String overtimeStr = calculateOvertime(todayRecord.getCheckInTime(), checkOutTime);
+        // Overtime against the shift the day was scheduled with (split shifts exclude their break)
+        ShiftSchedule.Shift shift = ShiftCatalog.getInstance().getSchedule()
+                .shiftOn(currentUser, todayRecord.getDate() != null ? LocalDate.parse(todayRecord.getDate()) : LocalDate.now());
+        String overtimeStr = shift != null ? shift.overtimeFor(todayRecord.getCheckInTime(), checkOutTime) : "0h 00m";
+        TrailRecorder trailRecorder = TrailRecorder.getInstance(requireContext());
 
         db.collection("attendance").document(todayRecord.getRecordId())
                 .update(
@@ -358,49 +518,54 @@ public class EmployeeCheckInFragment extends Fragment {
                 .addOnSuccessListener(aVoid -> {
                     binding.progressBar.setVisibility(View.GONE);
                     Toast.makeText(getContext(), "Check-Out Success!", Toast.LENGTH_SHORT).show();
+                    trailRecorder.stop();
                 })
                 .addOnFailureListener(e -> binding.progressBar.setVisibility(View.GONE));
     }
 
-    private String calculateOvertime(String inTime, String outTime) {
-        if (currentUser.getShiftStartTime() == null || currentUser.getShiftEndTime() == null) return "0h 00m";
-
-        try {
-            SimpleDateFormat sdf = new SimpleDateFormat("hh:mm a", Locale.US);
-            Date shiftStart = sdf.parse(currentUser.getShiftStartTime());
-            Date shiftEnd = sdf.parse(currentUser.getShiftEndTime());
-            long shiftMillis = shiftEnd.getTime() - shiftStart.getTime();
-
-            Date actualIn = sdf.parse(inTime);
-            Date actualOut = sdf.parse(outTime);
-            long workedMillis = actualOut.getTime() - actualIn.getTime();
+    /**
+     * Starts the opt-in GPS trail for traveling employees with an open shift.
+     * TrailRecorder.start is idempotent, so this is safe on every status refresh.
+     */
+    private void syncTrailRecorder() {
+        if (!isAdded() || currentUser == null || !currentUser.isTraveling() || !currentUser.isTrailEnabled()) return;
+        String recordId = currentUser.getEmployeeId() + "_" + TimeUtils.getCurrentDateId();
+        TrailRecorder.getInstance(requireContext()).start(recordId);
+    }
 
-            if (workedMillis > shiftMillis) {
-                long otMillis = workedMillis - shiftMillis;
-                long hours = TimeUnit.MILLISECONDS.toHours(otMillis);
-                long minutes = TimeUnit.MILLISECONDS.toMinutes(otMillis) % 60;
-                return String.format(Locale.US, "%dh %02dm", hours, minutes);
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "Overtime calc failed", e);
-        }
-        return "0h 00m";
+    /**
+     * Reverse-geocodes a remote start point in the background and patches the
+     * record's start location once the name is known.
+     * UPDATED: Swaps only the placeholder entry inside a transaction, so transit entries
+     * appended (arrayUnion) before the geocode returns are kept, in order.
+     */
+    private void resolveStartAddress(String recordId, Location loc) {
+        GeocodingService.getInstance(requireContext()).reverse(loc.getLatitude(), loc.getLongitude(), place -> {
+            String addressName = formatAddress(place);
+            if (addressName == null) return;
+
+            DocumentReference ref = db.collection("attendance").document(recordId);
+            String placeholderMove = "Started at " + REMOTE_LOCATION_PLACEHOLDER;
+            db.runTransaction(transaction -> {
+                DocumentSnapshot snapshot = transaction.get(ref);
+                if (!REMOTE_LOCATION_PLACEHOLDER.equals(snapshot.getString("startLocationName"))) return null;
+                Object log = snapshot.get("movementLog");
+                List<Object> moves = log instanceof List ? new ArrayList<>((List<?>) log) : new ArrayList<>();
+                int index = moves.indexOf(placeholderMove);
+                if (index >= 0) moves.set(index, "Started at " + addressName);
+                else moves.add(0, "Started at " + addressName);
+                transaction.update(ref, "startLocationName", addressName, "movementLog", moves);
+                return null;
+            }).addOnFailureListener(e -> Log.e(TAG, "Failed to update start address", e));
+        });
     }
 
-    private String getAddressName(Location loc) {
-        try {
-            Geocoder geocoder = new Geocoder(requireContext(), Locale.getDefault());
-            List<Address> addresses = geocoder.getFromLocation(loc.getLatitude(), loc.getLongitude(), 1);
-            if (addresses != null && !addresses.isEmpty()) {
-                Address addr = addresses.get(0);
-                String street = addr.getThoroughfare() != null ? addr.getThoroughfare() : "";
-                String city = addr.getLocality() != null ? addr.getLocality() : "";
-                return (street + " " + city).trim();
-            }
-        } catch (IOException e) {
-            Log.e(TAG, "Geocoder failed", e);
-        }
-        return "Remote Location";
+    private static String formatAddress(GeocodingService.Place place) {
+        if (place == null) return null;
+        String street = place.getThoroughfare() != null ? place.getThoroughfare() : "";
+        String city = place.getLocality() != null ? place.getLocality() : "";
+        String name = (street + " " + city).trim();
+        return name.isEmpty() ? null : name;
     }
 
     // NEW: AdMob Lifecycle hooks
@@ -418,6 +583,7 @@ public class EmployeeCheckInFragment extends Fragment {
 
     @Override
     public void onDestroyView() {
+        ShiftCatalog.getInstance().removeListener(onShiftsChanged);
         if (mAdView != null) mAdView.destroy();
         super.onDestroyView();
         binding = null;
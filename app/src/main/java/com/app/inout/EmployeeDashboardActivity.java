@@ -27,8 +27,10 @@ import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.ListenerRegistration;
 import com.inout.app.databinding.ActivityEmployeeDashboardBinding;
 import com.inout.app.models.AttendanceRecord;
+import com.inout.app.models.LeaveRequest;
 import com.inout.app.models.User;
 import com.inout.app.utils.EncryptionHelper;
+import com.inout.app.utils.LeaveRequestManager;
 import com.inout.app.utils.LocationHelper;
 import com.inout.app.utils.TimeUtils;
 
@@ -40,6 +42,7 @@ import java.util.Map;
  * Handles navigation between Check-In/Out and Attendance History.
  * Monitors Admin Approval status and Profile completeness.
  * UPDATED: Handles Emergency Leave, Medical Leave, and Resume logic with real-time menu sync and spinning loader.
+ * UPDATED: Leave requests are filed in the leave_requests queue (LeaveRequestManager).
  */
 public class EmployeeDashboardActivity extends AppCompatActivity {
 
@@ -54,6 +57,7 @@ public class EmployeeDashboardActivity extends AppCompatActivity {
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        if (InOutApplication.restartIfStarting(this)) return;
         binding = ActivityEmployeeDashboardBinding.inflate(getLayoutInflater());
         setContentView(binding.getRoot());
 
@@ -219,8 +223,9 @@ public class EmployeeDashboardActivity extends AppCompatActivity {
 
     private void handleMedicalLeaveRequest() {
         if (currentUser == null) return;
-        db.collection("users").document(currentUser.getUid())
-                .update("medicalLeaveStatus", "pending")
+        // Filed in the leave request queue; the user document mirrors the pending state
+        LeaveRequestManager.getInstance()
+                .submit(currentUser, LeaveRequest.TYPE_MEDICAL, TimeUtils.getCurrentDateId(), null)
                 .addOnSuccessListener(aVoid -> Toast.makeText(this, "Medical Leave Permission Requested.", Toast.LENGTH_LONG).show());
     }
 
@@ -262,8 +267,8 @@ public class EmployeeDashboardActivity extends AppCompatActivity {
                                 "emergencyLeaveLocation", leaveLoc,
                                 "remarks", remarks)
                         .addOnSuccessListener(aVoid -> {
-                            db.collection("users").document(currentUser.getUid())
-                                    .update("emergencyLeaveStatus", "pending")
+                            LeaveRequestManager.getInstance()
+                                    .submit(currentUser, LeaveRequest.TYPE_EMERGENCY, todayRecord.getDate(), leaveTime)
                                     .addOnSuccessListener(aVoid2 -> {
                                         Toast.makeText(EmployeeDashboardActivity.this, "Emergency Leave Requested.", Toast.LENGTH_LONG).show();
                                     });
@@ -22,6 +22,7 @@ import com.inout.app.databinding.FragmentEmployeeHistoryBinding;
 import com.inout.app.models.AttendanceRecord;
 import com.inout.app.models.User;
 import com.inout.app.utils.EncryptionHelper;
+import com.inout.app.utils.ProfilePhotos;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -37,6 +38,8 @@ import java.util.Locale;
 public class EmployeeHistoryFragment extends Fragment {
 
     private static final String TAG = "EmployeeHistoryFrag";
+    // Matches iv_history_photo in fragment_employee_history
+    private static final int HISTORY_PHOTO_DP = 80;
     private FragmentEmployeeHistoryBinding binding;
     
     private FirebaseFirestore db;
@@ -76,7 +79,7 @@ public class EmployeeHistoryFragment extends Fragment {
 
     private void setupRecyclerView() {
         binding.rvHistoryTable.setLayoutManager(new LinearLayoutManager(getContext()));
-        adapter = new AttendanceAdapter(historyLogs);
+        adapter = new AttendanceAdapter();
         binding.rvHistoryTable.setAdapter(adapter);
     }
 
@@ -102,7 +105,9 @@ public class EmployeeHistoryFragment extends Fragment {
                             binding.tvHistoryMonth.setText(new SimpleDateFormat("MMMM yyyy", Locale.US).format(new Date()));
 
                             if (currentUserProfile.getPhotoUrl() != null) {
-                                Glide.with(this).load(currentUserProfile.getPhotoUrl()).circleCrop().into(binding.ivHistoryPhoto);
+                                ProfilePhotos.request(Glide.with(this), currentUserProfile.getPhotoUrl(),
+                                        ProfilePhotos.dpToPx(requireContext(), HISTORY_PHOTO_DP))
+                                        .into(binding.ivHistoryPhoto);
                             }
                             
                             loadMyLogs();
@@ -132,7 +137,9 @@ public class EmployeeHistoryFragment extends Fragment {
                     }
 
                     if (value != null) {
-                        historyLogs.clear();
+                        // A fresh list per snapshot: the adapter diffs it in the background and
+                        // only rebinds rows whose contents changed
+                        List<AttendanceRecord> logs = new ArrayList<>();
                         SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
                         SimpleDateFormat dayFormat = new SimpleDateFormat("EEEE", Locale.US);
 
@@ -147,11 +154,12 @@ public class EmployeeHistoryFragment extends Fragment {
                                 } catch (Exception e) {
                                     record.setDayOfWeek("Unknown");
                                 }
-                                historyLogs.add(record);
+                                logs.add(record);
                             }
                         }
                         
-                        adapter.notifyDataSetChanged();
+                        historyLogs = logs;
+                        adapter.submitList(logs);
                         
                         if (historyLogs.isEmpty()) {
                             binding.tvNoData.setVisibility(View.VISIBLE);
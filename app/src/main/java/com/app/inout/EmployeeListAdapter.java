@@ -9,11 +9,19 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.bumptech.glide.ListPreloader;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
 import com.inout.app.models.User;
+import com.inout.app.utils.ProfilePhotos;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -21,15 +29,29 @@ import java.util.Set;
 /**
  * Adapter to handle Multi-Selection, Bulk Actions, and Individual Approvals.
  * UPDATED: Displays Emergency Leave and Medical Leave status for Admin visibility.
+ * UPDATED: Selection is a set of row indexes; a tap only rebinds the tapped row's
+ * selection overlay (PAYLOAD_SELECTION), so its cost does not grow with the list.
+ * NEW: Shows profile photos as thumbnails and acts as the model provider for a Glide
+ * RecyclerViewPreloader, so photos below the fold are fetched before they scroll in.
  */
-public class EmployeeListAdapter extends RecyclerView.Adapter<EmployeeListAdapter.EmployeeViewHolder> {
+public class EmployeeListAdapter extends RecyclerView.Adapter<EmployeeListAdapter.EmployeeViewHolder>
+        implements ListPreloader.PreloadModelProvider<User> {
+
+    private static final Object PAYLOAD_SELECTION = new Object();
 
     private final Context context;
-    private final List<User> employeeList;
+    private final List<User> employeeList = new ArrayList<>();
     private final OnEmployeeActionListener listener;
-    
-    // Set to store the UIDs of selected employees for bulk actions
-    private final Set<String> selectedUserIds = new HashSet<>();
+    private final RequestManager glide;
+    private final int thumbSizePx;
+
+    // Indexes (into employeeList) of selected employees for bulk actions
+    private final BitSet selectedPositions = new BitSet();
+
+    // Status colors, resolved once instead of on every bind
+    private final int colorAlert;
+    private final int colorApproved;
+    private final int colorPending;
 
     public interface OnEmployeeActionListener {
         void onApproveClicked(User user);
@@ -37,17 +59,85 @@ public class EmployeeListAdapter extends RecyclerView.Adapter<EmployeeListAdapte
         void onBulkActionRequested(List<User> selectedUsers);
     }
 
-    public EmployeeListAdapter(Context context, List<User> employeeList, OnEmployeeActionListener listener) {
+    public EmployeeListAdapter(Context context, RequestManager glide, List<User> employeeList, OnEmployeeActionListener listener) {
         this.context = context;
-        this.employeeList = employeeList;
+        this.glide = glide;
+        this.employeeList.addAll(employeeList);
         this.listener = listener;
+        thumbSizePx = ProfilePhotos.dpToPx(context, ProfilePhotos.LIST_THUMB_DP);
+        colorAlert = ContextCompat.getColor(context, android.R.color.holo_red_dark);
+        colorApproved = ContextCompat.getColor(context, android.R.color.holo_green_dark);
+        colorPending = ContextCompat.getColor(context, android.R.color.holo_orange_dark);
+    }
+
+    /**
+     * Replaces the displayed employees, keeping selected employees selected (matched by UID).
+     */
+    public void setEmployees(List<User> employees) {
+        Set<String> selectedUids = new HashSet<>();
+        for (int i = selectedPositions.nextSetBit(0); i >= 0; i = selectedPositions.nextSetBit(i + 1)) {
+            selectedUids.add(employeeList.get(i).getUid());
+        }
+
+        employeeList.clear();
+        employeeList.addAll(employees);
+        selectedPositions.clear();
+        if (!selectedUids.isEmpty()) {
+            for (int i = 0; i < employeeList.size(); i++) {
+                if (selectedUids.contains(employeeList.get(i).getUid())) selectedPositions.set(i);
+            }
+        }
+        notifyDataSetChanged();
     }
 
     @NonNull
     @Override
     public EmployeeViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         View view = LayoutInflater.from(context).inflate(R.layout.item_employee, parent, false);
-        return new EmployeeViewHolder(view);
+        EmployeeViewHolder holder = new EmployeeViewHolder(view);
+
+        // Click handlers are created once per ViewHolder and resolve the row at click time
+        holder.btnApprove.setOnClickListener(v -> {
+            int position = holder.getAdapterPosition();
+            if (position != RecyclerView.NO_POSITION && listener != null) {
+                listener.onApproveClicked(employeeList.get(position));
+            }
+        });
+
+        // Toggle Selection on tap
+        holder.itemView.setOnClickListener(v -> {
+            int position = holder.getAdapterPosition();
+            if (position != RecyclerView.NO_POSITION) toggleSelection(position);
+        });
+
+        // LONG PRESS: Handle individual delete if nothing selected, or bulk action if selected
+        holder.itemView.setOnLongClickListener(v -> {
+            int position = holder.getAdapterPosition();
+            if (position == RecyclerView.NO_POSITION) return false;
+            if (selectedPositions.isEmpty()) {
+                if (listener != null) {
+                    listener.onDeleteClicked(employeeList.get(position));
+                }
+            } else {
+                if (!selectedPositions.get(position)) {
+                    toggleSelection(position);
+                }
+                if (listener != null) {
+                    listener.onBulkActionRequested(getSelectedUsers());
+                }
+            }
+            return true;
+        });
+        return holder;
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull EmployeeViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (!payloads.isEmpty() && allSelectionPayloads(payloads)) {
+            bindSelection(holder, position);
+        } else {
+            onBindViewHolder(holder, position);
+        }
     }
 
     @Override
@@ -56,98 +146,96 @@ public class EmployeeListAdapter extends RecyclerView.Adapter<EmployeeListAdapte
 
         holder.tvName.setText(user.getName());
         holder.tvPhone.setText(user.getPhone() != null ? user.getPhone() : "No Phone");
-        
+
         // Handle Status Display
         // NEW LOGIC: Priority order for status alerts
         if ("pending".equals(user.getEmergencyLeaveStatus())) {
             holder.tvStatus.setText("Status: Emergency Leave Pending");
-            holder.tvStatus.setTextColor(context.getResources().getColor(android.R.color.holo_red_dark));
+            holder.tvStatus.setTextColor(colorAlert);
             holder.btnApprove.setVisibility(View.VISIBLE);
             holder.btnApprove.setText("Review Leave");
-        } 
+        }
         else if ("pending".equals(user.getMedicalLeaveStatus())) {
             holder.tvStatus.setText("Status: Medical Leave Request");
-            holder.tvStatus.setTextColor(context.getResources().getColor(android.R.color.holo_red_dark));
+            holder.tvStatus.setTextColor(colorAlert);
             holder.btnApprove.setVisibility(View.VISIBLE);
             holder.btnApprove.setText("Review Request");
         }
         else if (user.isApproved()) {
             String idSuffix = (user.getEmployeeId() != null) ? " (" + user.getEmployeeId() + ")" : "";
             holder.tvStatus.setText("Status: Approved" + idSuffix);
-            holder.tvStatus.setTextColor(context.getResources().getColor(android.R.color.holo_green_dark));
+            holder.tvStatus.setTextColor(colorApproved);
             holder.btnApprove.setVisibility(View.GONE);
-        } 
+        }
         else {
             holder.tvStatus.setText("Status: Pending Approval");
-            holder.tvStatus.setTextColor(context.getResources().getColor(android.R.color.holo_orange_dark));
+            holder.tvStatus.setTextColor(colorPending);
             holder.btnApprove.setVisibility(View.VISIBLE);
             holder.btnApprove.setText("Approve");
         }
-        
-        // Multi-selection visual feedback
-        if (selectedUserIds.contains(user.getUid())) {
-            holder.viewOverlay.setVisibility(View.VISIBLE);
-            holder.ivCheck.setVisibility(View.VISIBLE);
-        } else {
-            holder.viewOverlay.setVisibility(View.GONE);
-            holder.ivCheck.setVisibility(View.GONE);
-        }
 
-        // Standard profile placeholder
-        holder.ivProfile.setImageResource(R.drawable.inout); 
+        bindSelection(holder, position);
 
-        // Individual Approve Button Logic
-        holder.btnApprove.setOnClickListener(v -> {
-            if (listener != null) {
-                listener.onApproveClicked(user);
-            }
-        });
+        // Thumbnail-sized photo; the app logo stays as the placeholder for users without one
+        ProfilePhotos.load(glide, user.getPhotoUrl(), holder.ivProfile, thumbSizePx);
+    }
 
-        // Toggle Selection on tap
-        holder.itemView.setOnClickListener(v -> {
-            toggleSelection(user.getUid());
-        });
+    @Override
+    public void onViewRecycled(@NonNull EmployeeViewHolder holder) {
+        // Cancel any in-flight load and return the bitmap to Glide's pool
+        glide.clear(holder.ivProfile);
+    }
 
-        // LONG PRESS: Handle individual delete if nothing selected, or bulk action if selected
-        holder.itemView.setOnLongClickListener(v -> {
-            if (selectedUserIds.isEmpty()) {
-                if (listener != null) {
-                    listener.onDeleteClicked(user);
-                }
-            } else {
-                if (!selectedUserIds.contains(user.getUid())) {
-                    toggleSelection(user.getUid());
-                }
-                if (listener != null) {
-                    listener.onBulkActionRequested(getSelectedUsers());
-                }
-            }
-            return true;
-        });
+    @NonNull
+    @Override
+    public List<User> getPreloadItems(int position) {
+        if (position >= employeeList.size()) return Collections.emptyList();
+        User user = employeeList.get(position);
+        if (user.getPhotoUrl() == null || user.getPhotoUrl().isEmpty()) return Collections.emptyList();
+        return Collections.singletonList(user);
     }
 
-    private void toggleSelection(String uid) {
-        if (selectedUserIds.contains(uid)) {
-            selectedUserIds.remove(uid);
-        } else {
-            selectedUserIds.add(uid);
+    @Nullable
+    @Override
+    public RequestBuilder<?> getPreloadRequestBuilder(@NonNull User user) {
+        // Must match the on-screen request so preloaded thumbnails are cache hits
+        return ProfilePhotos.request(glide, user.getPhotoUrl(), thumbSizePx);
+    }
+
+    /**
+     * Multi-selection visual feedback.
+     */
+    private void bindSelection(EmployeeViewHolder holder, int position) {
+        int visibility = selectedPositions.get(position) ? View.VISIBLE : View.GONE;
+        holder.viewOverlay.setVisibility(visibility);
+        holder.ivCheck.setVisibility(visibility);
+    }
+
+    private static boolean allSelectionPayloads(List<Object> payloads) {
+        for (Object payload : payloads) {
+            if (payload != PAYLOAD_SELECTION) return false;
         }
-        notifyDataSetChanged();
+        return true;
+    }
+
+    private void toggleSelection(int position) {
+        selectedPositions.flip(position);
+        notifyItemChanged(position, PAYLOAD_SELECTION);
     }
 
     public List<User> getSelectedUsers() {
-        List<User> selectedUsers = new ArrayList<>();
-        for (User user : employeeList) {
-            if (selectedUserIds.contains(user.getUid())) {
-                selectedUsers.add(user);
-            }
+        List<User> selectedUsers = new ArrayList<>(selectedPositions.cardinality());
+        for (int i = selectedPositions.nextSetBit(0); i >= 0; i = selectedPositions.nextSetBit(i + 1)) {
+            selectedUsers.add(employeeList.get(i));
         }
         return selectedUsers;
     }
 
     public void clearSelection() {
-        selectedUserIds.clear();
-        notifyDataSetChanged();
+        for (int i = selectedPositions.nextSetBit(0); i >= 0; i = selectedPositions.nextSetBit(i + 1)) {
+            notifyItemChanged(i, PAYLOAD_SELECTION);
+        }
+        selectedPositions.clear();
     }
 
     @Override
@@ -172,4 +260,4 @@ public class EmployeeListAdapter extends RecyclerView.Adapter<EmployeeListAdapte
             btnApprove = itemView.findViewById(R.id.btn_approve_employee);
         }
     }
-}
\ No newline at end of file
+}
@@ -36,6 +36,7 @@ public class EmployeeProfileActivity extends AppCompatActivity {
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        if (InOutApplication.restartIfStarting(this)) return;
         binding = ActivityEmployeeProfileBinding.inflate(getLayoutInflater());
         setContentView(binding.getRoot());
 
@@ -4,6 +4,7 @@ import android.Manifest;
 import android.annotation.SuppressLint;
 import android.content.Intent;
 import android.content.pm.PackageManager;
+import android.graphics.Rect;
 import android.net.Uri;
 import android.os.Bundle;
 import android.provider.MediaStore;
@@ -18,7 +19,6 @@ import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.camera.core.CameraSelector;
 import androidx.camera.core.ImageAnalysis;
-import androidx.camera.core.ImageProxy;
 import androidx.camera.core.Preview;
 import androidx.camera.lifecycle.ProcessCameraProvider;
 import androidx.core.app.ActivityCompat;
@@ -31,8 +31,12 @@ import com.google.mlkit.vision.barcode.BarcodeScanning;
 import com.google.mlkit.vision.barcode.common.Barcode;
 import com.google.mlkit.vision.common.InputImage;
 import com.inout.app.databinding.ActivityEmployeeQrScanBinding;
+import com.inout.app.utils.Base45;
 import com.inout.app.utils.EncryptionHelper;
+import com.inout.app.utils.EnrollmentPayload;
 import com.inout.app.utils.FirebaseManager;
+import com.inout.app.utils.KioskTokenHelper;
+import com.inout.app.utils.QrFrameAnalyzer;
 
 import org.json.JSONObject;
 
@@ -47,10 +51,16 @@ public class EmployeeQrScanActivity extends AppCompatActivity {
     private static final String TAG = "EmployeeQrScanActivity";
     private static final int PERMISSION_REQUEST_CAMERA = 1001;
 
+    // NEW: Kiosk mode only returns a scanned kiosk token to the caller (EmployeeCheckInFragment)
+    public static final String EXTRA_KIOSK_MODE = "extra_kiosk_mode";
+    public static final String EXTRA_SCAN_RESULT = "extra_scan_result";
+
     private ActivityEmployeeQrScanBinding binding;
     private ExecutorService cameraExecutor;
     private BarcodeScanner scanner;
-    private boolean isProcessing = false;
+    private volatile boolean isProcessing = false;
+    private QrFrameAnalyzer frameAnalyzer;
+    private boolean kioskMode;
 
     // NEW: Launcher for picking an image from Gallery
     private final ActivityResultLauncher<Intent> galleryLauncher = registerForActivityResult(
@@ -71,6 +81,7 @@ public class EmployeeQrScanActivity extends AppCompatActivity {
         setContentView(binding.getRoot());
 
         cameraExecutor = Executors.newSingleThreadExecutor();
+        kioskMode = getIntent().getBooleanExtra(EXTRA_KIOSK_MODE, false);
 
         // Initialize Barcode Scanner
         BarcodeScannerOptions options = new BarcodeScannerOptions.Builder()
@@ -84,6 +95,12 @@ public class EmployeeQrScanActivity extends AppCompatActivity {
             ActivityCompat.requestPermissions(this, new String[]{Manifest.permission.CAMERA}, PERMISSION_REQUEST_CAMERA);
         }
 
+        if (kioskMode) {
+            // Kiosk codes rotate and must be scanned live, so gallery upload makes no sense
+            binding.tvStatus.setText("Scan Kiosk Code");
+            binding.btnUploadQr.setVisibility(View.GONE);
+        }
+
         // NEW: Listener for Gallery Upload Button
         binding.btnUploadQr.setOnClickListener(v -> {
             Intent intent = new Intent(Intent.ACTION_PICK, MediaStore.Images.Media.EXTERNAL_CONTENT_URI);
@@ -115,7 +132,10 @@ public class EmployeeQrScanActivity extends AppCompatActivity {
                 .setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST)
                 .build();
 
-        imageAnalysis.setAnalyzer(cameraExecutor, imageProxy -> processImageProxy(imageProxy));
+        // UPDATED: Throttled, guide-cropped analysis instead of sending every full frame to ML Kit
+        frameAnalyzer = new QrFrameAnalyzer(scanner, this::handleScannedQr);
+        binding.qrGuideBox.post(this::updateScanRegion);
+        imageAnalysis.setAnalyzer(cameraExecutor, frameAnalyzer);
 
         CameraSelector cameraSelector = CameraSelector.DEFAULT_BACK_CAMERA;
 
@@ -127,25 +147,13 @@ public class EmployeeQrScanActivity extends AppCompatActivity {
         }
     }
 
-    private void processImageProxy(ImageProxy imageProxy) {
-        if (isProcessing || imageProxy.getImage() == null) {
-            imageProxy.close();
-            return;
-        }
-
-        InputImage image = InputImage.fromMediaImage(imageProxy.getImage(), imageProxy.getImageInfo().getRotationDegrees());
-
-        scanner.process(image)
-                .addOnSuccessListener(barcodes -> {
-                    if (!barcodes.isEmpty()) {
-                        String rawValue = barcodes.get(0).getRawValue();
-                        if (rawValue != null) {
-                            handleScannedQr(rawValue);
-                        }
-                    }
-                })
-                .addOnFailureListener(e -> Log.e(TAG, "Camera QR analysis failed", e))
-                .addOnCompleteListener(task -> imageProxy.close());
+    private void updateScanRegion() {
+        if (frameAnalyzer == null) return;
+        Rect guide = new Rect(binding.qrGuideBox.getLeft(), binding.qrGuideBox.getTop(),
+                binding.qrGuideBox.getRight(), binding.qrGuideBox.getBottom());
+        // Both views share the same parent; convert the guide box to PreviewView coordinates
+        guide.offset(-binding.viewFinder.getLeft(), -binding.viewFinder.getTop());
+        frameAnalyzer.setRegionOfInterest(binding.viewFinder.getWidth(), binding.viewFinder.getHeight(), guide);
     }
 
     /**
@@ -182,28 +190,67 @@ public class EmployeeQrScanActivity extends AppCompatActivity {
     private void handleScannedQr(String encryptedPayload) {
         if (isProcessing) return;
         isProcessing = true;
+        if (frameAnalyzer != null) frameAnalyzer.setPaused(true);
+
+        if (kioskMode) {
+            if (encryptedPayload.startsWith(KioskTokenHelper.TOKEN_PREFIX)) {
+                setResult(RESULT_OK, new Intent().putExtra(EXTRA_SCAN_RESULT, encryptedPayload));
+                finish();
+            } else {
+                resetScan("This is not a kiosk check-in code.");
+            }
+            return;
+        }
 
         runOnUiThread(() -> {
             binding.progressBar.setVisibility(View.VISIBLE);
             binding.tvStatus.setText("Processing registration...");
         });
 
-        // 1. Decrypt the payload
-        String decryptedJson = EncryptionHelper.getInstance(this).decryptQrPayload(encryptedPayload);
+        String firebaseConfigStr;
+        String companyName;
+        String projectId;
 
-        if (decryptedJson == null) {
-            resetScan("Invalid QR Code. Decryption failed.");
-            return;
+        if (encryptedPayload.startsWith(EnrollmentPayload.QR_PREFIX)) {
+            // 1. Compact binary format
+            EnrollmentPayload payload = decodeCompactPayload(encryptedPayload);
+            if (payload == null) {
+                resetScan("Invalid QR Code. Decryption failed.");
+                return;
+            }
+            try {
+                firebaseConfigStr = payload.toFirebaseJson();
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to rebuild Firebase config", e);
+                resetScan("Unsupported QR format.");
+                return;
+            }
+            companyName = payload.getCompanyName();
+            projectId = payload.getProjectId();
+        } else {
+            // 1. Legacy format: decrypt the payload
+            String decryptedJson = EncryptionHelper.getInstance(this).decryptQrPayload(encryptedPayload);
+
+            if (decryptedJson == null) {
+                resetScan("Invalid QR Code. Decryption failed.");
+                return;
+            }
+
+            try {
+                // 2. Parse the payload Wrapper
+                JSONObject wrapper = new JSONObject(decryptedJson);
+
+                firebaseConfigStr = wrapper.getString("firebaseConfig");
+                companyName = wrapper.getString("companyName");
+                projectId = wrapper.getString("projectId");
+            } catch (Exception e) {
+                Log.e(TAG, "JSON Parsing error", e);
+                resetScan("Unsupported QR format.");
+                return;
+            }
         }
 
         try {
-            // 2. Parse the payload Wrapper
-            JSONObject wrapper = new JSONObject(decryptedJson);
-            
-            String firebaseConfigStr = wrapper.getString("firebaseConfig");
-            String companyName = wrapper.getString("companyName");
-            String projectId = wrapper.getString("projectId");
-
             // 3. Save Configuration locally
             boolean success = FirebaseManager.setConfiguration(this, firebaseConfigStr, companyName, projectId);
 
@@ -221,8 +268,23 @@ public class EmployeeQrScanActivity extends AppCompatActivity {
             }
 
         } catch (Exception e) {
-            Log.e(TAG, "JSON Parsing error", e);
-            resetScan("Unsupported QR format.");
+            Log.e(TAG, "Configuration failed", e);
+            resetScan("Configuration error. Data might be corrupt.");
+        }
+    }
+
+    /**
+     * NEW: Decodes the compact enrollment QR ("IO1:" + Base45 of the encrypted binary payload).
+     * @return The payload, or null if the code is corrupt or was not issued by this app.
+     */
+    private EnrollmentPayload decodeCompactPayload(String qrContent) {
+        try {
+            byte[] sealed = Base45.decode(qrContent.substring(EnrollmentPayload.QR_PREFIX.length()));
+            byte[] plain = EncryptionHelper.getInstance(this).decryptQrBytes(sealed);
+            return plain != null ? EnrollmentPayload.decode(plain) : null;
+        } catch (IllegalArgumentException e) {
+            Log.e(TAG, "Compact QR decode failed", e);
+            return null;
         }
     }
 
@@ -230,8 +292,13 @@ public class EmployeeQrScanActivity extends AppCompatActivity {
         runOnUiThread(() -> {
             Toast.makeText(this, errorMsg, Toast.LENGTH_SHORT).show();
             binding.progressBar.setVisibility(View.GONE);
-            binding.tvStatus.setText(R.string.scan_qr_title);
+            if (kioskMode) {
+                binding.tvStatus.setText("Scan Kiosk Code");
+            } else {
+                binding.tvStatus.setText(R.string.scan_qr_title);
+            }
             isProcessing = false; 
+            if (frameAnalyzer != null) frameAnalyzer.setPaused(false);
         });
     }
 
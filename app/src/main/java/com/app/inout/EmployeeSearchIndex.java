@@ -0,0 +1,256 @@
+package com.inout.app.utils;
+
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.inout.app.models.User;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory type-ahead index over employee name, employee ID, email and phone.
+ * Every searchable token is indexed by its 1-2 character prefixes (for the first
+ * keystrokes) and by its trigrams (for longer terms, matching anywhere in the token),
+ * so a keystroke is a few hash lookups plus a verification pass over the smallest candidate list
+ * instead of a scan over every employee.
+ *
+ * Kept up to date incrementally from Firestore document changes. Main thread only.
+ */
+public class EmployeeSearchIndex {
+
+    private static final int GRAM = 3;
+
+    private static final class Entry {
+        final User user;
+        final String[] tokens;
+        final long order;
+
+        Entry(User user, String[] tokens, long order) {
+            this.user = user;
+            this.tokens = tokens;
+            this.order = order;
+        }
+    }
+
+    // Insertion-ordered; search results of equal rank keep the same order
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    // Prefix (length 1..GRAM-1) or trigram -> UIDs whose tokens contain it
+    private final Map<String, Set<String>> postings = new HashMap<>();
+    private long nextOrder;
+
+    /**
+     * Applies the changes of a users snapshot. The first snapshot reports every document as added.
+     */
+    public void apply(QuerySnapshot snapshot) {
+        for (DocumentChange change : snapshot.getDocumentChanges()) {
+            String uid = change.getDocument().getId();
+            if (change.getType() == DocumentChange.Type.REMOVED) {
+                remove(uid);
+                continue;
+            }
+            User user = change.getDocument().toObject(User.class);
+            if (user != null) {
+                user.setUid(uid);
+                put(user);
+            }
+        }
+    }
+
+    /**
+     * Adds or replaces an employee. Postings are only rewritten if a searchable field changed.
+     */
+    public void put(User user) {
+        String uid = user.getUid();
+        if (uid == null) return;
+        String[] tokens = tokenize(user);
+        Entry existing = entries.get(uid);
+        long order = existing != null ? existing.order : nextOrder++;
+        entries.put(uid, new Entry(user, tokens, order));
+        if (existing != null && Arrays.equals(existing.tokens, tokens)) return;
+
+        if (existing != null) unindex(uid, existing.tokens);
+        for (String token : tokens) {
+            for (String key : keysOf(token)) {
+                Set<String> uids = postings.get(key);
+                if (uids == null) {
+                    uids = new HashSet<>();
+                    postings.put(key, uids);
+                }
+                uids.add(uid);
+            }
+        }
+    }
+
+    public void remove(String uid) {
+        Entry existing = entries.remove(uid);
+        if (existing != null) unindex(uid, existing.tokens);
+    }
+
+    public void clear() {
+        entries.clear();
+        postings.clear();
+        nextOrder = 0;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return All indexed employees, in insertion order.
+     */
+    public List<User> all() {
+        List<User> users = new ArrayList<>(entries.size());
+        for (Entry entry : entries.values()) users.add(entry.user);
+        return users;
+    }
+
+    /**
+     * @return Employees matching every whitespace-separated term of the query. Employees with a
+     *         token starting with the terms rank first; the rest keep insertion order.
+     */
+    public List<User> search(String query) {
+        String[] terms = normalize(query).split("\\s+");
+        List<String> usable = new ArrayList<>();
+        for (String term : terms) {
+            if (!term.isEmpty()) usable.add(term);
+        }
+        if (usable.isEmpty()) return all();
+
+        // Candidates: the smallest posting list over all terms; every other term is checked
+        // during verification, which is cheaper than intersecting large sets
+        Set<String> candidates = null;
+        for (String term : usable) {
+            Set<String> termCandidates = candidatesFor(term);
+            if (termCandidates.isEmpty()) return Collections.emptyList();
+            if (candidates == null || termCandidates.size() < candidates.size()) {
+                candidates = termCandidates;
+            }
+        }
+
+        // Trigram hits can be false positives ("abd" + "bde" in different tokens); verify each
+        List<Entry> prefixMatches = new ArrayList<>();
+        List<Entry> otherMatches = new ArrayList<>();
+        for (String uid : candidates) {
+            Entry entry = entries.get(uid);
+            if (entry == null) continue;
+            boolean allMatch = true;
+            boolean allPrefix = true;
+            for (String term : usable) {
+                int match = matchOf(entry.tokens, term);
+                if (match == 0) {
+                    allMatch = false;
+                    break;
+                }
+                if (match == 1) allPrefix = false;
+            }
+            if (!allMatch) continue;
+            (allPrefix ? prefixMatches : otherMatches).add(entry);
+        }
+        Collections.sort(prefixMatches, (a, b) -> Long.compare(a.order, b.order));
+        Collections.sort(otherMatches, (a, b) -> Long.compare(a.order, b.order));
+
+        List<User> results = new ArrayList<>(prefixMatches.size() + otherMatches.size());
+        for (Entry entry : prefixMatches) results.add(entry.user);
+        for (Entry entry : otherMatches) results.add(entry.user);
+        return results;
+    }
+
+    /**
+     * @return A superset of the employees matching the term: the prefix postings for short
+     *         terms, otherwise the smallest posting list among the term's trigrams.
+     */
+    private Set<String> candidatesFor(String term) {
+        if (term.length() < GRAM) {
+            Set<String> uids = postings.get(term);
+            return uids != null ? uids : Collections.<String>emptySet();
+        }
+        Set<String> smallest = null;
+        for (int i = 0; i + GRAM <= term.length(); i++) {
+            Set<String> uids = postings.get(term.substring(i, i + GRAM));
+            if (uids == null) return Collections.emptySet();
+            if (smallest == null || uids.size() < smallest.size()) smallest = uids;
+        }
+        return smallest;
+    }
+
+    /**
+     * @return 2 if some token starts with the term, 1 if some token contains it, 0 otherwise.
+     */
+    private static int matchOf(String[] tokens, String term) {
+        int best = 0;
+        for (String token : tokens) {
+            if (token.startsWith(term)) return 2;
+            if (best == 0 && token.contains(term)) best = 1;
+        }
+        return best;
+    }
+
+    private void unindex(String uid, String[] tokens) {
+        for (String token : tokens) {
+            for (String key : keysOf(token)) {
+                Set<String> uids = postings.get(key);
+                if (uids == null) continue;
+                uids.remove(uid);
+                if (uids.isEmpty()) postings.remove(key);
+            }
+        }
+    }
+
+    private static Set<String> keysOf(String token) {
+        Set<String> keys = new HashSet<>();
+        for (int len = 1; len < GRAM && len <= token.length(); len++) {
+            keys.add(token.substring(0, len));
+        }
+        for (int i = 0; i + GRAM <= token.length(); i++) {
+            keys.add(token.substring(i, i + GRAM));
+        }
+        return keys;
+    }
+
+    /**
+     * Searchable tokens: name words, the full employee ID, the email and its local part,
+     * and the phone number as digits only (spaces and dashes in stored numbers don't matter).
+     */
+    private static String[] tokenize(User user) {
+        Set<String> tokens = new HashSet<>();
+        if (user.getName() != null) {
+            for (String word : normalize(user.getName()).split("\\s+")) {
+                if (!word.isEmpty()) tokens.add(word);
+            }
+        }
+        if (user.getEmployeeId() != null && !user.getEmployeeId().isEmpty()) {
+            tokens.add(normalize(user.getEmployeeId()));
+        }
+        if (user.getEmail() != null && !user.getEmail().isEmpty()) {
+            String email = normalize(user.getEmail());
+            tokens.add(email);
+            int at = email.indexOf('@');
+            if (at > 0) tokens.add(email.substring(0, at));
+        }
+        if (user.getPhone() != null) {
+            String digits = user.getPhone().replaceAll("[^0-9]", "");
+            if (!digits.isEmpty()) tokens.add(digits);
+        }
+        String[] sorted = tokens.toArray(new String[0]);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * Lower-case and strip accents, so "José" matches "jose".
+     */
+    private static String normalize(String s) {
+        String decomposed = Normalizer.normalize(s.trim(), Normalizer.Form.NFD);
+        return decomposed.replaceAll("\\p{M}", "").toLowerCase(Locale.ROOT);
+    }
+}
@@ -14,14 +14,20 @@ import org.json.JSONObject;
 import java.nio.charset.StandardCharsets;
 import java.security.GeneralSecurityException;
 import java.security.MessageDigest;
+import java.security.SecureRandom;
 
 import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 
 /**
  * Handles security operations:
  * 1. Secure local storage of Firebase Config and User Roles.
  * 2. AES Encryption/Decryption for QR Code payloads.
+ * UPDATED: QR payloads use authenticated AES-GCM with a versioned header; the key is
+ * derived once and Cipher instances are reused per thread.
+ * UPDATED: Stored values are decrypted once into an immutable in-memory snapshot that
+ * every getter serves from; writes update prefs and swap in a new snapshot.
  */
 public class EncryptionHelper {
 
@@ -37,7 +43,11 @@ public class EncryptionHelper {
 
     // Hardcoded Key for QR Code Encryption (Shared between Admin & Employee logic)
     private static final String QR_ENCRYPTION_KEY = "InOutAppSuperSecretKey2026";
-    private static final String AES_ALGORITHM = "AES";
+    private static final String AES_ALGORITHM = "AES"; // Legacy (pre-GCM) QR codes only
+    private static final String AES_GCM_TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final byte QR_FORMAT_GCM_V2 = 0x02;
+    private static final int GCM_IV_LENGTH = 12;
+    private static final int GCM_TAG_BITS = 128;
 
     private final SharedPreferences sharedPreferences;
     private static EncryptionHelper instance;
@@ -64,79 +74,236 @@ public class EncryptionHelper {
         return instance;
     }
 
-    public void saveUserRole(String role) {
+    /**
+     * NEW: Builds the helper and its config snapshot, so the first screen that needs them
+     * does not pay for EncryptedSharedPreferences decryption.
+     * Blocking; runs as the "config" startup stage on a background thread.
+     */
+    public static void preload(Context context) {
+        getInstance(context).snapshot();
+    }
+
+    /**
+     * Immutable, decrypted copy of everything stored in secure prefs.
+     * Replaced as a whole on every write, so readers never see a half-updated config.
+     */
+    private static final class ConfigSnapshot {
+        final String userRole;
+        final String firebaseConfig;
+        final String companyName;
+        final String projectId;
+        final boolean setupDone;
+        final String webClientId;
+
+        ConfigSnapshot(String userRole, String firebaseConfig, String companyName, String projectId, boolean setupDone) {
+            this.userRole = userRole;
+            this.firebaseConfig = firebaseConfig;
+            this.companyName = companyName;
+            this.projectId = projectId;
+            this.setupDone = setupDone;
+            this.webClientId = parseWebClientId(firebaseConfig);
+        }
+
+        ConfigSnapshot withUserRole(String role) {
+            return new ConfigSnapshot(role, firebaseConfig, companyName, projectId, setupDone);
+        }
+    }
+
+    private volatile ConfigSnapshot snapshot;
+
+    private ConfigSnapshot snapshot() {
+        ConfigSnapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    current = new ConfigSnapshot(
+                            sharedPreferences.getString(KEY_USER_ROLE, null),
+                            sharedPreferences.getString(KEY_FIREBASE_CONFIG, null),
+                            sharedPreferences.getString(KEY_COMPANY_NAME, null),
+                            sharedPreferences.getString(KEY_PROJECT_ID, null),
+                            sharedPreferences.getBoolean(KEY_IS_SETUP_DONE, false));
+                    snapshot = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    public synchronized void saveUserRole(String role) {
         sharedPreferences.edit().putString(KEY_USER_ROLE, role).apply();
+        snapshot = snapshot().withUserRole(role);
     }
 
     public String getUserRole() {
-        return sharedPreferences.getString(KEY_USER_ROLE, null);
+        return snapshot().userRole;
     }
 
     /**
      * NEW: Clears only the User Role.
      * Used during Logout to force the user back to the "Select Role" screen.
      */
-    public void clearUserRole() {
+    public synchronized void clearUserRole() {
         sharedPreferences.edit().remove(KEY_USER_ROLE).apply();
+        snapshot = snapshot().withUserRole(null);
     }
 
-    public void saveFirebaseConfig(String jsonConfig, String companyName, String projectId) {
+    public synchronized void saveFirebaseConfig(String jsonConfig, String companyName, String projectId) {
         sharedPreferences.edit()
                 .putString(KEY_FIREBASE_CONFIG, jsonConfig)
                 .putString(KEY_COMPANY_NAME, companyName)
                 .putString(KEY_PROJECT_ID, projectId)
                 .putBoolean(KEY_IS_SETUP_DONE, true)
                 .apply();
+        snapshot = new ConfigSnapshot(snapshot().userRole, jsonConfig, companyName, projectId, true);
     }
 
     public String getFirebaseConfig() {
-        return sharedPreferences.getString(KEY_FIREBASE_CONFIG, null);
+        return snapshot().firebaseConfig;
     }
 
     public String getCompanyName() {
-        return sharedPreferences.getString(KEY_COMPANY_NAME, "Unknown Company");
+        String companyName = snapshot().companyName;
+        return companyName != null ? companyName : "Unknown Company";
     }
     
     public String getProjectId() {
-        return sharedPreferences.getString(KEY_PROJECT_ID, null);
+        return snapshot().projectId;
     }
 
     public boolean isSetupDone() {
-        return sharedPreferences.getBoolean(KEY_IS_SETUP_DONE, false);
+        return snapshot().setupDone;
     }
     
-    public void clearAllData() {
+    public synchronized void clearAllData() {
         sharedPreferences.edit().clear().apply();
+        snapshot = new ConfigSnapshot(null, null, null, null, false);
     }
 
-    private SecretKeySpec generateKey() throws Exception {
-        final MessageDigest digest = MessageDigest.getInstance("SHA-256");
-        byte[] bytes = QR_ENCRYPTION_KEY.getBytes(StandardCharsets.UTF_8);
-        digest.update(bytes, 0, bytes.length);
-        byte[] key = digest.digest();
-        return new SecretKeySpec(key, AES_ALGORITHM);
+    /**
+     * The QR key is a constant, so it is derived once per process.
+     */
+    private static final class KeyHolder {
+        static final SecretKeySpec KEY = deriveKey();
+
+        private static SecretKeySpec deriveKey() {
+            try {
+                final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                byte[] bytes = QR_ENCRYPTION_KEY.getBytes(StandardCharsets.UTF_8);
+                digest.update(bytes, 0, bytes.length);
+                return new SecretKeySpec(digest.digest(), AES_ALGORITHM);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("SHA-256 unavailable", e);
+            }
+        }
     }
 
+    // Cipher instances are not thread-safe; keep one per thread (UI, camera analyzer, ...)
+    private static final ThreadLocal<Cipher> GCM_CIPHER = new ThreadLocal<Cipher>() {
+        @Override
+        protected Cipher initialValue() {
+            try {
+                return Cipher.getInstance(AES_GCM_TRANSFORMATION);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("AES/GCM unavailable", e);
+            }
+        }
+    };
+
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
+    // Last {input, output} pair, so a QR held in front of the camera is only decrypted once
+    private volatile String[] lastDecryption;
+
+    /**
+     * Encrypts a QR payload with AES-GCM.
+     * Output is Base64 of: [version byte][12-byte IV][ciphertext + 16-byte tag].
+     * The version byte is authenticated as associated data.
+     */
     public String encryptQrPayload(String plainText) {
+        byte[] sealed = encryptQrBytes(plainText.getBytes(StandardCharsets.UTF_8));
+        return sealed != null ? Base64.encodeToString(sealed, Base64.NO_WRAP) : null;
+    }
+
+    /**
+     * NEW: Binary variant of encryptQrPayload, used by the compact enrollment QR
+     * (the caller picks the text encoding).
+     * @return [version byte][12-byte IV][ciphertext + 16-byte tag], or null on failure.
+     */
+    public byte[] encryptQrBytes(byte[] plain) {
         try {
-            SecretKeySpec key = generateKey();
-            Cipher cipher = Cipher.getInstance(AES_ALGORITHM);
-            cipher.init(Cipher.ENCRYPT_MODE, key);
-            byte[] encVal = cipher.doFinal(plainText.getBytes(StandardCharsets.UTF_8));
-            return Base64.encodeToString(encVal, Base64.NO_WRAP);
+            byte[] iv = new byte[GCM_IV_LENGTH];
+            SECURE_RANDOM.nextBytes(iv);
+
+            Cipher cipher = GCM_CIPHER.get();
+            cipher.init(Cipher.ENCRYPT_MODE, KeyHolder.KEY, new GCMParameterSpec(GCM_TAG_BITS, iv));
+            cipher.updateAAD(new byte[]{QR_FORMAT_GCM_V2});
+            byte[] encVal = cipher.doFinal(plain);
+
+            byte[] out = new byte[1 + GCM_IV_LENGTH + encVal.length];
+            out[0] = QR_FORMAT_GCM_V2;
+            System.arraycopy(iv, 0, out, 1, GCM_IV_LENGTH);
+            System.arraycopy(encVal, 0, out, 1 + GCM_IV_LENGTH, encVal.length);
+            return out;
         } catch (Exception e) {
             Log.e(TAG, "QR Encryption failed", e);
             return null;
         }
     }
 
+    /**
+     * NEW: Reverses encryptQrBytes.
+     * @return The plain bytes, or null if the data is not a valid GCM payload.
+     */
+    public byte[] decryptQrBytes(byte[] sealed) {
+        if (sealed == null || sealed.length <= 1 + GCM_IV_LENGTH || sealed[0] != QR_FORMAT_GCM_V2) {
+            return null;
+        }
+        try {
+            Cipher cipher = GCM_CIPHER.get();
+            cipher.init(Cipher.DECRYPT_MODE, KeyHolder.KEY, new GCMParameterSpec(GCM_TAG_BITS, sealed, 1, GCM_IV_LENGTH));
+            cipher.updateAAD(sealed, 0, 1);
+            return cipher.doFinal(sealed, 1 + GCM_IV_LENGTH, sealed.length - 1 - GCM_IV_LENGTH);
+        } catch (Exception e) {
+            // Wrong key, tampered data, or a legacy payload whose first byte happens to match the version
+            return null;
+        }
+    }
+
+    /**
+     * Decrypts a QR payload. Accepts the current GCM format and, for codes that
+     * were printed before it existed, the legacy unversioned AES format.
+     */
     public String decryptQrPayload(String encryptedText) {
+        if (encryptedText == null) return null;
+        String[] cached = lastDecryption;
+        if (cached != null && encryptedText.equals(cached[0])) {
+            return cached[1];
+        }
+
+        String result = null;
         try {
-            SecretKeySpec key = generateKey();
-            Cipher cipher = Cipher.getInstance(AES_ALGORITHM);
-            cipher.init(Cipher.DECRYPT_MODE, key);
             byte[] decodedValue = Base64.decode(encryptedText, Base64.NO_WRAP);
-            byte[] decValue = cipher.doFinal(decodedValue);
+            if (decodedValue.length > 1 + GCM_IV_LENGTH && decodedValue[0] == QR_FORMAT_GCM_V2) {
+                byte[] decValue = decryptQrBytes(decodedValue);
+                if (decValue != null) result = new String(decValue, StandardCharsets.UTF_8);
+            }
+            if (result == null) {
+                result = decryptLegacy(decodedValue);
+            }
+        } catch (IllegalArgumentException e) {
+            Log.e(TAG, "QR Decryption failed: not Base64", e);
+        }
+
+        lastDecryption = new String[]{encryptedText, result};
+        return result;
+    }
+
+    private String decryptLegacy(byte[] data) {
+        try {
+            Cipher cipher = Cipher.getInstance(AES_ALGORITHM);
+            cipher.init(Cipher.DECRYPT_MODE, KeyHolder.KEY);
+            byte[] decValue = cipher.doFinal(data);
             return new String(decValue, StandardCharsets.UTF_8);
         } catch (Exception e) {
             Log.e(TAG, "QR Decryption failed", e);
@@ -147,9 +314,13 @@ public class EncryptionHelper {
     /**
      * Extracts the Web Client ID (Type 3) from the saved Firebase JSON.
      * This is required for Google Sign-In to work dynamically.
+     * UPDATED: Parsed once per config snapshot instead of on every call.
      */
     public String getWebClientId() {
-        String jsonConfig = getFirebaseConfig();
+        return snapshot().webClientId;
+    }
+
+    private static String parseWebClientId(String jsonConfig) {
         if (jsonConfig == null) return null;
 
         try {
@@ -173,4 +344,4 @@ public class EncryptionHelper {
         }
         return null; // Return null if not found
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,212 @@
+package com.inout.app.utils;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compact company enrollment data carried by the Admin QR code.
+ * Instead of embedding the whole google-services.json, only the fields that
+ * FirebaseManager.buildOptionsFromJson and EncryptionHelper.getWebClientId read
+ * are kept, written as length-prefixed UTF-8 strings and raw-deflated.
+ *
+ * Layout: [FORMAT_VERSION][deflate(fields...)]
+ * In the QR the encrypted bytes are Base45 text behind QR_PREFIX, which legacy
+ * Base64 payloads can never start with (':' is not a Base64 character).
+ */
+public final class EnrollmentPayload {
+
+    public static final byte FORMAT_VERSION = 1;
+    public static final String QR_PREFIX = "IO1:";
+
+    private final String companyName;
+    private final String projectId;
+    private final String storageBucket;
+    private final String applicationId;
+    private final String apiKey;
+    private final String webClientId;
+
+    public EnrollmentPayload(String companyName, String projectId, String storageBucket,
+                             String applicationId, String apiKey, String webClientId) {
+        this.companyName = companyName;
+        this.projectId = projectId;
+        this.storageBucket = storageBucket;
+        this.applicationId = applicationId;
+        this.apiKey = apiKey;
+        this.webClientId = webClientId;
+    }
+
+    /**
+     * Extracts the required fields from a full google-services.json string.
+     */
+    public static EnrollmentPayload fromFirebaseJson(String jsonConfig, String companyName) throws Exception {
+        JSONObject root = new JSONObject(jsonConfig);
+        JSONObject projectInfo = root.getJSONObject("project_info");
+        JSONObject client = root.getJSONArray("client").getJSONObject(0);
+
+        String webClientId = null;
+        JSONArray oauthClients = client.optJSONArray("oauth_client");
+        if (oauthClients != null) {
+            for (int i = 0; i < oauthClients.length(); i++) {
+                JSONObject oauthClient = oauthClients.getJSONObject(i);
+                // Type 3 is the Web Client ID required for requestIdToken
+                if (oauthClient.optInt("client_type") == 3) {
+                    webClientId = oauthClient.getString("client_id");
+                    break;
+                }
+            }
+        }
+
+        return new EnrollmentPayload(
+                companyName,
+                projectInfo.getString("project_id"),
+                projectInfo.getString("storage_bucket"),
+                client.getJSONObject("client_info").getString("mobilesdk_app_id"),
+                client.getJSONArray("api_key").getJSONObject(0).getString("current_key"),
+                webClientId);
+    }
+
+    /**
+     * Rebuilds a minimal google-services.json with the same structure the
+     * existing parsers expect, so it can be stored via FirebaseManager.setConfiguration.
+     */
+    public String toFirebaseJson() throws Exception {
+        JSONObject projectInfo = new JSONObject();
+        projectInfo.put("project_id", projectId);
+        projectInfo.put("storage_bucket", storageBucket);
+
+        JSONObject clientInfo = new JSONObject();
+        clientInfo.put("mobilesdk_app_id", applicationId);
+
+        JSONObject key = new JSONObject();
+        key.put("current_key", apiKey);
+
+        JSONArray oauthClients = new JSONArray();
+        if (webClientId != null) {
+            JSONObject oauthClient = new JSONObject();
+            oauthClient.put("client_id", webClientId);
+            oauthClient.put("client_type", 3);
+            oauthClients.put(oauthClient);
+        }
+
+        JSONObject client = new JSONObject();
+        client.put("client_info", clientInfo);
+        client.put("api_key", new JSONArray().put(key));
+        client.put("oauth_client", oauthClients);
+
+        JSONObject root = new JSONObject();
+        root.put("project_info", projectInfo);
+        root.put("client", new JSONArray().put(client));
+        return root.toString();
+    }
+
+    public byte[] encode() {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+        writeString(body, companyName);
+        writeString(body, projectId);
+        writeString(body, storageBucket);
+        writeString(body, applicationId);
+        writeString(body, apiKey);
+        writeString(body, webClientId);
+
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            deflater.setInput(body.toByteArray());
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+            out.write(FORMAT_VERSION);
+            byte[] buffer = new byte[256];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the version is unknown or the data is corrupt.
+     */
+    public static EnrollmentPayload decode(byte[] data) {
+        if (data == null || data.length < 2 || data[0] != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported enrollment payload version");
+        }
+
+        Inflater inflater = new Inflater(true);
+        byte[] body;
+        try {
+            inflater.setInput(data, 1, data.length - 1);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(512);
+            byte[] buffer = new byte[512];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                out.write(buffer, 0, n);
+            }
+            body = out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupt enrollment payload", e);
+        } finally {
+            inflater.end();
+        }
+
+        int[] pos = {0};
+        return new EnrollmentPayload(
+                readString(body, pos),
+                readString(body, pos),
+                readString(body, pos),
+                readString(body, pos),
+                readString(body, pos),
+                readString(body, pos));
+    }
+
+    public String getCompanyName() {
+        return companyName;
+    }
+
+    public String getProjectId() {
+        return projectId;
+    }
+
+    // Strings are written as varint(length + 1) + UTF-8 bytes; 0 encodes null.
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        if (value == null) {
+            out.write(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int n = bytes.length + 1;
+        while (n >= 0x80) {
+            out.write((n & 0x7f) | 0x80);
+            n >>>= 7;
+        }
+        out.write(n);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static String readString(byte[] data, int[] pos) {
+        int n = 0;
+        int shift = 0;
+        int b;
+        do {
+            if (pos[0] >= data.length || shift > 28) throw new IllegalArgumentException("Truncated enrollment payload");
+            b = data[pos[0]++] & 0xff;
+            n |= (b & 0x7f) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+
+        if (n == 0) return null;
+        int length = n - 1;
+        if (pos[0] + length > data.length) throw new IllegalArgumentException("Truncated enrollment payload");
+        String value = new String(data, pos[0], length, StandardCharsets.UTF_8);
+        pos[0] += length;
+        return value;
+    }
+}
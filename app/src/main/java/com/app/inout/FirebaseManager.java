@@ -22,9 +22,10 @@ public class FirebaseManager {
 
     /**
      * Initializes Firebase using the configuration stored in EncryptionHelper.
-     * This is called automatically by InOutApplication.
+     * This is called automatically by InOutApplication (on a startup thread).
+     * Synchronized, since setup screens may call it while startup is still running.
      */
-    public static void initialize(Context context) {
+    public static synchronized void initialize(Context context) {
         String jsonConfig = EncryptionHelper.getInstance(context).getFirebaseConfig();
 
         if (jsonConfig != null && !jsonConfig.isEmpty()) {
@@ -0,0 +1,287 @@
+package com.inout.app.utils;
+
+import android.content.Context;
+import android.location.Address;
+import android.location.Geocoder;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Asynchronous wrapper around the platform Geocoder.
+ * - Lookups run on a background executor; callbacks are delivered on the main thread.
+ * - Each request has a timeout after which the callback receives null.
+ * - Concurrent requests for the same key share a single Geocoder call.
+ * - Results are kept in an LRU cache (persisted to disk) keyed by coordinates
+ *   rounded to 4 decimals (~11m) or by the normalized search query.
+ */
+public class GeocodingService {
+
+    private static final String TAG = "GeocodingService";
+    private static final String CACHE_FILENAME = "geocode_cache.json";
+    private static final int MAX_CACHE_ENTRIES = 256;
+    public static final long DEFAULT_TIMEOUT_MS = 5000;
+
+    public interface GeocodeCallback {
+        /**
+         * @param place The resolved place, or null if not found, failed or timed out.
+         */
+        void onResult(Place place);
+    }
+
+    /**
+     * Cacheable subset of android.location.Address used by the app.
+     */
+    public static class Place {
+        private final double latitude;
+        private final double longitude;
+        private final String featureName;
+        private final String thoroughfare;
+        private final String subLocality;
+        private final String locality;
+        private final String postalCode;
+        private final String addressLine;
+
+        Place(double latitude, double longitude, String featureName, String thoroughfare,
+              String subLocality, String locality, String postalCode, String addressLine) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.featureName = featureName;
+            this.thoroughfare = thoroughfare;
+            this.subLocality = subLocality;
+            this.locality = locality;
+            this.postalCode = postalCode;
+            this.addressLine = addressLine;
+        }
+
+        static Place fromAddress(Address addr) {
+            return new Place(addr.getLatitude(), addr.getLongitude(), addr.getFeatureName(),
+                    addr.getThoroughfare(), addr.getSubLocality(), addr.getLocality(),
+                    addr.getPostalCode(), addr.getMaxAddressLineIndex() >= 0 ? addr.getAddressLine(0) : null);
+        }
+
+        JSONObject toJson() throws Exception {
+            JSONObject o = new JSONObject();
+            o.put("lat", latitude);
+            o.put("lng", longitude);
+            o.putOpt("feature", featureName);
+            o.putOpt("street", thoroughfare);
+            o.putOpt("subLocality", subLocality);
+            o.putOpt("locality", locality);
+            o.putOpt("postal", postalCode);
+            o.putOpt("line", addressLine);
+            return o;
+        }
+
+        static Place fromJson(JSONObject o) {
+            return new Place(o.optDouble("lat"), o.optDouble("lng"),
+                    optString(o, "feature"), optString(o, "street"), optString(o, "subLocality"),
+                    optString(o, "locality"), optString(o, "postal"), optString(o, "line"));
+        }
+
+        private static String optString(JSONObject o, String key) {
+            return o.has(key) ? o.optString(key) : null;
+        }
+
+        public double getLatitude() { return latitude; }
+        public double getLongitude() { return longitude; }
+        public String getFeatureName() { return featureName; }
+        public String getThoroughfare() { return thoroughfare; }
+        public String getSubLocality() { return subLocality; }
+        public String getLocality() { return locality; }
+        public String getPostalCode() { return postalCode; }
+        public String getAddressLine() { return addressLine; }
+    }
+
+    private static GeocodingService instance;
+
+    private final Context context;
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final LinkedHashMap<String, Place> cache;
+    private final Map<String, List<GeocodeCallback>> inFlight = new HashMap<>();
+    private volatile boolean cacheLoaded;
+
+    private GeocodingService(Context context) {
+        this.context = context;
+        this.cache = new LinkedHashMap<String, Place>(MAX_CACHE_ENTRIES, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Place> eldest) {
+                return size() > MAX_CACHE_ENTRIES;
+            }
+        };
+        executor.execute(this::loadCache);
+    }
+
+    public static synchronized GeocodingService getInstance(Context context) {
+        if (instance == null) {
+            instance = new GeocodingService(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * @return Cached reverse-geocode result for these coordinates, or null. Never blocks.
+     */
+    public Place peekReverse(double lat, double lng) {
+        return peek(reverseKey(lat, lng));
+    }
+
+    public void reverse(double lat, double lng, GeocodeCallback callback) {
+        final String key = reverseKey(lat, lng);
+        lookup(key, DEFAULT_TIMEOUT_MS, callback, () -> {
+            List<Address> results = new Geocoder(context, Locale.getDefault()).getFromLocation(lat, lng, 1);
+            return results != null && !results.isEmpty() ? Place.fromAddress(results.get(0)) : null;
+        });
+    }
+
+    public void search(String query, GeocodeCallback callback) {
+        final String key = searchKey(query);
+        lookup(key, DEFAULT_TIMEOUT_MS, callback, () -> {
+            List<Address> results = new Geocoder(context, Locale.getDefault()).getFromLocationName(query, 1);
+            return results != null && !results.isEmpty() ? Place.fromAddress(results.get(0)) : null;
+        });
+    }
+
+    private interface GeocoderCall {
+        Place run() throws IOException;
+    }
+
+    private void lookup(String key, long timeoutMs, GeocodeCallback callback, GeocoderCall call) {
+        Place cached = peek(key);
+        if (cached != null) {
+            callback.onResult(cached);
+            return;
+        }
+
+        final List<GeocodeCallback> waiting;
+        synchronized (inFlight) {
+            List<GeocodeCallback> existing = inFlight.get(key);
+            if (existing != null) {
+                existing.add(callback);
+                return;
+            }
+            waiting = new ArrayList<>();
+            waiting.add(callback);
+            inFlight.put(key, waiting);
+        }
+
+        mainHandler.postDelayed(() -> complete(key, waiting, null), timeoutMs);
+
+        executor.execute(() -> {
+            if (!cacheLoaded) loadCache();
+            Place place = peek(key);
+            if (place == null && Geocoder.isPresent()) {
+                try {
+                    place = call.run();
+                } catch (IOException | IllegalArgumentException e) {
+                    Log.e(TAG, "Geocoder failed for " + key, e);
+                }
+                if (place != null) {
+                    synchronized (cache) {
+                        cache.put(key, place);
+                    }
+                    saveCache();
+                }
+            }
+            final Place result = place;
+            mainHandler.post(() -> complete(key, waiting, result));
+        });
+    }
+
+    /**
+     * Delivers the result to everyone waiting on this key. Whichever of the
+     * geocoder result and the timeout arrives first wins; the other is a no-op.
+     */
+    private void complete(String key, List<GeocodeCallback> waiting, Place place) {
+        synchronized (inFlight) {
+            // The list doubles as the request token, so a stale timeout cannot complete a newer request
+            if (inFlight.get(key) != waiting) return;
+            inFlight.remove(key);
+        }
+        for (GeocodeCallback cb : waiting) {
+            cb.onResult(place);
+        }
+    }
+
+    private Place peek(String key) {
+        synchronized (cache) {
+            return cache.get(key);
+        }
+    }
+
+    private static String reverseKey(double lat, double lng) {
+        return String.format(Locale.US, "r:%.4f,%.4f", lat, lng);
+    }
+
+    private static String searchKey(String query) {
+        return "q:" + query.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+    }
+
+    private synchronized void loadCache() {
+        if (cacheLoaded) return;
+        File file = new File(context.getFilesDir(), CACHE_FILENAME);
+        if (file.exists()) {
+            try (FileInputStream in = new FileInputStream(file)) {
+                byte[] bytes = new byte[(int) file.length()];
+                int read = 0;
+                while (read < bytes.length) {
+                    int n = in.read(bytes, read, bytes.length - read);
+                    if (n < 0) break;
+                    read += n;
+                }
+                JSONArray entries = new JSONArray(new String(bytes, 0, read, StandardCharsets.UTF_8));
+                synchronized (cache) {
+                    // Stored eldest first, so replaying keeps the LRU order
+                    for (int i = 0; i < entries.length(); i++) {
+                        JSONObject entry = entries.getJSONObject(i);
+                        String key = entry.getString("key");
+                        if (!cache.containsKey(key)) {
+                            cache.put(key, Place.fromJson(entry.getJSONObject("place")));
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to load geocode cache", e);
+            }
+        }
+        cacheLoaded = true;
+    }
+
+    private synchronized void saveCache() {
+        try {
+            JSONArray entries = new JSONArray();
+            synchronized (cache) {
+                for (Map.Entry<String, Place> e : cache.entrySet()) {
+                    JSONObject entry = new JSONObject();
+                    entry.put("key", e.getKey());
+                    entry.put("place", e.getValue().toJson());
+                    entries.put(entry);
+                }
+            }
+            File file = new File(context.getFilesDir(), CACHE_FILENAME);
+            try (FileOutputStream out = new FileOutputStream(file)) {
+                out.write(entries.toString().getBytes(StandardCharsets.UTF_8));
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to save geocode cache", e);
+        }
+    }
+}
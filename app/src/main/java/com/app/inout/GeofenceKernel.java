@@ -0,0 +1,158 @@
+package com.inout.app.utils;
+
+import java.util.Arrays;
+
+/**
+ * Allocation-free geofence evaluator for a fixed set of sites.
+ * Site coordinates are kept in primitive arrays (radians) with the cosine of each
+ * latitude precomputed, so evaluating one GPS fix is a single tight loop.
+ *
+ * Each site is first tested with a cheap equirectangular approximation. Only fixes
+ * that land inside the uncertainty band around a radius fall through to the exact
+ * haversine formula.
+ *
+ * NOTE: This class deliberately has no Android dependencies; GeofenceKernelTest
+ * checks it against an exact haversine scan on a plain JVM.
+ */
+public final class GeofenceKernel {
+
+    /** Mean Earth radius (IUGG) in meters. */
+    public static final double EARTH_RADIUS_METERS = 6371008.8;
+
+    // Relative width of the band around a radius where the approximation is not trusted.
+    private static final double BOUNDARY_BAND = 0.02;
+    // Absolute floor of that band, covers very small radii.
+    private static final double BOUNDARY_BAND_MIN_METERS = 2.0;
+    // Beyond this radius the equirectangular error grows too much; always use haversine.
+    private static final double APPROX_MAX_RADIUS_METERS = 20000.0;
+
+    private double[] latRad;
+    private double[] lngRad;
+    private double[] cosLat;
+    private float[] radius;
+    private int size;
+
+    public GeofenceKernel(int initialCapacity) {
+        int capacity = Math.max(1, initialCapacity);
+        latRad = new double[capacity];
+        lngRad = new double[capacity];
+        cosLat = new double[capacity];
+        radius = new float[capacity];
+    }
+
+    /**
+     * Registers a site.
+     * @return The index of the site, used by the lookup methods.
+     */
+    public int addSite(double latitude, double longitude, float radiusMeters) {
+        if (size == latRad.length) {
+            grow(size * 2);
+        }
+        double lat = Math.toRadians(latitude);
+        latRad[size] = lat;
+        lngRad[size] = Math.toRadians(longitude);
+        cosLat[size] = Math.cos(lat);
+        radius[size] = radiusMeters;
+        return size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public float getRadius(int index) {
+        return radius[index];
+    }
+
+    /**
+     * Evaluates one fix against every site.
+     * @param distanceOut Optional (may be null) buffer; index 0 receives the exact
+     *                    distance in meters to the returned site.
+     * @return Index of the nearest site whose radius contains the fix, or -1.
+     */
+    public int findContainingSite(double latitude, double longitude, float[] distanceOut) {
+        final double lat = Math.toRadians(latitude);
+        final double lng = Math.toRadians(longitude);
+        final double cosFix = Math.cos(lat);
+
+        int best = -1;
+        double bestDistance = Double.MAX_VALUE;
+        boolean bestExact = false;
+
+        for (int i = 0; i < size; i++) {
+            final double r = radius[i];
+            double d;
+            boolean exact;
+
+            if (r > APPROX_MAX_RADIUS_METERS) {
+                d = haversine(latRad[i], lngRad[i], cosLat[i], lat, lng, cosFix);
+                exact = true;
+            } else {
+                d = equirectangular(latRad[i], lngRad[i], cosLat[i], lat, lng);
+                double band = Math.max(r * BOUNDARY_BAND, BOUNDARY_BAND_MIN_METERS);
+                if (d > r + band) {
+                    continue; // Clearly outside
+                }
+                exact = d >= r - band;
+                if (exact) {
+                    d = haversine(latRad[i], lngRad[i], cosLat[i], lat, lng, cosFix);
+                }
+            }
+
+            if (d <= r && d < bestDistance) {
+                best = i;
+                bestDistance = d;
+                bestExact = exact;
+            }
+        }
+
+        if (best >= 0 && distanceOut != null) {
+            if (!bestExact) {
+                bestDistance = haversine(latRad[best], lngRad[best], cosLat[best], lat, lng, cosFix);
+            }
+            distanceOut[0] = (float) bestDistance;
+        }
+        return best;
+    }
+
+    /**
+     * @return Exact great-circle distance in meters from the fix to the given site.
+     */
+    public double distanceTo(int index, double latitude, double longitude) {
+        double lat = Math.toRadians(latitude);
+        return haversine(latRad[index], lngRad[index], cosLat[index], lat, Math.toRadians(longitude), Math.cos(lat));
+    }
+
+    /**
+     * Great-circle distance in meters between two coordinates given in degrees.
+     */
+    public static double haversineMeters(double startLat, double startLng, double endLat, double endLng) {
+        double lat1 = Math.toRadians(startLat);
+        double lat2 = Math.toRadians(endLat);
+        return haversine(lat1, Math.toRadians(startLng), Math.cos(lat1), lat2, Math.toRadians(endLng), Math.cos(lat2));
+    }
+
+    private static double haversine(double lat1, double lng1, double cos1, double lat2, double lng2, double cos2) {
+        double sinDLat = Math.sin((lat2 - lat1) * 0.5);
+        double sinDLng = Math.sin((lng2 - lng1) * 0.5);
+        double h = sinDLat * sinDLat + cos1 * cos2 * sinDLng * sinDLng;
+        if (h > 1.0) h = 1.0;
+        return 2.0 * EARTH_RADIUS_METERS * Math.asin(Math.sqrt(h));
+    }
+
+    private static double equirectangular(double siteLat, double siteLng, double siteCos, double lat, double lng) {
+        double dLng = lng - siteLng;
+        if (dLng > Math.PI) dLng -= 2.0 * Math.PI;
+        else if (dLng < -Math.PI) dLng += 2.0 * Math.PI;
+        double x = dLng * siteCos;
+        double y = lat - siteLat;
+        return EARTH_RADIUS_METERS * Math.sqrt(x * x + y * y);
+    }
+
+    private void grow(int capacity) {
+        latRad = Arrays.copyOf(latRad, capacity);
+        lngRad = Arrays.copyOf(lngRad, capacity);
+        cosLat = Arrays.copyOf(cosLat, capacity);
+        radius = Arrays.copyOf(radius, capacity);
+    }
+}
@@ -0,0 +1,67 @@
+package com.inout.app.models;
+
+import com.google.firebase.firestore.IgnoreExtraProperties;
+import com.google.firebase.firestore.PropertyName;
+
+/**
+ * A company holiday, stored in Firestore under 'holidays'.
+ * Applies to every site unless locationId names a single one.
+ */
+@IgnoreExtraProperties
+public class Holiday {
+
+    private String id;
+    private String date;        // yyyy-MM-dd
+    private String name;        // e.g. "New Year's Day"
+    private String locationId;  // null = all sites
+
+    public Holiday() {
+        // Default constructor required for Firestore
+    }
+
+    public Holiday(String date, String name, String locationId) {
+        this.date = date;
+        this.name = name;
+        this.locationId = locationId;
+    }
+
+    @PropertyName("id")
+    public String getId() {
+        return id;
+    }
+
+    @PropertyName("id")
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    @PropertyName("date")
+    public String getDate() {
+        return date;
+    }
+
+    @PropertyName("date")
+    public void setDate(String date) {
+        this.date = date;
+    }
+
+    @PropertyName("name")
+    public String getName() {
+        return name;
+    }
+
+    @PropertyName("name")
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    @PropertyName("locationId")
+    public String getLocationId() {
+        return locationId;
+    }
+
+    @PropertyName("locationId")
+    public void setLocationId(String locationId) {
+        this.locationId = locationId;
+    }
+}
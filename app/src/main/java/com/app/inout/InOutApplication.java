@@ -1,35 +1,63 @@
 package com.inout.app;
 
+import android.app.Activity;
 import android.app.Application;
+import android.content.Intent;
+import android.util.Log;
 
-import com.google.android.gms.ads.MobileAds;
-import com.google.android.gms.ads.initialization.InitializationStatus;
-import com.google.android.gms.ads.initialization.OnInitializationCompleteListener;
+import com.inout.app.utils.EncryptionHelper;
 import com.inout.app.utils.FirebaseManager;
+import com.inout.app.utils.StartupOrchestrator;
 
 /**
  * The custom Application class for InOut.
  * This is the entry point of the application process.
  * Its main responsibility is to initialize components that are needed globally,
- * specifically our dynamic Firebase configuration and AdMob SDK.
+ * specifically our dynamic Firebase configuration.
+ *
+ * UPDATED: Initializers run as StartupOrchestrator stages on background threads,
+ * so onCreate returns immediately and the splash screen routes as soon as they finish.
  */
 public class InOutApplication extends Application {
 
+    private static final String TAG = "InOutApplication";
+
     @Override
     public void onCreate() {
         super.onCreate();
 
-        // Initialize our custom FirebaseManager.
-        // This manager will attempt to load a stored Firebase configuration (encrypted)
-        // if one exists, allowing dynamic project switching.
-        FirebaseManager.initialize(this);
+        StartupOrchestrator.getInstance()
+                // Decrypt the stored config once; later reads are served from memory
+                .addStage(StartupOrchestrator.STAGE_CONFIG, () -> EncryptionHelper.preload(this))
+                // Our custom FirebaseManager loads the stored (encrypted) configuration,
+                // allowing dynamic project switching. Needs the decrypted config.
+                .addStage(StartupOrchestrator.STAGE_FIREBASE, () -> FirebaseManager.initialize(this),
+                        StartupOrchestrator.STAGE_CONFIG)
+                // The Mobile Ads SDK is not a startup stage: DeferredAds initializes it the first
+                // time a screen wants a banner, after that screen has rendered
+                .start();
+    }
 
-        // NEW: Initialize Google Mobile Ads SDK for Banner Ads
-        MobileAds.initialize(this, new OnInitializationCompleteListener() {
-            @Override
-            public void onInitializationComplete(InitializationStatus initializationStatus) {
-                // SDK Initialized successfully
-            }
-        });
+    /**
+     * After process death Android may recreate a screen directly, skipping the splash screen
+     * that waits for startup. Screens that use Firebase in onCreate call this right after
+     * super.onCreate: if Firebase isn't ready yet, the task restarts at SplashActivity, which
+     * shows the splash and routes once the stage completes. Never blocks the main thread; on
+     * the normal path Firebase has long been ready and this returns false.
+     *
+     * Screens that never touch the default Firebase app before configuring it skip the gate:
+     * RoleSelectionActivity uses no Firebase at all, and AdminSetupActivity and
+     * EmployeeQrScanActivity (enrollment, or a kiosk token scan that only returns the payload)
+     * call FirebaseManager.setConfiguration and initialize themselves.
+     * @return true if the activity is finishing and onCreate should return.
+     */
+    public static boolean restartIfStarting(Activity activity) {
+        if (StartupOrchestrator.getInstance().isComplete(StartupOrchestrator.STAGE_FIREBASE)) return false;
+        Log.w(TAG, "Firebase still initializing when " + activity.getClass().getSimpleName() + " opened");
+        Intent intent = new Intent(activity, SplashActivity.class);
+        intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
+        activity.startActivity(intent);
+        activity.finish();
+        return true;
     }
-}
\ No newline at end of file
+}
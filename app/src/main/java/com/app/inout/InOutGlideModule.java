@@ -0,0 +1,45 @@
+package com.inout.app.utils;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
+import com.bumptech.glide.load.engine.cache.LruResourceCache;
+import com.bumptech.glide.load.engine.cache.MemorySizeCalculator;
+import com.bumptech.glide.load.resource.bitmap.DownsampleStrategy;
+import com.bumptech.glide.module.AppGlideModule;
+import com.bumptech.glide.request.RequestOptions;
+
+/**
+ * App-wide Glide configuration. Images in this app are small profile photos, so the
+ * memory cache holds one screen of bitmaps (Glide's default is two), the disk cache is
+ * capped, and every decode is downsampled to the target size. Photos stay ARGB_8888:
+ * circleCrop needs an alpha channel, so an RGB_565 preference would never apply.
+ */
+@GlideModule
+public final class InOutGlideModule extends AppGlideModule {
+
+    // One screen's worth of bitmaps is plenty for avatars
+    private static final float MEMORY_CACHE_SCREENS = 1f;
+    private static final long DISK_CACHE_BYTES = 30L * 1024 * 1024;
+    private static final String DISK_CACHE_DIR = "glide_photos";
+
+    @Override
+    public void applyOptions(@NonNull Context context, @NonNull GlideBuilder builder) {
+        MemorySizeCalculator calculator = new MemorySizeCalculator.Builder(context)
+                .setMemoryCacheScreens(MEMORY_CACHE_SCREENS)
+                .build();
+        builder.setMemoryCache(new LruResourceCache(calculator.getMemoryCacheSize()));
+        builder.setDiskCache(new InternalCacheDiskCacheFactory(context, DISK_CACHE_DIR, DISK_CACHE_BYTES));
+        builder.setDefaultRequestOptions(new RequestOptions()
+                .downsample(DownsampleStrategy.AT_MOST));
+    }
+
+    @Override
+    public boolean isManifestParsingEnabled() {
+        return false;
+    }
+}
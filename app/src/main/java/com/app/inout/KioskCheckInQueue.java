@@ -0,0 +1,289 @@
+package com.inout.app.utils;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Local queue of check-in/check-out punches recorded on a shared kiosk device.
+ * Punches are accepted instantly and persisted to SharedPreferences; the queue is
+ * then flushed to Firestore as WriteBatches, either when BATCH_SIZE punches are
+ * waiting or FLUSH_DELAY_MS after the first one, so the kiosk never waits on a
+ * network round trip per person. Failed flushes are retried with backoff.
+ */
+public class KioskCheckInQueue {
+
+    private static final String TAG = "KioskCheckInQueue";
+    private static final String PREFS_FILENAME = "kiosk_queue";
+    private static final String KEY_PUNCHES = "punches";
+
+    public static final String ACTION_IN = "in";
+    public static final String ACTION_OUT = "out";
+
+    private static final int BATCH_SIZE = 25;
+    private static final int MAX_BATCH_WRITES = 450; // Firestore allows 500 per batch
+    private static final long FLUSH_DELAY_MS = 5000;
+    private static final long MAX_RETRY_DELAY_MS = 120000;
+
+    public interface QueueListener {
+        /**
+         * Called on the main thread whenever the number of unsynced punches changes.
+         */
+        void onPendingCountChanged(int pending);
+    }
+
+    /**
+     * A single punch, with everything needed to write it without further lookups.
+     */
+    public static class Punch {
+        public final String action;
+        public final String recordId;
+        public final String employeeId;
+        public final String employeeName;
+        public final String date;
+        public final String time;
+        public final long timestamp;
+        public final String locationId;
+        public final String locationName;
+        public final double latitude;
+        public final double longitude;
+        public final String assignedShift;
+        // Shared-device biometric prompt passed; proves an enrolled finger on the tablet, not who it was
+        public final boolean deviceAuth;
+        // Check-out only
+        public final String totalHours;
+        public final String overtimeHours;
+
+        public Punch(String action, String employeeId, String employeeName, String date, String time,
+                     long timestamp, String locationId, String locationName, double latitude, double longitude,
+                     String assignedShift, boolean deviceAuth, String totalHours, String overtimeHours) {
+            this.action = action;
+            this.recordId = employeeId + "_" + date;
+            this.employeeId = employeeId;
+            this.employeeName = employeeName;
+            this.date = date;
+            this.time = time;
+            this.timestamp = timestamp;
+            this.locationId = locationId;
+            this.locationName = locationName;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.assignedShift = assignedShift;
+            this.deviceAuth = deviceAuth;
+            this.totalHours = totalHours;
+            this.overtimeHours = overtimeHours;
+        }
+
+        JSONObject toJson() throws Exception {
+            JSONObject o = new JSONObject();
+            o.put("action", action);
+            o.put("employeeId", employeeId);
+            o.put("employeeName", employeeName);
+            o.put("date", date);
+            o.put("time", time);
+            o.put("timestamp", timestamp);
+            o.put("locationId", locationId);
+            o.put("locationName", locationName);
+            o.put("lat", latitude);
+            o.put("lng", longitude);
+            o.putOpt("shift", assignedShift);
+            o.put("deviceAuth", deviceAuth);
+            o.putOpt("totalHours", totalHours);
+            o.putOpt("overtime", overtimeHours);
+            return o;
+        }
+
+        static Punch fromJson(JSONObject o) {
+            return new Punch(o.optString("action"), o.optString("employeeId"), o.optString("employeeName"),
+                    o.optString("date"), o.optString("time"), o.optLong("timestamp"),
+                    o.optString("locationId"), o.optString("locationName"),
+                    o.optDouble("lat"), o.optDouble("lng"), o.optString("shift", null),
+                    o.optBoolean("deviceAuth", o.optBoolean("fingerprint")), o.optString("totalHours", null), o.optString("overtime", null));
+        }
+
+        /**
+         * Fields merged into attendance/{recordId}. Matches what EmployeeCheckInFragment writes.
+         */
+        Map<String, Object> toFirestore() {
+            Map<String, Object> data = new HashMap<>();
+            if (ACTION_IN.equals(action)) {
+                data.put("recordId", recordId);
+                data.put("employeeId", employeeId);
+                data.put("employeeName", employeeName);
+                data.put("date", date);
+                data.put("timestamp", timestamp);
+                data.put("checkInTime", time);
+                data.put("checkInLat", latitude);
+                data.put("checkInLng", longitude);
+                data.put("distanceMeters", 0.0);
+                // A shared tablet can't attribute a fingerprint to the employee, so it never counts as one
+                data.put("fingerprintVerified", false);
+                data.put("kioskDeviceAuth", deviceAuth);
+                data.put("gpsVerified", true);
+                data.put("kioskVerified", true);
+                data.put("locationName", locationName);
+                data.put("lastVerifiedLocationId", locationId);
+                data.put("assignedShift", assignedShift != null ? assignedShift : "N/A");
+                data.put("movementLog", FieldValue.arrayUnion(locationName));
+            } else {
+                data.put("checkOutTime", time);
+                data.put("checkOutLat", latitude);
+                data.put("checkOutLng", longitude);
+                data.put("totalHours", totalHours);
+                data.put("overtimeHours", overtimeHours);
+            }
+            return data;
+        }
+    }
+
+    private static KioskCheckInQueue instance;
+
+    private final SharedPreferences prefs;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final List<Punch> pending = new ArrayList<>();
+    private final List<QueueListener> listeners = new ArrayList<>();
+
+    private boolean flushInFlight;
+    private boolean flushScheduled;
+    private long retryDelayMs = FLUSH_DELAY_MS;
+
+    private final Runnable flushTask = () -> {
+        flushScheduled = false;
+        flush();
+    };
+
+    private KioskCheckInQueue(Context context) {
+        this.prefs = context.getSharedPreferences(PREFS_FILENAME, Context.MODE_PRIVATE);
+        restore();
+    }
+
+    public static synchronized KioskCheckInQueue getInstance(Context context) {
+        if (instance == null) {
+            instance = new KioskCheckInQueue(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    public void addListener(QueueListener listener) {
+        listeners.add(listener);
+        listener.onPendingCountChanged(pending.size());
+    }
+
+    public void removeListener(QueueListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @return Unsynced punches, oldest first. Lets the kiosk overlay them on Firestore state.
+     */
+    public List<Punch> getPending() {
+        return new ArrayList<>(pending);
+    }
+
+    /**
+     * Records a punch. Must be called on the main thread; returns immediately.
+     */
+    public void enqueue(Punch punch) {
+        pending.add(punch);
+        persist();
+        notifyListeners();
+
+        if (pending.size() >= BATCH_SIZE) {
+            flush();
+        } else {
+            scheduleFlush(FLUSH_DELAY_MS);
+        }
+    }
+
+    /**
+     * Writes up to MAX_BATCH_WRITES queued punches in one WriteBatch.
+     */
+    public void flush() {
+        if (flushInFlight || pending.isEmpty()) return;
+        mainHandler.removeCallbacks(flushTask);
+        flushScheduled = false;
+        flushInFlight = true;
+
+        final int count = Math.min(pending.size(), MAX_BATCH_WRITES);
+        FirebaseFirestore db = FirebaseFirestore.getInstance();
+        WriteBatch batch = db.batch();
+        for (int i = 0; i < count; i++) {
+            Punch punch = pending.get(i);
+            // Merge, so a check-out never fails because its check-in is in the same batch
+            batch.set(db.collection("attendance").document(punch.recordId), punch.toFirestore(), SetOptions.merge());
+        }
+
+        batch.commit()
+                .addOnSuccessListener(aVoid -> {
+                    pending.subList(0, count).clear();
+                    persist();
+                    flushInFlight = false;
+                    retryDelayMs = FLUSH_DELAY_MS;
+                    Log.d(TAG, "Flushed " + count + " punches, " + pending.size() + " pending");
+                    notifyListeners();
+                    if (!pending.isEmpty()) flush();
+                })
+                .addOnFailureListener(e -> {
+                    flushInFlight = false;
+                    Log.e(TAG, "Kiosk batch failed; retrying in " + retryDelayMs + " ms", e);
+                    scheduleFlush(retryDelayMs);
+                    retryDelayMs = Math.min(MAX_RETRY_DELAY_MS, retryDelayMs * 2);
+                });
+    }
+
+    private void scheduleFlush(long delayMs) {
+        if (flushScheduled) return;
+        flushScheduled = true;
+        mainHandler.postDelayed(flushTask, delayMs);
+    }
+
+    private void notifyListeners() {
+        for (QueueListener listener : new ArrayList<>(listeners)) {
+            listener.onPendingCountChanged(pending.size());
+        }
+    }
+
+    private void persist() {
+        try {
+            JSONArray array = new JSONArray();
+            for (Punch punch : pending) {
+                array.put(punch.toJson());
+            }
+            prefs.edit().putString(KEY_PUNCHES, array.toString()).apply();
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to persist kiosk queue", e);
+        }
+    }
+
+    private void restore() {
+        String json = prefs.getString(KEY_PUNCHES, null);
+        if (json == null) return;
+        try {
+            JSONArray array = new JSONArray(json);
+            for (int i = 0; i < array.length(); i++) {
+                pending.add(Punch.fromJson(array.getJSONObject(i)));
+            }
+            if (!pending.isEmpty()) {
+                Log.d(TAG, "Restored " + pending.size() + " unsynced punches");
+                scheduleFlush(FLUSH_DELAY_MS);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to restore kiosk queue", e);
+        }
+    }
+}
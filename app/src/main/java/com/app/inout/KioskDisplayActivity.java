@@ -0,0 +1,142 @@
+package com.inout.app;
+
+import android.graphics.Bitmap;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.view.View;
+import android.view.WindowManager;
+import android.widget.Toast;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.inout.app.databinding.ActivityKioskDisplayBinding;
+import com.inout.app.utils.KioskTokenHelper;
+import com.inout.app.utils.QrRenderCache;
+
+import java.security.KeyStore;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * NEW: Full-screen kiosk display for a single office location.
+ * Shows a signed QR token that rotates every 30 seconds; employees scan it from the
+ * Check-In screen as proof of presence instead of waiting for a GPS fix.
+ * Tokens are generated offline; the network is only needed once to publish this
+ * device's public key on the location document.
+ */
+public class KioskDisplayActivity extends AppCompatActivity {
+
+    private static final String TAG = "KioskDisplayActivity";
+    public static final String EXTRA_LOCATION_ID = "extra_location_id";
+    public static final String EXTRA_LOCATION_NAME = "extra_location_name";
+
+    private static final int QR_SIZE = 640;
+
+    private ActivityKioskDisplayBinding binding;
+    private final ExecutorService tokenExecutor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private String locationId;
+    private KeyStore.PrivateKeyEntry signingKey;
+    private String keyId;
+    private long nextRotationAt;
+
+    private final Runnable rotateTask = this::rotateToken;
+    private final Runnable countdownTask = new Runnable() {
+        @Override
+        public void run() {
+            long seconds = Math.max(0, (nextRotationAt - System.currentTimeMillis() + 999) / 1000);
+            binding.tvKioskCountdown.setText("New code in " + seconds + "s");
+            mainHandler.postDelayed(this, 1000);
+        }
+    };
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        if (InOutApplication.restartIfStarting(this)) return;
+        binding = ActivityKioskDisplayBinding.inflate(getLayoutInflater());
+        setContentView(binding.getRoot());
+        getWindow().addFlags(WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON);
+
+        locationId = getIntent().getStringExtra(EXTRA_LOCATION_ID);
+        binding.tvKioskLocation.setText(getIntent().getStringExtra(EXTRA_LOCATION_NAME));
+        binding.btnClose.setOnClickListener(v -> finish());
+
+        if (locationId == null) {
+            finish();
+            return;
+        }
+        prepareSigningKey();
+    }
+
+    /**
+     * Loads (or creates) this device's signing key off the main thread and makes sure
+     * its public key is registered on the location before showing any token.
+     */
+    private void prepareSigningKey() {
+        tokenExecutor.execute(() -> {
+            try {
+                KeyStore.PrivateKeyEntry entry = KioskTokenHelper.getOrCreateSigningKey();
+                String id = KioskTokenHelper.keyIdOf(entry.getCertificate().getPublicKey());
+                String publicKey = KioskTokenHelper.encodePublicKey(entry.getCertificate().getPublicKey());
+                mainHandler.post(() -> registerKiosk(entry, id, publicKey));
+            } catch (Exception e) {
+                Log.e(TAG, "Kiosk key setup failed", e);
+                mainHandler.post(() -> {
+                    Toast.makeText(this, "This device cannot run kiosk mode.", Toast.LENGTH_LONG).show();
+                    finish();
+                });
+            }
+        });
+    }
+
+    private void registerKiosk(KeyStore.PrivateKeyEntry entry, String id, String publicKey) {
+        FirebaseFirestore.getInstance().collection("locations").document(locationId)
+                .update("kioskKeys." + id, publicKey)
+                .addOnSuccessListener(aVoid -> {
+                    signingKey = entry;
+                    keyId = id;
+                    binding.progressBar.setVisibility(View.GONE);
+                    rotateToken();
+                    mainHandler.post(countdownTask);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Kiosk registration failed", e);
+                    Toast.makeText(this, "Could not register kiosk. Check connection.", Toast.LENGTH_LONG).show();
+                    finish();
+                });
+    }
+
+    private void rotateToken() {
+        if (signingKey == null) return;
+        long now = System.currentTimeMillis();
+        nextRotationAt = now + KioskTokenHelper.millisUntilNextStep(now);
+
+        tokenExecutor.execute(() -> {
+            try {
+                String token = KioskTokenHelper.issue(locationId, signingKey.getPrivateKey(), keyId, now);
+                Bitmap qr = QrRenderCache.encodeAsBitmap(token, QR_SIZE);
+                mainHandler.post(() -> {
+                    if (binding != null) binding.ivKioskQr.setImageBitmap(qr);
+                });
+            } catch (Exception e) {
+                Log.e(TAG, "Kiosk token generation failed", e);
+            }
+        });
+
+        mainHandler.removeCallbacks(rotateTask);
+        mainHandler.postDelayed(rotateTask, nextRotationAt - now);
+    }
+
+    @Override
+    protected void onDestroy() {
+        mainHandler.removeCallbacksAndMessages(null);
+        tokenExecutor.shutdownNow();
+        binding = null;
+        super.onDestroy();
+    }
+}
@@ -0,0 +1,261 @@
+package com.inout.app.utils;
+
+import android.security.keystore.KeyGenParameterSpec;
+import android.security.keystore.KeyProperties;
+import android.util.Base64;
+import android.util.Log;
+
+import com.inout.app.models.CompanyConfig;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Time-rotating, signed on-site tokens for kiosk check-in.
+ * The kiosk device signs {locationId, 30s time step} with an EC key that never leaves
+ * its Android Keystore; the public key is published on the location document, so
+ * employees can verify a token offline but cannot mint one.
+ *
+ * Token layout: "IOK1:" + Base45([version][keyId x4][step x4][idLen][locationId][signature])
+ *
+ * Employee badges use the same scheme with a separate admin-device key whose public half is
+ * published under CompanyConfig.badgeKeys. A badge binds an Employee ID to its issue time; only
+ * the badge matching User.badgeIssuedAt is accepted, so re-issuing revokes older prints.
+ *
+ * Badge layout: "IOB1:" + Base45([version][keyId x4][issuedAt x8][idLen][employeeId][signature])
+ */
+public final class KioskTokenHelper {
+
+    private static final String TAG = "KioskTokenHelper";
+
+    public static final String TOKEN_PREFIX = "IOK1:";
+    public static final String BADGE_PREFIX = "IOB1:";
+    public static final long STEP_MILLIS = 30_000;
+    // Accept the previous/next step to absorb scan delay and small clock drift
+    private static final int ALLOWED_DRIFT_STEPS = 1;
+
+    private static final byte TOKEN_VERSION = 1;
+    private static final int KEY_ID_LENGTH = 4;
+    private static final String KEYSTORE = "AndroidKeyStore";
+    private static final String KEY_ALIAS = "inout_kiosk_signing";
+    private static final String BADGE_KEY_ALIAS = "inout_badge_signing";
+    private static final String SIGNATURE_ALGORITHM = "SHA256withECDSA";
+
+    private KioskTokenHelper() {
+    }
+
+    /**
+     * @return This device's kiosk signing key, created in the Android Keystore on first use.
+     */
+    public static KeyStore.PrivateKeyEntry getOrCreateSigningKey() throws GeneralSecurityException, java.io.IOException {
+        return getOrCreateKey(KEY_ALIAS);
+    }
+
+    /**
+     * @return This admin device's badge signing key, created in the Android Keystore on first use.
+     */
+    public static KeyStore.PrivateKeyEntry getOrCreateBadgeKey() throws GeneralSecurityException, java.io.IOException {
+        return getOrCreateKey(BADGE_KEY_ALIAS);
+    }
+
+    private static KeyStore.PrivateKeyEntry getOrCreateKey(String alias) throws GeneralSecurityException, java.io.IOException {
+        KeyStore keyStore = KeyStore.getInstance(KEYSTORE);
+        keyStore.load(null);
+        if (!keyStore.containsAlias(alias)) {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance(KeyProperties.KEY_ALGORITHM_EC, KEYSTORE);
+            generator.initialize(new KeyGenParameterSpec.Builder(alias, KeyProperties.PURPOSE_SIGN)
+                    .setAlgorithmParameterSpec(new ECGenParameterSpec("secp256r1"))
+                    .setDigests(KeyProperties.DIGEST_SHA256)
+                    .build());
+            generator.generateKeyPair();
+        }
+        return (KeyStore.PrivateKeyEntry) keyStore.getEntry(alias, null);
+    }
+
+    public static String encodePublicKey(PublicKey key) {
+        return Base64.encodeToString(key.getEncoded(), Base64.NO_WRAP);
+    }
+
+    /**
+     * @return Short hex id of a public key, used as the key in CompanyConfig.kioskKeys.
+     */
+    public static String keyIdOf(PublicKey key) throws GeneralSecurityException {
+        byte[] hash = MessageDigest.getInstance("SHA-256").digest(key.getEncoded());
+        return toHex(hash, KEY_ID_LENGTH);
+    }
+
+    public static long currentStep(long nowMillis) {
+        return nowMillis / STEP_MILLIS;
+    }
+
+    /**
+     * @return Milliseconds until the next token rotation.
+     */
+    public static long millisUntilNextStep(long nowMillis) {
+        return STEP_MILLIS - (nowMillis % STEP_MILLIS);
+    }
+
+    public static String issue(String locationId, PrivateKey privateKey, String keyId, long nowMillis)
+            throws GeneralSecurityException {
+        byte[] body = buildBody(fromHex(keyId), (int) currentStep(nowMillis), locationId);
+        return TOKEN_PREFIX + Base45.encode(signed(body, privateKey));
+    }
+
+    /**
+     * Verifies a scanned token against the employee's assigned location.
+     * @return null if the token is valid, otherwise a user-facing reason.
+     */
+    public static String verify(String rawToken, CompanyConfig location, long nowMillis) {
+        if (rawToken == null || !rawToken.startsWith(TOKEN_PREFIX)) {
+            return "This is not a kiosk check-in code.";
+        }
+        try {
+            byte[] data = Base45.decode(rawToken.substring(TOKEN_PREFIX.length()));
+            ByteBuffer in = ByteBuffer.wrap(data);
+            if (in.get() != TOKEN_VERSION) return "Unsupported kiosk code. Please update the app.";
+
+            byte[] keyId = new byte[KEY_ID_LENGTH];
+            in.get(keyId);
+            int step = in.getInt();
+            byte[] idBytes = new byte[in.get() & 0xff];
+            in.get(idBytes);
+            int bodyLength = in.position();
+            String locationId = new String(idBytes, StandardCharsets.UTF_8);
+
+            if (!locationId.equals(location.getId())) {
+                return "This kiosk belongs to another workplace.";
+            }
+            if (Math.abs(currentStep(nowMillis) - step) > ALLOWED_DRIFT_STEPS) {
+                return "Kiosk code expired. Scan the live code on the screen.";
+            }
+
+            Map<String, String> keys = location.getKioskKeys();
+            String encodedKey = keys != null ? keys.get(toHex(keyId, KEY_ID_LENGTH)) : null;
+            if (encodedKey == null) return "Unknown kiosk device.";
+
+            if (!verifySignature(data, bodyLength, encodedKey)) {
+                return "Invalid kiosk code.";
+            }
+            return null;
+        } catch (Exception e) {
+            Log.e(TAG, "Kiosk token verification failed", e);
+            return "Invalid kiosk code.";
+        }
+    }
+
+    /**
+     * A verified employee badge.
+     */
+    public static final class Badge {
+        public final String employeeId;
+        public final long issuedAt;
+
+        Badge(String employeeId, long issuedAt) {
+            this.employeeId = employeeId;
+            this.issuedAt = issuedAt;
+        }
+    }
+
+    public static String issueBadge(String employeeId, long issuedAt, PrivateKey privateKey, String keyId)
+            throws GeneralSecurityException {
+        byte[] idBytes = employeeId.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer body = ByteBuffer.allocate(1 + KEY_ID_LENGTH + 8 + 1 + idBytes.length);
+        body.put(TOKEN_VERSION);
+        body.put(fromHex(keyId), 0, KEY_ID_LENGTH);
+        body.putLong(issuedAt);
+        body.put((byte) idBytes.length);
+        body.put(idBytes);
+        return BADGE_PREFIX + Base45.encode(signed(body.array(), privateKey));
+    }
+
+    /**
+     * Verifies a scanned badge against the issuer keys published on the kiosk's location.
+     * The caller still has to check Badge.issuedAt against the employee's current badge.
+     * @return The badge, or null if it is not a validly signed badge.
+     */
+    public static Badge verifyBadge(String rawBadge, Map<String, String> badgeKeys) {
+        if (rawBadge == null || !rawBadge.startsWith(BADGE_PREFIX) || badgeKeys == null) return null;
+        try {
+            byte[] data = Base45.decode(rawBadge.substring(BADGE_PREFIX.length()));
+            ByteBuffer in = ByteBuffer.wrap(data);
+            if (in.get() != TOKEN_VERSION) return null;
+
+            byte[] keyId = new byte[KEY_ID_LENGTH];
+            in.get(keyId);
+            long issuedAt = in.getLong();
+            byte[] idBytes = new byte[in.get() & 0xff];
+            in.get(idBytes);
+            int bodyLength = in.position();
+
+            String encodedKey = badgeKeys.get(toHex(keyId, KEY_ID_LENGTH));
+            if (encodedKey == null || !verifySignature(data, bodyLength, encodedKey)) return null;
+            return new Badge(new String(idBytes, StandardCharsets.UTF_8), issuedAt);
+        } catch (Exception e) {
+            Log.w(TAG, "Badge verification failed", e);
+            return null;
+        }
+    }
+
+    // body followed by its signature
+    private static byte[] signed(byte[] body, PrivateKey privateKey) throws GeneralSecurityException {
+        Signature signer = Signature.getInstance(SIGNATURE_ALGORITHM);
+        signer.initSign(privateKey);
+        signer.update(body);
+        byte[] signature = signer.sign();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length + signature.length);
+        out.write(body, 0, body.length);
+        out.write(signature, 0, signature.length);
+        return out.toByteArray();
+    }
+
+    private static boolean verifySignature(byte[] data, int bodyLength, String encodedKey) throws GeneralSecurityException {
+        PublicKey publicKey = KeyFactory.getInstance(KeyProperties.KEY_ALGORITHM_EC)
+                .generatePublic(new X509EncodedKeySpec(Base64.decode(encodedKey, Base64.NO_WRAP)));
+        Signature verifier = Signature.getInstance(SIGNATURE_ALGORITHM);
+        verifier.initVerify(publicKey);
+        verifier.update(data, 0, bodyLength);
+        return verifier.verify(Arrays.copyOfRange(data, bodyLength, data.length));
+    }
+
+    private static byte[] buildBody(byte[] keyId, int step, String locationId) {
+        byte[] idBytes = locationId.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer body = ByteBuffer.allocate(1 + KEY_ID_LENGTH + 4 + 1 + idBytes.length);
+        body.put(TOKEN_VERSION);
+        body.put(keyId, 0, KEY_ID_LENGTH);
+        body.putInt(step);
+        body.put((byte) idBytes.length);
+        body.put(idBytes);
+        return body.array();
+    }
+
+    private static String toHex(byte[] bytes, int length) {
+        StringBuilder sb = new StringBuilder(length * 2);
+        for (int i = 0; i < length; i++) {
+            sb.append(String.format(Locale.US, "%02x", bytes[i]));
+        }
+        return sb.toString();
+    }
+
+    private static byte[] fromHex(String hex) {
+        byte[] out = new byte[hex.length() / 2];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return out;
+    }
+}
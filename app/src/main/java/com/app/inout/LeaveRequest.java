@@ -0,0 +1,165 @@
+package com.inout.app.models;
+
+import com.google.firebase.firestore.IgnoreExtraProperties;
+import com.google.firebase.firestore.PropertyName;
+
+/**
+ * A single emergency or medical leave request, stored in Firestore under 'leave_requests'.
+ * The document ID is uid_type_date, so repeating a request on the same day replaces it.
+ * The users document still mirrors the pending state (emergencyLeaveStatus / medicalLeaveStatus)
+ * for the employee's own screens.
+ */
+@IgnoreExtraProperties
+public class LeaveRequest {
+
+    public static final String TYPE_EMERGENCY = "emergency";
+    public static final String TYPE_MEDICAL = "medical";
+
+    public static final String STATUS_PENDING = "pending";
+    public static final String STATUS_APPROVED = "approved";
+    public static final String STATUS_REJECTED = "rejected";
+
+    private String id;
+    private String type;            // TYPE_EMERGENCY or TYPE_MEDICAL
+    private String status;          // STATUS_PENDING, STATUS_APPROVED or STATUS_REJECTED
+    private String uid;
+    private String employeeId;
+    private String employeeName;
+    private String date;            // yyyy-MM-dd, the day the leave applies to
+    private String leaveTime;       // Emergency leave: time it was taken (e.g. "01:30 PM")
+    private String medicalLeaveType; // Medical leave once decided: "paid" or "unpaid"
+    private long requestedAt;
+    private long decidedAt;
+
+    public LeaveRequest() {
+        // Default constructor required for Firestore
+    }
+
+    public LeaveRequest(String type, User user, String date, long requestedAt) {
+        this.type = type;
+        this.status = STATUS_PENDING;
+        this.uid = user.getUid();
+        this.employeeId = user.getEmployeeId();
+        this.employeeName = user.getName();
+        this.date = date;
+        this.requestedAt = requestedAt;
+    }
+
+    public static String documentId(String uid, String type, String date) {
+        return uid + "_" + type + "_" + date;
+    }
+
+    public boolean isMedical() {
+        return TYPE_MEDICAL.equals(type);
+    }
+
+    @PropertyName("id")
+    public String getId() {
+        return id;
+    }
+
+    @PropertyName("id")
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    @PropertyName("type")
+    public String getType() {
+        return type;
+    }
+
+    @PropertyName("type")
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    @PropertyName("status")
+    public String getStatus() {
+        return status;
+    }
+
+    @PropertyName("status")
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    @PropertyName("uid")
+    public String getUid() {
+        return uid;
+    }
+
+    @PropertyName("uid")
+    public void setUid(String uid) {
+        this.uid = uid;
+    }
+
+    @PropertyName("employeeId")
+    public String getEmployeeId() {
+        return employeeId;
+    }
+
+    @PropertyName("employeeId")
+    public void setEmployeeId(String employeeId) {
+        this.employeeId = employeeId;
+    }
+
+    @PropertyName("employeeName")
+    public String getEmployeeName() {
+        return employeeName;
+    }
+
+    @PropertyName("employeeName")
+    public void setEmployeeName(String employeeName) {
+        this.employeeName = employeeName;
+    }
+
+    @PropertyName("date")
+    public String getDate() {
+        return date;
+    }
+
+    @PropertyName("date")
+    public void setDate(String date) {
+        this.date = date;
+    }
+
+    @PropertyName("leaveTime")
+    public String getLeaveTime() {
+        return leaveTime;
+    }
+
+    @PropertyName("leaveTime")
+    public void setLeaveTime(String leaveTime) {
+        this.leaveTime = leaveTime;
+    }
+
+    @PropertyName("medicalLeaveType")
+    public String getMedicalLeaveType() {
+        return medicalLeaveType;
+    }
+
+    @PropertyName("medicalLeaveType")
+    public void setMedicalLeaveType(String medicalLeaveType) {
+        this.medicalLeaveType = medicalLeaveType;
+    }
+
+    @PropertyName("requestedAt")
+    public long getRequestedAt() {
+        return requestedAt;
+    }
+
+    @PropertyName("requestedAt")
+    public void setRequestedAt(long requestedAt) {
+        this.requestedAt = requestedAt;
+    }
+
+    @PropertyName("decidedAt")
+    public long getDecidedAt() {
+        return decidedAt;
+    }
+
+    @PropertyName("decidedAt")
+    public void setDecidedAt(long decidedAt) {
+        this.decidedAt = decidedAt;
+    }
+}
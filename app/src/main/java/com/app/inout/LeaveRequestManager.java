@@ -0,0 +1,215 @@
+package com.inout.app.utils;
+
+import android.util.Log;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.WriteBatch;
+import com.inout.app.models.LeaveRequest;
+import com.inout.app.models.User;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Emergency and medical leave requests in the 'leave_requests' collection.
+ * Admins listen to the pending queue only (status + date, backed by a composite index in
+ * firestore.indexes.json) instead of scanning every employee, and decide many requests at once
+ * in chunked write batches that also update the users and attendance documents.
+ */
+public class LeaveRequestManager {
+
+    private static final String TAG = "LeaveRequestManager";
+    public static final String COLLECTION = "leave_requests";
+
+    // Firestore caps a batch at 500 writes; a decision writes the request, the user and (medical) attendance
+    private static final int MAX_BATCH_WRITES = 500;
+    private static final int WRITES_PER_DECISION = 3;
+    private static final int DECISIONS_PER_BATCH = MAX_BATCH_WRITES / WRITES_PER_DECISION;
+
+    public interface PendingListener {
+        void onPendingChanged(List<LeaveRequest> pending);
+    }
+
+    public interface DecisionCallback {
+        /**
+         * @param decided Requests whose batch committed.
+         * @param failed  Requests whose batch failed (left pending, can be retried).
+         */
+        void onComplete(int decided, int failed);
+    }
+
+    private static LeaveRequestManager instance;
+    private final FirebaseFirestore db;
+
+    private LeaveRequestManager() {
+        db = FirebaseFirestore.getInstance();
+    }
+
+    public static synchronized LeaveRequestManager getInstance() {
+        if (instance == null) {
+            instance = new LeaveRequestManager();
+        }
+        return instance;
+    }
+
+    /**
+     * Requests with the given status, newest leave date first.
+     */
+    public Query byStatus(String status) {
+        return db.collection(COLLECTION)
+                .whereEqualTo("status", status)
+                .orderBy("date", Query.Direction.DESCENDING);
+    }
+
+    /**
+     * Listens to pending requests only; decided requests drop out of the snapshot.
+     */
+    public ListenerRegistration listenPending(PendingListener listener) {
+        return byStatus(LeaveRequest.STATUS_PENDING).addSnapshotListener((value, error) -> {
+            if (error != null) {
+                Log.e(TAG, "Failed to listen for pending leave requests", error);
+                return;
+            }
+            if (value == null) return;
+            listener.onPendingChanged(value.toObjects(LeaveRequest.class));
+        });
+    }
+
+    /**
+     * Files a request and marks the user's matching status "pending" in one batch.
+     * @param leaveTime Emergency leave: time it was taken; null for medical leave.
+     */
+    public Task<Void> submit(User user, String type, String date, String leaveTime) {
+        LeaveRequest request = new LeaveRequest(type, user, date, TimeUtils.getCurrentTimestamp());
+        request.setLeaveTime(leaveTime);
+        String id = LeaveRequest.documentId(user.getUid(), type, date);
+        request.setId(id);
+
+        WriteBatch batch = db.batch();
+        batch.set(db.collection(COLLECTION).document(id), request);
+        batch.update(db.collection("users").document(user.getUid()), statusField(type), LeaveRequest.STATUS_PENDING);
+        return batch.commit();
+    }
+
+    /**
+     * Approves or rejects the requests in batches of at most {@link #DECISIONS_PER_BATCH}; approved
+     * medical requests each run in a transaction, since they read the day's attendance record.
+     * @param medicalLeaveType "paid" or "unpaid" for approved medical requests; ignored otherwise.
+     */
+    public void decide(List<LeaveRequest> requests, boolean approve, String medicalLeaveType, DecisionCallback callback) {
+        long now = TimeUtils.getCurrentTimestamp();
+        List<Task<Void>> commits = new ArrayList<>();
+        List<Integer> sizes = new ArrayList<>();
+        // Approved medical leave reads the attendance record first, so it gets its own transaction
+        List<LeaveRequest> batched = new ArrayList<>();
+        for (LeaveRequest request : requests) {
+            if (approve && request.isMedical()) {
+                commits.add(approveMedical(request, medicalLeaveType, now));
+                sizes.add(1);
+            } else {
+                batched.add(request);
+            }
+        }
+        for (int start = 0; start < batched.size(); start += DECISIONS_PER_BATCH) {
+            List<LeaveRequest> chunk = batched.subList(start, Math.min(batched.size(), start + DECISIONS_PER_BATCH));
+            WriteBatch batch = db.batch();
+            for (LeaveRequest request : chunk) {
+                addDecision(batch, request, approve, now);
+            }
+            commits.add(batch.commit());
+            sizes.add(chunk.size());
+        }
+
+        Tasks.whenAllComplete(commits).addOnCompleteListener(all -> {
+            int decided = 0;
+            int failed = 0;
+            for (int i = 0; i < commits.size(); i++) {
+                if (commits.get(i).isSuccessful()) {
+                    decided += sizes.get(i);
+                } else {
+                    failed += sizes.get(i);
+                    Log.e(TAG, "Leave decision batch failed", commits.get(i).getException());
+                }
+            }
+            if (callback != null) callback.onComplete(decided, failed);
+        });
+    }
+
+    private void addDecision(WriteBatch batch, LeaveRequest request, boolean approve, long now) {
+        Map<String, Object> decision = new HashMap<>();
+        decision.put("status", approve ? LeaveRequest.STATUS_APPROVED : LeaveRequest.STATUS_REJECTED);
+        decision.put("decidedAt", now);
+        DocumentReference userRef = db.collection("users").document(request.getUid());
+        batch.update(db.collection(COLLECTION).document(request.getId()), decision);
+
+        if (request.isMedical()) {
+            // Rejected (approvals go through approveMedical)
+            batch.update(userRef, "medicalLeaveStatus", "none", "medicalLeaveType", "none");
+            return;
+        }
+
+        // Emergency leave is already on the attendance record; approval leaves it there
+        batch.update(userRef, "emergencyLeaveStatus", "none");
+        if (!approve) {
+            // Rejected: the day is a normal shift again, so AttendanceRules stops crediting it up to
+            // the leave and MissedCheckoutWorker closes it if the employee never checks out
+            String recordId = request.getEmployeeId() + "_" + request.getDate();
+            batch.update(db.collection("attendance").document(recordId),
+                    "emergencyLeaveTime", FieldValue.delete(),
+                    "emergencyLeaveLocation", FieldValue.delete(),
+                    "remarks", "Emergency leave"
+                            + (request.getLeaveTime() != null ? " at " + request.getLeaveTime() : "") + " rejected");
+        }
+    }
+
+    /**
+     * Approves a medical leave and marks the day on the attendance record. An existing record only
+     * gets the leave type and remarks, keeping its check-in timestamp (history screens sort on it);
+     * a missing one is created for the day.
+     */
+    private Task<Void> approveMedical(LeaveRequest request, String medicalLeaveType, long now) {
+        String recordId = request.getEmployeeId() + "_" + request.getDate();
+        DocumentReference recordRef = db.collection("attendance").document(recordId);
+        String remarks = request.getEmployeeName() + " on Medical Leave (" + medicalLeaveType.toUpperCase() + ")";
+
+        return db.runTransaction(transaction -> {
+            DocumentSnapshot record = transaction.get(recordRef);
+
+            Map<String, Object> decision = new HashMap<>();
+            decision.put("status", LeaveRequest.STATUS_APPROVED);
+            decision.put("decidedAt", now);
+            decision.put("medicalLeaveType", medicalLeaveType);
+            transaction.update(db.collection(COLLECTION).document(request.getId()), decision);
+            transaction.update(db.collection("users").document(request.getUid()),
+                    "medicalLeaveStatus", LeaveRequest.STATUS_APPROVED, "medicalLeaveType", medicalLeaveType);
+
+            if (record.exists()) {
+                transaction.update(recordRef, "medicalLeaveType", medicalLeaveType, "remarks", remarks);
+            } else {
+                Map<String, Object> attendance = new HashMap<>();
+                attendance.put("recordId", recordId);
+                attendance.put("employeeId", request.getEmployeeId());
+                attendance.put("employeeName", request.getEmployeeName());
+                attendance.put("date", request.getDate());
+                attendance.put("timestamp", request.getRequestedAt());
+                attendance.put("medicalLeaveType", medicalLeaveType);
+                attendance.put("remarks", remarks);
+                transaction.set(recordRef, attendance);
+            }
+            return null;
+        });
+    }
+
+    private static String statusField(String type) {
+        return LeaveRequest.TYPE_MEDICAL.equals(type) ? "medicalLeaveStatus" : "emergencyLeaveStatus";
+    }
+}
@@ -12,6 +12,7 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.inout.app.models.CompanyConfig;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -19,14 +20,17 @@ import java.util.Set;
 /**
  * Professional Adapter for managing interactive Office Locations.
  * Features: Single tap to select/deselect, Long press to trigger bulk actions.
+ * UPDATED: Selection is a set of row indexes and taps rebind only the tapped row (PAYLOAD_SELECTION).
  */
 public class LocationAdapter extends RecyclerView.Adapter<LocationAdapter.LocationViewHolder> {
 
-    private final List<CompanyConfig> locationList;
+    private static final Object PAYLOAD_SELECTION = new Object();
+
+    private final List<CompanyConfig> locationList = new ArrayList<>();
     private final OnLocationActionListener listener;
-    
-    // Stores the Document IDs of selected locations for multi-deletion
-    private final Set<String> selectedLocationIds = new HashSet<>();
+
+    // Indexes (into locationList) of selected locations for multi-deletion
+    private final BitSet selectedPositions = new BitSet();
 
     public interface OnLocationActionListener {
         // Triggered when items are selected and a long press occurs
@@ -34,45 +38,51 @@ public class LocationAdapter extends RecyclerView.Adapter<LocationAdapter.Locati
     }
 
     public LocationAdapter(List<CompanyConfig> locationList, OnLocationActionListener listener) {
-        this.locationList = locationList;
+        this.locationList.addAll(locationList);
         this.listener = listener;
     }
 
+    /**
+     * Replaces the displayed locations, keeping selected ones selected (matched by document ID).
+     */
+    public void setLocations(List<CompanyConfig> locations) {
+        Set<String> selectedIds = new HashSet<>();
+        for (int i = selectedPositions.nextSetBit(0); i >= 0; i = selectedPositions.nextSetBit(i + 1)) {
+            selectedIds.add(locationList.get(i).getId());
+        }
+
+        locationList.clear();
+        locationList.addAll(locations);
+        selectedPositions.clear();
+        if (!selectedIds.isEmpty()) {
+            for (int i = 0; i < locationList.size(); i++) {
+                if (selectedIds.contains(locationList.get(i).getId())) selectedPositions.set(i);
+            }
+        }
+        notifyDataSetChanged();
+    }
+
     @NonNull
     @Override
     public LocationViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_location, parent, false);
-        return new LocationViewHolder(view);
-    }
-
-    @Override
-    public void onBindViewHolder(@NonNull LocationViewHolder holder, int position) {
-        CompanyConfig location = locationList.get(position);
-
-        holder.tvName.setText(location.getName());
-
-        // Visual feedback: Show checkmark and overlay if the item is selected
-        if (selectedLocationIds.contains(location.getId())) {
-            holder.ivCheck.setVisibility(View.VISIBLE);
-            holder.viewOverlay.setVisibility(View.VISIBLE);
-        } else {
-            holder.ivCheck.setVisibility(View.GONE);
-            holder.viewOverlay.setVisibility(View.GONE);
-        }
+        LocationViewHolder holder = new LocationViewHolder(view);
 
         // SINGLE TAP logic: Toggle selection and update UI
         holder.itemView.setOnClickListener(v -> {
-            toggleSelection(location.getId());
+            int position = holder.getAdapterPosition();
+            if (position != RecyclerView.NO_POSITION) toggleSelection(position);
         });
 
         // LONG PRESS logic: Trigger the delete pop-up for all selected items
         holder.itemView.setOnLongClickListener(v -> {
-            if (!selectedLocationIds.isEmpty()) {
+            int position = holder.getAdapterPosition();
+            if (position != RecyclerView.NO_POSITION && !selectedPositions.isEmpty()) {
                 // Ensure the long-pressed item is included in the selection
-                if (!selectedLocationIds.contains(location.getId())) {
-                    toggleSelection(location.getId());
+                if (!selectedPositions.get(position)) {
+                    toggleSelection(position);
                 }
-                
+
                 // Notify the fragment to show the Delete Confirmation
                 if (listener != null) {
                     listener.onDeleteRequested(getSelectedLocations());
@@ -81,36 +91,66 @@ public class LocationAdapter extends RecyclerView.Adapter<LocationAdapter.Locati
             }
             return false;
         });
+        return holder;
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull LocationViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (!payloads.isEmpty() && allSelectionPayloads(payloads)) {
+            bindSelection(holder, position);
+        } else {
+            onBindViewHolder(holder, position);
+        }
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull LocationViewHolder holder, int position) {
+        CompanyConfig location = locationList.get(position);
+
+        holder.tvName.setText(location.getName());
+        bindSelection(holder, position);
     }
 
     /**
-     * Adds or removes a location ID from the selection set.
+     * Visual feedback: Show checkmark and overlay if the item is selected
      */
-    private void toggleSelection(String locationId) {
-        if (selectedLocationIds.contains(locationId)) {
-            selectedLocationIds.remove(locationId);
-        } else {
-            selectedLocationIds.add(locationId);
+    private void bindSelection(LocationViewHolder holder, int position) {
+        int visibility = selectedPositions.get(position) ? View.VISIBLE : View.GONE;
+        holder.ivCheck.setVisibility(visibility);
+        holder.viewOverlay.setVisibility(visibility);
+    }
+
+    private static boolean allSelectionPayloads(List<Object> payloads) {
+        for (Object payload : payloads) {
+            if (payload != PAYLOAD_SELECTION) return false;
         }
-        notifyDataSetChanged();
+        return true;
     }
 
     /**
-     * Converts the set of selected IDs back into a list of Location objects.
+     * Adds or removes a row from the selection set.
+     */
+    private void toggleSelection(int position) {
+        selectedPositions.flip(position);
+        notifyItemChanged(position, PAYLOAD_SELECTION);
+    }
+
+    /**
+     * Converts the set of selected indexes back into a list of Location objects.
      */
     public List<CompanyConfig> getSelectedLocations() {
-        List<CompanyConfig> selected = new ArrayList<>();
-        for (CompanyConfig loc : locationList) {
-            if (selectedLocationIds.contains(loc.getId())) {
-                selected.add(loc);
-            }
+        List<CompanyConfig> selected = new ArrayList<>(selectedPositions.cardinality());
+        for (int i = selectedPositions.nextSetBit(0); i >= 0; i = selectedPositions.nextSetBit(i + 1)) {
+            selected.add(locationList.get(i));
         }
         return selected;
     }
 
     public void clearSelection() {
-        selectedLocationIds.clear();
-        notifyDataSetChanged();
+        for (int i = selectedPositions.nextSetBit(0); i >= 0; i = selectedPositions.nextSetBit(i + 1)) {
+            notifyItemChanged(i, PAYLOAD_SELECTION);
+        }
+        selectedPositions.clear();
     }
 
     @Override
@@ -130,4 +170,4 @@ public class LocationAdapter extends RecyclerView.Adapter<LocationAdapter.Locati
             viewOverlay = itemView.findViewById(R.id.view_selected_overlay);
         }
     }
-}
\ No newline at end of file
+}
@@ -17,6 +17,9 @@ import com.google.android.gms.location.LocationRequest;
 import com.google.android.gms.location.LocationResult;
 import com.google.android.gms.location.LocationServices;
 import com.google.android.gms.location.Priority;
+import com.inout.app.models.CompanyConfig;
+
+import java.util.List;
 
 /**
  * Helper class to fetch current GPS location and calculate distances.
@@ -90,14 +93,12 @@ public class LocationHelper {
 
     /**
      * Calculates the distance in meters between two coordinates.
-     * Uses the Android Location.distanceBetween method (Haversine formula internally).
+     * Uses the haversine formula from GeofenceKernel (no per-call allocation).
      *
      * @return Distance in meters.
      */
     public static float calculateDistance(double startLat, double startLng, double endLat, double endLng) {
-        float[] results = new float[1];
-        Location.distanceBetween(startLat, startLng, endLat, endLng, results);
-        return results[0];
+        return (float) GeofenceKernel.haversineMeters(startLat, startLng, endLat, endLng);
     }
 
     /**
@@ -109,6 +110,18 @@ public class LocationHelper {
         return distance <= radiusMeters;
     }
 
+    /**
+     * Builds a geofence kernel over the given office locations.
+     * Site indices in the kernel match the list order.
+     */
+    public static GeofenceKernel buildGeofence(List<CompanyConfig> locations) {
+        GeofenceKernel kernel = new GeofenceKernel(locations.size());
+        for (CompanyConfig config : locations) {
+            kernel.addSite(config.getLatitude(), config.getLongitude(), config.getRadius());
+        }
+        return kernel;
+    }
+
     private boolean hasPermissions() {
         return ContextCompat.checkSelfPermission(context, Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED;
     }
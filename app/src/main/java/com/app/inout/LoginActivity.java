@@ -11,7 +11,6 @@ import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 
-import com.google.android.gms.ads.AdRequest;
 import com.google.android.gms.ads.AdView;
 import com.google.android.gms.auth.api.signin.GoogleSignIn;
 import com.google.android.gms.auth.api.signin.GoogleSignInAccount;
@@ -29,6 +28,7 @@ import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.inout.app.databinding.ActivityLoginBinding;
 import com.inout.app.models.User;
+import com.inout.app.utils.DeferredAds;
 import com.inout.app.utils.EncryptionHelper;
 
 /**
@@ -73,6 +73,7 @@ public class LoginActivity extends AppCompatActivity {
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        if (InOutApplication.restartIfStarting(this)) return;
         binding = ActivityLoginBinding.inflate(getLayoutInflater());
         setContentView(binding.getRoot());
 
@@ -104,9 +105,9 @@ public class LoginActivity extends AppCompatActivity {
         binding.btnGoogleSignIn.setOnClickListener(v -> signIn());
 
         // NEW: Load AdMob Banner Ad
+        // UPDATED: Requested after the first frame, with the SDK initialized off the main thread
         mAdView = findViewById(R.id.adView_login);
-        AdRequest adRequest = new AdRequest.Builder().build();
-        mAdView.loadAd(adRequest);
+        DeferredAds.getInstance(this).loadBanner(mAdView);
     }
 
     @Override
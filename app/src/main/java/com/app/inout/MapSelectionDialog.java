@@ -3,13 +3,12 @@ package com.inout.app;
 import android.Manifest;
 import android.content.Context;
 import android.content.pm.PackageManager;
-import android.location.Address;
-import android.location.Geocoder;
 import android.location.Location;
 import android.location.LocationManager;
 import android.os.Bundle;
 import android.preference.PreferenceManager;
 import android.text.TextUtils;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -26,16 +25,15 @@ import androidx.cardview.widget.CardView;
 import androidx.core.app.ActivityCompat;
 import androidx.fragment.app.DialogFragment;
 
+import com.inout.app.utils.GeocodingService;
+import com.inout.app.utils.TileCacheManager;
+
 import org.osmdroid.config.Configuration;
 import org.osmdroid.api.IMapController;
 import org.osmdroid.tileprovider.tilesource.TileSourceFactory;
 import org.osmdroid.util.GeoPoint;
 import org.osmdroid.views.MapView;
 
-import java.io.IOException;
-import java.util.List;
-import java.util.Locale;
-
 /**
  * Full Screen Dialog for selecting a location on a map.
  * Uses OpenStreetMap (osmdroid).
@@ -43,9 +41,12 @@ import java.util.Locale;
  */
 public class MapSelectionDialog extends DialogFragment {
 
+    private static final String TAG = "MapSelectionDialog";
+
     private MapView mapView;
     private EditText etSearch;
     private CardView cvSearchBar;
+    private Button btnSave;
     private OnLocationSelectedListener listener;
 
     /**
@@ -90,7 +91,7 @@ public class MapSelectionDialog extends DialogFragment {
         Button btnSearchGo = view.findViewById(R.id.btn_map_search_go);
         ImageButton btnZoomIn = view.findViewById(R.id.btn_zoom_in);
         ImageButton btnZoomOut = view.findViewById(R.id.btn_zoom_out);
-        Button btnSave = view.findViewById(R.id.btn_confirm_selection);
+        btnSave = view.findViewById(R.id.btn_confirm_selection);
 
         setupMap();
         centerOnCurrentLocation();
@@ -131,7 +132,9 @@ public class MapSelectionDialog extends DialogFragment {
     }
 
     private void setupMap() {
-        mapView.setTileSource(TileSourceFactory.MAPNIK); // Standard OSM tiles
+        // Standard OSM tiles, served from the offline archive first
+        mapView.setTileProvider(TileCacheManager.getInstance(requireContext()).createTileProvider());
+        mapView.setTileSource(TileSourceFactory.MAPNIK);
         mapView.setMultiTouchControls(true); // Pinch to zoom support
         
         IMapController mapController = mapView.getController();
@@ -165,22 +168,18 @@ public class MapSelectionDialog extends DialogFragment {
         if (TextUtils.isEmpty(query)) return;
 
         hideKeyboard();
-        
-        Geocoder geocoder = new Geocoder(requireContext(), Locale.getDefault());
-        try {
-            List<Address> addresses = geocoder.getFromLocationName(query, 1);
-            if (addresses != null && !addresses.isEmpty()) {
-                Address result = addresses.get(0);
-                GeoPoint target = new GeoPoint(result.getLatitude(), result.getLongitude());
+
+        GeocodingService.getInstance(requireContext()).search(query, place -> {
+            if (mapView == null || !isAdded()) return;
+            if (place != null) {
+                GeoPoint target = new GeoPoint(place.getLatitude(), place.getLongitude());
                 
                 mapView.getController().animateTo(target);
                 mapView.getController().setZoom(17.0); 
             } else {
-                Toast.makeText(getContext(), "Address not found.", Toast.LENGTH_SHORT).show();
+                Toast.makeText(getContext(), "Address not found. Check connection.", Toast.LENGTH_SHORT).show();
             }
-        } catch (IOException e) {
-            Toast.makeText(getContext(), "Geocoder Error. Check connection.", Toast.LENGTH_SHORT).show();
-        }
+        });
     }
 
     private void confirmSelection() {
@@ -189,39 +188,45 @@ public class MapSelectionDialog extends DialogFragment {
         double lat = centerPoint.getLatitude();
         double lng = centerPoint.getLongitude();
 
+        // Reverse geocode off the main thread; the service times out and falls back to a generic name
+        btnSave.setEnabled(false);
+        GeocodingService.getInstance(requireContext()).reverse(lat, lng, place -> {
+            if (!isAdded()) return;
+            String finalAddress = buildAddressName(place);
+
+            if (listener != null) {
+                listener.onLocationSelected(lat, lng, finalAddress);
+            }
+            dismiss();
+        });
+    }
+
+    private String buildAddressName(GeocodingService.Place addr) {
         StringBuilder addressBuilder = new StringBuilder();
-        Geocoder geocoder = new Geocoder(requireContext(), Locale.getDefault());
-        
-        try {
-            List<Address> addresses = geocoder.getFromLocation(lat, lng, 1);
-            if (addresses != null && !addresses.isEmpty()) {
-                Address addr = addresses.get(0);
-                
-                // 1. Get Place Name / Brand / Feature
-                String feature = addr.getFeatureName();
-                // Logic: If FeatureName is a Plus Code (contains +), ignore it
-                if (feature != null && !feature.contains("+")) {
-                    addressBuilder.append(feature).append(", ");
-                }
-
-                // 2. Get Street / Thoroughfare
-                if (addr.getThoroughfare() != null) {
-                    addressBuilder.append(addr.getThoroughfare()).append(", ");
-                }
-
-                // 3. Get Locality / Area / Neighborhood
-                String area = addr.getSubLocality() != null ? addr.getSubLocality() : addr.getLocality();
-                if (area != null) {
-                    addressBuilder.append(area).append(" ");
-                }
-
-                // 4. Get Postal Code (Explicitly requested)
-                if (addr.getPostalCode() != null) {
-                    addressBuilder.append("- ").append(addr.getPostalCode());
-                }
+
+        if (addr != null) {
+            // 1. Get Place Name / Brand / Feature
+            String feature = addr.getFeatureName();
+            // Logic: If FeatureName is a Plus Code (contains +), ignore it
+            if (feature != null && !feature.contains("+")) {
+                addressBuilder.append(feature).append(", ");
+            }
+
+            // 2. Get Street / Thoroughfare
+            if (addr.getThoroughfare() != null) {
+                addressBuilder.append(addr.getThoroughfare()).append(", ");
+            }
+
+            // 3. Get Locality / Area / Neighborhood
+            String area = addr.getSubLocality() != null ? addr.getSubLocality() : addr.getLocality();
+            if (area != null) {
+                addressBuilder.append(area).append(" ");
+            }
+
+            // 4. Get Postal Code (Explicitly requested)
+            if (addr.getPostalCode() != null) {
+                addressBuilder.append("- ").append(addr.getPostalCode());
             }
-        } catch (IOException e) {
-            // If reverse geocoding fails, fallback to generic name
         }
 
         String finalAddress = addressBuilder.toString().trim();
@@ -233,11 +238,7 @@ public class MapSelectionDialog extends DialogFragment {
         if (TextUtils.isEmpty(finalAddress)) {
             finalAddress = "Map Point Location";
         }
-
-        if (listener != null) {
-            listener.onLocationSelected(lat, lng, finalAddress);
-        }
-        dismiss();
+        return finalAddress;
     }
 
     private void showKeyboard() {
@@ -264,4 +265,11 @@ public class MapSelectionDialog extends DialogFragment {
         super.onPause();
         mapView.onPause();
     }
+
+    @Override
+    public void onDestroyView() {
+        Log.d(TAG, TileCacheManager.getInstance(requireContext()).getStatsSummary());
+        mapView.onDetach();
+        super.onDestroyView();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,270 @@
+package com.inout.app.utils;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.inout.app.models.AttendanceRecord;
+import com.inout.app.models.User;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodic job (admin devices only) that closes attendance records left open by a forgotten
+ * check-out. Yesterday's and today's open records are checked against their shift end plus a
+ * configurable buffer; overdue ones are checked out at the shift end with a flagged remark and
+ * the computed hours. Each close is a transaction that re-reads the record, so a check-out the
+ * employee made after the query is never overwritten.
+ *
+ * The shift end comes from the record's assignedShift (written at check-in from the employee's
+ * roster or fixed shift), falling back to the user profile's shiftEndTime.
+ */
+public class MissedCheckoutWorker extends Worker {
+
+    private static final String TAG = "MissedCheckoutWorker";
+    private static final String UNIQUE_WORK_NAME = "missed_checkout_reconciliation";
+    private static final String PREFS_FILENAME = "reconciliation";
+    private static final String KEY_BUFFER_MINUTES = "checkout_buffer_minutes";
+
+    public static final int DEFAULT_BUFFER_MINUTES = 60;
+    private static final long REPEAT_INTERVAL_MINUTES = 30;
+    private static final long FIREBASE_WAIT_MS = 10000;
+    private static final int MAX_IN_QUERY = 30;      // Firestore whereIn limit
+    private static final int END_OF_DAY_MINUTES = 23 * 60 + 59;
+
+    static final String AUTO_CHECKOUT_REMARK = "Auto checked-out at shift end (no check-out recorded)";
+
+    public MissedCheckoutWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Schedules the job if it is not already scheduled. Called whenever the admin dashboard opens.
+     */
+    public static void schedule(Context context) {
+        enqueue(context, ExistingPeriodicWorkPolicy.KEEP);
+    }
+
+    public static void cancel(Context context) {
+        WorkManager.getInstance(context).cancelUniqueWork(UNIQUE_WORK_NAME);
+    }
+
+    public static int getBufferMinutes(Context context) {
+        return prefs(context).getInt(KEY_BUFFER_MINUTES, DEFAULT_BUFFER_MINUTES);
+    }
+
+    /**
+     * Saves the grace time after a shift's end before its open records are closed.
+     */
+    public static void setBufferMinutes(Context context, int minutes) {
+        prefs(context).edit().putInt(KEY_BUFFER_MINUTES, Math.max(0, minutes)).apply();
+        enqueue(context, ExistingPeriodicWorkPolicy.UPDATE);
+    }
+
+    private static void enqueue(Context context, ExistingPeriodicWorkPolicy policy) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .build();
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(
+                MissedCheckoutWorker.class, REPEAT_INTERVAL_MINUTES, TimeUnit.MINUTES)
+                .setConstraints(constraints)
+                .build();
+        WorkManager.getInstance(context).enqueueUniquePeriodicWork(UNIQUE_WORK_NAME, policy, request);
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(PREFS_FILENAME, Context.MODE_PRIVATE);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        Context context = getApplicationContext();
+        // A cold start for this job still runs the app's startup stages; wait for Firebase
+        StartupOrchestrator.getInstance().await(StartupOrchestrator.STAGE_FIREBASE, FIREBASE_WAIT_MS);
+        if (FirebaseApp.getApps(context).isEmpty()
+                || FirebaseAuth.getInstance().getCurrentUser() == null
+                || !"admin".equals(EncryptionHelper.getInstance(context).getUserRole())) {
+            // Not set up or signed out: nothing this device may reconcile
+            return Result.success();
+        }
+
+        try {
+            int closed = reconcile(FirebaseFirestore.getInstance(), getBufferMinutes(context), LocalDateTime.now());
+            Log.d(TAG, "Closed " + closed + " open attendance records");
+            return Result.success();
+        } catch (Exception e) {
+            Log.e(TAG, "Reconciliation failed", e);
+            return Result.retry();
+        }
+    }
+
+    private int reconcile(FirebaseFirestore db, int bufferMinutes, LocalDateTime now) throws Exception {
+        LocalDate today = now.toLocalDate();
+        List<AttendanceRecord> open = new ArrayList<>();
+        // Yesterday too: a job running after midnight still closes overnight and late-evening shifts
+        for (LocalDate date : new LocalDate[] {today.minusDays(1), today}) {
+            QuerySnapshot snapshot = Tasks.await(db.collection("attendance")
+                    .whereEqualTo("date", date.toString())
+                    .get());
+            for (DocumentSnapshot doc : snapshot) {
+                AttendanceRecord record = doc.toObject(AttendanceRecord.class);
+                // Kiosk check-ins are merged maps without a checkOutTime field, so filter here.
+                // Emergency leave also leaves a record open on purpose; it is credited up to the leave.
+                if (record != null && record.getCheckInTime() != null && record.getCheckOutTime() == null
+                        && record.getEmergencyLeaveTime() == null) {
+                    record.setRecordId(doc.getId());
+                    open.add(record);
+                }
+            }
+        }
+        if (open.isEmpty()) return 0;
+
+        Map<String, User> profiles = loadProfilesWithoutShift(db, open);
+
+        List<Task<Boolean>> closes = new ArrayList<>();
+        for (AttendanceRecord record : open) {
+            int[] shift = shiftBounds(record.getAssignedShift());
+            if (shift == null) {
+                User user = profiles.get(record.getEmployeeId());
+                shift = user != null ? shiftBounds(user.getShiftStartTime() + " - " + user.getShiftEndTime()) : null;
+            }
+            int checkIn = AttendanceRules.parseTime(record.getCheckInTime());
+            int closeAt = closingMinutes(shift, checkIn);
+            if (closeAt < 0 || !isOverdue(record.getDate(), shift, closeAt, bufferMinutes, now)) continue;
+
+            closes.add(close(db, record.getRecordId(), formatTime(closeAt)));
+        }
+
+        int closed = 0;
+        for (Task<Boolean> close : closes) {
+            try {
+                if (Tasks.await(close)) closed++;
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to close open attendance record", e);
+            }
+        }
+        return closed;
+    }
+
+    /**
+     * Checks the record out at the shift end, unless it was checked out or put on emergency leave
+     * since the query.
+     * @return Whether the record was closed.
+     */
+    private Task<Boolean> close(FirebaseFirestore db, String recordId, String checkOutTime) {
+        DocumentReference ref = db.collection("attendance").document(recordId);
+        return db.runTransaction(transaction -> {
+            AttendanceRecord current = transaction.get(ref).toObject(AttendanceRecord.class);
+            if (current == null || current.getCheckInTime() == null || current.getCheckOutTime() != null
+                    || current.getEmergencyLeaveTime() != null) {
+                return false;
+            }
+            Map<String, Object> update = new HashMap<>();
+            update.put("checkOutTime", checkOutTime);
+            update.put("totalHours", TimeUtils.calculateDuration(current.getCheckInTime(), checkOutTime));
+            update.put("overtimeHours", "0h 00m");
+            update.put("autoCheckedOut", true);
+            String remarks = current.getRemarks();
+            update.put("remarks", remarks == null || remarks.isEmpty()
+                    ? AUTO_CHECKOUT_REMARK
+                    : remarks + " | " + AUTO_CHECKOUT_REMARK);
+            transaction.update(ref, update);
+            return true;
+        });
+    }
+
+    /**
+     * Profiles are only read for records whose shift text can't be parsed (e.g. "N/A").
+     */
+    private Map<String, User> loadProfilesWithoutShift(FirebaseFirestore db, List<AttendanceRecord> open) throws Exception {
+        List<String> employeeIds = new ArrayList<>();
+        for (AttendanceRecord record : open) {
+            if (shiftBounds(record.getAssignedShift()) == null && !employeeIds.contains(record.getEmployeeId())) {
+                employeeIds.add(record.getEmployeeId());
+            }
+        }
+        Map<String, User> profiles = new HashMap<>();
+        for (int start = 0; start < employeeIds.size(); start += MAX_IN_QUERY) {
+            List<String> chunk = employeeIds.subList(start, Math.min(employeeIds.size(), start + MAX_IN_QUERY));
+            QuerySnapshot snapshot = Tasks.await(db.collection("users")
+                    .whereIn("employeeId", chunk)
+                    .get());
+            for (DocumentSnapshot doc : snapshot) {
+                User user = doc.toObject(User.class);
+                if (user != null) profiles.put(user.getEmployeeId(), user);
+            }
+        }
+        return profiles;
+    }
+
+    /**
+     * @param shift "09:00 AM - 06:00 PM", or comma-separated segments for a split shift.
+     * @return {start of the first segment, end of the last} in minutes, or null if unparseable.
+     */
+    static int[] shiftBounds(String shift) {
+        if (shift == null) return null;
+        int firstDash = shift.indexOf('-');
+        if (firstDash <= 0) return null;
+        int start = AttendanceRules.parseTime(shift.substring(0, firstDash));
+        int end = AttendanceRules.parseTime(shift.substring(shift.lastIndexOf('-') + 1));
+        if (start < 0 || end < 0) return null;
+        return new int[] {start, end};
+    }
+
+    /**
+     * @return The check-out time to record, in minutes after midnight: the shift end, the
+     *         check-in itself when it came after a same-day shift had ended, or the end of the
+     *         day when no shift is known. -1 if the check-in is unreadable.
+     */
+    static int closingMinutes(int[] shift, int checkIn) {
+        if (checkIn < 0) return -1;
+        if (shift == null) return END_OF_DAY_MINUTES;
+        boolean overnight = shift[1] <= shift[0];
+        if (!overnight && checkIn > shift[1]) return checkIn;
+        return shift[1];
+    }
+
+    static boolean isOverdue(String date, int[] shift, int closeAt, int bufferMinutes, LocalDateTime now) {
+        LocalDate day;
+        try {
+            day = LocalDate.parse(date);
+        } catch (Exception e) {
+            return false;
+        }
+        LocalDateTime closing = day.atStartOfDay().plusMinutes(closeAt);
+        // Overnight shifts end on the following day
+        if (shift != null && shift[1] <= shift[0] && closeAt == shift[1]) closing = closing.plusDays(1);
+        return !now.isBefore(closing.plusMinutes(bufferMinutes));
+    }
+
+    private static String formatTime(int minutes) {
+        int hour24 = minutes / 60;
+        int hour12 = hour24 % 12 == 0 ? 12 : hour24 % 12;
+        return String.format(Locale.US, "%02d:%02d %s", hour12, minutes % 60, hour24 < 12 ? "AM" : "PM");
+    }
+}
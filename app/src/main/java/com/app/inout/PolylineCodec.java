@@ -0,0 +1,145 @@
+package com.inout.app.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Delta + polyline encoder for GPS trail points.
+ * Each point is (latitude, longitude, seconds) where coordinates are rounded to
+ * 1e-5 degrees (~1.1m) and seconds are relative to the start of the chunk.
+ * Every value is stored as the signed difference from the previous point using
+ * the standard encoded-polyline alphabet, so a typical point costs 6-10 chars.
+ *
+ * Pure Java: no Android dependencies.
+ */
+public final class PolylineCodec {
+
+    private static final double PRECISION = 1e5;
+
+    private final StringBuilder buffer = new StringBuilder();
+    private int prevLat;
+    private int prevLng;
+    private int prevSeconds;
+    private int count;
+
+    /**
+     * Appends a point. Seconds must be non-decreasing within one chunk.
+     */
+    public void append(double latitude, double longitude, int seconds) {
+        int lat = (int) Math.round(latitude * PRECISION);
+        int lng = (int) Math.round(longitude * PRECISION);
+        encodeSigned(lat - prevLat, buffer);
+        encodeSigned(lng - prevLng, buffer);
+        encodeSigned(seconds - prevSeconds, buffer);
+        prevLat = lat;
+        prevLng = lng;
+        prevSeconds = seconds;
+        count++;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public String getEncoded() {
+        return buffer.toString();
+    }
+
+    public void reset() {
+        buffer.setLength(0);
+        prevLat = 0;
+        prevLng = 0;
+        prevSeconds = 0;
+        count = 0;
+    }
+
+    /**
+     * Restores the encoder from a chunk so that appending continues it. The last point and the
+     * count are recovered by decoding, so only the encoded text has to be stored.
+     * @return false (and an empty encoder) if the text is malformed, e.g. a torn write.
+     */
+    public boolean restore(String encoded) {
+        reset();
+        int[] index = {0};
+        int length = encoded.length();
+        try {
+            while (index[0] < length) {
+                prevLat += decodeSigned(encoded, index);
+                prevLng += decodeSigned(encoded, index);
+                prevSeconds += decodeSigned(encoded, index);
+                count++;
+            }
+        } catch (StringIndexOutOfBoundsException e) {
+            reset();
+            return false;
+        }
+        buffer.append(encoded);
+        return true;
+    }
+
+    /**
+     * @return Length of the encoded text, e.g. to mark where the next append starts.
+     */
+    public int length() {
+        return buffer.length();
+    }
+
+    /**
+     * @return The encoded text appended since the given length.
+     */
+    public String getEncodedFrom(int start) {
+        return buffer.substring(start);
+    }
+
+    public int getLastLatE5() {
+        return prevLat;
+    }
+
+    public int getLastLngE5() {
+        return prevLng;
+    }
+
+    public int getLastSeconds() {
+        return prevSeconds;
+    }
+
+    /**
+     * Decodes a chunk into {lat, lng, seconds} triples.
+     */
+    public static List<double[]> decode(String encoded) {
+        List<double[]> points = new ArrayList<>();
+        int[] index = {0};
+        int lat = 0;
+        int lng = 0;
+        int seconds = 0;
+        int length = encoded.length();
+        while (index[0] < length) {
+            lat += decodeSigned(encoded, index);
+            lng += decodeSigned(encoded, index);
+            seconds += decodeSigned(encoded, index);
+            points.add(new double[]{lat / PRECISION, lng / PRECISION, seconds});
+        }
+        return points;
+    }
+
+    private static void encodeSigned(int value, StringBuilder out) {
+        int v = value < 0 ? ~(value << 1) : (value << 1);
+        while (v >= 0x20) {
+            out.append((char) ((0x20 | (v & 0x1f)) + 63));
+            v >>>= 5;
+        }
+        out.append((char) (v + 63));
+    }
+
+    private static int decodeSigned(String encoded, int[] index) {
+        int result = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = encoded.charAt(index[0]++) - 63;
+            result |= (b & 0x1f) << shift;
+            shift += 5;
+        } while (b >= 0x20);
+        return (result & 1) != 0 ? ~(result >> 1) : (result >> 1);
+    }
+}
@@ -0,0 +1,71 @@
+package com.inout.app.utils;
+
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+import android.widget.ImageView;
+
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
+import com.bumptech.glide.request.RequestOptions;
+import com.inout.app.R;
+
+import java.util.regex.Pattern;
+
+/**
+ * Loads employee profile photos at the size they are displayed.
+ * Google account photos are requested from the server already scaled (the "=s{px}-c"
+ * URL suffix), so a 60dp avatar downloads a few KB instead of the full-size image;
+ * other URLs are downsampled on decode via override().
+ */
+public final class ProfilePhotos {
+
+    // Thumbnails in the employee list (matches item_employee's 60dp photo_container)
+    public static final int LIST_THUMB_DP = 60;
+
+    // Trailing size directive of googleusercontent URLs, e.g. "=s96-c"
+    private static final Pattern GOOGLE_SIZE_SUFFIX = Pattern.compile("=s\\d+(-c)?$");
+
+    private ProfilePhotos() {
+    }
+
+    public static int dpToPx(Context context, int dp) {
+        return Math.round(dp * context.getResources().getDisplayMetrics().density);
+    }
+
+    /**
+     * @return The URL to fetch for a square photo of sizePx, or null if there is no photo.
+     */
+    public static String sizedUrl(String photoUrl, int sizePx) {
+        if (photoUrl == null || photoUrl.isEmpty()) return null;
+        if (!photoUrl.contains("googleusercontent.com")) return photoUrl;
+        return GOOGLE_SIZE_SUFFIX.matcher(photoUrl).replaceFirst("") + "=s" + sizePx + "-c";
+    }
+
+    /**
+     * Circular photo request at exactly sizePx, shared by on-screen loads and list preloading
+     * so that preloaded thumbnails hit the same cache keys.
+     */
+    public static RequestBuilder<Drawable> request(RequestManager glide, String photoUrl, int sizePx) {
+        return glide.load(sizedUrl(photoUrl, sizePx))
+                .apply(new RequestOptions()
+                        .override(sizePx, sizePx)
+                        .circleCrop()
+                        // Only the small transformed result is worth keeping on disk
+                        .diskCacheStrategy(DiskCacheStrategy.RESOURCE)
+                        .placeholder(R.drawable.inout)
+                        .error(R.drawable.inout));
+    }
+
+    /**
+     * Loads the photo into the view, or shows the app placeholder if there is none.
+     */
+    public static void load(RequestManager glide, String photoUrl, ImageView target, int sizePx) {
+        if (photoUrl == null || photoUrl.isEmpty()) {
+            glide.clear(target);
+            target.setImageResource(R.drawable.inout);
+            return;
+        }
+        request(glide, photoUrl, sizePx).into(target);
+    }
+}
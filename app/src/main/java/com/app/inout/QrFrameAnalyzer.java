@@ -0,0 +1,268 @@
+package com.inout.app.utils;
+
+import android.graphics.Rect;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.camera.core.ImageAnalysis;
+import androidx.camera.core.ImageProxy;
+
+import com.google.mlkit.vision.barcode.BarcodeScanner;
+import com.google.mlkit.vision.barcode.common.Barcode;
+import com.google.mlkit.vision.common.InputImage;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * CameraX analyzer that feeds QR frames to ML Kit as cheaply as possible:
+ * - Only one frame is in ML Kit at a time; frames arriving meanwhile are dropped.
+ * - Only the luminance inside the on-screen guide box (plus a margin) is copied and
+ *   decoded, with a periodic full-frame pass for codes held outside the guide.
+ * - The gap between analyses adapts to the measured ML Kit latency, so slow
+ *   devices spend less time decoding and keep the preview smooth.
+ * - Records time-to-first-decode and frames-per-decode for diagnostics.
+ */
+public class QrFrameAnalyzer implements ImageAnalysis.Analyzer {
+
+    private static final String TAG = "QrFrameAnalyzer";
+
+    // Extra area around the guide box, so a slightly misaligned code still fits
+    private static final float ROI_MARGIN = 0.15f;
+    // Every Nth analyzed frame decodes the full image instead of the guide region
+    private static final int FULL_FRAME_EVERY = 10;
+    // Fraction of the average decode latency to wait between analyses
+    private static final float IDLE_FACTOR = 0.5f;
+    private static final long MAX_INTERVAL_MS = 400;
+
+    public interface Listener {
+        /**
+         * Called on the main thread with the raw value of a decoded QR code.
+         */
+        void onQrDecoded(String rawValue);
+    }
+
+    private final BarcodeScanner scanner;
+    private final Listener listener;
+    private final AtomicBoolean inFlight = new AtomicBoolean(false);
+
+    private volatile boolean paused;
+    // {viewWidth, viewHeight, left, top, right, bottom} of the guide box in PreviewView coordinates
+    private volatile int[] guide;
+
+    // Reused luminance buffers, one per frame size, so alternating between the guide crop and the
+    // periodic full frame does not reallocate. Only touched while a frame is in flight.
+    private final LumaBuffer cropBuffer = new LumaBuffer();
+    private final LumaBuffer fullFrameBuffer = new LumaBuffer();
+
+    // Adaptive throttle state (analyzer thread)
+    private long lastAnalysisAt;
+    private volatile float avgLatencyMs;
+
+    // Metrics
+    private long startedAt;
+    private long firstDecodeMs = -1;
+    private int framesReceived;
+    private int framesAnalyzed;
+    private int framesSkipped;
+    private int framesAnalyzedAtFirstDecode;
+
+    public QrFrameAnalyzer(BarcodeScanner scanner, Listener listener) {
+        this.scanner = scanner;
+        this.listener = listener;
+    }
+
+    /**
+     * Restricts decoding to the given guide box. Call after layout; the preview is
+     * assumed to use PreviewView's default FILL_CENTER scale type.
+     */
+    public void setRegionOfInterest(int viewWidth, int viewHeight, Rect guideBox) {
+        if (viewWidth <= 0 || viewHeight <= 0 || guideBox == null || guideBox.isEmpty()) {
+            guide = null;
+            return;
+        }
+        guide = new int[]{viewWidth, viewHeight, guideBox.left, guideBox.top, guideBox.right, guideBox.bottom};
+    }
+
+    /**
+     * Stops analysis while a decoded value is being handled, so no more frames are wasted.
+     */
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+    }
+
+    @Override
+    public void analyze(@NonNull ImageProxy imageProxy) {
+        long now = SystemClock.elapsedRealtime();
+        if (startedAt == 0) startedAt = now;
+        framesReceived++;
+
+        long interval = Math.min(MAX_INTERVAL_MS, (long) (avgLatencyMs * IDLE_FACTOR));
+        if (paused || now - lastAnalysisAt < interval || !inFlight.compareAndSet(false, true)) {
+            framesSkipped++;
+            imageProxy.close();
+            return;
+        }
+
+        InputImage image;
+        try {
+            boolean fullFrame = guide == null || framesAnalyzed % FULL_FRAME_EVERY == FULL_FRAME_EVERY - 1;
+            Rect crop = fullFrame ? null : mapGuideToImage(imageProxy);
+            image = copyLuminance(imageProxy, crop);
+        } catch (Exception e) {
+            Log.e(TAG, "Frame copy failed", e);
+            inFlight.set(false);
+            return;
+        } finally {
+            // The luminance is copied, so the camera buffer can be released right away
+            imageProxy.close();
+        }
+
+        lastAnalysisAt = now;
+        framesAnalyzed++;
+        final long submittedAt = now;
+
+        scanner.process(image)
+                .addOnSuccessListener(barcodes -> {
+                    String rawValue = null;
+                    for (Barcode barcode : barcodes) {
+                        if (barcode.getRawValue() != null) {
+                            rawValue = barcode.getRawValue();
+                            break;
+                        }
+                    }
+                    if (rawValue != null && !paused) {
+                        recordDecode();
+                        listener.onQrDecoded(rawValue);
+                    }
+                })
+                .addOnFailureListener(e -> Log.e(TAG, "Camera QR analysis failed", e))
+                .addOnCompleteListener(task -> {
+                    long latency = SystemClock.elapsedRealtime() - submittedAt;
+                    avgLatencyMs = avgLatencyMs == 0 ? latency : avgLatencyMs * 0.8f + latency * 0.2f;
+                    inFlight.set(false);
+                });
+    }
+
+    private void recordDecode() {
+        if (firstDecodeMs >= 0) return;
+        firstDecodeMs = SystemClock.elapsedRealtime() - startedAt;
+        framesAnalyzedAtFirstDecode = framesAnalyzed;
+        Log.d(TAG, getStatsSummary());
+    }
+
+    /**
+     * @return Milliseconds from the first camera frame to the first decoded QR, or -1.
+     */
+    public long getTimeToFirstDecodeMs() {
+        return firstDecodeMs;
+    }
+
+    public String getStatsSummary() {
+        return String.format(Locale.US,
+                "QR scan: first decode %d ms, %d frames analyzed per decode, %d received, %d skipped, avg decode %.0f ms",
+                firstDecodeMs, framesAnalyzedAtFirstDecode, framesReceived, framesSkipped, avgLatencyMs);
+    }
+
+    /**
+     * Maps the on-screen guide box (plus margin) into sensor buffer coordinates.
+     * @return The crop rectangle, or null to decode the whole frame.
+     */
+    private Rect mapGuideToImage(ImageProxy imageProxy) {
+        int[] g = guide;
+        if (g == null) return null;
+
+        int width = imageProxy.getWidth();
+        int height = imageProxy.getHeight();
+        int rotation = imageProxy.getImageInfo().getRotationDegrees();
+        boolean swapped = rotation == 90 || rotation == 270;
+        float rotatedW = swapped ? height : width;
+        float rotatedH = swapped ? width : height;
+
+        // FILL_CENTER: the image is scaled to cover the view and centered
+        float scale = Math.max(g[0] / rotatedW, g[1] / rotatedH);
+        float offsetX = (rotatedW * scale - g[0]) / 2f;
+        float offsetY = (rotatedH * scale - g[1]) / 2f;
+
+        float marginX = (g[4] - g[2]) * ROI_MARGIN;
+        float marginY = (g[5] - g[3]) * ROI_MARGIN;
+        float x0 = (g[2] - marginX + offsetX) / scale;
+        float x1 = (g[4] + marginX + offsetX) / scale;
+        float y0 = (g[3] - marginY + offsetY) / scale;
+        float y1 = (g[5] + marginY + offsetY) / scale;
+
+        // Undo the display rotation (the rotated image is the buffer turned clockwise)
+        Rect r;
+        switch (rotation) {
+            case 90:
+                r = new Rect((int) y0, (int) (height - x1), (int) y1, (int) (height - x0));
+                break;
+            case 180:
+                r = new Rect((int) (width - x1), (int) (height - y1), (int) (width - x0), (int) (height - y0));
+                break;
+            case 270:
+                r = new Rect((int) (width - y1), (int) x0, (int) (width - y0), (int) x1);
+                break;
+            default:
+                r = new Rect((int) x0, (int) y0, (int) x1, (int) y1);
+                break;
+        }
+        if (!r.intersect(0, 0, width, height) || r.width() < 32 || r.height() < 32) return null;
+        return r;
+    }
+
+    /**
+     * Copies the Y plane (optionally cropped) into a reused NV21 buffer. QR codes are
+     * rotation-invariant, so the crop is decoded unrotated.
+     */
+    private InputImage copyLuminance(ImageProxy imageProxy, Rect crop) {
+        LumaBuffer target = crop != null ? cropBuffer : fullFrameBuffer;
+        if (crop == null) crop = new Rect(0, 0, imageProxy.getWidth(), imageProxy.getHeight());
+        // NV21 needs even dimensions
+        int w = crop.width() & ~1;
+        int h = crop.height() & ~1;
+        byte[] nv21 = target.ensure(w, h);
+
+        ImageProxy.PlaneProxy yPlane = imageProxy.getPlanes()[0];
+        ByteBuffer buffer = yPlane.getBuffer();
+        int rowStride = yPlane.getRowStride();
+        int pixelStride = yPlane.getPixelStride();
+
+        if (pixelStride == 1) {
+            for (int row = 0; row < h; row++) {
+                buffer.position((crop.top + row) * rowStride + crop.left);
+                buffer.get(nv21, row * w, w);
+            }
+        } else {
+            for (int row = 0; row < h; row++) {
+                int base = (crop.top + row) * rowStride + crop.left * pixelStride;
+                for (int col = 0; col < w; col++) {
+                    nv21[row * w + col] = buffer.get(base + col * pixelStride);
+                }
+            }
+        }
+        return InputImage.fromByteArray(nv21, w, h, 0, InputImage.IMAGE_FORMAT_NV21);
+    }
+
+    /**
+     * An NV21 frame with neutral chroma, reallocated only when its size changes.
+     */
+    private static final class LumaBuffer {
+        private byte[] data;
+        private int width;
+        private int height;
+
+        byte[] ensure(int w, int h) {
+            if (data == null || width != w || height != h) {
+                data = new byte[w * h * 3 / 2];
+                Arrays.fill(data, w * h, data.length, (byte) 128);
+                width = w;
+                height = h;
+            }
+            return data;
+        }
+    }
+}
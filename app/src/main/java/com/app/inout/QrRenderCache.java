@@ -0,0 +1,178 @@
+package com.inout.app.utils;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.LruCache;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.MultiFormatWriter;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.journeyapps.barcodescanner.BarcodeEncoder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Renders QR codes off the main thread and caches the result per payload hash,
+ * both in memory (Bitmap) and on disk (PNG under cache/images, shareable through
+ * the FileProvider). Regenerating or sharing an unchanged payload is served from
+ * the cache without re-encoding or re-compressing.
+ */
+public class QrRenderCache {
+
+    private static final String TAG = "QrRenderCache";
+    private static final String DIR_NAME = "images";
+    private static final String FILE_PREFIX = "qr_";
+    private static final int MEMORY_ENTRIES = 4;
+    private static final int DISK_ENTRIES = 4;
+
+    /**
+     * Builds the string to encode. Runs on the render thread, and only on a cache miss.
+     */
+    public interface ContentSource {
+        String build() throws Exception;
+    }
+
+    public interface Callback {
+        /**
+         * Called on the main thread. The PNG is already written and ready to share.
+         */
+        void onRendered(Bitmap bitmap, File png);
+
+        void onError(Exception e);
+    }
+
+    private static final class Entry {
+        final Bitmap bitmap;
+        final File png;
+
+        Entry(Bitmap bitmap, File png) {
+            this.bitmap = bitmap;
+            this.png = png;
+        }
+    }
+
+    private static QrRenderCache instance;
+
+    private final File dir;
+    private final ExecutorService renderExecutor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final LruCache<String, Entry> memory = new LruCache<>(MEMORY_ENTRIES);
+
+    private QrRenderCache(Context context) {
+        this.dir = new File(context.getCacheDir(), DIR_NAME);
+    }
+
+    public static synchronized QrRenderCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new QrRenderCache(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * @param key  Stable identifier of what the QR represents (see {@link #keyOf}).
+     *             For encrypted payloads, hash the plaintext: the ciphertext changes on
+     *             every call but any of them decodes to the same enrollment data.
+     * @param size Edge length of the square bitmap in pixels.
+     */
+    public void render(String key, int size, ContentSource source, Callback callback) {
+        final String sizedKey = key + "_" + size;
+        Entry cached = memory.get(sizedKey);
+        if (cached != null && cached.png.exists()) {
+            callback.onRendered(cached.bitmap, cached.png);
+            return;
+        }
+
+        renderExecutor.execute(() -> {
+            try {
+                File png = new File(dir, FILE_PREFIX + sizedKey + ".png");
+                Bitmap bitmap = png.exists() ? BitmapFactory.decodeFile(png.getAbsolutePath()) : null;
+
+                if (bitmap == null) {
+                    long start = System.currentTimeMillis();
+                    bitmap = encodeAsBitmap(source.build(), size);
+                    writePng(bitmap, png);
+                    trimDisk();
+                    Log.d(TAG, "Rendered QR " + size + "px in " + (System.currentTimeMillis() - start) + " ms");
+                }
+
+                Entry entry = new Entry(bitmap, png);
+                memory.put(sizedKey, entry);
+                mainHandler.post(() -> callback.onRendered(entry.bitmap, entry.png));
+            } catch (Exception e) {
+                Log.e(TAG, "QR render failed", e);
+                mainHandler.post(() -> callback.onError(e));
+            }
+        });
+    }
+
+    /**
+     * @return Hex of the first 128 bits of SHA-256 over the given bytes, for use as a cache key.
+     */
+    public static String keyOf(byte[] data) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(data);
+            StringBuilder sb = new StringBuilder(32);
+            for (int i = 0; i < 16; i++) {
+                sb.append(String.format(Locale.US, "%02x", hash[i]));
+            }
+            return sb.toString();
+        } catch (Exception e) {
+            // SHA-256 is always available; fall back to a content hash just in case
+            return Integer.toHexString(Arrays.hashCode(data));
+        }
+    }
+
+    /**
+     * Encodes a QR code synchronously. Callers must be off the main thread.
+     */
+    public static Bitmap encodeAsBitmap(String content, int size) throws WriterException {
+        // Medium error correction: payloads are compact, and codes are scanned from screens and prints
+        Map<EncodeHintType, Object> hints = new EnumMap<>(EncodeHintType.class);
+        hints.put(EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.M);
+        hints.put(EncodeHintType.MARGIN, 2);
+        BitMatrix bitMatrix = new MultiFormatWriter().encode(content, BarcodeFormat.QR_CODE, size, size, hints);
+        return new BarcodeEncoder().createBitmap(bitMatrix);
+    }
+
+    private void writePng(Bitmap bitmap, File png) throws IOException {
+        dir.mkdirs();
+        // Write to a temp file first, so a crash never leaves a truncated PNG in the cache
+        File tmp = new File(dir, png.getName() + ".tmp");
+        try (FileOutputStream stream = new FileOutputStream(tmp)) {
+            bitmap.compress(Bitmap.CompressFormat.PNG, 100, stream);
+        }
+        if (!tmp.renameTo(png)) {
+            tmp.delete();
+            throw new IOException("Could not move " + tmp + " to " + png);
+        }
+    }
+
+    /**
+     * Keeps only the most recently written QR PNGs.
+     */
+    private void trimDisk() {
+        File[] files = dir.listFiles((d, name) -> name.startsWith(FILE_PREFIX) && name.endsWith(".png"));
+        if (files == null || files.length <= DISK_ENTRIES) return;
+        Arrays.sort(files, (a, b) -> Long.compare(b.lastModified(), a.lastModified()));
+        for (int i = DISK_ENTRIES; i < files.length; i++) {
+            files[i].delete();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.inout.app.models;
+
+import com.google.firebase.firestore.IgnoreExtraProperties;
+import com.google.firebase.firestore.PropertyName;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A rotating roster: a cycle of days, each a shift template ID or "OFF", repeating from an anchor date.
+ * Stored in Firestore under 'rosters'. Weekly off days are a 7-day cycle anchored on a Monday,
+ * e.g. [day, day, day, day, day, OFF, OFF].
+ */
+@IgnoreExtraProperties
+public class Roster {
+
+    public static final String OFF = "OFF";
+
+    private String id;
+    private String name;
+    private List<String> pattern;
+    private String anchorDate;  // yyyy-MM-dd, the date of pattern[0]
+
+    public Roster() {
+        // Default constructor required for Firestore
+        this.pattern = new ArrayList<>();
+    }
+
+    @PropertyName("id")
+    public String getId() {
+        return id;
+    }
+
+    @PropertyName("id")
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    @PropertyName("name")
+    public String getName() {
+        return name;
+    }
+
+    @PropertyName("name")
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    @PropertyName("pattern")
+    public List<String> getPattern() {
+        return pattern;
+    }
+
+    @PropertyName("pattern")
+    public void setPattern(List<String> pattern) {
+        this.pattern = pattern;
+    }
+
+    @PropertyName("anchorDate")
+    public String getAnchorDate() {
+        return anchorDate;
+    }
+
+    @PropertyName("anchorDate")
+    public void setAnchorDate(String anchorDate) {
+        this.anchorDate = anchorDate;
+    }
+}
@@ -0,0 +1,391 @@
+package com.inout.app;
+
+import android.Manifest;
+import android.content.pm.PackageManager;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.WindowManager;
+import android.view.inputmethod.EditorInfo;
+import android.widget.Toast;
+
+import androidx.annotation.NonNull;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.camera.core.CameraSelector;
+import androidx.camera.core.ImageAnalysis;
+import androidx.camera.core.Preview;
+import androidx.camera.lifecycle.ProcessCameraProvider;
+import androidx.core.app.ActivityCompat;
+import androidx.core.content.ContextCompat;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.mlkit.vision.barcode.BarcodeScanner;
+import com.google.mlkit.vision.barcode.BarcodeScannerOptions;
+import com.google.mlkit.vision.barcode.BarcodeScanning;
+import com.google.mlkit.vision.barcode.common.Barcode;
+import com.inout.app.databinding.ActivitySharedKioskBinding;
+import com.inout.app.models.AttendanceRecord;
+import com.inout.app.models.CompanyConfig;
+import com.inout.app.models.User;
+import com.inout.app.utils.BiometricHelper;
+import com.inout.app.utils.KioskCheckInQueue;
+import com.inout.app.utils.KioskTokenHelper;
+import com.inout.app.utils.QrFrameAnalyzer;
+import com.inout.app.utils.ShiftCatalog;
+import com.inout.app.utils.ShiftSchedule;
+import com.inout.app.utils.TimeUtils;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * NEW: Shared-device kiosk for sites without personal phones.
+ * Employees identify themselves in succession, either with their Employee ID plus the
+ * device fingerprint sensor or by holding their signed badge QR up to the front camera.
+ * Neither proves identity the way a personal phone does: the tablet's biometric prompt only
+ * shows that some finger enrolled on this device matched, so it is recorded as kioskDeviceAuth
+ * and never as fingerprintVerified, and a badge proves possession of the card, not presence.
+ * The roster and today's attendance are kept in memory via two listeners, so deciding
+ * IN vs OUT needs no per-person network call; punches go to KioskCheckInQueue and are
+ * written to Firestore in batches.
+ */
+public class SharedKioskActivity extends AppCompatActivity implements KioskCheckInQueue.QueueListener {
+
+    private static final String TAG = "SharedKioskActivity";
+    public static final String EXTRA_LOCATION_ID = "extra_location_id";
+    public static final String EXTRA_LOCATION_NAME = "extra_location_name";
+    public static final String EXTRA_LOCATION_LAT = "extra_location_lat";
+    public static final String EXTRA_LOCATION_LNG = "extra_location_lng";
+
+    private static final int PERMISSION_REQUEST_CAMERA = 1002;
+    // The same badge held in front of the camera is only punched once in this window
+    private static final long BADGE_COOLDOWN_MS = 10000;
+    private static final long RESULT_DISPLAY_MS = 4000;
+
+    private ActivitySharedKioskBinding binding;
+    private FirebaseFirestore db;
+    private KioskCheckInQueue queue;
+    private ExecutorService cameraExecutor;
+    private BarcodeScanner scanner;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private String locationId;
+    private String locationName;
+    private double locationLat;
+    private double locationLng;
+
+    // Upper-cased Employee ID -> employee / today's record
+    private final Map<String, User> roster = new HashMap<>();
+    private final Map<String, AttendanceRecord> todayRecords = new HashMap<>();
+    private ListenerRegistration rosterListener;
+    private ListenerRegistration attendanceListener;
+    private ListenerRegistration locationListener;
+    // Badge issuer key id -> public key, from this location's config
+    private Map<String, String> badgeKeys;
+    private String attendanceDateId;
+
+    private String lastBadge;
+    private long lastBadgeAt;
+
+    private final Runnable clearResultTask = () -> {
+        if (binding == null) return;
+        binding.tvPunchResult.setText("Ready");
+        binding.tvPunchResult.setTextColor(ContextCompat.getColor(this, android.R.color.black));
+    };
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        if (InOutApplication.restartIfStarting(this)) return;
+        binding = ActivitySharedKioskBinding.inflate(getLayoutInflater());
+        setContentView(binding.getRoot());
+        getWindow().addFlags(WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON);
+
+        locationId = getIntent().getStringExtra(EXTRA_LOCATION_ID);
+        locationName = getIntent().getStringExtra(EXTRA_LOCATION_NAME);
+        locationLat = getIntent().getDoubleExtra(EXTRA_LOCATION_LAT, 0);
+        locationLng = getIntent().getDoubleExtra(EXTRA_LOCATION_LNG, 0);
+        if (locationId == null) {
+            finish();
+            return;
+        }
+
+        db = FirebaseFirestore.getInstance();
+        queue = KioskCheckInQueue.getInstance(this);
+        cameraExecutor = Executors.newSingleThreadExecutor();
+        scanner = BarcodeScanning.getClient(new BarcodeScannerOptions.Builder()
+                .setBarcodeFormats(Barcode.FORMAT_QR_CODE)
+                .build());
+
+        binding.tvKioskLocation.setText(locationName);
+        binding.btnClose.setOnClickListener(v -> finish());
+        binding.btnFingerprintPunch.setOnClickListener(v -> punchWithFingerprint());
+        binding.etEmployeeId.setOnEditorActionListener((v, actionId, event) -> {
+            if (actionId == EditorInfo.IME_ACTION_DONE) {
+                punchWithFingerprint();
+                return true;
+            }
+            return false;
+        });
+
+        listenForRoster();
+        listenForBadgeKeys();
+        // Expected shifts must be loaded before the first punch
+        ShiftCatalog.getInstance().start();
+        if (ContextCompat.checkSelfPermission(this, Manifest.permission.CAMERA) == PackageManager.PERMISSION_GRANTED) {
+            startBadgeScanner();
+        } else {
+            ActivityCompat.requestPermissions(this, new String[]{Manifest.permission.CAMERA}, PERMISSION_REQUEST_CAMERA);
+        }
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        queue.addListener(this);
+        listenForTodayAttendance();
+    }
+
+    @Override
+    protected void onStop() {
+        queue.removeListener(this);
+        // Push out whatever is queued when the kiosk is closed or backgrounded
+        queue.flush();
+        super.onStop();
+    }
+
+    @Override
+    public void onPendingCountChanged(int pending) {
+        if (binding == null) return;
+        binding.tvSyncStatus.setText(pending == 0 ? "All check-ins synced" : pending + " check-ins waiting to sync");
+    }
+
+    private void listenForRoster() {
+        rosterListener = db.collection("users")
+                .whereEqualTo("role", "employee")
+                .whereEqualTo("approved", true)
+                .addSnapshotListener((value, error) -> {
+                    if (error != null || value == null) return;
+                    roster.clear();
+                    for (DocumentSnapshot doc : value.getDocuments()) {
+                        User user = doc.toObject(User.class);
+                        if (user != null && user.getEmployeeId() != null) {
+                            roster.put(normalizeId(user.getEmployeeId()), user);
+                        }
+                    }
+                });
+    }
+
+    private void listenForBadgeKeys() {
+        locationListener = db.collection("locations").document(locationId)
+                .addSnapshotListener((value, error) -> {
+                    if (error != null || value == null) return;
+                    CompanyConfig location = value.toObject(CompanyConfig.class);
+                    badgeKeys = location != null ? location.getBadgeKeys() : null;
+                });
+    }
+
+    /**
+     * One listener for all of today's records; re-subscribed when the date rolls over.
+     */
+    private void listenForTodayAttendance() {
+        String dateId = TimeUtils.getCurrentDateId();
+        if (attendanceListener != null && dateId.equals(attendanceDateId)) return;
+        if (attendanceListener != null) attendanceListener.remove();
+
+        attendanceDateId = dateId;
+        todayRecords.clear();
+        attendanceListener = db.collection("attendance")
+                .whereEqualTo("date", dateId)
+                .addSnapshotListener((value, error) -> {
+                    if (error != null || value == null) return;
+                    todayRecords.clear();
+                    for (DocumentSnapshot doc : value.getDocuments()) {
+                        AttendanceRecord record = doc.toObject(AttendanceRecord.class);
+                        if (record != null && record.getEmployeeId() != null) {
+                            todayRecords.put(normalizeId(record.getEmployeeId()), record);
+                        }
+                    }
+                });
+    }
+
+    private void punchWithFingerprint() {
+        String enteredId = binding.etEmployeeId.getText() != null ? binding.etEmployeeId.getText().toString().trim() : "";
+        if (enteredId.isEmpty()) {
+            binding.tilEmployeeId.setError("Enter your Employee ID");
+            return;
+        }
+        binding.tilEmployeeId.setError(null);
+
+        User employee = roster.get(normalizeId(enteredId));
+        if (employee == null) {
+            showResult("Unknown Employee ID: " + enteredId, false);
+            return;
+        }
+
+        BiometricHelper.authenticate(this, new BiometricHelper.BiometricCallback() {
+            @Override
+            public void onAuthenticationSuccess() {
+                punch(employee, true);
+            }
+
+            @Override
+            public void onAuthenticationError(String errorMsg) {
+                Toast.makeText(SharedKioskActivity.this, "Auth Error: " + errorMsg, Toast.LENGTH_SHORT).show();
+            }
+
+            @Override
+            public void onAuthenticationFailed() {
+                Toast.makeText(SharedKioskActivity.this, "Fingerprint not recognized.", Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
+    /**
+     * A badge is a QR signed by an admin device (KioskTokenHelper.issueBadge) whose issue time
+     * matches the employee's current badge, so re-issuing revokes lost or copied prints.
+     */
+    private void onBadgeScanned(String rawValue) {
+        long now = SystemClock.elapsedRealtime();
+        if (rawValue.equals(lastBadge) && now - lastBadgeAt < BADGE_COOLDOWN_MS) return;
+        lastBadge = rawValue;
+        lastBadgeAt = now;
+
+        KioskTokenHelper.Badge badge = KioskTokenHelper.verifyBadge(rawValue, badgeKeys);
+        if (badge == null) {
+            showResult("Badge not recognized", false);
+            return;
+        }
+        User employee = roster.get(normalizeId(badge.employeeId));
+        if (employee == null || employee.getBadgeIssuedAt() != badge.issuedAt) {
+            showResult("Badge revoked. Ask your admin for a new one.", false);
+            return;
+        }
+        punch(employee, false);
+    }
+
+    /**
+     * Decides IN or OUT from in-memory state and queues the punch. Never waits on the network.
+     */
+    private void punch(User employee, boolean deviceAuth) {
+        listenForTodayAttendance();
+        // A half-loaded catalog would stamp fixed-shift labels and overtime on rostered staff
+        if (!ShiftCatalog.getInstance().isLoaded()) {
+            showResult("Loading shift schedule. Try again in a moment.", false);
+            return;
+        }
+        String key = normalizeId(employee.getEmployeeId());
+        String dateId = TimeUtils.getCurrentDateId();
+
+        // Queued punches are newer than what Firestore has told us so far
+        String checkInTime = null;
+        String checkOutTime = null;
+        AttendanceRecord record = todayRecords.get(key);
+        if (record != null) {
+            checkInTime = record.getCheckInTime();
+            checkOutTime = record.getCheckOutTime();
+        }
+        for (KioskCheckInQueue.Punch queued : queue.getPending()) {
+            if (!queued.employeeId.equalsIgnoreCase(employee.getEmployeeId()) || !dateId.equals(queued.date)) continue;
+            if (KioskCheckInQueue.ACTION_IN.equals(queued.action)) checkInTime = queued.time;
+            else checkOutTime = queued.time;
+        }
+
+        String name = employee.getName() != null ? employee.getName() : employee.getEmployeeId();
+        String now = TimeUtils.getCurrentTime();
+        // Expected shift for the punch's day, from the employee's roster or fixed shift
+        ShiftSchedule.Shift shift = ShiftCatalog.getInstance().getSchedule().shiftOn(employee, LocalDate.parse(dateId));
+
+        if (checkInTime == null) {
+            if (employee.getAssignedLocationId() != null && !locationId.equals(employee.getAssignedLocationId())) {
+                showResult(name + " is not assigned to " + locationName, false);
+                return;
+            }
+            if (shift != null && !TimeUtils.isTimeReached(shift.startTime)) {
+                showResult(name + ": shift starts at " + shift.startTime, false);
+                return;
+            }
+            queue.enqueue(new KioskCheckInQueue.Punch(KioskCheckInQueue.ACTION_IN, employee.getEmployeeId(), employee.getName(),
+                    dateId, now, TimeUtils.getCurrentTimestamp(), locationId, locationName, locationLat, locationLng,
+                    shift != null ? shift.label : "N/A", deviceAuth, null, null));
+            showResult("IN  " + name + "  " + now, true);
+        } else if (checkOutTime == null || checkOutTime.isEmpty()) {
+            String totalHours = TimeUtils.calculateDuration(checkInTime, now);
+            String overtime = shift != null ? shift.overtimeFor(checkInTime, now) : "0h 00m";
+            queue.enqueue(new KioskCheckInQueue.Punch(KioskCheckInQueue.ACTION_OUT, employee.getEmployeeId(), employee.getName(),
+                    dateId, now, TimeUtils.getCurrentTimestamp(), locationId, locationName, locationLat, locationLng,
+                    null, deviceAuth, totalHours, overtime));
+            showResult("OUT  " + name + "  " + now + " (" + totalHours + ")", true);
+        } else {
+            showResult(name + ": shift already completed today", false);
+        }
+        binding.etEmployeeId.setText("");
+    }
+
+    private void showResult(String message, boolean success) {
+        if (binding == null) return;
+        binding.tvPunchResult.setText(message);
+        binding.tvPunchResult.setTextColor(ContextCompat.getColor(this, success ? R.color.status_green : R.color.status_red));
+        mainHandler.removeCallbacks(clearResultTask);
+        mainHandler.postDelayed(clearResultTask, RESULT_DISPLAY_MS);
+    }
+
+    private static String normalizeId(String id) {
+        return id.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private void startBadgeScanner() {
+        ListenableFuture<ProcessCameraProvider> cameraProviderFuture = ProcessCameraProvider.getInstance(this);
+        cameraProviderFuture.addListener(() -> {
+            try {
+                ProcessCameraProvider cameraProvider = cameraProviderFuture.get();
+
+                Preview preview = new Preview.Builder().build();
+                preview.setSurfaceProvider(binding.viewFinder.getSurfaceProvider());
+
+                ImageAnalysis imageAnalysis = new ImageAnalysis.Builder()
+                        .setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST)
+                        .build();
+                imageAnalysis.setAnalyzer(cameraExecutor, new QrFrameAnalyzer(scanner, this::onBadgeScanned));
+
+                // Tablets at the door face the people using them
+                CameraSelector selector = cameraProvider.hasCamera(CameraSelector.DEFAULT_FRONT_CAMERA)
+                        ? CameraSelector.DEFAULT_FRONT_CAMERA : CameraSelector.DEFAULT_BACK_CAMERA;
+
+                cameraProvider.unbindAll();
+                cameraProvider.bindToLifecycle(this, selector, preview, imageAnalysis);
+            } catch (Exception e) {
+                Log.e(TAG, "Badge scanner unavailable", e);
+            }
+        }, ContextCompat.getMainExecutor(this));
+    }
+
+    @Override
+    public void onRequestPermissionsResult(int requestCode, @NonNull String[] permissions, @NonNull int[] grantResults) {
+        super.onRequestPermissionsResult(requestCode, permissions, grantResults);
+        if (requestCode == PERMISSION_REQUEST_CAMERA
+                && ContextCompat.checkSelfPermission(this, Manifest.permission.CAMERA) == PackageManager.PERMISSION_GRANTED) {
+            startBadgeScanner();
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        mainHandler.removeCallbacksAndMessages(null);
+        if (rosterListener != null) rosterListener.remove();
+        if (attendanceListener != null) attendanceListener.remove();
+        if (locationListener != null) locationListener.remove();
+        if (cameraExecutor != null) cameraExecutor.shutdown();
+        binding = null;
+        super.onDestroy();
+    }
+}
@@ -0,0 +1,149 @@
+package com.inout.app.utils;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.inout.app.models.Roster;
+import com.inout.app.models.ShiftTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Keeps the company's shift templates and rosters in sync with Firestore and republishes them
+ * as a compiled {@link ShiftSchedule} whenever either collection changes.
+ * Screens read {@link #getSchedule()} and register a listener to re-render on changes. Main thread only.
+ */
+public class ShiftCatalog {
+
+    private static final String TAG = "ShiftCatalog";
+    public static final String TEMPLATES_COLLECTION = "shift_templates";
+    public static final String ROSTERS_COLLECTION = "rosters";
+    // After a listener error, start() re-subscribes no sooner than this
+    private static final long RETRY_DELAY_MS = 30000;
+
+    private static ShiftCatalog instance;
+
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private List<ShiftTemplate> templates = new ArrayList<>();
+    private List<Roster> rosters = new ArrayList<>();
+    private volatile ShiftSchedule schedule = ShiftSchedule.EMPTY;
+    private ListenerRegistration templatesRegistration;
+    private ListenerRegistration rostersRegistration;
+    private boolean templatesLoaded;
+    private boolean rostersLoaded;
+    private long failedAt;
+
+    private ShiftCatalog() {
+    }
+
+    public static synchronized ShiftCatalog getInstance() {
+        if (instance == null) {
+            instance = new ShiftCatalog();
+        }
+        return instance;
+    }
+
+    /**
+     * Starts listening to both collections. Safe to call repeatedly.
+     */
+    public void start() {
+        if (templatesRegistration != null) return;
+        if (failedAt != 0 && SystemClock.elapsedRealtime() - failedAt < RETRY_DELAY_MS) return;
+        FirebaseFirestore db = FirebaseFirestore.getInstance();
+        templatesRegistration = db.collection(TEMPLATES_COLLECTION).addSnapshotListener((value, error) -> {
+            if (error != null) {
+                Log.e(TAG, "Failed to load shift templates", error);
+                onListenerFailed();
+                return;
+            }
+            if (value == null) return;
+            List<ShiftTemplate> loaded = new ArrayList<>();
+            for (DocumentSnapshot doc : value) {
+                ShiftTemplate template = doc.toObject(ShiftTemplate.class);
+                if (template != null) {
+                    template.setId(doc.getId());
+                    loaded.add(template);
+                }
+            }
+            templates = loaded;
+            templatesLoaded = true;
+            publish();
+        });
+        rostersRegistration = db.collection(ROSTERS_COLLECTION).addSnapshotListener((value, error) -> {
+            if (error != null) {
+                Log.e(TAG, "Failed to load rosters", error);
+                onListenerFailed();
+                return;
+            }
+            if (value == null) return;
+            List<Roster> loaded = new ArrayList<>();
+            for (DocumentSnapshot doc : value) {
+                Roster roster = doc.toObject(Roster.class);
+                if (roster != null) {
+                    roster.setId(doc.getId());
+                    loaded.add(roster);
+                }
+            }
+            rosters = loaded;
+            rostersLoaded = true;
+            publish();
+        });
+    }
+
+    /**
+     * A failed listener is dead. Drop both so a later start() re-subscribes, and publish what we
+     * have (empty on a first failure), so fixed shift hours apply instead of blocking punches.
+     */
+    private void onListenerFailed() {
+        if (templatesRegistration != null) templatesRegistration.remove();
+        if (rostersRegistration != null) rostersRegistration.remove();
+        templatesRegistration = null;
+        rostersRegistration = null;
+        failedAt = SystemClock.elapsedRealtime();
+        templatesLoaded = true;
+        rostersLoaded = true;
+        publish();
+    }
+
+    // Recompiles once both collections have arrived (a half-loaded catalog would drop rostered shifts)
+    private void publish() {
+        if (!templatesLoaded || !rostersLoaded) return;
+        schedule = new ShiftSchedule(templates, rosters);
+        for (String problem : schedule.getProblems()) Log.w(TAG, problem);
+        for (Runnable listener : listeners) listener.run();
+    }
+
+    /**
+     * @return The current schedule; EMPTY (fixed shifts only) until the catalog has loaded.
+     */
+    public ShiftSchedule getSchedule() {
+        start();
+        return schedule;
+    }
+
+    public boolean isLoaded() {
+        return templatesLoaded && rostersLoaded;
+    }
+
+    public List<ShiftTemplate> getTemplates() {
+        return templates;
+    }
+
+    public List<Roster> getRosters() {
+        return rosters;
+    }
+
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+        start();
+    }
+
+    public void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+}
@@ -0,0 +1,272 @@
+package com.inout.app.utils;
+
+import com.inout.app.models.Roster;
+import com.inout.app.models.ShiftTemplate;
+import com.inout.app.models.User;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled shift templates and rosters, expanded into compact per-employee month schedules.
+ * Templates are parsed once into minute offsets; a month is a bitmask of working days plus a
+ * shift index per day, so "what shift does this employee have on day N" is two array reads.
+ *
+ * Employees without a roster keep their fixed shift (User.shiftStartTime/shiftEndTime) every day.
+ * Catalog entries that cannot be compiled are skipped and listed in {@link #getProblems()}.
+ * Pure Java; the current instance is kept up to date from Firestore by ShiftCatalog.
+ */
+public final class ShiftSchedule {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    // Shift indexes are stored as bytes; templates beyond this are ignored and reported
+    public static final int MAX_SHIFTS = Byte.MAX_VALUE;
+    private static final byte NO_SHIFT = -1;
+    private static final int MONTH_CACHE_SIZE = 256;
+
+    public static final ShiftSchedule EMPTY = new ShiftSchedule(null, null);
+
+    /**
+     * A shift with its times parsed into minutes after midnight. Split shifts have a second segment.
+     */
+    public static final class Shift {
+        public final String id;
+        public final String name;
+        public final String startTime;
+        public final String endTime;
+        public final int startMinutes;
+        public final int endMinutes;
+        public final int splitStartMinutes;     // -1 if not a split shift
+        public final int splitEndMinutes;
+        public final int scheduledMinutes;      // Working time, excluding a split shift's break
+        public final String label;              // As stored in AttendanceRecord.assignedShift
+
+        Shift(String id, String name, String startTime, String endTime, String splitStartTime, String splitEndTime) {
+            this.id = id;
+            this.name = name;
+            this.startTime = startTime;
+            this.endTime = endTime;
+            this.startMinutes = AttendanceRules.parseTime(startTime);
+            this.endMinutes = AttendanceRules.parseTime(endTime);
+            int splitStart = AttendanceRules.parseTime(splitStartTime);
+            int splitEnd = AttendanceRules.parseTime(splitEndTime);
+            boolean split = splitStart >= 0 && splitEnd >= 0;
+            this.splitStartMinutes = split ? splitStart : -1;
+            this.splitEndMinutes = split ? splitEnd : -1;
+            this.scheduledMinutes = span(startMinutes, endMinutes) + (split ? span(splitStart, splitEnd) : 0);
+            this.label = split
+                    ? startTime + " - " + endTime + ", " + splitStartTime + " - " + splitEndTime
+                    : startTime + " - " + endTime;
+        }
+
+        public boolean isSplit() {
+            return splitStartMinutes >= 0;
+        }
+
+        /**
+         * @return Time worked beyond the scheduled minutes, e.g. "1h 30m", or "0h 00m".
+         */
+        public String overtimeFor(String checkInTime, String checkOutTime) {
+            int worked = span(AttendanceRules.parseTime(checkInTime), AttendanceRules.parseTime(checkOutTime));
+            return AttendanceRules.formatMinutes(Math.max(0, worked - scheduledMinutes));
+        }
+
+        private static int span(int start, int end) {
+            if (start < 0 || end < 0) return 0;
+            int minutes = end - start;
+            return minutes < 0 ? minutes + MINUTES_PER_DAY : minutes;
+        }
+    }
+
+    /**
+     * One employee's expected shifts for one calendar month.
+     */
+    public static final class Month {
+        public final int year;
+        public final int month;     // 1-12
+        public final int days;
+        private final int workingDays;      // Bit (day - 1) set on working days
+        private final byte[] shiftIndexes;  // Per day (index day - 1), NO_SHIFT on off days
+        private final Shift[] shifts;
+
+        Month(int year, int month, int days, int workingDays, byte[] shiftIndexes, Shift[] shifts) {
+            this.year = year;
+            this.month = month;
+            this.days = days;
+            this.workingDays = workingDays;
+            this.shiftIndexes = shiftIndexes;
+            this.shifts = shifts;
+        }
+
+        /**
+         * @param day Day of month, 1-based.
+         */
+        public boolean isWorkingDay(int day) {
+            return (workingDays & (1 << (day - 1))) != 0;
+        }
+
+        /**
+         * @param day Day of month, 1-based.
+         * @return The expected shift, or null on an off day or if the employee has no shift.
+         */
+        public Shift shiftOn(int day) {
+            byte index = shiftIndexes[day - 1];
+            return index == NO_SHIFT ? null : shifts[index];
+        }
+
+        public int getWorkingDays() {
+            return workingDays;
+        }
+
+        public int getWorkingDayCount() {
+            return Integer.bitCount(workingDays);
+        }
+    }
+
+    private static final class Cycle {
+        final byte[] shiftIndexes;  // NO_SHIFT for OFF days
+        final long anchorEpochDay;
+
+        Cycle(byte[] shiftIndexes, long anchorEpochDay) {
+            this.shiftIndexes = shiftIndexes;
+            this.anchorEpochDay = anchorEpochDay;
+        }
+    }
+
+    private final Shift[] shifts;
+    private final Map<String, Integer> shiftIndexById = new HashMap<>();
+    private final Map<String, Cycle> cyclesByRosterId = new HashMap<>();
+    private final Map<String, Shift> fixedShifts = new HashMap<>();
+    private final List<String> problems = new ArrayList<>();
+    private final Map<String, Month> monthCache = new LinkedHashMap<String, Month>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Month> eldest) {
+            return size() > MONTH_CACHE_SIZE;
+        }
+    };
+
+    public ShiftSchedule(List<ShiftTemplate> templates, List<Roster> rosters) {
+        int count = templates != null ? Math.min(templates.size(), MAX_SHIFTS) : 0;
+        if (templates != null && templates.size() > count) {
+            problems.add(templates.size() + " shift templates exceed the limit of " + MAX_SHIFTS
+                    + "; the last " + (templates.size() - count) + " are ignored");
+        }
+        shifts = new Shift[count];
+        for (int i = 0; i < count; i++) {
+            ShiftTemplate t = templates.get(i);
+            shifts[i] = new Shift(t.getId(), t.getName(), t.getStartTime(), t.getEndTime(),
+                    t.getSplitStartTime(), t.getSplitEndTime());
+            shiftIndexById.put(t.getId(), i);
+        }
+
+        if (rosters == null) return;
+        for (Roster roster : rosters) {
+            List<String> pattern = roster.getPattern();
+            if (roster.getId() == null || pattern == null || pattern.isEmpty()) continue;
+            long anchor;
+            try {
+                anchor = LocalDate.parse(roster.getAnchorDate()).toEpochDay();
+            } catch (DateTimeParseException | NullPointerException e) {
+                // Without its anchor the cycle has no phase; its employees keep their fixed shift
+                problems.add("Roster " + roster.getId() + " has an invalid anchor date '"
+                        + roster.getAnchorDate() + "' and is skipped");
+                continue;
+            }
+            byte[] cycle = new byte[pattern.size()];
+            for (int i = 0; i < cycle.length; i++) {
+                Integer index = shiftIndexById.get(pattern.get(i));
+                cycle[i] = index != null ? (byte) (int) index : NO_SHIFT;
+                if (index == null && !Roster.OFF.equals(pattern.get(i))) {
+                    problems.add("Roster " + roster.getId() + " day " + (i + 1) + " uses unknown shift template "
+                            + pattern.get(i) + "; treated as OFF");
+                }
+            }
+            cyclesByRosterId.put(roster.getId(), new Cycle(cycle, anchor));
+        }
+    }
+
+    public Shift getShift(String templateId) {
+        Integer index = shiftIndexById.get(templateId);
+        return index != null ? shifts[index] : null;
+    }
+
+    public List<Shift> getShifts() {
+        return Arrays.asList(shifts);
+    }
+
+    /**
+     * @return Templates and roster entries that were skipped while compiling, for logging.
+     */
+    public List<String> getProblems() {
+        return problems;
+    }
+
+    /**
+     * @return The employee's expected shift on the date, or null on an off day / without a shift.
+     */
+    public Shift shiftOn(User user, LocalDate date) {
+        return monthFor(user, date.getYear(), date.getMonthValue()).shiftOn(date.getDayOfMonth());
+    }
+
+    public boolean isWorkingDay(User user, LocalDate date) {
+        return monthFor(user, date.getYear(), date.getMonthValue()).isWorkingDay(date.getDayOfMonth());
+    }
+
+    /**
+     * Expands the employee's roster (or fixed shift) for a month. Months are cached per employee.
+     * @param month 1-12
+     */
+    public synchronized Month monthFor(User user, int year, int month) {
+        String rosterId = user.getRosterId();
+        Cycle cycle = rosterId != null ? cyclesByRosterId.get(rosterId) : null;
+        // Fixed-shift employees share a month per distinct shift, not per employee
+        String key = cycle != null
+                ? "r" + rosterId + "/" + year + "/" + month
+                : "f" + user.getShiftStartTime() + "/" + user.getShiftEndTime() + "/" + year + "/" + month;
+        Month cached = monthCache.get(key);
+        if (cached != null) return cached;
+
+        LocalDate first = LocalDate.of(year, month, 1);
+        int days = first.lengthOfMonth();
+        byte[] indexes = new byte[days];
+        int working = 0;
+        Month expanded;
+        if (cycle != null) {
+            int length = cycle.shiftIndexes.length;
+            int offset = (int) Math.floorMod(first.toEpochDay() - cycle.anchorEpochDay, (long) length);
+            for (int d = 0; d < days; d++) {
+                byte index = cycle.shiftIndexes[(offset + d) % length];
+                indexes[d] = index;
+                if (index != NO_SHIFT) working |= 1 << d;
+            }
+            expanded = new Month(year, month, days, working, indexes, shifts);
+        } else {
+            // No roster: every day is a working day with the fixed shift, as before rosters existed
+            Shift fixed = fixedShift(user);
+            Arrays.fill(indexes, fixed != null ? 0 : NO_SHIFT);
+            working = (1 << days) - 1;
+            expanded = new Month(year, month, days, working, indexes, new Shift[] {fixed});
+        }
+        monthCache.put(key, expanded);
+        return expanded;
+    }
+
+    private Shift fixedShift(User user) {
+        String start = user.getShiftStartTime();
+        String end = user.getShiftEndTime();
+        if (start == null || end == null) return null;
+        String key = start + "/" + end;
+        Shift shift = fixedShifts.get(key);
+        if (shift == null) {
+            shift = new Shift(null, "Fixed", start, end, null, null);
+            fixedShifts.put(key, shift);
+        }
+        return shift;
+    }
+}
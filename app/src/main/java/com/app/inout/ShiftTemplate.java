@@ -0,0 +1,89 @@
+package com.inout.app.models;
+
+import com.google.firebase.firestore.IgnoreExtraProperties;
+import com.google.firebase.firestore.PropertyName;
+
+/**
+ * A named shift, e.g. "Morning" 06:00 AM - 02:00 PM.
+ * Stored in Firestore under 'shift_templates'. A split shift has a second segment.
+ */
+@IgnoreExtraProperties
+public class ShiftTemplate {
+
+    private String id;
+    private String name;
+    private String startTime;       // "hh:mm a", as written by the time pickers
+    private String endTime;
+    private String splitStartTime;  // Optional second segment of a split shift
+    private String splitEndTime;
+
+    public ShiftTemplate() {
+        // Default constructor required for Firestore
+    }
+
+    public ShiftTemplate(String name, String startTime, String endTime) {
+        this.name = name;
+        this.startTime = startTime;
+        this.endTime = endTime;
+    }
+
+    @PropertyName("id")
+    public String getId() {
+        return id;
+    }
+
+    @PropertyName("id")
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    @PropertyName("name")
+    public String getName() {
+        return name;
+    }
+
+    @PropertyName("name")
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    @PropertyName("startTime")
+    public String getStartTime() {
+        return startTime;
+    }
+
+    @PropertyName("startTime")
+    public void setStartTime(String startTime) {
+        this.startTime = startTime;
+    }
+
+    @PropertyName("endTime")
+    public String getEndTime() {
+        return endTime;
+    }
+
+    @PropertyName("endTime")
+    public void setEndTime(String endTime) {
+        this.endTime = endTime;
+    }
+
+    @PropertyName("splitStartTime")
+    public String getSplitStartTime() {
+        return splitStartTime;
+    }
+
+    @PropertyName("splitStartTime")
+    public void setSplitStartTime(String splitStartTime) {
+        this.splitStartTime = splitStartTime;
+    }
+
+    @PropertyName("splitEndTime")
+    public String getSplitEndTime() {
+        return splitEndTime;
+    }
+
+    @PropertyName("splitEndTime")
+    public void setSplitEndTime(String splitEndTime) {
+        this.splitEndTime = splitEndTime;
+    }
+}
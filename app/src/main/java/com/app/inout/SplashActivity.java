@@ -3,32 +3,29 @@ package com.inout.app;
 import android.annotation.SuppressLint;
 import android.content.Intent;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
 
 import androidx.appcompat.app.AppCompatActivity;
 
 import com.inout.app.utils.EncryptionHelper;
+import com.inout.app.utils.StartupOrchestrator;
 
 @SuppressLint("CustomSplashScreen")
 public class SplashActivity extends AppCompatActivity {
 
-    private static final int SPLASH_DELAY_MS = 2000; // 2 seconds
-
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_splash);
 
-        new Handler(Looper.getMainLooper()).postDelayed(new Runnable() {
-            @Override
-            public void run() {
-                checkUserSession();
-            }
-        }, SPLASH_DELAY_MS);
+        // UPDATED: No fixed delay. Route as soon as the role/config are decrypted and Firebase
+        // is initialized (the "firebase" stage depends on "config"). Ads are not waited on.
+        StartupOrchestrator.getInstance().whenComplete(StartupOrchestrator.STAGE_FIREBASE, this::checkUserSession);
     }
 
     private void checkUserSession() {
+        if (isFinishing() || isDestroyed()) return;
+        StartupOrchestrator.getInstance().mark("route");
+
         EncryptionHelper encryptionHelper = EncryptionHelper.getInstance(this);
         String userRole = encryptionHelper.getUserRole();
         boolean isSetupDone = encryptionHelper.isSetupDone();
@@ -59,4 +56,4 @@ public class SplashActivity extends AppCompatActivity {
         }
         finish();
     }
-}
\ No newline at end of file
+}
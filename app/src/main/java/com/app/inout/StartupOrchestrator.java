@@ -0,0 +1,235 @@
+package com.inout.app.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the app's startup initializers on background threads in dependency order, and lets
+ * screens react as soon as the stage they need is done instead of waiting a fixed delay.
+ * Stages without a dependency between them may run concurrently; today's stages form a
+ * single config -> firebase chain, so they run one after the other. Every stage records when
+ * it started and finished, relative to process start, so cold-start regressions show up in
+ * the log.
+ *
+ * Usage: register stages with {@link #addStage} in Application.onCreate, then {@link #start}.
+ */
+public class StartupOrchestrator {
+
+    private static final String TAG = "StartupOrchestrator";
+
+    // Stage names shared by InOutApplication and the screens that wait on them
+    public static final String STAGE_CONFIG = "config";
+    public static final String STAGE_FIREBASE = "firebase";
+
+    private static final int THREADS = 2;
+
+    private static StartupOrchestrator instance;
+
+    private static final class Stage {
+        final String name;
+        final Runnable work;
+        final String[] dependsOn;
+        final CountDownLatch done = new CountDownLatch(1);
+        final List<Runnable> mainThreadWaiters = new ArrayList<>();
+        int pendingDependencies;
+        long startedAt = -1;
+        long finishedAt = -1;
+        boolean failed;
+
+        Stage(String name, Runnable work, String[] dependsOn) {
+            this.name = name;
+            this.work = work;
+            this.dependsOn = dependsOn;
+            this.pendingDependencies = dependsOn.length;
+        }
+    }
+
+    private final Map<String, Stage> stages = new LinkedHashMap<>();
+    private final Map<String, Long> marks = new LinkedHashMap<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService executor = Executors.newFixedThreadPool(THREADS, new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            return new Thread(r, "startup-" + count.incrementAndGet());
+        }
+    });
+    private final long processStart = Process.getStartElapsedRealtime();
+    private boolean started;
+
+    private StartupOrchestrator() {
+    }
+
+    public static synchronized StartupOrchestrator getInstance() {
+        if (instance == null) {
+            instance = new StartupOrchestrator();
+        }
+        return instance;
+    }
+
+    /**
+     * Registers a stage. Dependencies must be registered first, which also rules out cycles.
+     */
+    public synchronized StartupOrchestrator addStage(String name, Runnable work, String... dependsOn) {
+        if (started) throw new IllegalStateException("Startup already running");
+        for (String dependency : dependsOn) {
+            if (!stages.containsKey(dependency)) {
+                throw new IllegalArgumentException(name + " depends on unknown stage " + dependency);
+            }
+        }
+        stages.put(name, new Stage(name, work, dependsOn));
+        return this;
+    }
+
+    /**
+     * Submits every stage whose dependencies are met; the rest follow as those finish.
+     */
+    public synchronized void start() {
+        if (started) return;
+        started = true;
+        for (Stage stage : stages.values()) {
+            if (stage.pendingDependencies == 0) submit(stage);
+        }
+    }
+
+    /**
+     * Runs the callback on the main thread once the stage has finished (successfully or not).
+     * Runs it on the next loop if the stage is already done.
+     */
+    public void whenComplete(String name, Runnable onMainThread) {
+        Stage stage = requireStage(name);
+        synchronized (this) {
+            if (stage.done.getCount() > 0) {
+                stage.mainThreadWaiters.add(onMainThread);
+                return;
+            }
+        }
+        mainHandler.post(onMainThread);
+    }
+
+    /**
+     * Blocks until the stage has finished. Only for background paths that cannot proceed
+     * without it, e.g. a WorkManager job started in a fresh process. Never call it on the
+     * main thread; use {@link #whenComplete} there.
+     * @return false if the timeout elapsed first.
+     */
+    public boolean await(String name, long timeoutMs) {
+        Stage stage = requireStage(name);
+        try {
+            return stage.done.await(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public boolean isComplete(String name) {
+        return requireStage(name).done.getCount() == 0;
+    }
+
+    /**
+     * Records a named milestone (e.g. "route") in the startup timeline.
+     */
+    public synchronized void mark(String milestone) {
+        if (!marks.containsKey(milestone)) {
+            marks.put(milestone, sinceProcessStart());
+            Log.d(TAG, milestone + " at +" + marks.get(milestone) + " ms");
+        }
+    }
+
+    /**
+     * @return One line per stage and milestone, in ms since process start.
+     */
+    public synchronized String getTimingsSummary() {
+        StringBuilder sb = new StringBuilder("Startup timings (ms since process start):");
+        for (Stage stage : stages.values()) {
+            sb.append(String.format(Locale.US, "\n  %-10s start +%d, end +%d (%d ms)%s",
+                    stage.name, stage.startedAt, stage.finishedAt,
+                    stage.finishedAt >= 0 ? stage.finishedAt - stage.startedAt : -1,
+                    stage.failed ? " FAILED" : ""));
+        }
+        for (Map.Entry<String, Long> mark : marks.entrySet()) {
+            sb.append(String.format(Locale.US, "\n  %-10s at +%d", mark.getKey(), mark.getValue()));
+        }
+        return sb.toString();
+    }
+
+    private Stage requireStage(String name) {
+        Stage stage;
+        synchronized (this) {
+            stage = stages.get(name);
+        }
+        if (stage == null) throw new IllegalArgumentException("Unknown startup stage " + name);
+        return stage;
+    }
+
+    private void submit(Stage stage) {
+        executor.execute(() -> {
+            synchronized (this) {
+                stage.startedAt = sinceProcessStart();
+            }
+            boolean failed = false;
+            try {
+                stage.work.run();
+            } catch (Exception e) {
+                failed = true;
+                Log.e(TAG, "Startup stage " + stage.name + " failed", e);
+            }
+            finish(stage, failed);
+        });
+    }
+
+    private void finish(Stage finished, boolean failed) {
+        List<Runnable> waiters;
+        boolean allDone = true;
+        synchronized (this) {
+            finished.finishedAt = sinceProcessStart();
+            finished.failed = failed;
+            // Dependents still run after a failure; each initializer handles a missing
+            // dependency itself
+            for (Stage stage : stages.values()) {
+                for (String dependency : stage.dependsOn) {
+                    if (dependency.equals(finished.name) && --stage.pendingDependencies == 0) {
+                        submit(stage);
+                    }
+                }
+            }
+            waiters = new ArrayList<>(finished.mainThreadWaiters);
+            finished.mainThreadWaiters.clear();
+            finished.done.countDown();
+            for (Stage stage : stages.values()) {
+                if (stage.done.getCount() > 0) allDone = false;
+            }
+        }
+
+        Log.d(TAG, "Stage " + finished.name + " done in "
+                + (finished.finishedAt - finished.startedAt) + " ms");
+        for (Runnable waiter : waiters) {
+            mainHandler.post(waiter);
+        }
+        if (allDone) {
+            Log.d(TAG, getTimingsSummary());
+            executor.shutdown();
+        }
+    }
+
+    private long sinceProcessStart() {
+        return SystemClock.elapsedRealtime() - processStart;
+    }
+}
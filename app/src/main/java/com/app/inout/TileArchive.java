@@ -0,0 +1,258 @@
+package com.inout.app.utils;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.graphics.drawable.Drawable;
+import android.util.Log;
+
+import org.osmdroid.tileprovider.modules.IFilesystemCache;
+import org.osmdroid.tileprovider.tilesource.ITileSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded on-disk SQLite archive for map tiles.
+ * Every read refreshes the tile's last-access time, and when the archive grows past
+ * MAX_BYTES the least recently used tiles are evicted down to TRIM_BYTES.
+ * Implements osmdroid's IFilesystemCache so the tile downloader writes straight into it.
+ */
+public class TileArchive extends SQLiteOpenHelper implements IFilesystemCache {
+
+    private static final String TAG = "TileArchive";
+    private static final String DB_NAME = "tile_archive.db";
+    private static final int DB_VERSION = 1;
+
+    private static final String TABLE = "tiles";
+    private static final String COL_KEY = "tile_key";
+    private static final String COL_PROVIDER = "provider";
+    private static final String COL_DATA = "data";
+    private static final String COL_BYTES = "bytes";
+    private static final String COL_LAST_ACCESS = "last_access";
+    private static final String COL_SAVED_AT = "saved_at";
+
+    private static final long MAX_BYTES = 100L * 1024 * 1024;  // 100 MB
+    private static final long TRIM_BYTES = 80L * 1024 * 1024;  // Evict down to 80 MB
+    private static final long MAX_AGE_MS = TimeUnit.DAYS.toMillis(30);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong totalBytes = new AtomicLong(-1);
+
+    public TileArchive(Context context) {
+        super(context, DB_NAME, null, DB_VERSION);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE + " ("
+                + COL_KEY + " INTEGER NOT NULL, "
+                + COL_PROVIDER + " TEXT NOT NULL, "
+                + COL_DATA + " BLOB NOT NULL, "
+                + COL_BYTES + " INTEGER NOT NULL, "
+                + COL_LAST_ACCESS + " INTEGER NOT NULL, "
+                + COL_SAVED_AT + " INTEGER NOT NULL, "
+                + "PRIMARY KEY (" + COL_PROVIDER + ", " + COL_KEY + "))");
+        db.execSQL("CREATE INDEX idx_tiles_access ON " + TABLE + " (" + COL_LAST_ACCESS + ")");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE);
+        onCreate(db);
+    }
+
+    /**
+     * @param savedAtOut Optional (may be null); index 0 receives the time the tile was archived.
+     * @return Raw tile bytes, or null if the tile is not archived. Counts as a hit/miss.
+     */
+    public byte[] read(String provider, long tileIndex, long[] savedAtOut) {
+        byte[] data = null;
+        try (Cursor c = getReadableDatabase().query(TABLE, new String[]{COL_DATA, COL_SAVED_AT},
+                COL_PROVIDER + "=? AND " + COL_KEY + "=?",
+                new String[]{provider, String.valueOf(tileIndex)}, null, null, null)) {
+            if (c.moveToFirst()) {
+                data = c.getBlob(0);
+                if (savedAtOut != null) savedAtOut[0] = c.getLong(1);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Tile read failed", e);
+        }
+
+        if (data == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        touch(provider, tileIndex);
+        return data;
+    }
+
+    public static boolean isStale(long savedAt) {
+        return System.currentTimeMillis() - savedAt > MAX_AGE_MS;
+    }
+
+    public boolean write(String provider, long tileIndex, byte[] data) {
+        long now = System.currentTimeMillis();
+        ContentValues values = new ContentValues();
+        values.put(COL_KEY, tileIndex);
+        values.put(COL_PROVIDER, provider);
+        values.put(COL_DATA, data);
+        values.put(COL_BYTES, data.length);
+        values.put(COL_LAST_ACCESS, now);
+        values.put(COL_SAVED_AT, now);
+        try {
+            SQLiteDatabase db = getWritableDatabase();
+            db.insertWithOnConflict(TABLE, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            if (totalBytes.get() < 0) {
+                totalBytes.set(queryTotalBytes(db));
+            } else {
+                totalBytes.addAndGet(data.length);
+            }
+            if (totalBytes.get() > MAX_BYTES) {
+                evict(db);
+            }
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, "Tile write failed", e);
+            return false;
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return Fraction of tile reads served from the archive since process start (0..1).
+     */
+    public float getHitRate() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0f : (float) h / total;
+    }
+
+    public long getSizeBytes() {
+        if (totalBytes.get() < 0) {
+            totalBytes.set(queryTotalBytes(getReadableDatabase()));
+        }
+        return totalBytes.get();
+    }
+
+    private void touch(String provider, long tileIndex) {
+        ContentValues values = new ContentValues();
+        values.put(COL_LAST_ACCESS, System.currentTimeMillis());
+        try {
+            getWritableDatabase().update(TABLE, values, COL_PROVIDER + "=? AND " + COL_KEY + "=?",
+                    new String[]{provider, String.valueOf(tileIndex)});
+        } catch (Exception e) {
+            Log.w(TAG, "Failed to refresh tile access time", e);
+        }
+    }
+
+    private Long getSavedAt(String provider, long tileIndex) {
+        try (Cursor c = getReadableDatabase().query(TABLE, new String[]{COL_SAVED_AT},
+                COL_PROVIDER + "=? AND " + COL_KEY + "=?",
+                new String[]{provider, String.valueOf(tileIndex)}, null, null, null)) {
+            return c.moveToFirst() ? c.getLong(0) : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private synchronized void evict(SQLiteDatabase db) {
+        long size = queryTotalBytes(db);
+        if (size <= MAX_BYTES) {
+            totalBytes.set(size);
+            return;
+        }
+
+        long toFree = size - TRIM_BYTES;
+        long freed = 0;
+        int evicted = 0;
+        db.beginTransaction();
+        try (Cursor c = db.query(TABLE, new String[]{COL_PROVIDER, COL_KEY, COL_BYTES},
+                null, null, null, null, COL_LAST_ACCESS + " ASC")) {
+            while (freed < toFree && c.moveToNext()) {
+                db.delete(TABLE, COL_PROVIDER + "=? AND " + COL_KEY + "=?",
+                        new String[]{c.getString(0), String.valueOf(c.getLong(1))});
+                freed += c.getLong(2);
+                evicted++;
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        totalBytes.set(size - freed);
+        Log.d(TAG, "Evicted " + evicted + " tiles (" + freed + " bytes)");
+    }
+
+    private long queryTotalBytes(SQLiteDatabase db) {
+        try (Cursor c = db.rawQuery("SELECT COALESCE(SUM(" + COL_BYTES + "), 0) FROM " + TABLE, null)) {
+            return c.moveToFirst() ? c.getLong(0) : 0;
+        }
+    }
+
+    // ---- IFilesystemCache (used by osmdroid's MapTileDownloader) ----
+
+    @Override
+    public boolean saveFile(ITileSource pTileSourceInfo, long pMapTileIndex, InputStream pStream, Long pExpirationTime) {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = pStream.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return write(pTileSourceInfo.name(), pMapTileIndex, out.toByteArray());
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to archive downloaded tile", e);
+            return false;
+        }
+    }
+
+    @Override
+    public boolean exists(ITileSource pTileSourceInfo, long pMapTileIndex) {
+        return getSavedAt(pTileSourceInfo.name(), pMapTileIndex) != null;
+    }
+
+    @Override
+    public void onDetach() {
+        // Shared across map instances; the helper stays open for the process lifetime
+    }
+
+    @Override
+    public boolean remove(ITileSource tileSource, long pMapTileIndex) {
+        try {
+            return getWritableDatabase().delete(TABLE, COL_PROVIDER + "=? AND " + COL_KEY + "=?",
+                    new String[]{tileSource.name(), String.valueOf(pMapTileIndex)}) > 0;
+        } catch (Exception e) {
+            return false;
+        } finally {
+            totalBytes.set(-1);
+        }
+    }
+
+    @Override
+    public Long getExpirationTimestamp(ITileSource pTileSource, long pMapTileIndex) {
+        Long savedAt = getSavedAt(pTileSource.name(), pMapTileIndex);
+        return savedAt == null ? null : savedAt + MAX_AGE_MS;
+    }
+
+    @Override
+    public Drawable loadTile(ITileSource pTileSource, long pMapTileIndex) throws Exception {
+        byte[] data = read(pTileSource.name(), pMapTileIndex, null);
+        return data == null ? null : pTileSource.getDrawable(new ByteArrayInputStream(data));
+    }
+}
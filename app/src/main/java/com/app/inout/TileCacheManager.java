@@ -0,0 +1,145 @@
+package com.inout.app.utils;
+
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+
+import org.osmdroid.config.Configuration;
+import org.osmdroid.tileprovider.ExpirableBitmapDrawable;
+import org.osmdroid.tileprovider.MapTileProviderArray;
+import org.osmdroid.tileprovider.MapTileProviderBase;
+import org.osmdroid.tileprovider.modules.MapTileDownloader;
+import org.osmdroid.tileprovider.modules.MapTileModuleProviderBase;
+import org.osmdroid.tileprovider.modules.NetworkAvailabliltyCheck;
+import org.osmdroid.tileprovider.tilesource.ITileSource;
+import org.osmdroid.tileprovider.tilesource.TileSourceFactory;
+import org.osmdroid.tileprovider.util.SimpleRegisterReceiver;
+
+import java.io.ByteArrayInputStream;
+import java.util.Locale;
+
+/**
+ * Offline map tile cache for MapSelectionDialog.
+ * - Builds an osmdroid tile provider that reads the TileArchive first and only
+ *   falls back to the network downloader (which writes back into the archive).
+ * - Exposes archive hit rates for diagnostics.
+ *
+ * Tiles are only stored as they are viewed: the OpenStreetMap tile usage policy forbids bulk
+ * download (osmdroid's MAPNIK policy refuses it), so areas are never fetched ahead of time.
+ */
+public class TileCacheManager {
+
+    private static TileCacheManager instance;
+
+    private final Context context;
+    private final TileArchive archive;
+    private final ITileSource tileSource = TileSourceFactory.MAPNIK;
+
+    private TileCacheManager(Context context) {
+        this.context = context;
+        this.archive = new TileArchive(context);
+    }
+
+    public static synchronized TileCacheManager getInstance(Context context) {
+        if (instance == null) {
+            instance = new TileCacheManager(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * @return A cache-first tile provider for a MapView.
+     */
+    public MapTileProviderBase createTileProvider() {
+        MapTileModuleProviderBase[] modules = {
+                new ArchiveTileModule(archive, tileSource),
+                new MapTileDownloader(tileSource, archive, new NetworkAvailabliltyCheck(context))
+        };
+        return new MapTileProviderArray(tileSource, new SimpleRegisterReceiver(context), modules);
+    }
+
+    public float getHitRate() {
+        return archive.getHitRate();
+    }
+
+    public String getStatsSummary() {
+        return String.format(Locale.US, "Tile cache: %d hits / %d misses (%.0f%%), %.1f MB on disk",
+                archive.getHitCount(), archive.getMissCount(), archive.getHitRate() * 100,
+                archive.getSizeBytes() / (1024f * 1024f));
+    }
+
+    public String getSourceName() {
+        return tileSource.name();
+    }
+
+    /**
+     * osmdroid provider module that serves tiles straight from the TileArchive.
+     * Returning null on a miss lets the next module (the downloader) handle the tile.
+     */
+    private static class ArchiveTileModule extends MapTileModuleProviderBase {
+
+        private final TileArchive archive;
+        private ITileSource source;
+
+        ArchiveTileModule(TileArchive archive, ITileSource source) {
+            super(Configuration.getInstance().getTileFileSystemThreads(),
+                    Configuration.getInstance().getTileFileSystemMaxQueueSize());
+            this.archive = archive;
+            this.source = source;
+        }
+
+        @Override
+        public boolean getUsesDataConnection() {
+            return false;
+        }
+
+        @Override
+        protected String getName() {
+            return "Tile Archive Provider";
+        }
+
+        @Override
+        protected String getThreadGroupName() {
+            return "tilearchive";
+        }
+
+        @Override
+        public TileLoader getTileLoader() {
+            return new TileLoader() {
+                private final long[] savedAt = new long[1];
+
+                @Override
+                public Drawable loadTile(long pMapTileIndex) throws CantContinueException {
+                    ITileSource current = source;
+                    if (current == null) return null;
+                    byte[] data = archive.read(current.name(), pMapTileIndex, savedAt);
+                    if (data == null) return null;
+                    try {
+                        Drawable drawable = current.getDrawable(new ByteArrayInputStream(data));
+                        if (drawable != null && TileArchive.isStale(savedAt[0])) {
+                            // Still shown offline, but the downloader will refresh it when online
+                            ExpirableBitmapDrawable.setState(drawable, ExpirableBitmapDrawable.EXPIRED);
+                        }
+                        return drawable;
+                    } catch (Exception e) {
+                        throw new CantContinueException(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public int getMinimumZoomLevel() {
+            return source != null ? source.getMinimumZoomLevel() : 0;
+        }
+
+        @Override
+        public int getMaximumZoomLevel() {
+            return source != null ? source.getMaximumZoomLevel() : 0;
+        }
+
+        @Override
+        public void setTileSource(ITileSource tileSource) {
+            source = tileSource;
+        }
+    }
+}
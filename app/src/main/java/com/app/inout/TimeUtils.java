@@ -118,7 +118,7 @@ public class TimeUtils {
         }
         return "Error";
     }
-    
+
     public static String formatTimestampToDate(long timestamp) {
         return DATE_ID_FORMAT.format(new Date(timestamp));
     }
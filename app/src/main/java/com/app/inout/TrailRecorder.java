@@ -0,0 +1,298 @@
+package com.inout.app.utils;
+
+import android.Manifest;
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.pm.PackageManager;
+import android.location.Location;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.core.content.ContextCompat;
+
+import com.google.android.gms.location.FusedLocationProviderClient;
+import com.google.android.gms.location.LocationCallback;
+import com.google.android.gms.location.LocationRequest;
+import com.google.android.gms.location.LocationResult;
+import com.google.android.gms.location.LocationServices;
+import com.google.android.gms.location.Priority;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.SetOptions;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opt-in GPS trail recorder for traveling employees.
+ * Samples location at an adaptive rate (fast while moving, slow while stationary),
+ * compresses points into a local PolylineCodec buffer and uploads one document per
+ * hour-block under attendance/{recordId}/trail instead of one write per point.
+ *
+ * The buffer is journaled to an app-private file, one small append per fix, so a process
+ * restart does not lose the current hour; only the block header goes to SharedPreferences.
+ * Fixes, buffer state and journal I/O all live on one background executor; start() and stop()
+ * only enqueue. Updates are delivered while the app process is alive; there is no foreground
+ * service, so Android's background limits apply.
+ */
+public class TrailRecorder {
+
+    private static final String TAG = "TrailRecorder";
+    private static final String PREFS_FILENAME = "trail_buffer";
+
+    private static final String KEY_RECORD_ID = "record_id";
+    private static final String KEY_BLOCK_START = "block_start";
+    private static final String JOURNAL_FILENAME = "trail_buffer.polyline";
+
+    // Sampling tiers
+    private static final long MOVING_INTERVAL_MS = 30000;          // 30 seconds
+    private static final long STATIONARY_INTERVAL_MS = 300000;     // 5 minutes
+    private static final float MIN_DISTANCE_METERS = 25f;
+    private static final float MOVING_SPEED_MPS = 1.0f;            // Walking pace
+    private static final int STATIONARY_FIXES_BEFORE_SLOWDOWN = 3;
+
+    // Safety valve: flush early if a single hour grows unusually large
+    private static final int MAX_POINTS_PER_CHUNK = 2000;
+
+    private static final SimpleDateFormat BLOCK_ID_FORMAT =
+            new SimpleDateFormat("yyyy-MM-dd_HH", Locale.US);
+
+    private static TrailRecorder instance;
+
+    private final Context context;
+    private final FusedLocationProviderClient fusedLocationClient;
+    private final SharedPreferences prefs;
+    private final PolylineCodec codec = new PolylineCodec();
+    private final File journal;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    // Executor thread only
+    private String recordId;
+    private long blockStartMillis;
+    private boolean movingTier;
+    private int stationaryFixes;
+    private volatile LocationCallback locationCallback;
+
+    private TrailRecorder(Context context) {
+        this.context = context;
+        this.fusedLocationClient = LocationServices.getFusedLocationProviderClient(context);
+        this.prefs = context.getSharedPreferences(PREFS_FILENAME, Context.MODE_PRIVATE);
+        this.journal = new File(context.getFilesDir(), JOURNAL_FILENAME);
+    }
+
+    public static synchronized TrailRecorder getInstance(Context context) {
+        if (instance == null) {
+            instance = new TrailRecorder(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    public boolean isRecording() {
+        return locationCallback != null;
+    }
+
+    /**
+     * Starts recording for the given attendance record. Safe to call repeatedly.
+     */
+    public void start(String attendanceRecordId) {
+        if (attendanceRecordId == null) return;
+        executor.execute(() -> startRecording(attendanceRecordId));
+    }
+
+    /**
+     * Stops sampling and uploads whatever is left in the buffer.
+     */
+    public void stop() {
+        executor.execute(this::stopRecording);
+    }
+
+    private void startRecording(String attendanceRecordId) {
+        if (isRecording() && attendanceRecordId.equals(recordId)) return;
+        if (isRecording()) stopRecording();
+
+        restoreBuffer();
+        if (recordId != null && !recordId.equals(attendanceRecordId)) {
+            // Leftover hour from a previous shift that never got uploaded
+            flush();
+        }
+        recordId = attendanceRecordId;
+        requestUpdates(true);
+        Log.d(TAG, "Trail recording started for " + recordId);
+    }
+
+    private void stopRecording() {
+        if (locationCallback != null) {
+            fusedLocationClient.removeLocationUpdates(locationCallback);
+            locationCallback = null;
+        }
+        if (recordId == null) restoreBuffer();
+        flush();
+        recordId = null;
+    }
+
+    @SuppressLint("MissingPermission")
+    private void requestUpdates(boolean moving) {
+        if (ContextCompat.checkSelfPermission(context, Manifest.permission.ACCESS_FINE_LOCATION)
+                != PackageManager.PERMISSION_GRANTED) {
+            Log.w(TAG, "Location permission missing; trail not recorded.");
+            return;
+        }
+        if (locationCallback != null) {
+            fusedLocationClient.removeLocationUpdates(locationCallback);
+        }
+
+        movingTier = moving;
+        stationaryFixes = 0;
+
+        int priority = moving
+                ? Priority.PRIORITY_HIGH_ACCURACY
+                : Priority.PRIORITY_BALANCED_POWER_ACCURACY;
+        LocationRequest request = new LocationRequest.Builder(priority,
+                moving ? MOVING_INTERVAL_MS : STATIONARY_INTERVAL_MS)
+                .setMinUpdateDistanceMeters(MIN_DISTANCE_METERS)
+                .setMaxUpdateDelayMillis(moving ? MOVING_INTERVAL_MS * 4 : STATIONARY_INTERVAL_MS)
+                .build();
+
+        locationCallback = new LocationCallback() {
+            @Override
+            public void onLocationResult(@NonNull LocationResult locationResult) {
+                // Replaced or stopped while this batch was queued
+                if (locationCallback != this) return;
+                for (Location location : locationResult.getLocations()) {
+                    onFix(location);
+                }
+            }
+        };
+
+        // Fixes arrive on the executor, next to the buffer and journal they update
+        fusedLocationClient.requestLocationUpdates(request, executor, locationCallback);
+    }
+
+    private void onFix(Location location) {
+        long time = location.getTime();
+        // Align blocks to local clock hours so block IDs match the employee's day
+        long localTime = time + TimeZone.getDefault().getOffset(time);
+        long hourStart = time - (localTime % TimeUnit.HOURS.toMillis(1));
+
+        if (codec.getCount() > 0 && hourStart != blockStartMillis) {
+            flush();
+        }
+        if (codec.getCount() == 0) {
+            blockStartMillis = hourStart;
+        }
+
+        int seconds = (int) TimeUnit.MILLISECONDS.toSeconds(time - blockStartMillis);
+        // Out-of-order batch delivery
+        if (seconds < codec.getLastSeconds()) seconds = codec.getLastSeconds();
+
+        boolean newBlock = codec.getCount() == 0;
+        int appendedFrom = codec.length();
+        codec.append(location.getLatitude(), location.getLongitude(), seconds);
+        persistFix(newBlock, codec.getEncodedFrom(appendedFrom));
+
+        if (codec.getCount() >= MAX_POINTS_PER_CHUNK) {
+            flush();
+        }
+
+        adaptRate(location);
+    }
+
+    private void adaptRate(Location location) {
+        boolean moving = location.hasSpeed() && location.getSpeed() >= MOVING_SPEED_MPS;
+        if (moving) {
+            if (!movingTier) requestUpdates(true);
+            stationaryFixes = 0;
+        } else if (movingTier && ++stationaryFixes >= STATIONARY_FIXES_BEFORE_SLOWDOWN) {
+            requestUpdates(false);
+        }
+    }
+
+    /**
+     * Uploads the current hour-block as a single chunk and clears the buffer.
+     * Firestore queues the write offline, so the buffer can be dropped right away.
+     */
+    private void flush() {
+        if (recordId == null || codec.getCount() == 0) {
+            clearBuffer();
+            return;
+        }
+
+        String blockId = BLOCK_ID_FORMAT.format(new Date(blockStartMillis));
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("blockStart", blockStartMillis);
+        data.put("chunks", FieldValue.arrayUnion(codec.getEncoded()));
+        data.put("pointCount", FieldValue.increment(codec.getCount()));
+        data.put("updatedAt", TimeUtils.getCurrentTimestamp());
+
+        FirebaseFirestore.getInstance()
+                .collection("attendance").document(recordId)
+                .collection("trail").document(blockId)
+                .set(data, SetOptions.merge())
+                .addOnFailureListener(e -> Log.e(TAG, "Trail upload failed for " + blockId, e));
+
+        Log.d(TAG, "Flushed " + codec.getCount() + " points (" + codec.getEncoded().length()
+                + " chars) to " + blockId);
+        clearBuffer();
+    }
+
+    /**
+     * Appends one fix to the journal. The header is only written when a block starts, so each
+     * fix costs a few bytes of I/O instead of rewriting the whole hour.
+     */
+    private void persistFix(boolean newBlock, String encodedFix) {
+        if (newBlock) {
+            prefs.edit()
+                    .putString(KEY_RECORD_ID, recordId)
+                    .putLong(KEY_BLOCK_START, blockStartMillis)
+                    .apply();
+        }
+        try (FileOutputStream out = new FileOutputStream(journal, !newBlock)) {
+            out.write(encodedFix.getBytes(StandardCharsets.US_ASCII));
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to journal trail point", e);
+        }
+    }
+
+    private void restoreBuffer() {
+        codec.reset();
+        if (!journal.exists() || !prefs.contains(KEY_BLOCK_START)) return;
+        byte[] bytes = new byte[(int) journal.length()];
+        try (FileInputStream in = new FileInputStream(journal)) {
+            int read = 0;
+            while (read < bytes.length) {
+                int n = in.read(bytes, read, bytes.length - read);
+                if (n < 0) break;
+                read += n;
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to read trail journal", e);
+            return;
+        }
+        if (!codec.restore(new String(bytes, StandardCharsets.US_ASCII))) {
+            Log.w(TAG, "Discarding unreadable trail journal");
+            return;
+        }
+        recordId = prefs.getString(KEY_RECORD_ID, null);
+        blockStartMillis = prefs.getLong(KEY_BLOCK_START, 0);
+    }
+
+    private void clearBuffer() {
+        codec.reset();
+        prefs.edit().clear().apply();
+        if (journal.exists() && !journal.delete()) Log.w(TAG, "Failed to delete trail journal");
+    }
+}
@@ -0,0 +1,101 @@
+package com.inout.app;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.util.AttributeSet;
+import android.view.View;
+
+import androidx.annotation.Nullable;
+
+import java.util.Locale;
+
+/**
+ * Bar chart of weekly rates (0..1) for the analytics screen, drawn directly on the canvas.
+ * Each bar sits on a light full-height track; a negative value means no data and leaves the
+ * track empty. Every other week is labelled, always including the latest.
+ */
+public class TrendChartView extends View {
+
+    private static final float BAR_FRACTION = 0.6f;
+
+    private final Paint barPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint trackPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint labelPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint valuePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final RectF rect = new RectF();
+    private final float density;
+
+    private float[] values = new float[0];
+    private String[] labels = new String[0];
+    private String[] valueLabels = new String[0];
+
+    public TrendChartView(Context context) {
+        this(context, null);
+    }
+
+    public TrendChartView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        density = getResources().getDisplayMetrics().density;
+        barPaint.setColor(Color.parseColor("#3F51B5"));
+        trackPaint.setColor(Color.parseColor("#EEEEEE"));
+        labelPaint.setColor(Color.DKGRAY);
+        labelPaint.setTextSize(10 * density);
+        labelPaint.setTextAlign(Paint.Align.CENTER);
+        valuePaint.setColor(Color.BLACK);
+        valuePaint.setTextSize(9 * density);
+        valuePaint.setTextAlign(Paint.Align.CENTER);
+    }
+
+    public void setBarColor(int color) {
+        barPaint.setColor(color);
+        invalidate();
+    }
+
+    /**
+     * @param values Oldest first, 0..1, or negative for no data.
+     * @param labels One per value, e.g. the week's start date.
+     */
+    public void setData(float[] values, String[] labels) {
+        this.values = values;
+        this.labels = labels;
+        valueLabels = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            valueLabels[i] = values[i] < 0 ? "" : String.format(Locale.US, "%.0f", values[i] * 100);
+        }
+        invalidate();
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        int count = values.length;
+        if (count == 0) return;
+
+        float left = getPaddingLeft();
+        float top = getPaddingTop() + valuePaint.getTextSize() + 2 * density;
+        float bottom = getHeight() - getPaddingBottom() - labelPaint.getTextSize() - 4 * density;
+        float slot = (getWidth() - getPaddingLeft() - getPaddingRight()) / (float) count;
+        float barWidth = slot * BAR_FRACTION;
+        float radius = 2 * density;
+        if (bottom <= top) return;
+
+        for (int i = 0; i < count; i++) {
+            float centerX = left + slot * i + slot / 2;
+            rect.set(centerX - barWidth / 2, top, centerX + barWidth / 2, bottom);
+            canvas.drawRoundRect(rect, radius, radius, trackPaint);
+
+            float value = values[i];
+            if (value >= 0) {
+                rect.top = bottom - (bottom - top) * Math.min(1f, value);
+                canvas.drawRoundRect(rect, radius, radius, barPaint);
+                canvas.drawText(valueLabels[i], centerX, rect.top - 2 * density, valuePaint);
+            }
+            if ((count - 1 - i) % 2 == 0 && i < labels.length) {
+                canvas.drawText(labels[i], centerX, getHeight() - getPaddingBottom() - 2 * density, labelPaint);
+            }
+        }
+    }
+}
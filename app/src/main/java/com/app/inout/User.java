@@ -8,6 +8,7 @@ import com.google.firebase.firestore.PropertyName;
  * This is the bridge between Firestore and the app memory.
  * FIXED: Added PropertyName annotations to ensure data syncs correctly in Release APKs.
  * UPDATED: Added Emergency Leave and Medical Leave status tracking.
+ * UPDATED: Optional rotating roster assignment.
  */
 @IgnoreExtraProperties
 public class User {
@@ -26,8 +27,12 @@ public class User {
 
     // FIELDS FOR TRAVELING AND SHIFTS
     private boolean isTraveling;
+    private boolean trailEnabled; // Opt-in GPS trail while traveling
     private String shiftStartTime; 
     private String shiftEndTime;   
+    private String rosterId; // NEW: Rotating roster (see Roster); null = fixed shift above every day
+    private long approvedAt; // NEW: When the admin first approved the employee; no absences before that day
+    private long badgeIssuedAt; // NEW: Issue time of the current signed kiosk badge; older badges are revoked
 
     // FIELD FOR EMERGENCY LEAVE
     private String emergencyLeaveStatus; // "none", "pending", "approved"
@@ -155,6 +160,16 @@ public class User {
         isTraveling = traveling;
     }
 
+    @PropertyName("trailEnabled")
+    public boolean isTrailEnabled() {
+        return trailEnabled;
+    }
+
+    @PropertyName("trailEnabled")
+    public void setTrailEnabled(boolean trailEnabled) {
+        this.trailEnabled = trailEnabled;
+    }
+
     @PropertyName("shiftStartTime")
     public String getShiftStartTime() {
         return shiftStartTime;
@@ -175,6 +190,36 @@ public class User {
         this.shiftEndTime = shiftEndTime;
     }
 
+    @PropertyName("rosterId")
+    public String getRosterId() {
+        return rosterId;
+    }
+
+    @PropertyName("rosterId")
+    public void setRosterId(String rosterId) {
+        this.rosterId = rosterId;
+    }
+
+    @PropertyName("approvedAt")
+    public long getApprovedAt() {
+        return approvedAt;
+    }
+
+    @PropertyName("approvedAt")
+    public void setApprovedAt(long approvedAt) {
+        this.approvedAt = approvedAt;
+    }
+
+    @PropertyName("badgeIssuedAt")
+    public long getBadgeIssuedAt() {
+        return badgeIssuedAt;
+    }
+
+    @PropertyName("badgeIssuedAt")
+    public void setBadgeIssuedAt(long badgeIssuedAt) {
+        this.badgeIssuedAt = badgeIssuedAt;
+    }
+
     @PropertyName("emergencyLeaveStatus")
     public String getEmergencyLeaveStatus() {
         return emergencyLeaveStatus;
@@ -0,0 +1,192 @@
+package com.inout.app.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.inout.app.models.AbsenceMarker;
+import com.inout.app.models.AttendanceRecord;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * {@link AttendanceAnalytics} against a brute-force recount of the same records, plus the cost of
+ * the incremental updates and reports. Run with ./gradlew testDebugUnitTest; timings are printed.
+ */
+public class AttendanceAnalyticsTest {
+
+    private static final LocalDate FIRST = LocalDate.of(2025, 1, 1);
+    private static final String SHIFT = "09:00 AM - 06:00 PM";
+
+    @Test
+    public void windowsMatchBruteForceRecount() {
+        AttendanceRules rules = AttendanceRules.getDefault();
+        AttendanceAnalytics analytics = new AttendanceAnalytics(rules);
+        Map<String, AttendanceRecord> records = new HashMap<>();
+        Map<String, AbsenceMarker> absences = new HashMap<>();
+        Random random = new Random(1);
+        int days = 200;
+        int employees = 50;
+
+        for (int d = 0; d < days; d++) {
+            String dateId = FIRST.plusDays(d).toString();
+            for (int e = 0; e < employees; e++) {
+                String id = "EMP" + e + "_" + dateId;
+                if (random.nextInt(10) == 0) {
+                    AbsenceMarker marker = new AbsenceMarker();
+                    marker.setDate(dateId);
+                    marker.setLocationId("site" + e % 3);
+                    absences.put(id, marker);
+                    analytics.applyAbsence(id, marker);
+                    continue;
+                }
+                AttendanceRecord r = record(dateId, 8 * 60 + 50 + random.nextInt(60), "site" + e % 3);
+                r.setOvertimeHours(random.nextInt(5) == 0 ? "1h 10m" : "0h 00m");
+                records.put(id, r);
+                analytics.applyRecord(id, r);
+            }
+            // Edits and deletes reaching back past the 90-day window, as late listener events would
+            for (int k = 0; k < 20; k++) {
+                String id = "EMP" + random.nextInt(employees) + "_" + FIRST.plusDays(Math.max(0, d - random.nextInt(100)));
+                if (records.containsKey(id)) {
+                    if (random.nextBoolean()) {
+                        records.get(id).setOvertimeHours("2h 00m");
+                        analytics.applyRecord(id, records.get(id));
+                    } else {
+                        records.remove(id);
+                        analytics.applyRecord(id, null);
+                    }
+                } else if (absences.remove(id) != null) {
+                    analytics.applyAbsence(id, null);
+                }
+            }
+        }
+
+        LocalDate end = FIRST.plusDays(days - 1);
+        for (String site : new String[] {AttendanceAnalytics.ALL_SITES, "site0", "site2"}) {
+            for (int window : new int[] {7, 30, 90}) {
+                LocalDate from = end.minusDays(window - 1);
+                int attended = 0;
+                int late = 0;
+                int absent = 0;
+                long checkInMinutes = 0;
+                long overtimeMinutes = 0;
+                for (AttendanceRecord r : records.values()) {
+                    if (!inWindow(r.getDate(), from, end) || !atSite(site, r.getLastVerifiedLocationId())) continue;
+                    attended++;
+                    if (rules.evaluate(r).has(AttendanceRules.LATE_START)) late++;
+                    checkInMinutes += AttendanceRules.parseTime(r.getCheckInTime());
+                    overtimeMinutes += r.getOvertimeHours().startsWith("2h") ? 120
+                            : r.getOvertimeHours().startsWith("1h") ? 70 : 0;
+                }
+                for (AbsenceMarker m : absences.values()) {
+                    if (inWindow(m.getDate(), from, end) && atSite(site, m.getLocationId())) absent++;
+                }
+
+                AttendanceAnalytics.Window actual = analytics.window(site, window, end);
+                String label = site + " / " + window + " days";
+                assertTrue(label + " has records", attended > 0);
+                assertEquals(label + " attended", attended, actual.attended);
+                assertEquals(label + " absent", absent, actual.absent);
+                assertEquals(label + " late", late, actual.late);
+                assertEquals(label + " check-in minutes", checkInMinutes, actual.checkInMinutes);
+                assertEquals(label + " overtime minutes", overtimeMinutes, actual.overtimeMinutes);
+            }
+        }
+    }
+
+    @Test
+    public void reportsIncrementalUpdateCost() {
+        measure(2000, 30, 20);  // Warm-up
+        int employees = 2000;
+        int days = 365;
+        double[] result = measure(employees, days, 20);
+        System.out.printf("AttendanceAnalytics: %d employees x %d days, 20 sites%n", employees, days);
+        System.out.printf("  apply: %.0f ns/record, report: %.1f us, modify: %.0f ns/record%n",
+                result[0], result[1] / 1000, result[2]);
+    }
+
+    /**
+     * Streams a synthetic history day by day, as the live listeners would deliver it.
+     * @return {ns per applied record, ns per full report, ns per modified record}
+     */
+    private static double[] measure(int employees, int days, int siteCount) {
+        Random random = new Random(42);
+        AttendanceAnalytics analytics = new AttendanceAnalytics(AttendanceRules.getDefault());
+        long applyNanos = 0;
+        long reportNanos = 0;
+        AttendanceRecord[] dayRecords = new AttendanceRecord[employees];
+        String[] dayIds = new String[employees];
+        int present = 0;
+        for (int d = 0; d < days; d++) {
+            LocalDate date = FIRST.plusDays(d);
+            String dateId = date.toString();
+            present = 0;
+            for (int e = 0; e < employees; e++) {
+                dayIds[e] = "EMP" + e + "_" + dateId;
+                boolean absent = random.nextInt(100) < 8;
+                dayRecords[e] = absent ? null : record(dateId, 8 * 60 + 40 + random.nextInt(50), "site" + e % siteCount);
+                if (!absent) present++;
+            }
+            AbsenceMarker marker = new AbsenceMarker();
+            marker.setDate(dateId);
+
+            long start = System.nanoTime();
+            for (int e = 0; e < employees; e++) {
+                if (dayRecords[e] != null) {
+                    analytics.applyRecord(dayIds[e], dayRecords[e]);
+                } else {
+                    marker.setLocationId("site" + e % siteCount);
+                    analytics.applyAbsence(dayIds[e], marker);
+                }
+            }
+            applyNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            AttendanceAnalytics.Report report = analytics.report(date);
+            reportNanos += System.nanoTime() - start;
+            assertTrue(report.sites.get(AttendanceAnalytics.ALL_SITES).windows[0].attended >= present);
+            assertEquals(present, analytics.window(AttendanceAnalytics.ALL_SITES, 1, date).attended);
+        }
+
+        // Modifications: the last day's records checked out again with overtime
+        long start = System.nanoTime();
+        for (int e = 0; e < employees; e++) {
+            if (dayRecords[e] == null) continue;
+            dayRecords[e].setOvertimeHours("2h 00m");
+            analytics.applyRecord(dayIds[e], dayRecords[e]);
+        }
+        long modifyNanos = System.nanoTime() - start;
+        assertTrue("Older days are evicted", analytics.size() <= (long) employees * AttendanceAnalytics.RETENTION_DAYS);
+        return new double[] {(double) applyNanos / ((long) employees * days),
+                (double) reportNanos / days, (double) modifyNanos / present};
+    }
+
+    private static AttendanceRecord record(String dateId, int checkIn, String site) {
+        AttendanceRecord r = new AttendanceRecord();
+        r.setDate(dateId);
+        r.setAssignedShift(SHIFT);
+        r.setCheckInTime(String.format(Locale.US, "%02d:%02d AM", checkIn / 60, checkIn % 60));
+        r.setCheckOutTime("06:05 PM");
+        r.setTotalHours("9h 00m");
+        r.setOvertimeHours("0h 00m");
+        r.setFingerprintVerified(true);
+        r.setGpsVerified(true);
+        r.setLastVerifiedLocationId(site);
+        return r;
+    }
+
+    private static boolean inWindow(String date, LocalDate from, LocalDate end) {
+        LocalDate day = LocalDate.parse(date);
+        return !day.isBefore(from) && !day.isAfter(end);
+    }
+
+    private static boolean atSite(String site, String locationId) {
+        return AttendanceAnalytics.ALL_SITES.equals(site) || site.equals(locationId);
+    }
+}
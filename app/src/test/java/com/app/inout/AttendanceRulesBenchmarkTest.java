@@ -0,0 +1,74 @@
+package com.inout.app.utils;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import com.inout.app.models.AttendanceRecord;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Evaluation cost of {@link AttendanceRules} over synthetic records covering every
+ * leave/resume/late combination. Run with ./gradlew testDebugUnitTest; the timing is printed.
+ */
+public class AttendanceRulesBenchmarkTest {
+
+    private static final int RECORDS = 10_000;
+    private static final int ROUNDS = 50;
+
+    @Test
+    public void evaluatesEveryCombinationAndReportsCost() {
+        List<AttendanceRecord> sample = sample(RECORDS);
+        AttendanceRules rules = AttendanceRules.getDefault();
+
+        // Warm-up so the JIT has compiled evaluate before timing
+        for (int round = 0; round < ROUNDS / 5; round++) {
+            for (AttendanceRecord r : sample) {
+                AttendanceRules.Result result = rules.evaluate(r);
+                assertNotNull(result.status);
+                assertNotNull(result.remarks);
+            }
+        }
+        long credited = 0;
+        long start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            for (AttendanceRecord r : sample) credited += Math.max(0, rules.evaluate(r).workedMinutes);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        assertTrue("Synthetic records include worked days", credited > 0);
+        System.out.printf("AttendanceRules: %.1f ns/record over %d records x %d rounds%n",
+                (double) elapsed / ((long) RECORDS * ROUNDS), RECORDS, ROUNDS);
+    }
+
+    private static List<AttendanceRecord> sample(int records) {
+        String[] shifts = {"09:00 AM - 06:00 PM", "02:00 PM - 10:00 PM", "10:00 PM - 06:00 AM", null};
+        String[] checkIns = {"08:55 AM", "09:20 AM", "02:40 PM", "11:05 PM", null};
+        String[] medical = {"none", "paid", "unpaid"};
+        List<AttendanceRecord> sample = new ArrayList<>(records);
+        for (int i = 0; i < records; i++) {
+            AttendanceRecord r = new AttendanceRecord();
+            r.setDate("2026-01-" + (i % 28 + 1));
+            r.setAssignedShift(shifts[i % shifts.length]);
+            r.setCheckInTime(checkIns[i % checkIns.length]);
+            if (i % 3 != 0) {
+                r.setCheckOutTime("06:10 PM");
+                r.setTotalHours("8h 15m");
+            }
+            if (i % 7 == 0) r.setEmergencyLeaveTime("01:30 PM");
+            r.setMedicalLeaveType(medical[i % medical.length]);
+            r.setResumeRequested(i % 5 == 0);
+            r.setFingerprintVerified(i % 11 != 0);
+            r.setGpsVerified(true);
+            if (i % 4 == 0) r.setRemarks("Transit via Branch A");
+            sample.add(r);
+        }
+        Collections.shuffle(sample, new Random(42));
+        return sample;
+    }
+}
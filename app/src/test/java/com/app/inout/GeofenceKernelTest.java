@@ -0,0 +1,101 @@
+package com.inout.app.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * {@link GeofenceKernel} against a plain haversine scan over every site (what a per-site
+ * distanceBetween loop does). Run with ./gradlew testDebugUnitTest; the timing is printed.
+ */
+public class GeofenceKernelTest {
+
+    private static final int SITES = 200;
+    private static final int FIXES = 10_000;
+    private static final int ROUNDS = 20;
+
+    private final Random random = new Random(42);
+    private final double[] siteLat = new double[SITES];
+    private final double[] siteLng = new double[SITES];
+    private final float[] siteRadius = new float[SITES];
+    private final GeofenceKernel kernel = new GeofenceKernel(SITES);
+    private final double[] lat = new double[FIXES];
+    private final double[] lng = new double[FIXES];
+
+    public GeofenceKernelTest() {
+        for (int i = 0; i < SITES; i++) {
+            siteLat[i] = 6.0 + random.nextDouble() * 3.0;
+            siteLng[i] = 79.5 + random.nextDouble() * 2.0;
+            siteRadius[i] = 50 + random.nextInt(250);
+            kernel.addSite(siteLat[i], siteLng[i], siteRadius[i]);
+        }
+        // Fixes scattered up to ~600 m around a site, so both inside, boundary and outside cases occur
+        for (int i = 0; i < FIXES; i++) {
+            int site = random.nextInt(SITES);
+            lat[i] = siteLat[site] + (random.nextDouble() - 0.5) * 0.011;
+            lng[i] = siteLng[site] + (random.nextDouble() - 0.5) * 0.011;
+        }
+    }
+
+    @Test
+    public void matchesHaversineScan() {
+        float[] distance = new float[1];
+        int inside = 0;
+        for (int i = 0; i < FIXES; i++) {
+            int expected = scan(lat[i], lng[i]);
+            int actual = kernel.findContainingSite(lat[i], lng[i], distance);
+            assertEquals("Fix " + i, expected, actual);
+            if (actual >= 0) {
+                inside++;
+                double exact = GeofenceKernel.haversineMeters(siteLat[actual], siteLng[actual], lat[i], lng[i]);
+                assertEquals("Distance of fix " + i, exact, distance[0], 0.01);
+            }
+        }
+        assertTrue("Sample covers fixes inside a site", inside > 0 && inside < FIXES);
+    }
+
+    @Test
+    public void reportsCostAgainstHaversineScan() {
+        float[] distance = new float[1];
+        long kernelNanos = 0;
+        long scanNanos = 0;
+        int matched = 0;
+        // First rounds are a JIT warm-up and are not timed
+        int warmUp = Math.max(1, ROUNDS / 5);
+        for (int round = 0; round < warmUp + ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < FIXES; i++) matched += kernel.findContainingSite(lat[i], lng[i], distance) >= 0 ? 1 : 0;
+            long kernelRound = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < FIXES; i++) matched -= scan(lat[i], lng[i]) >= 0 ? 1 : 0;
+            long scanRound = System.nanoTime() - start;
+            if (round >= warmUp) {
+                kernelNanos += kernelRound;
+                scanNanos += scanRound;
+            }
+        }
+
+        assertEquals("Kernel and scan find the same number of fixes inside", 0, matched);
+        double total = (double) FIXES * ROUNDS;
+        System.out.printf("GeofenceKernel: %d sites, %d fixes x %d rounds%n", SITES, FIXES, ROUNDS);
+        System.out.printf("  kernel: %.1f ns/fix, haversine scan: %.1f ns/fix (%.1fx)%n",
+                kernelNanos / total, scanNanos / total, (double) scanNanos / kernelNanos);
+    }
+
+    // Nearest containing site by exact haversine to every site
+    private int scan(double latitude, double longitude) {
+        int best = -1;
+        double bestDistance = Double.MAX_VALUE;
+        for (int i = 0; i < SITES; i++) {
+            double d = GeofenceKernel.haversineMeters(siteLat[i], siteLng[i], latitude, longitude);
+            if (d <= siteRadius[i] && d < bestDistance) {
+                best = i;
+                bestDistance = d;
+            }
+        }
+        return best;
+    }
+}